@@ -0,0 +1,432 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2007, Ben Fortuna
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  o Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Ben Fortuna nor the names of any other contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.fortuna.ical4j.data;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A calendar parser that reads UTF-8 encoded iCalendar data directly from a
+ * <code>java.nio.ByteBuffer</code>, such as a <code>MappedByteBuffer</code>
+ * obtained via <code>FileChannel.map()</code>. Unfolding is performed as
+ * content lines are scanned. Each content line is then decoded from UTF-8 into
+ * a reusable character buffer, from which names, parameters and values are
+ * parsed as for {@link FastCalendarParser}. Content lines that are not folded
+ * are decoded directly from the buffer without first being copied.
+ *
+ * <pre>
+ * FileChannel channel = new FileInputStream(file).getChannel();
+ * ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+ * Calendar calendar = new CalendarBuilder(new ByteBufferCalendarParser()).build(buffer);
+ * </pre>
+ *
+ * File input streams are memory-mapped a window at a time, such that files of
+ * any size may be parsed, and other input streams are read through a buffer
+ * of fixed size. As bytes are not available from a character stream, readers
+ * are parsed by a {@link FastCalendarParser}. Note that as buffers are retained
+ * between invocations this class is not thread-safe.
+ */
+public class ByteBufferCalendarParser extends ContentLineParser implements CalendarParser {
+
+    private static final int DEFAULT_WINDOW_SIZE = 16 * 1024 * 1024;
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private static final int DEFAULT_LINE_LENGTH = 256;
+
+    private static final char REPLACEMENT_CHAR = '\uFFFD';
+
+    private final int windowSize;
+
+    private FastCalendarParser readerParser;
+
+    private ByteBuffer buffer;
+
+    private int position;
+
+    private int limit;
+
+    // the file mapped a window at a time..
+    private FileChannel channel;
+
+    private long channelPosition;
+
+    private long channelSize;
+
+    // the stream read a buffer at a time..
+    private InputStream stream;
+
+    private byte[] streamBytes;
+
+    // content lines that are folded or span buffers are copied..
+    private byte[] unfolded;
+
+    private ByteBuffer unfoldedBuffer;
+
+    private int unfoldedLength;
+
+    private boolean copied;
+
+    // a segment of the current content line not yet copied, if any..
+    private int segmentStart;
+
+    private int segmentEnd;
+
+    /**
+     * Default constructor.
+     */
+    public ByteBufferCalendarParser() {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param windowSize the maximum number of bytes of a file mapped at a time
+     */
+    public ByteBufferCalendarParser(final int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Invalid window size [" + windowSize + "]");
+        }
+        this.windowSize = windowSize;
+        unfolded = new byte[DEFAULT_LINE_LENGTH];
+        unfoldedBuffer = ByteBuffer.wrap(unfolded);
+    }
+
+    /**
+     * Parses the specified input stream. A file input stream is memory-mapped
+     * from its current position a window at a time, otherwise the stream is
+     * read through a buffer.
+     * @see net.fortuna.ical4j.data.CalendarParser#parse(java.io.InputStream, net.fortuna.ical4j.data.ContentHandler)
+     */
+    public final void parse(final InputStream in, final ContentHandler handler)
+            throws IOException, ParserException {
+
+        if (in instanceof FileInputStream) {
+            channel = ((FileInputStream) in).getChannel();
+            channelPosition = channel.position();
+            channelSize = channel.size();
+        }
+        else {
+            if (streamBytes == null) {
+                streamBytes = new byte[Math.min(windowSize, DEFAULT_BUFFER_SIZE)];
+            }
+            stream = in;
+        }
+        buffer = null;
+        position = 0;
+        limit = 0;
+        parse(handler);
+    }
+
+    /**
+     * Parses the specified reader using a {@link FastCalendarParser}.
+     * @see net.fortuna.ical4j.data.CalendarParser#parse(java.io.Reader, net.fortuna.ical4j.data.ContentHandler)
+     */
+    public final void parse(final Reader in, final ContentHandler handler)
+            throws IOException, ParserException {
+
+        if (readerParser == null) {
+            readerParser = new FastCalendarParser();
+        }
+        readerParser.parse(in, handler);
+    }
+
+    /**
+     * Parse UTF-8 encoded iCalendar data from the remaining bytes in the
+     * specified buffer. The position of the buffer is not modified.
+     * @param in a buffer from which to read iCalendar data
+     * @param handler the content handler to notify during parsing
+     * @throws IOException thrown when unable to read from the specified buffer
+     * @throws ParserException thrown if an error occurs during parsing
+     */
+    public final void parse(final ByteBuffer in, final ContentHandler handler)
+            throws IOException, ParserException {
+
+        buffer = in;
+        position = in.position();
+        limit = in.limit();
+        parse(handler);
+    }
+
+    /**
+     * @param handler the content handler to notify during parsing
+     * @throws IOException where an error occurs reading input
+     * @throws ParserException where an error occurs during parsing
+     */
+    private void parse(final ContentHandler handler) throws IOException, ParserException {
+        segmentStart = -1;
+        try {
+            // skip byte order mark..
+            if ((position < limit || fill()) && limit - position >= 3
+                    && (buffer.get(position) & 0xff) == 0xef
+                    && (buffer.get(position + 1) & 0xff) == 0xbb
+                    && (buffer.get(position + 2) & 0xff) == 0xbf) {
+                position += 3;
+            }
+            parseCalendar(handler);
+        }
+        finally {
+            buffer = null;
+            channel = null;
+            stream = null;
+        }
+    }
+
+    /**
+     * Reads bytes up to the next line terminator, unfolding where required, and
+     * decodes them into the line buffer. A line terminator is any of CR, LF or
+     * CRLF.
+     * @return false if the end of input has been reached and no characters
+     * were read, otherwise true
+     * @throws IOException where an error occurs reading input
+     */
+    protected final boolean readLine() throws IOException {
+        unfoldedLength = 0;
+        copied = false;
+        segmentStart = -1;
+        lineTerminated = false;
+
+        while (true) {
+            if (position >= limit && !fill()) {
+                decodeLine();
+                return lineLength > 0;
+            }
+
+            int start = position;
+            while (position < limit && buffer.get(position) != '\r'
+                    && buffer.get(position) != '\n') {
+                position++;
+            }
+            addSegment(start, position);
+
+            if (position < limit) {
+                byte b = buffer.get(position++);
+                boolean crlf = false;
+                if (b == '\r' && (position < limit || fill())
+                        && buffer.get(position) == '\n') {
+                    position++;
+                    crlf = true;
+                }
+                // CRLF followed by a space or tab (or LF followed by a space
+                // or tab when relaxed) indicates a fold..
+                if ((crlf || (b == '\n' && relaxedUnfolding))
+                        && (position < limit || fill())
+                        && (buffer.get(position) == ' ' || buffer.get(position) == '\t')) {
+                    position++;
+                    linesUnfolded++;
+                }
+                else {
+                    linesRead++;
+                    lineTerminated = true;
+                    decodeLine();
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the specified region of the buffer to the current content line. The
+     * first segment of a content line is referenced in place, and subsequent
+     * segments are copied.
+     * @param start the start offset (inclusive)
+     * @param end the end offset (exclusive)
+     */
+    private void addSegment(final int start, final int end) {
+        if (!copied && segmentStart < 0) {
+            segmentStart = start;
+            segmentEnd = end;
+        }
+        else {
+            copySegment();
+            appendUnfolded(start, end);
+            copied = true;
+        }
+    }
+
+    /**
+     * Copies a segment of the current content line referenced in place, such
+     * that the buffer may be replaced.
+     */
+    private void copySegment() {
+        if (segmentStart >= 0) {
+            appendUnfolded(segmentStart, segmentEnd);
+            segmentStart = -1;
+            copied = true;
+        }
+    }
+
+    /**
+     * Decodes the current content line into the line buffer.
+     */
+    private void decodeLine() {
+        if (segmentStart >= 0) {
+            decodeChars(buffer, segmentStart, segmentEnd);
+        }
+        else {
+            decodeChars(unfoldedBuffer, 0, unfoldedLength);
+        }
+    }
+
+    /**
+     * Replaces the buffer with the next window of a file or the next bytes of
+     * a stream. Any segment of the current content line in the buffer is
+     * copied first.
+     * @return false if the end of input has been reached, otherwise true
+     * @throws IOException where an error occurs reading input
+     */
+    private boolean fill() throws IOException {
+        copySegment();
+        if (channel != null) {
+            if (channelPosition >= channelSize) {
+                return false;
+            }
+            long size = Math.min(windowSize, channelSize - channelPosition);
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, channelPosition, size);
+            channelPosition += size;
+            position = 0;
+            limit = (int) size;
+            return true;
+        }
+        else if (stream != null) {
+            int read = 0;
+            while (read == 0) {
+                read = stream.read(streamBytes, 0, streamBytes.length);
+            }
+            if (buffer == null) {
+                buffer = ByteBuffer.wrap(streamBytes);
+            }
+            position = 0;
+            limit = Math.max(read, 0);
+            return read > 0;
+        }
+        return false;
+    }
+
+    /**
+     * Decodes the specified region of a buffer as UTF-8 into the line buffer.
+     * Malformed sequences are replaced with the unicode replacement character.
+     * @param bytes the buffer to decode
+     * @param start the start offset (inclusive)
+     * @param end the end offset (exclusive)
+     */
+    private void decodeChars(final ByteBuffer bytes, final int start, final int end) {
+        // a UTF-8 sequence never decodes to more chars than bytes..
+        lineLength = 0;
+        ensureLineCapacity(end - start);
+
+        int length = 0;
+        int i = start;
+        while (i < end) {
+            int b = bytes.get(i++);
+            if (b >= 0) {
+                line[length++] = (char) b;
+            }
+            else if ((b & 0xe0) == 0xc0 && isContinuation(bytes, i, end, 1)) {
+                line[length++] = (char) (((b & 0x1f) << 6)
+                        | (bytes.get(i) & 0x3f));
+                i += 1;
+            }
+            else if ((b & 0xf0) == 0xe0 && isContinuation(bytes, i, end, 2)) {
+                line[length++] = (char) (((b & 0x0f) << 12)
+                        | ((bytes.get(i) & 0x3f) << 6)
+                        | (bytes.get(i + 1) & 0x3f));
+                i += 2;
+            }
+            else if ((b & 0xf8) == 0xf0 && isContinuation(bytes, i, end, 3)) {
+                int codePoint = (((b & 0x07) << 18)
+                        | ((bytes.get(i) & 0x3f) << 12)
+                        | ((bytes.get(i + 1) & 0x3f) << 6)
+                        | (bytes.get(i + 2) & 0x3f)) - 0x10000;
+                line[length++] = (char) (0xd800 + (codePoint >> 10));
+                line[length++] = (char) (0xdc00 + (codePoint & 0x3ff));
+                i += 3;
+            }
+            else {
+                line[length++] = REPLACEMENT_CHAR;
+            }
+        }
+        lineLength = length;
+    }
+
+    /**
+     * @param bytes the buffer being decoded
+     * @param offset an offset into the buffer
+     * @param end the end offset of the region being decoded
+     * @param count the number of bytes to check
+     * @return true if the specified number of bytes starting at the offset are
+     * all UTF-8 continuation bytes
+     */
+    private static boolean isContinuation(final ByteBuffer bytes, final int offset,
+            final int end, final int count) {
+        if (offset + count > end) {
+            return false;
+        }
+        for (int i = offset; i < offset + count; i++) {
+            if ((bytes.get(i) & 0xc0) != 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Appends the specified region of the buffer to the unfolded line buffer.
+     * @param start the start offset (inclusive)
+     * @param end the end offset (exclusive)
+     */
+    private void appendUnfolded(final int start, final int end) {
+        int length = end - start;
+        if (unfoldedLength + length > unfolded.length) {
+            byte[] newUnfolded = new byte[Math.max(unfolded.length * 2,
+                    unfoldedLength + length)];
+            System.arraycopy(unfolded, 0, newUnfolded, 0, unfoldedLength);
+            unfolded = newUnfolded;
+            unfoldedBuffer = ByteBuffer.wrap(unfolded);
+        }
+        if (buffer.hasArray()) {
+            System.arraycopy(buffer.array(), buffer.arrayOffset() + start,
+                    unfolded, unfoldedLength, length);
+        }
+        else {
+            for (int i = 0; i < length; i++) {
+                unfolded[unfoldedLength + i] = buffer.get(start + i);
+            }
+        }
+        unfoldedLength += length;
+    }
+}
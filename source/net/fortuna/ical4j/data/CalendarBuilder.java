@@ -40,6 +40,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.text.ParseException;
 
@@ -53,12 +54,15 @@ import net.fortuna.ical4j.model.PropertyFactoryImpl;
 import net.fortuna.ical4j.model.TimeZone;
 import net.fortuna.ical4j.model.TimeZoneRegistry;
 import net.fortuna.ical4j.model.TimeZoneRegistryFactory;
+import net.fortuna.ical4j.model.component.Observance;
 import net.fortuna.ical4j.model.component.VEvent;
 import net.fortuna.ical4j.model.component.VTimeZone;
 import net.fortuna.ical4j.model.component.VToDo;
 import net.fortuna.ical4j.model.parameter.TzId;
 import net.fortuna.ical4j.model.property.DateListProperty;
 import net.fortuna.ical4j.model.property.DateProperty;
+import net.fortuna.ical4j.model.property.DtStart;
+import net.fortuna.ical4j.model.property.RDate;
 import net.fortuna.ical4j.util.Constants;
 
 import org.apache.commons.logging.Log;
@@ -67,6 +71,17 @@ import org.apache.commons.logging.LogFactory;
 /**
  * Parses and builds an iCalendar model from an input stream.
  * Note that this class is not thread-safe.
+ * <p>
+ * By specifying the system property "ical4j.parsing.lazy=true" the parsing
+ * of property values that are costly to parse (such as dates, recurrence
+ * rules, periods and binary attachments) is deferred until the value is
+ * first accessed. Properties that are never accessed are output with their
+ * original value. Note that errors in such values are then reported as an
+ * <code>IllegalArgumentException</code> on access. Deferred values are parsed
+ * under the lock of the property, so a calendar built lazily may be read by
+ * multiple threads. The values of DTSTART and RDATE properties of timezone
+ * observances are always deferred, as timezones are compiled from their
+ * local (wall-clock) values.
  *
  * @version 2.0
  * @author Ben Fortuna
@@ -89,6 +104,8 @@ public class CalendarBuilder implements ContentHandler {
     
     protected Property property;
     
+    private boolean lazy;
+    
     /**
      * Default constructor.
      */
@@ -123,10 +140,13 @@ public class CalendarBuilder implements ContentHandler {
     public CalendarBuilder(final CalendarParser parser, final TimeZoneRegistry registry) {
         this.parser = parser;
         this.registry = registry;
+        lazy = "true".equals(System.getProperty("ical4j.parsing.lazy"));
     }
 
     /**
      * Builds an iCalendar model from the specified input stream.
+     * Where the calendar parser is a <code>ByteBufferCalendarParser</code>
+     * the stream is parsed directly, otherwise it is decoded as UTF-8.
      *
      * @param in
      * @return a calendar
@@ -135,14 +155,47 @@ public class CalendarBuilder implements ContentHandler {
      */
     public Calendar build(final InputStream in) throws IOException,
             ParserException {
+        if (parser instanceof ByteBufferCalendarParser) {
+            reset();
+            parser.parse(in, this);
+            return calendar;
+        }
         return build(new InputStreamReader(in, DEFAULT_CHARSET));
     }
 
+    /**
+     * Builds an iCalendar model from the UTF-8 encoded data remaining in the
+     * specified buffer. Where the calendar parser is not a
+     * <code>ByteBufferCalendarParser</code> a new instance is used to parse
+     * the buffer.
+     *
+     * @param in a buffer containing iCalendar data, such as a memory-mapped file
+     * @return a calendar
+     * @throws IOException
+     * @throws ParserException
+     */
+    public Calendar build(final ByteBuffer in) throws IOException,
+            ParserException {
+        ByteBufferCalendarParser bufferParser = null;
+        if (parser instanceof ByteBufferCalendarParser) {
+            bufferParser = (ByteBufferCalendarParser) parser;
+        }
+        else {
+            bufferParser = new ByteBufferCalendarParser();
+        }
+        reset();
+        bufferParser.parse(in, this);
+        return calendar;
+    }
+
     /**
      * Builds an iCalendar model from the specified reader.
      * An <code>UnfoldingReader</code> is applied to the specified
      * reader to ensure the data stream is correctly unfolded where
-     * appropriate.
+     * appropriate. Parsers that unfold content lines as they are
+     * read (<code>FastCalendarParser</code> and
+     * <code>ByteBufferCalendarParser</code>) are given the specified
+     * reader directly.
      *
      * @param in
      * @return a calendar
@@ -150,17 +203,27 @@ public class CalendarBuilder implements ContentHandler {
      * @throws ParserException
      */
     public Calendar build(final Reader in) throws IOException, ParserException {
-        UnfoldingReader uin = new UnfoldingReader(in);
+        reset();
+        
+        if (parser instanceof FastCalendarParser
+                || parser instanceof ByteBufferCalendarParser) {
+            parser.parse(in, this);
+        }
+        else {
+            parser.parse(new UnfoldingReader(in), this);
+        }
+        
+        return calendar;
+    }
 
-        // re-initialise..
+    /**
+     * Re-initialises the builder prior to building a new calendar.
+     */
+    private void reset() {
         calendar = null;
         component = null;
         subComponent = null;
         property = null;
-        
-        parser.parse(uin, this);
-        
-        return calendar;
     }
     
     /* (non-Javadoc)
@@ -253,7 +316,16 @@ public class CalendarBuilder implements ContentHandler {
      */
     public void propertyValue(final String value) throws URISyntaxException, ParseException, IOException {
         if (property != null) {
-            property.setValue(value);
+            // the onsets of observances are local times, and so are retained
+            // as parsed such that timezones may be compiled from their
+            // wall-clock fields..
+            if (lazy || (subComponent instanceof Observance
+                    && (property instanceof DtStart || property instanceof RDate))) {
+                property.deferValue(value);
+            }
+            else {
+                property.setValue(value);
+            }
         }
     }
     
@@ -280,8 +352,14 @@ public class CalendarBuilder implements ContentHandler {
      * @see net.fortuna.ical4j.data.ContentHandler#startProperty(java.lang.String)
      */
     public void startProperty(final String name) {
-        // property names are case-insensitive, but convert to upper case to simplify further processing
-        property = PropertyFactoryImpl.getInstance().createProperty(name.toUpperCase());
+        // property names are case-insensitive, so resolve known names to their upper case constants
+        // (NOTE: parsers may have resolved the name already, in which case it is returned unchanged)..
+        PropertyFactoryImpl factory = PropertyFactoryImpl.getInstance();
+        String knownName = factory.getName(name);
+        if (knownName == null) {
+            knownName = name.toUpperCase();
+        }
+        property = factory.createProperty(knownName);
     }
 
     /**
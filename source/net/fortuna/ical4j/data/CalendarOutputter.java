@@ -77,7 +77,7 @@ public class CalendarOutputter {
      *            indicates whether to validate calendar when outputting to
      *            stream
      * @param foldLength
-     *            maximum number of characters before a line is folded
+     *            maximum number of octets before a line is folded
      */
     public CalendarOutputter(final boolean validating, final int foldLength) {
         this.validating = validating;
@@ -121,7 +121,7 @@ public class CalendarOutputter {
 
         try {
 
-            writer.write(calendar.toString());
+            calendar.write(writer);
         } finally {
 
             writer.close();
@@ -151,7 +151,7 @@ public class CalendarOutputter {
 
         try {
 
-            writer.write(calendar.toString(filter));
+            calendar.write(writer, filter);
         } finally {
 
             writer.close();
@@ -0,0 +1,479 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2007, Ben Fortuna
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  o Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Ben Fortuna nor the names of any other contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.fortuna.ical4j.data;
+
+import java.io.IOException;
+
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.Component;
+import net.fortuna.ical4j.model.ComponentFactory;
+import net.fortuna.ical4j.model.PropertyFactoryImpl;
+import net.fortuna.ical4j.util.Strings;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * The content line grammar shared by parsers that read unfolded content lines
+ * into a character buffer. Each content line is split into name, parameters
+ * and value, such that strings are only created for the parts passed to the
+ * content handler. Sub-classes are responsible only for reading (and
+ * unfolding) content lines from their source.
+ *
+ * @see FastCalendarParser
+ * @see ByteBufferCalendarParser
+ */
+abstract class ContentLineParser {
+
+    private static final int WHITESPACE_CHAR_END = 20;
+
+    private static final int DEFAULT_LINE_LENGTH = 256;
+
+    private static Log log = LogFactory.getLog(ContentLineParser.class);
+
+    /**
+     * The current content line, unfolded.
+     */
+    protected char[] line;
+
+    /**
+     * The length of the current content line.
+     */
+    protected int lineLength;
+
+    /**
+     * Indicates whether the current content line was terminated by a line
+     * terminator (rather than the end of input).
+     */
+    protected boolean lineTerminated;
+
+    /**
+     * The number of line terminators read (excluding folds).
+     */
+    protected int linesRead;
+
+    /**
+     * The number of folds removed by unfolding.
+     */
+    protected int linesUnfolded;
+
+    /**
+     * Indicates whether a line feed followed by a space or tab is treated as
+     * a fold (in addition to CRLF).
+     */
+    protected boolean relaxedUnfolding;
+
+    private int lineNumber;
+
+    /**
+     * Default constructor.
+     */
+    protected ContentLineParser() {
+        line = new char[DEFAULT_LINE_LENGTH];
+    }
+
+    /**
+     * Reads the next content line into the line buffer, unfolding where
+     * required. A line terminator is any of CR, LF or CRLF.
+     * @return false if the end of input has been reached and no characters
+     * were read, otherwise true
+     * @throws IOException where an error occurs reading input
+     */
+    protected abstract boolean readLine() throws IOException;
+
+    /**
+     * @return the number of folds removed from the input prior to parsing
+     * (e.g. by an <code>UnfoldingReader</code>), for error reporting
+     */
+    protected int getLinesUnfoldedExternally() {
+        return 0;
+    }
+
+    /**
+     * Ensures the line buffer can hold the specified number of characters,
+     * retaining the current content line.
+     * @param length the required capacity of the line buffer
+     */
+    protected final void ensureLineCapacity(final int length) {
+        if (length > line.length) {
+            char[] newLine = new char[Math.max(line.length * 2, length)];
+            System.arraycopy(line, 0, newLine, 0, lineLength);
+            line = newLine;
+        }
+    }
+
+    /**
+     * Parses a calendar from the content lines read by {@link #readLine()}.
+     * @param handler the content handler to notify during parsing
+     * @throws IOException where an error occurs reading input
+     * @throws ParserException where an error occurs during parsing
+     */
+    protected final void parseCalendar(final ContentHandler handler)
+            throws IOException, ParserException {
+
+        lineNumber = 0;
+        linesRead = 0;
+        linesUnfolded = 0;
+        relaxedUnfolding = "true".equals(System.getProperty("ical4j.unfolding.relaxed"));
+
+        try {
+            // BEGIN:VCALENDAR
+            nextContentLine();
+            int start = skipWhitespace(0);
+            int nameEnd = scanName(start);
+            if (!regionEquals(start, nameEnd, Calendar.BEGIN)) {
+                throw new ParserException("Expected [" + Calendar.BEGIN
+                        + "], read [" + new String(line, start, nameEnd - start)
+                        + "] at line " + lineNumber);
+            }
+            String name = parseComponentName(nameEnd);
+            if (!Calendar.VCALENDAR.equalsIgnoreCase(name)) {
+                throw new ParserException("Expected [" + Calendar.VCALENDAR
+                        + "], read [" + name + "] at line " + lineNumber);
+            }
+
+            handler.startCalendar();
+
+            // parse calendar properties and components..
+            parseContentLines(Calendar.VCALENDAR, true, handler);
+
+            handler.endCalendar();
+        }
+        catch (Exception e) {
+
+            if (e instanceof IOException) {
+                throw (IOException) e;
+            }
+            if (e instanceof ParserException) {
+                throw (ParserException) e;
+            }
+            else {
+                // need to take unfolded lines into account
+                throw new ParserException("An error ocurred during parsing - line: "
+                        + (lineNumber + linesUnfolded + getLinesUnfoldedExternally()), e);
+            }
+        }
+    }
+
+    /**
+     * Parses content lines until the end of the named component is reached.
+     * Nested components are parsed recursively.
+     * @param name the name of the enclosing component
+     * @param ignoreCase indicates whether the name of the enclosing component
+     * is matched case-insensitively
+     * @param handler the content handler to notify
+     * @throws Exception
+     */
+    private void parseContentLines(final String name, final boolean ignoreCase,
+            final ContentHandler handler) throws Exception {
+
+        while (true) {
+            nextContentLine();
+
+            int start = skipWhitespace(0);
+            int nameEnd = scanName(start);
+
+            if (regionEquals(start, nameEnd, Component.END)) {
+                String endName = parseComponentName(nameEnd);
+                if (ignoreCase ? !name.equalsIgnoreCase(endName) : !name.equals(endName)) {
+                    throw new ParserException("Expected [" + name + "], read ["
+                            + endName + "] at line " + lineNumber);
+                }
+                lineNumber = linesRead + 1;
+                return;
+            }
+            else if (regionEquals(start, nameEnd, Component.BEGIN)) {
+                parseComponent(parseComponentName(nameEnd), handler);
+            }
+            else {
+                parseProperty(start, nameEnd, handler);
+            }
+        }
+    }
+
+    /**
+     * Parses an iCalendar component, the BEGIN content line of which has
+     * already been read.
+     * @param name the component name
+     * @param handler the content handler to notify
+     * @throws Exception
+     */
+    private void parseComponent(final String name, final ContentHandler handler)
+            throws Exception {
+
+        handler.startComponent(name);
+
+        parseContentLines(name, false, handler);
+
+        handler.endComponent(name);
+    }
+
+    /**
+     * Parses an iCalendar property from the current content line.
+     * @param start the offset of the property name
+     * @param nameEnd the offset immediately following the property name
+     * @param handler the content handler to notify
+     * @throws Exception
+     */
+    private void parseProperty(final int start, final int nameEnd,
+            final ContentHandler handler) throws Exception {
+
+        if (nameEnd == start) {
+            throw new ParserException("Expected [property name], read ["
+                    + new String(line, 0, lineLength) + "] at line " + lineNumber);
+        }
+
+        // known names are resolved without creating a string..
+        String name = PropertyFactoryImpl.getInstance().getName(line, start,
+                nameEnd - start);
+        if (name == null) {
+            name = new String(line, start, nameEnd - start);
+        }
+
+        // debugging..
+        if (log.isDebugEnabled()) {
+            log.debug("Property [" + name + "]");
+        }
+
+        handler.startProperty(name);
+
+        int i = skipWhitespace(nameEnd);
+        while (i < lineLength && line[i] == ';') {
+            i = parseParameter(i + 1, handler);
+        }
+
+        assertChar(i, ':');
+
+        if (!lineTerminated) {
+            throw new ParserException("Unexpected end of file at line " + lineNumber);
+        }
+
+        // errors in handling the value are reported against the following
+        // line, consistent with the default parser..
+        lineNumber = linesRead + 1;
+
+        handler.propertyValue(unescape(i + 1, lineLength));
+        handler.endProperty(name);
+    }
+
+    /**
+     * Parses an iCalendar parameter from the current content line.
+     * @param offset the offset immediately following the parameter delimiter
+     * @param handler the content handler to notify
+     * @return the offset immediately following the parameter
+     * @throws Exception
+     */
+    private int parseParameter(final int offset, final ContentHandler handler)
+            throws Exception {
+
+        int start = skipWhitespace(offset);
+        int end = scanName(start);
+
+        String paramName = new String(line, start, end - start);
+
+        // debugging..
+        if (log.isDebugEnabled()) {
+            log.debug("Parameter [" + paramName + "]");
+        }
+
+        int i = skipWhitespace(end);
+        assertChar(i, '=');
+        i = skipWhitespace(i + 1);
+
+        String paramValue = null;
+
+        // preserve quote chars..
+        if (i < lineLength && line[i] == '"') {
+            int close = i + 1;
+            while (close < lineLength && line[close] != '"') {
+                close++;
+            }
+            if (close >= lineLength) {
+                throw new ParserException("Unterminated quoted string at line "
+                        + lineNumber);
+            }
+            paramValue = unescape(i, close + 1);
+            i = close + 1;
+        }
+        else {
+            int valueEnd = i;
+            while (valueEnd < lineLength && line[valueEnd] != ':'
+                    && line[valueEnd] != ';') {
+                valueEnd++;
+            }
+            paramValue = unescape(i, trimWhitespace(i, valueEnd));
+            i = valueEnd;
+        }
+
+        handler.parameter(paramName, paramValue);
+
+        return skipWhitespace(i);
+    }
+
+    /**
+     * Returns the name of the component specified in a BEGIN or END content
+     * line.
+     * @param offset the offset immediately following the BEGIN or END token
+     * @return the component name
+     * @throws ParserException where the content line is not of the expected form
+     */
+    private String parseComponentName(final int offset) throws ParserException {
+        int i = skipWhitespace(offset);
+        assertChar(i, ':');
+        int start = skipWhitespace(i + 1);
+        int end = scanName(start);
+        if (end == start || skipWhitespace(end) < lineLength) {
+            throw new ParserException("Expected [component name], read ["
+                    + new String(line, start, lineLength - start)
+                    + "] at line " + lineNumber);
+        }
+        // known names are resolved without creating a string..
+        String name = ComponentFactory.getInstance().getName(line, start, end - start);
+        if (name == null) {
+            name = new String(line, start, end - start);
+        }
+        return name;
+    }
+
+    /**
+     * Asserts that the character at the specified offset of the current content
+     * line matches the specified character.
+     * @param offset an offset into the current content line
+     * @param c the expected character
+     * @throws ParserException where the expected character is not found
+     */
+    private void assertChar(final int offset, final char c) throws ParserException {
+        if (offset >= lineLength || line[offset] != c) {
+            throw new ParserException("Expected [" + c + "], read ["
+                    + (offset < lineLength ? String.valueOf(line[offset]) : "EOL")
+                    + "] at line " + lineNumber);
+        }
+    }
+
+    /**
+     * Creates a string from the specified region of the current content line,
+     * unescaping where necessary.
+     * @param start the start offset (inclusive)
+     * @param end the end offset (exclusive)
+     * @return an unescaped string
+     */
+    private String unescape(final int start, final int end) {
+        String value = new String(line, start, end - start);
+        for (int i = start; i < end; i++) {
+            if (line[i] == '\\') {
+                return Strings.unescape(value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * @param offset an offset into the current content line
+     * @return the offset of the first non-whitespace character at or following
+     * the specified offset
+     */
+    private int skipWhitespace(final int offset) {
+        int i = offset;
+        while (i < lineLength && line[i] <= WHITESPACE_CHAR_END) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * @param start the start offset of a region of the current content line
+     * @param end the end offset of a region of the current content line
+     * @return the end offset of the region excluding trailing whitespace
+     */
+    private int trimWhitespace(final int start, final int end) {
+        int i = end;
+        while (i > start && line[i - 1] <= WHITESPACE_CHAR_END) {
+            i--;
+        }
+        return i;
+    }
+
+    /**
+     * @param offset an offset into the current content line
+     * @return the offset immediately following the name token starting at the
+     * specified offset
+     */
+    private int scanName(final int offset) {
+        int i = offset;
+        while (i < lineLength) {
+            char c = line[i];
+            if (c == ':' || c == ';' || c == '=' || c == '"'
+                    || c <= WHITESPACE_CHAR_END) {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * @param start the start offset of a region of the current content line
+     * @param end the end offset of a region of the current content line
+     * @param s a string to compare
+     * @return true if the region matches the specified string exactly
+     */
+    private boolean regionEquals(final int start, final int end, final String s) {
+        if (end - start != s.length()) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (line[i] != s.charAt(i - start)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the next non-empty content line into the line buffer.
+     * @throws IOException where an error occurs reading input
+     * @throws ParserException where the end of input is reached
+     */
+    private void nextContentLine() throws IOException, ParserException {
+        // absorb extraneous whitespace between content lines (KOrganizer)..
+        do {
+            lineNumber = linesRead + 1;
+            if (!readLine()) {
+                throw new ParserException("Unexpected end of file at line "
+                        + lineNumber);
+            }
+        }
+        while (skipWhitespace(0) == lineLength);
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2007, Ben Fortuna
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  o Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Ben Fortuna nor the names of any other contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.fortuna.ical4j.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+/**
+ * A calendar parser that scans content lines directly from a character buffer
+ * rather than tokenising the stream with <code>java.io.StreamTokenizer</code>.
+ * Each content line is unfolded into a reusable buffer as it is read and split
+ * into name, parameters and value, such that strings are only created for the
+ * parts passed to the content handler. As such an <code>UnfoldingReader</code>
+ * is not required. The same content handler notifications are
+ * issued as by {@link CalendarParserImpl}, and this parser may be used in its
+ * place by constructing a builder as follows:
+ *
+ * <pre>
+ * CalendarBuilder builder = new CalendarBuilder(new FastCalendarParser());
+ * </pre>
+ *
+ * Note that as buffers are retained between invocations this class is not
+ * thread-safe.
+ */
+public class FastCalendarParser extends ContentLineParser implements CalendarParser {
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private char[] buffer;
+
+    private int position;
+
+    private int limit;
+
+    private Reader reader;
+
+    /**
+     * Default constructor.
+     */
+    public FastCalendarParser() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param bufferSize the number of characters to read from the underlying
+     * reader at a time
+     */
+    public FastCalendarParser(final int bufferSize) {
+        buffer = new char[bufferSize];
+    }
+
+    /* (non-Javadoc)
+     * @see net.fortuna.ical4j.data.CalendarParser#parse(java.io.InputStream, net.fortuna.ical4j.data.ContentHandler)
+     */
+    public final void parse(final InputStream in, final ContentHandler handler)
+            throws IOException, ParserException {
+        parse(new InputStreamReader(in), handler);
+    }
+
+    /* (non-Javadoc)
+     * @see net.fortuna.ical4j.data.CalendarParser#parse(java.io.Reader, net.fortuna.ical4j.data.ContentHandler)
+     */
+    public final void parse(final Reader in, final ContentHandler handler)
+            throws IOException, ParserException {
+
+        reader = in;
+        position = 0;
+        limit = 0;
+        try {
+            parseCalendar(handler);
+        }
+        finally {
+            reader = null;
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see net.fortuna.ical4j.data.ContentLineParser#getLinesUnfoldedExternally()
+     */
+    protected final int getLinesUnfoldedExternally() {
+        if (reader instanceof UnfoldingReader) {
+            return ((UnfoldingReader) reader).getLinesUnfolded();
+        }
+        return 0;
+    }
+
+    /**
+     * Reads characters up to the next line terminator into the line buffer,
+     * unfolding where required. A line terminator is any of CR, LF or CRLF.
+     * @return false if the end of the stream has been reached and no
+     * characters were read, otherwise true
+     * @throws IOException where an error occurs reading from the underlying reader
+     */
+    protected final boolean readLine() throws IOException {
+        lineLength = 0;
+        lineTerminated = false;
+
+        while (true) {
+            if (position >= limit && !fill()) {
+                return lineLength > 0;
+            }
+
+            int start = position;
+            while (position < limit && buffer[position] != '\r'
+                    && buffer[position] != '\n') {
+                position++;
+            }
+            append(start, position);
+
+            if (position < limit) {
+                char c = buffer[position++];
+                boolean crlf = false;
+                if (c == '\r' && (position < limit || fill())
+                        && buffer[position] == '\n') {
+                    position++;
+                    crlf = true;
+                }
+                // CRLF followed by a space or tab (or LF followed by a space
+                // or tab when relaxed) indicates a fold..
+                if ((crlf || (c == '\n' && relaxedUnfolding))
+                        && (position < limit || fill())
+                        && (buffer[position] == ' ' || buffer[position] == '\t')) {
+                    position++;
+                    linesUnfolded++;
+                }
+                else {
+                    linesRead++;
+                    lineTerminated = true;
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends the specified region of the read buffer to the line buffer.
+     * @param start the start offset (inclusive)
+     * @param end the end offset (exclusive)
+     */
+    private void append(final int start, final int end) {
+        int length = end - start;
+        ensureLineCapacity(lineLength + length);
+        System.arraycopy(buffer, start, line, lineLength, length);
+        lineLength += length;
+    }
+
+    /**
+     * Refills the read buffer from the underlying reader.
+     * @return false if the end of the stream has been reached, otherwise true
+     * @throws IOException where an error occurs reading from the underlying reader
+     */
+    private boolean fill() throws IOException {
+        int read = 0;
+        while (read == 0) {
+            read = reader.read(buffer, 0, buffer.length);
+        }
+        position = 0;
+        limit = Math.max(read, 0);
+        return read > 0;
+    }
+}
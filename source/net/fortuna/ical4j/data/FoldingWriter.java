@@ -37,11 +37,11 @@ import java.io.FilterWriter;
 import java.io.IOException;
 import java.io.Writer;
 
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
-
 /**
- * A writer that performs iCalendar folding as it writes.
+ * A writer that performs iCalendar folding as it writes. Line length is
+ * measured in UTF-8 octets, and a line is never folded in the middle of a
+ * character (or surrogate pair). Characters between folds are passed to the
+ * underlying writer in bulk.
  *
  * @author Ben Fortuna
  */
@@ -55,15 +55,18 @@ public class FoldingWriter extends FilterWriter {
 
     private static final char[] FOLD_PATTERN = {'\r', '\n', ' '};
 
-    private static Log log = LogFactory.getLog(FoldingWriter.class);
+    private static final int BUFFER_SIZE = 1024;
 
     private int lineLength;
 
     private int foldLength;
 
+    private char[] buffer;
+
     /**
      * @param writer a writer to write output to
-     * @param foldLength
+     * @param foldLength the maximum number of octets in a line before it is
+     * folded
      */
     public FoldingWriter(final Writer writer, final int foldLength) {
         super(writer);
@@ -77,119 +80,76 @@ public class FoldingWriter extends FilterWriter {
         this(writer, REDUCED_FOLD_LENGTH);
     }
 
-    /*
-     * (non-Javadoc)
-     *
+    /* (non-Javadoc)
      * @see java.io.FilterWriter#write(int)
-     *
      */
     public final void write(final int c) throws IOException {
-
-        /*
-        super.write(c);
-
-        if (c == '\n') {
-            lineLength = 0;
-        }
-        else {
-            lineLength += 1;
-        }
-
-        if (lineLength >= FOLD_LENGTH) {
-            super.write(FOLD_PATTERN);
-        }
-        */
         write(new char[] {(char) c}, 0, 1);
     }
 
-
     /* (non-Javadoc)
      * @see java.io.FilterWriter#write(char[], int, int)
      */
-    public final void write(final char[] buffer, final int offset, final int length) throws IOException {
-        int maxIndex = offset + length - 1;
-        for (int i = offset; i <= maxIndex; i++) {
-
-            // debugging..
-            if (log.isDebugEnabled()) {
-                log.debug("char [" + buffer[i] + "], line length [" + lineLength + "]");
+    public final void write(final char[] cbuf, final int offset, final int length) throws IOException {
+        int end = offset + length;
+        // start of the characters not yet written..
+        int start = offset;
+        for (int i = offset; i < end; i++) {
+            char c = cbuf[i];
+
+            int octets;
+            if (c == '\n') {
+                lineLength = 0;
+                continue;
+            }
+            else if (c == '\r') {
+                // never fold ahead of a line break..
+                continue;
+            }
+            else if (c < 0x80) {
+                octets = 1;
+            }
+            else if (c < 0x800) {
+                octets = 2;
+            }
+            else if (c >= '\uD800' && c <= '\uDBFF') {
+                // a surrogate pair is four octets, all counted against the
+                // high surrogate so the pair is never split..
+                octets = 4;
+            }
+            else if (c >= '\uDC00' && c <= '\uDFFF') {
+                continue;
+            }
+            else {
+                octets = 3;
             }
 
             // check for fold first so we don't unnecessarily fold after
             // no more data..
-            if (lineLength >= foldLength) {
-                super.write(FOLD_PATTERN, 0, FOLD_PATTERN.length);
+            if (lineLength + octets > foldLength && lineLength > 1) {
+                out.write(cbuf, start, i - start);
+                out.write(FOLD_PATTERN, 0, FOLD_PATTERN.length);
+                start = i;
 
                 // re-initialise to 1 to account for the space in fold pattern..
                 lineLength = 1;
             }
-
-            super.write(buffer[i]);
-
-            if (buffer[i] == '\n') {
-                lineLength = 0;
-            }
-            else {
-                lineLength += 1;
-            }
+            lineLength += octets;
         }
+        out.write(cbuf, start, end - start);
     }
 
-
     /* (non-Javadoc)
      * @see java.io.FilterWriter#write(java.lang.String, int, int)
      */
     public final void write(final String str, final int off, final int len) throws IOException {
-        write(str.toCharArray(), off, len);
+        if (buffer == null) {
+            buffer = new char[BUFFER_SIZE];
+        }
+        for (int i = off; i < off + len; i += BUFFER_SIZE) {
+            int n = Math.min(BUFFER_SIZE, off + len - i);
+            str.getChars(i, i + n, buffer, 0);
+            write(buffer, 0, n);
+        }
     }
-
-    /*
-     * (non-Javadoc)
-     *
-     * @see java.io.FilterWriter#write(java.lang.String, int, int)
-     *
-     * public void write(String arg0, int arg1, int arg2) throws IOException {
-     *
-     * super.write(arg0, arg1, arg2);
-     *
-     * if (arg0.indexOf('\n') >= 0) {
-     *
-     * lineLength = 0; } else {
-     *
-     * lineLength += 1; }
-     *
-     * fold(); }
-     */
-
-    /*
-     * (non-Javadoc)
-     *
-     * @see java.io.Writer#write(java.lang.String)
-     *
-     * public void write(String arg0) throws IOException {
-     *  /* if (lineLength + arg0.length() >= FOLD_LENGTH) {
-     *
-     * super.write(arg0.substring(0,FOLD_LENGTH-lineLength-1));
-     *
-     * super.write(FOLD_PATTERN);
-     *
-     * super.write(arg0.substring(FOLD_LENGTH-lineLength)); } else {
-     *
-     * super.write(arg0); }
-     *
-     * if (arg0.indexOf('\n') >= 0) {
-     *
-     * lineLength = 0; } else {
-     *
-     * lineLength += 1; }
-     *
-     * fold();
-     *
-     *
-     * char[] chars = arg0.toCharArray();
-     *
-     * for (int i=0; i <chars.length; i++) {
-     *
-     * write(chars[i]); } }
-     */
 }
@@ -0,0 +1,537 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2007, Ben Fortuna
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  o Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Ben Fortuna nor the names of any other contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.fortuna.ical4j.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.CompiledTimeZoneRegistry;
+import net.fortuna.ical4j.model.Component;
+import net.fortuna.ical4j.model.TimeZone;
+import net.fortuna.ical4j.model.TimeZoneRegistry;
+import net.fortuna.ical4j.model.TimeZoneRegistryFactory;
+import net.fortuna.ical4j.model.TimeZoneRegistryImpl;
+
+/**
+ * Builds an iCalendar model using a number of threads. The calendar data is
+ * first read into memory and scanned for the boundaries of top-level
+ * components. VTIMEZONE components are built (and registered) first, after
+ * which the remaining components are divided into batches and built
+ * concurrently. Components are added to the resulting calendar in their
+ * original order. Note that as timezones are built first they are also
+ * applied to components that precede the corresponding VTIMEZONE.
+ * <p>
+ * Where the calendar data is invalid the data is parsed again sequentially
+ * such that the resulting exception is consistent with that of
+ * {@link CalendarBuilder}.
+ * Note that this class is not thread-safe.
+ */
+public class ParallelCalendarBuilder {
+
+    private static final Charset DEFAULT_CHARSET = Charset.forName("UTF-8");
+
+    private static final String BEGIN = "BEGIN:";
+
+    private static final String END = "END:";
+
+    private static final String BEGIN_CALENDAR = "BEGIN:VCALENDAR\r\n";
+
+    private static final String END_CALENDAR = "END:VCALENDAR\r\n";
+
+    /**
+     * The number of batches allocated to each thread. More than one batch per
+     * thread allows for components of varying complexity.
+     */
+    private static final int BATCHES_PER_THREAD = 4;
+
+    private int threads;
+
+    private TimeZoneRegistry registry;
+
+    /**
+     * Default constructor. Uses a thread per available processor.
+     */
+    public ParallelCalendarBuilder() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param threads the number of threads used to build components
+     */
+    public ParallelCalendarBuilder(final int threads) {
+        this(threads, TimeZoneRegistryFactory.getInstance().createRegistry());
+    }
+
+    /**
+     * @param threads the number of threads used to build components
+     * @param registry a timezone registry used to retrieve timezones and
+     * register additional timezone information found in the calendar. Access
+     * to registries other than those provided by ical4j is serialised, as
+     * they may not be thread-safe
+     */
+    public ParallelCalendarBuilder(final int threads, final TimeZoneRegistry registry) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Invalid number of threads: " + threads);
+        }
+        this.threads = threads;
+        this.registry = registry;
+    }
+
+    /**
+     * Builds an iCalendar model from the specified UTF-8 encoded input stream.
+     * @param in an input stream from which to read iCalendar data
+     * @return a calendar
+     * @throws IOException
+     * @throws ParserException
+     */
+    public Calendar build(final InputStream in) throws IOException,
+            ParserException {
+        return build(new InputStreamReader(in, DEFAULT_CHARSET));
+    }
+
+    /**
+     * Builds an iCalendar model from the specified reader.
+     * @param in a reader from which to read iCalendar data
+     * @return a calendar
+     * @throws IOException
+     * @throws ParserException
+     */
+    public Calendar build(final Reader in) throws IOException, ParserException {
+        String data = read(in);
+
+        List chunks = new ArrayList();
+        String header = scan(data, chunks);
+        if (header == null) {
+            // not a well-formed calendar..
+            return buildSequential(data);
+        }
+
+        try {
+            Calendar calendar = new CalendarBuilder(registry).build(
+                    new StringReader(header));
+
+            Component[] components = new Component[chunks.size()];
+
+            // build timezones first such that they are registered prior to
+            // building other components..
+            List timezones = new ArrayList();
+            List batch = new ArrayList();
+            for (Iterator i = chunks.iterator(); i.hasNext();) {
+                Chunk chunk = (Chunk) i.next();
+                if (chunk.timezone) {
+                    timezones.add(chunk);
+                }
+                else {
+                    batch.add(chunk);
+                }
+            }
+            if (!timezones.isEmpty()) {
+                new Batch(data, timezones).build(new CalendarBuilder(registry), components);
+            }
+
+            List batches = new ArrayList();
+            int batchSize = Math.max(1, (batch.size() + threads * BATCHES_PER_THREAD - 1)
+                    / (threads * BATCHES_PER_THREAD));
+            for (int i = 0; i < batch.size(); i += batchSize) {
+                batches.add(new Batch(data, batch.subList(i, Math.min(i + batchSize, batch.size()))));
+            }
+            buildBatches(batches, components);
+
+            for (int i = 0; i < components.length; i++) {
+                calendar.getComponents().add(components[i]);
+            }
+            return calendar;
+        }
+        catch (ParserException pe) {
+            // re-parse to report the error relative to the original data..
+            return buildSequential(data);
+        }
+    }
+
+    /**
+     * Builds the specified batches of components concurrently.
+     * @param batches a list of batches to build
+     * @param components an array populated with the built components
+     * @throws IOException
+     * @throws ParserException
+     */
+    private void buildBatches(final List batches, final Component[] components)
+            throws IOException, ParserException {
+
+        Worker[] workers = new Worker[Math.min(threads, batches.size())];
+        BatchQueue queue = new BatchQueue(batches);
+        TimeZoneRegistry workerRegistry = registry;
+        if (registry != null && !isThreadSafe(registry)) {
+            workerRegistry = new SynchronizedRegistry(registry);
+        }
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker(queue, new CalendarBuilder(workerRegistry), components);
+        }
+        // build with the current thread also..
+        Thread[] workerThreads = new Thread[workers.length - 1];
+        for (int i = 0; i < workerThreads.length; i++) {
+            workerThreads[i] = new Thread(workers[i + 1], "ParallelCalendarBuilder-" + (i + 1));
+            workerThreads[i].start();
+        }
+        if (workers.length > 0) {
+            workers[0].run();
+        }
+        for (int i = 0; i < workerThreads.length; i++) {
+            try {
+                workerThreads[i].join();
+            }
+            catch (InterruptedException ie) {
+                queue.cancel();
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted building components");
+            }
+        }
+        for (int i = 0; i < workers.length; i++) {
+            workers[i].rethrow();
+        }
+    }
+
+    /**
+     * @param data the calendar data to build
+     * @return a calendar built from the specified data in the current thread
+     * @throws IOException
+     * @throws ParserException
+     */
+    private Calendar buildSequential(final String data) throws IOException,
+            ParserException {
+        return new CalendarBuilder(registry).build(new StringReader(data));
+    }
+
+    /**
+     * Reads all remaining characters from the specified reader.
+     * @param in a reader
+     * @return the characters read
+     * @throws IOException
+     */
+    private static String read(final Reader in) throws IOException {
+        StringBuffer b = new StringBuffer();
+        char[] buffer = new char[8192];
+        int read = 0;
+        while ((read = in.read(buffer)) >= 0) {
+            b.append(buffer, 0, read);
+        }
+        return b.toString();
+    }
+
+    /**
+     * Scans the specified data for the boundaries of top-level components.
+     * Folded lines are continued with whitespace and so are not mistaken
+     * for component boundaries.
+     * @param data calendar data
+     * @param chunks a list populated with the location of each top-level
+     * component
+     * @return the calendar with all top-level components removed, or null
+     * if the data does not contain a complete calendar
+     */
+    private static String scan(final String data, final List chunks) {
+        StringBuffer header = new StringBuffer();
+        int depth = 0;
+        Chunk chunk = null;
+        int start = 0;
+        while (start < data.length()) {
+            int end = data.indexOf('\n', start);
+            if (end < 0) {
+                end = data.length();
+            }
+            else {
+                end++;
+            }
+
+            int previousDepth = depth;
+            boolean begin = data.regionMatches(true, start, BEGIN, 0, BEGIN.length());
+            if (begin || data.regionMatches(true, start, END, 0, END.length())) {
+                if (begin) {
+                    depth++;
+                }
+                else {
+                    depth--;
+                }
+                if (depth == 0) {
+                    // end of calendar..
+                    header.append(data.substring(start, end));
+                    return header.toString();
+                }
+                else if (depth == 1 && !begin) {
+                    // end of top-level component..
+                    chunk.end = end;
+                    chunks.add(chunk);
+                    chunk = null;
+                }
+                else if (depth == 2 && begin) {
+                    // start of top-level component..
+                    String name = data.substring(start + BEGIN.length(), end).trim();
+                    chunk = new Chunk(chunks.size(), start, Component.VTIMEZONE.equalsIgnoreCase(name));
+                }
+                else if (depth < 0) {
+                    return null;
+                }
+            }
+            if (depth == 1 && previousDepth <= 1) {
+                header.append(data.substring(start, end));
+            }
+            start = end;
+        }
+        return null;
+    }
+
+    /**
+     * The location of a top-level component in calendar data.
+     */
+    private static class Chunk {
+
+        private int index;
+
+        private int start;
+
+        private int end;
+
+        private boolean timezone;
+
+        /**
+         * @param index the index of the component in the calendar
+         * @param start the offset of the first character of the component
+         * @param timezone indicates whether the component is a VTIMEZONE
+         */
+        public Chunk(final int index, final int start, final boolean timezone) {
+            this.index = index;
+            this.start = start;
+            this.timezone = timezone;
+        }
+    }
+
+    /**
+     * A number of top-level components built as a single unit.
+     */
+    private static class Batch {
+
+        private String data;
+
+        private List chunks;
+
+        /**
+         * @param data calendar data
+         * @param chunks the chunks of calendar data included in the batch
+         */
+        public Batch(final String data, final List chunks) {
+            this.data = data;
+            this.chunks = chunks;
+        }
+
+        /**
+         * @param builder the builder used to build the batch
+         * @param components an array populated with the built components
+         * @throws IOException
+         * @throws ParserException
+         */
+        public void build(final CalendarBuilder builder, final Component[] components)
+                throws IOException, ParserException {
+            StringBuffer b = new StringBuffer(BEGIN_CALENDAR);
+            for (Iterator i = chunks.iterator(); i.hasNext();) {
+                Chunk chunk = (Chunk) i.next();
+                b.append(data.substring(chunk.start, chunk.end));
+            }
+            b.append(END_CALENDAR);
+
+            Calendar calendar = builder.build(new StringReader(b.toString()));
+            if (calendar.getComponents().size() != chunks.size()) {
+                throw new ParserException("Unexpected number of components: "
+                        + calendar.getComponents().size());
+            }
+            Iterator j = calendar.getComponents().iterator();
+            for (Iterator i = chunks.iterator(); i.hasNext();) {
+                Chunk chunk = (Chunk) i.next();
+                components[chunk.index] = (Component) j.next();
+            }
+        }
+    }
+
+    /**
+     * A queue of batches shared by workers.
+     */
+    private static class BatchQueue {
+
+        private List batches;
+
+        private int next;
+
+        /**
+         * @param batches the batches to build
+         */
+        public BatchQueue(final List batches) {
+            this.batches = batches;
+        }
+
+        /**
+         * @return the next batch to build, or null if no batches remain
+         */
+        public synchronized Batch next() {
+            if (next < batches.size()) {
+                return (Batch) batches.get(next++);
+            }
+            return null;
+        }
+
+        /**
+         * Prevents any remaining batches from being built.
+         */
+        public synchronized void cancel() {
+            next = batches.size();
+        }
+    }
+
+    /**
+     * Builds batches from a queue until the queue is empty or an error occurs.
+     */
+    private static class Worker implements Runnable {
+
+        private BatchQueue queue;
+
+        private CalendarBuilder builder;
+
+        private Component[] components;
+
+        private Exception exception;
+
+        private RuntimeException runtimeException;
+
+        /**
+         * @param queue the source of batches to build
+         * @param builder the builder used exclusively by this worker
+         * @param components an array populated with the built components
+         */
+        public Worker(final BatchQueue queue, final CalendarBuilder builder,
+                final Component[] components) {
+            this.queue = queue;
+            this.builder = builder;
+            this.components = components;
+        }
+
+        /* (non-Javadoc)
+         * @see java.lang.Runnable#run()
+         */
+        public void run() {
+            try {
+                for (Batch batch = queue.next(); batch != null; batch = queue.next()) {
+                    batch.build(builder, components);
+                }
+            }
+            catch (RuntimeException re) {
+                runtimeException = re;
+                queue.cancel();
+            }
+            catch (Exception e) {
+                exception = e;
+                queue.cancel();
+            }
+        }
+
+        /**
+         * Rethrows any exception that occurred building batches.
+         * @throws IOException
+         * @throws ParserException
+         */
+        public void rethrow() throws IOException, ParserException {
+            if (runtimeException != null) {
+                throw runtimeException;
+            }
+            else if (exception instanceof ParserException) {
+                throw (ParserException) exception;
+            }
+            else if (exception instanceof IOException) {
+                throw (IOException) exception;
+            }
+        }
+    }
+
+    /**
+     * @param registry a timezone registry
+     * @return true if the specified registry may be shared by workers without
+     * serialising access
+     */
+    private static boolean isThreadSafe(final TimeZoneRegistry registry) {
+        // the methods of the provided registries are final..
+        return registry instanceof TimeZoneRegistryImpl
+                || registry instanceof CompiledTimeZoneRegistry;
+    }
+
+    /**
+     * Serialises access to a timezone registry shared by workers, where the
+     * registry may not be thread-safe.
+     */
+    private static class SynchronizedRegistry implements TimeZoneRegistry {
+
+        private TimeZoneRegistry registry;
+
+        /**
+         * @param registry the registry to which access is serialised
+         */
+        public SynchronizedRegistry(final TimeZoneRegistry registry) {
+            this.registry = registry;
+        }
+
+        /* (non-Javadoc)
+         * @see net.fortuna.ical4j.model.TimeZoneRegistry#register(net.fortuna.ical4j.model.TimeZone)
+         */
+        public synchronized void register(final TimeZone timezone) {
+            registry.register(timezone);
+        }
+
+        /* (non-Javadoc)
+         * @see net.fortuna.ical4j.model.TimeZoneRegistry#clear()
+         */
+        public synchronized void clear() {
+            registry.clear();
+        }
+
+        /* (non-Javadoc)
+         * @see net.fortuna.ical4j.model.TimeZoneRegistry#getTimeZone(java.lang.String)
+         */
+        public synchronized TimeZone getTimeZone(final String id) {
+            return registry.getTimeZone(id);
+        }
+    }
+}
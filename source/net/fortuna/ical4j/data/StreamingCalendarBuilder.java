@@ -0,0 +1,303 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2007, Ben Fortuna
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  o Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Ben Fortuna nor the names of any other contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.fortuna.ical4j.data;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import net.fortuna.ical4j.model.Component;
+import net.fortuna.ical4j.model.Parameter;
+import net.fortuna.ical4j.model.Property;
+import net.fortuna.ical4j.model.TimeZone;
+import net.fortuna.ical4j.model.TimeZoneRegistry;
+import net.fortuna.ical4j.model.TimeZoneRegistryFactory;
+import net.fortuna.ical4j.model.component.VTimeZone;
+import net.fortuna.ical4j.model.property.DateListProperty;
+import net.fortuna.ical4j.model.property.DateProperty;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A calendar builder that passes each top-level component to a
+ * {@link ComponentHandler} as soon as it has been built, rather than adding it
+ * to the calendar. As such memory usage is independent of the number of
+ * components in a calendar. The calendar returned from <code>build()</code>
+ * contains calendar properties only.
+ * <p>
+ * VTIMEZONE components are registered with the timezone registry before being
+ * passed to the handler. Components that refer to a TZID that cannot be
+ * resolved are held back until the corresponding VTIMEZONE is built, at which
+ * point the timezone is applied to the applicable date properties. Note that
+ * such components may therefore be handled out of order. Any components still
+ * held back at the end of the calendar are handled without the timezone.
+ * <p>
+ * To bound memory usage, at most {@link #DEFAULT_MAX_PENDING} components are
+ * held back by default, beyond which the earliest held back component is
+ * handled without the timezone. The maximum may be changed via
+ * {@link #setMaxPending(int)}, where a maximum of zero assumes that VTIMEZONE
+ * components precede the components that refer to them (as is typical), such
+ * that no components are held back.
+ * Note that this class is not thread-safe.
+ */
+public class StreamingCalendarBuilder extends CalendarBuilder {
+
+    /**
+     * The default maximum number of components held back pending the
+     * resolution of a timezone.
+     */
+    public static final int DEFAULT_MAX_PENDING = 1000;
+
+    private static Log log = LogFactory.getLog(StreamingCalendarBuilder.class);
+
+    private ComponentHandler handler;
+
+    private Map unresolved = new IdentityHashMap();
+
+    private List pending = new ArrayList();
+
+    private int maxPending = DEFAULT_MAX_PENDING;
+
+    /**
+     * @param handler a handler notified of each top-level component
+     */
+    public StreamingCalendarBuilder(final ComponentHandler handler) {
+        this(new CalendarParserImpl(), handler);
+    }
+
+    /**
+     * @param parser a calendar parser used to parse calendar files
+     * @param handler a handler notified of each top-level component
+     */
+    public StreamingCalendarBuilder(final CalendarParser parser,
+            final ComponentHandler handler) {
+        this(parser, TimeZoneRegistryFactory.getInstance().createRegistry(), handler);
+    }
+
+    /**
+     * @param parser a calendar parser used to parse calendar files
+     * @param registry a timezone registry used to retrieve timezones and
+     * register additional timezone information found in the calendar
+     * @param handler a handler notified of each top-level component
+     */
+    public StreamingCalendarBuilder(final CalendarParser parser,
+            final TimeZoneRegistry registry, final ComponentHandler handler) {
+        super(parser, registry);
+        this.handler = handler;
+    }
+
+    /**
+     * @return the maximum number of components held back pending the
+     * resolution of a timezone
+     */
+    public final int getMaxPending() {
+        return maxPending;
+    }
+
+    /**
+     * Sets the maximum number of components held back pending the resolution
+     * of a timezone. Where the maximum is exceeded the earliest held back
+     * component is handled without the unresolved timezones.
+     * @param maxPending a maximum number of components, or zero to handle
+     * components with an unresolved timezone immediately
+     */
+    public final void setMaxPending(final int maxPending) {
+        if (maxPending < 0) {
+            throw new IllegalArgumentException("Invalid maximum [" + maxPending + "]");
+        }
+        this.maxPending = maxPending;
+    }
+
+    /* (non-Javadoc)
+     * @see net.fortuna.ical4j.data.CalendarBuilder#startCalendar()
+     */
+    public void startCalendar() {
+        super.startCalendar();
+        unresolved.clear();
+        pending.clear();
+    }
+
+    /* (non-Javadoc)
+     * @see net.fortuna.ical4j.data.CalendarBuilder#endCalendar()
+     */
+    public void endCalendar() {
+        super.endCalendar();
+        for (Iterator i = pending.iterator(); i.hasNext();) {
+            PendingComponent p = (PendingComponent) i.next();
+            handler.handleComponent(p.component);
+        }
+        pending.clear();
+    }
+
+    /* (non-Javadoc)
+     * @see net.fortuna.ical4j.data.CalendarBuilder#endComponent(java.lang.String)
+     */
+    public void endComponent(final String name) {
+        if (component == null || subComponent != null) {
+            super.endComponent(name);
+            return;
+        }
+
+        Component completed = component;
+        component = null;
+
+        if (completed instanceof VTimeZone && getRegistry() != null) {
+            // register the timezone for use with iCalendar objects..
+            TimeZone timezone = new TimeZone((VTimeZone) completed);
+            getRegistry().register(timezone);
+            handler.handleComponent(completed);
+            resolvePending(timezone);
+        }
+        else if (!unresolved.isEmpty()) {
+            pending.add(new PendingComponent(completed, new IdentityHashMap(unresolved)));
+            if (pending.size() > maxPending) {
+                PendingComponent p = (PendingComponent) pending.remove(0);
+                // debugging..
+                if (log.isDebugEnabled()) {
+                    log.debug("Handling component [" + p.component.getName()
+                            + "] with unresolved timezones");
+                }
+                handler.handleComponent(p.component);
+            }
+        }
+        else {
+            handler.handleComponent(completed);
+        }
+        unresolved.clear();
+    }
+
+    /* (non-Javadoc)
+     * @see net.fortuna.ical4j.data.CalendarBuilder#parameter(java.lang.String, java.lang.String)
+     */
+    public void parameter(final String name, final String value) throws URISyntaxException {
+        super.parameter(name, value);
+        if (component != null && getRegistry() != null && maxPending > 0
+                && Parameter.TZID.equalsIgnoreCase(name)
+                && (property instanceof DateProperty || property instanceof DateListProperty)
+                && getTimeZone(property) == null) {
+            unresolved.put(property, null);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see net.fortuna.ical4j.data.CalendarBuilder#propertyValue(java.lang.String)
+     */
+    public void propertyValue(final String value) throws URISyntaxException,
+            ParseException, IOException {
+        super.propertyValue(value);
+        // retain the original value of properties with an unresolved
+        // timezone so they may be parsed again once resolved..
+        if (unresolved.containsKey(property)) {
+            unresolved.put(property, value);
+        }
+    }
+
+    /**
+     * Applies the specified timezone to properties of held back components
+     * that refer to it, and handles those components for which all timezones
+     * are now resolved.
+     * @param timezone a newly registered timezone
+     */
+    private void resolvePending(final TimeZone timezone) {
+        for (Iterator i = pending.iterator(); i.hasNext();) {
+            PendingComponent p = (PendingComponent) i.next();
+            for (Iterator j = p.unresolved.entrySet().iterator(); j.hasNext();) {
+                Map.Entry entry = (Map.Entry) j.next();
+                Property prop = (Property) entry.getKey();
+                Parameter tzId = prop.getParameters().getParameter(Parameter.TZID);
+                if (tzId != null && timezone.getID().equals(tzId.getValue())) {
+                    try {
+                        if (prop instanceof DateProperty) {
+                            ((DateProperty) prop).setTimeZone(timezone);
+                        }
+                        else {
+                            ((DateListProperty) prop).setTimeZone(timezone);
+                        }
+                        if (entry.getValue() != null) {
+                            prop.setValue((String) entry.getValue());
+                        }
+                    }
+                    catch (Exception e) {
+                        log.warn("Error setting timezone [" + tzId + "] on property [" + prop.getName() + "]", e);
+                    }
+                    j.remove();
+                }
+            }
+            if (p.unresolved.isEmpty()) {
+                i.remove();
+                handler.handleComponent(p.component);
+            }
+        }
+    }
+
+    /**
+     * @param p a property
+     * @return the timezone of the specified date property, otherwise null
+     */
+    private static TimeZone getTimeZone(final Property p) {
+        if (p instanceof DateProperty) {
+            return ((DateProperty) p).getTimeZone();
+        }
+        else if (p instanceof DateListProperty) {
+            return ((DateListProperty) p).getTimeZone();
+        }
+        return null;
+    }
+
+    /**
+     * A component held back pending resolution of one or more timezones.
+     */
+    private static class PendingComponent {
+
+        private Component component;
+
+        private Map unresolved;
+
+        /**
+         * @param component a component
+         * @param unresolved the original values of properties with an
+         * unresolved timezone, keyed by property
+         */
+        public PendingComponent(final Component component, final Map unresolved) {
+            this.component = component;
+            this.unresolved = unresolved;
+        }
+    }
+}
@@ -36,10 +36,6 @@ package net.fortuna.ical4j.data;
 import java.io.IOException;
 import java.io.PushbackReader;
 import java.io.Reader;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Iterator;
-import java.util.List;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -50,6 +46,11 @@ import org.apache.commons.logging.LogFactory;
  * non-conformant *.ics files. By specifying the system property
  * "ical4j.unfolding.relaxed=true" iCalendar files created with
  * Mozilla Calendar/Sunbird may be correctly unfolded.
+ * <p>
+ * Characters are read from the underlying reader into a buffer, and runs of
+ * characters not containing a line break are copied out in bulk. A fold
+ * (a line break followed by a single space or tab) is only looked for where
+ * a line break is found.
  *
  * @author Ben Fortuna
  */
@@ -58,39 +59,48 @@ public class UnfoldingReader extends PushbackReader {
     private static Log log = LogFactory.getLog(UnfoldingReader.class);
 
     /**
-     * The pattern used to identify a fold in an iCalendar data stream.
+     * The number of characters in the longest fold pattern, ie. CRLF
+     * followed by a space or tab. This many characters are reserved for
+     * unreading.
      */
-    private static final char[] DEFAULT_FOLD_PATTERN = {'\r', '\n', ' '};
-    
-    /**
-     * The pattern used to identify a fold in Mozilla Calendar/Sunbird
-     * and KOrganizer.
-     */
-    private static final char[] RELAXED_FOLD_PATTERN = {'\n', ' '};
-    
-    private static final List FOLD_PATTERNS = new ArrayList();
-    
-    static {
-        FOLD_PATTERNS.add(DEFAULT_FOLD_PATTERN);
-        if ("true".equals(System.getProperty("ical4j.unfolding.relaxed"))) {
-            FOLD_PATTERNS.add(RELAXED_FOLD_PATTERN);
-        }
-    }
+    private static final int FOLD_PATTERN_LENGTH = 3;
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private boolean relaxed;
+
+    private char[] buffer;
+
+    private int position;
+
+    private int limit;
+
+    private boolean eof;
+
+    private char[] singleChar = new char[1];
 
-    private List buffers;
-    
     private int linesUnfolded;
 
     /**
      * @param in a reader to read from
      */
     public UnfoldingReader(final Reader in) {
-        super(in, DEFAULT_FOLD_PATTERN.length);
-        buffers = new ArrayList();
-        for (Iterator i = FOLD_PATTERNS.iterator(); i.hasNext();) {
-            char[] pattern = (char[]) i.next();
-            buffers.add(new char[pattern.length]);
-        }
+        this(in, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param in a reader to read from
+     * @param size the number of characters to read from the underlying reader
+     * at a time
+     */
+    public UnfoldingReader(final Reader in, final int size) {
+        super(in, FOLD_PATTERN_LENGTH);
+        // The pattern used to identify a fold in Mozilla Calendar/Sunbird
+        // and KOrganizer is a single LF followed by a space..
+        relaxed = "true".equals(System.getProperty("ical4j.unfolding.relaxed"));
+        buffer = new char[FOLD_PATTERN_LENGTH + Math.max(size, FOLD_PATTERN_LENGTH)];
+        position = FOLD_PATTERN_LENGTH;
+        limit = FOLD_PATTERN_LENGTH;
     }
 
     /**
@@ -104,56 +114,168 @@ public class UnfoldingReader extends PushbackReader {
      * @see java.io.PushbackReader#read()
      */
     public final int read() throws IOException {
-        /*
-        for (int i = 0; i < buffers.size(); i++) {
-            char[] buffer = (char[]) buffers.get(i);
-            int read = super.read(buffer);
-            if (read > 0) {
-                if (!Arrays.equals((char[]) FOLD_PATTERNS.get(i), buffer)) {
-                    unread(buffer, 0, read);
-                }
-                else {
+        if (position < limit) {
+            char c = buffer[position];
+            if (c != '\r' && c != '\n') {
+                position++;
+                return c;
+            }
+        }
+        if (read(singleChar, 0, 1) < 0) {
+            return -1;
+        }
+        return singleChar[0];
+    }
+
+    /**
+     * Overridden to ensure unfolding is also applied when reading into an
+     * array of characters. Reading stops at the end of a line, such that the
+     * number of lines unfolded remains accurate for all lines returned, or when
+     * no more characters are available without blocking.
+     * @see java.io.PushbackReader#read(char[], int, int)
+     */
+    public int read(final char[] cbuf, final int off, final int len) throws IOException {
+        int read = 0;
+        while (read < len) {
+            if (position >= limit && ((read > 0 && !in.ready()) || !fill(1))) {
+                break;
+            }
+
+            char c = buffer[position];
+            if (c == '\r' || c == '\n') {
+                int foldLength = getFoldLength();
+                if (foldLength > 0) {
                     if (log.isDebugEnabled()) {
-                        log.debug("Unfolding..");
+                        log.debug("Unfolding...");
                     }
+                    position += foldLength;
                     linesUnfolded++;
-                    // return as soon as unfolding occurs..
-                    return super.read();
+                }
+                else {
+                    cbuf[off + read++] = c;
+                    position++;
+                    if (c == '\n') {
+                        break;
+                    }
                 }
             }
             else {
-                return read;
+                // copy characters up to the next line break..
+                int end = position + 1;
+                int maxEnd = Math.min(limit, position + len - read);
+                while (end < maxEnd && buffer[end] != '\r' && buffer[end] != '\n') {
+                    end++;
+                }
+                System.arraycopy(buffer, position, cbuf, off + read, end - position);
+                read += end - position;
+                position = end;
             }
         }
-        return super.read();
-        */
-        boolean didUnfold;
-
-        // need to loop since one line fold might be directly followed by another
-        do {
-            didUnfold = false;
-
-            for (int i = 0; i < buffers.size(); i++) {
-                char[] buffer = (char[]) buffers.get(i);
-                int read = super.read(buffer);
-                if (read > 0) {
-                    if (!Arrays.equals((char[]) FOLD_PATTERNS.get(i), buffer)) {
-                        unread(buffer, 0, read);
-                    }
-                    else {
-                        if (log.isDebugEnabled()) {
-                            log.debug("Unfolding...");
-                        }
-                        linesUnfolded++;
-                        didUnfold = true;
-                    }
-                }
-                else {
-                    return read;
-                }
+        if (read == 0 && len > 0) {
+            return -1;
+        }
+        return read;
+    }
+
+    /**
+     * Determines whether the line break at the current position is a fold.
+     * @return the number of characters in the fold, or zero if the line
+     * break is not a fold
+     * @throws IOException
+     */
+    private int getFoldLength() throws IOException {
+        fill(FOLD_PATTERN_LENGTH);
+        int available = limit - position;
+        if (buffer[position] == '\r') {
+            if (available >= 3 && buffer[position + 1] == '\n'
+                    && isFoldWhitespace(buffer[position + 2])) {
+                return 3;
+            }
+        }
+        else if (relaxed && available >= 2 && isFoldWhitespace(buffer[position + 1])) {
+            return 2;
+        }
+        return 0;
+    }
+
+    /**
+     * @param c a character
+     * @return true if the character may follow a line break in a fold
+     */
+    private static boolean isFoldWhitespace(final char c) {
+        return c == ' ' || c == '\t';
+    }
+
+    /**
+     * Reads from the underlying reader until at least the specified number of
+     * characters are available in the buffer.
+     * @param count the number of characters required
+     * @return false if the end of the stream is reached before the required
+     * number of characters are available, otherwise true
+     * @throws IOException
+     */
+    private boolean fill(final int count) throws IOException {
+        while (limit - position < count) {
+            if (eof) {
+                return false;
+            }
+            if (limit == buffer.length) {
+                // retain space for unreading..
+                System.arraycopy(buffer, position, buffer, FOLD_PATTERN_LENGTH,
+                        limit - position);
+                limit -= position - FOLD_PATTERN_LENGTH;
+                position = FOLD_PATTERN_LENGTH;
+            }
+            int read = in.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                eof = true;
+            }
+            else {
+                limit += read;
             }
-        } while (didUnfold);
+        }
+        return true;
+    }
+
+    /**
+     * @see java.io.PushbackReader#unread(int)
+     */
+    public void unread(final int c) throws IOException {
+        unread(new char[] {(char) c}, 0, 1);
+    }
 
-        return super.read();
+    /**
+     * @see java.io.PushbackReader#unread(char[], int, int)
+     */
+    public void unread(final char[] cbuf, final int off, final int len) throws IOException {
+        if (len > position) {
+            throw new IOException("Pushback buffer overflow");
+        }
+        position -= len;
+        System.arraycopy(cbuf, off, buffer, position, len);
+    }
+
+    /**
+     * @see java.io.PushbackReader#ready()
+     */
+    public boolean ready() throws IOException {
+        return position < limit || in.ready();
+    }
+
+    /**
+     * Overridden to ensure skipped characters are unfolded.
+     * @see java.io.PushbackReader#skip(long)
+     */
+    public long skip(final long n) throws IOException {
+        char[] skipped = new char[(int) Math.min(n, DEFAULT_BUFFER_SIZE)];
+        long remaining = n;
+        while (remaining > 0) {
+            int read = read(skipped, 0, (int) Math.min(remaining, skipped.length));
+            if (read < 0) {
+                break;
+            }
+            remaining -= read;
+        }
+        return n - remaining;
     }
 }
@@ -33,7 +33,10 @@
  */
 package net.fortuna.ical4j.model;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.Iterator;
 import java.util.TreeSet;
 
@@ -167,19 +170,37 @@ public class Calendar implements Serializable {
      * @see java.lang.Object#toString()
      */
     public final String toString() {
-        StringBuffer buffer = new StringBuffer();
-        buffer.append(BEGIN);
-        buffer.append(':');
-        buffer.append(VCALENDAR);
-        buffer.append("\r\n");
-        buffer.append(getProperties());
-        buffer.append(getComponents());
-        buffer.append(END);
-        buffer.append(':');
-        buffer.append(VCALENDAR);
-        buffer.append("\r\n");
+        StringWriter out = new StringWriter();
+        try {
+            write(out);
+        }
+        catch (IOException ioe) {
+            // not thrown by StringWriter..
+        }
+        return out.toString();
+    }
 
-        return buffer.toString();
+    /**
+     * Writes the calendar in iCalendar format to the specified writer. Each
+     * property is written directly to the writer as it is reached, so the
+     * calendar is never held in memory as a single string.
+     * 
+     * @param out
+     *            a writer
+     * @throws IOException
+     *             thrown when unable to write to the writer
+     */
+    public final void write(final Writer out) throws IOException {
+        out.write(BEGIN);
+        out.write(':');
+        out.write(VCALENDAR);
+        out.write("\r\n");
+        getProperties().write(out);
+        getComponents().write(out);
+        out.write(END);
+        out.write(':');
+        out.write(VCALENDAR);
+        out.write("\r\n");
     }
 
     /**
@@ -191,6 +212,29 @@ public class Calendar implements Serializable {
      * @return the iCalendar data written out.
      */
     public final String toString(OutputFilter filter) {
+        StringWriter out = new StringWriter();
+        try {
+            write(out, filter);
+        }
+        catch (IOException ioe) {
+            // not thrown by StringWriter..
+        }
+        return out.toString();
+    }
+
+    /**
+     * Writes the calendar to the specified writer and filters the
+     * sub-components and properties as requested.
+     * 
+     * @param out
+     *            a writer
+     * @param filter
+     *            the filter to apply to the sub-components and properties.
+     * @throws IOException
+     *             thrown when unable to write to the writer
+     */
+    public final void write(final Writer out, final OutputFilter filter)
+            throws IOException {
 
         Calendar calendar = this;
 
@@ -208,19 +252,16 @@ public class Calendar implements Serializable {
             calendar = createLimitedRecurrence(filter);
         }
         
-        StringBuffer buffer = new StringBuffer();
-        buffer.append(BEGIN);
-        buffer.append(':');
-        buffer.append(VCALENDAR);
-        buffer.append("\r\n");
-        buffer.append(calendar.getProperties().toString(filter));
-        buffer.append(calendar.getComponents().toString(filter));
-        buffer.append(END);
-        buffer.append(':');
-        buffer.append(VCALENDAR);
-        buffer.append("\r\n");
-
-        return buffer.toString();
+        out.write(BEGIN);
+        out.write(':');
+        out.write(VCALENDAR);
+        out.write("\r\n");
+        calendar.getProperties().write(out, filter);
+        calendar.getComponents().write(out, filter);
+        out.write(END);
+        out.write(':');
+        out.write(VCALENDAR);
+        out.write("\r\n");
     }
     
     /**
@@ -0,0 +1,157 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2007, Ben Fortuna
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  o Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Ben Fortuna nor the names of any other contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.fortuna.ical4j.model;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A <code>TimeZoneRegistry</code> backed by a {@link TimeZoneDatabase}
+ * compiled at build time. The database is read from the classpath resource
+ * <code>zones.dat</code> under the resource prefix, and is memory-mapped
+ * where the classpath resource is on the file system. Only the index of the
+ * database is read when the database is opened, and each timezone is read on
+ * first use, without parsing its iCalendar definition.
+ * <p>
+ * Timezones not found in the database are loaded from their definitions as
+ * per {@link TimeZoneRegistryImpl}. A database is opened once for each
+ * resource prefix and shared by all registries.
+ * @author Ben Fortuna
+ */
+public class CompiledTimeZoneRegistry implements TimeZoneRegistry {
+
+    private static final String DEFAULT_RESOURCE_PREFIX = "/zoneinfo/";
+
+    private static Log log = LogFactory.getLog(CompiledTimeZoneRegistry.class);
+
+    // databases by resource prefix, or a null value where a prefix has no
+    // database..
+    private static final Map DATABASES = new HashMap();
+
+    private TimeZoneDatabase database;
+
+    private TimeZoneRegistry fallback;
+
+    // NOTE: the map is replaced when updated, such that lookups don't require
+    // locking..
+    private volatile Map timezones = Collections.EMPTY_MAP;
+
+    /**
+     * Default constructor.
+     */
+    public CompiledTimeZoneRegistry() {
+        this(DEFAULT_RESOURCE_PREFIX);
+    }
+
+    /**
+     * Creates a new instance using the specified resource prefix.
+     * @param resourcePrefix a prefix prepended to classpath resource lookups
+     * for the database and default timezones
+     */
+    public CompiledTimeZoneRegistry(final String resourcePrefix) {
+        database = getDatabase(resourcePrefix);
+        fallback = new TimeZoneRegistryImpl(resourcePrefix);
+    }
+
+    /**
+     * @param resourcePrefix a resource prefix
+     * @return the database under the specified resource prefix, or null if
+     * no database is available
+     */
+    private static TimeZoneDatabase getDatabase(final String resourcePrefix) {
+        synchronized (DATABASES) {
+            if (DATABASES.containsKey(resourcePrefix)) {
+                return (TimeZoneDatabase) DATABASES.get(resourcePrefix);
+            }
+            TimeZoneDatabase database = null;
+            URL resource = CompiledTimeZoneRegistry.class.getResource(
+                    resourcePrefix + TimeZoneDatabase.DEFAULT_NAME);
+            if (resource != null) {
+                try {
+                    database = TimeZoneDatabase.open(resource);
+                }
+                catch (IOException ioe) {
+                    log.warn("Error occurred opening timezone database [" + resource + "]", ioe);
+                }
+            }
+            else {
+                log.warn("Timezone database [" + resourcePrefix + TimeZoneDatabase.DEFAULT_NAME
+                        + "] not found");
+            }
+            DATABASES.put(resourcePrefix, database);
+            return database;
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see net.fortuna.ical4j.model.TimeZoneRegistry#register(net.fortuna.ical4j.model.TimeZone)
+     */
+    public final synchronized void register(final TimeZone timezone) {
+        Map registered = new HashMap(timezones);
+        registered.put(timezone.getID(), timezone);
+        timezones = registered;
+    }
+
+    /* (non-Javadoc)
+     * @see net.fortuna.ical4j.model.TimeZoneRegistry#clear()
+     */
+    public final synchronized void clear() {
+        timezones = Collections.EMPTY_MAP;
+    }
+
+    /* (non-Javadoc)
+     * @see net.fortuna.ical4j.model.TimeZoneRegistry#getTimeZone(java.lang.String)
+     */
+    public final TimeZone getTimeZone(final String id) {
+        TimeZone timezone = (TimeZone) timezones.get(id);
+        if (timezone == null && database != null) {
+            try {
+                timezone = database.getTimeZone(id);
+            }
+            catch (IOException ioe) {
+                log.warn("Error occurred reading timezone [" + id + "]", ioe);
+            }
+        }
+        if (timezone == null) {
+            timezone = fallback.getTimeZone(id);
+        }
+        return timezone;
+    }
+}
@@ -33,7 +33,10 @@
  */
 package net.fortuna.ical4j.model;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.Iterator;
 
 import net.fortuna.ical4j.model.component.XComponent;
@@ -136,18 +139,14 @@ public abstract class Component implements Serializable {
      * @see java.lang.Object#toString()
      */
     public String toString() {
-        StringBuffer buffer = new StringBuffer();
-        buffer.append(BEGIN);
-        buffer.append(':');
-        buffer.append(getName());
-        buffer.append("\r\n");
-        buffer.append(getProperties());
-        buffer.append(END);
-        buffer.append(':');
-        buffer.append(getName());
-        buffer.append("\r\n");
-
-        return buffer.toString();
+        StringWriter out = new StringWriter();
+        try {
+            write(out);
+        }
+        catch (IOException ioe) {
+            // not thrown by StringWriter..
+        }
+        return out.toString();
     }
 
     /**
@@ -159,18 +158,74 @@ public abstract class Component implements Serializable {
      * @return iCalendar data written.
      */
     public String toString(OutputFilter filter) {
-        StringBuffer buffer = new StringBuffer();
-        buffer.append(BEGIN);
-        buffer.append(':');
-        buffer.append(getName());
-        buffer.append("\r\n");
-        buffer.append(getProperties().toString(filter));
-        buffer.append(END);
-        buffer.append(':');
-        buffer.append(getName());
-        buffer.append("\r\n");
+        StringWriter out = new StringWriter();
+        try {
+            write(out, filter);
+        }
+        catch (IOException ioe) {
+            // not thrown by StringWriter..
+        }
+        return out.toString();
+    }
 
-        return buffer.toString();
+    /**
+     * Writes the component in iCalendar format to the specified writer. Content
+     * is written a line at a time so that the component is never held in memory
+     * as a single string. Components with sub-components must override this
+     * method (and {@link #write(Writer, OutputFilter)}) to write them between
+     * the properties and the end of the component.
+     * 
+     * @param out
+     *            a writer
+     * @throws IOException
+     *             thrown when unable to write to the writer
+     */
+    public void write(final Writer out) throws IOException {
+        writeBegin(out);
+        getProperties().write(out);
+        writeEnd(out);
+    }
+
+    /**
+     * Writes the component to the specified writer filtering the properties
+     * according to the supplied filter.
+     * 
+     * @param out
+     *            a writer
+     * @param filter
+     *            filter to use.
+     * @throws IOException
+     *             thrown when unable to write to the writer
+     */
+    public void write(final Writer out, final OutputFilter filter)
+            throws IOException {
+        writeBegin(out);
+        getProperties().write(out, filter);
+        writeEnd(out);
+    }
+
+    /**
+     * Writes the BEGIN line of the component.
+     * @param out a writer
+     * @throws IOException thrown when unable to write to the writer
+     */
+    protected final void writeBegin(final Writer out) throws IOException {
+        out.write(BEGIN);
+        out.write(':');
+        out.write(getName());
+        out.write("\r\n");
+    }
+
+    /**
+     * Writes the END line of the component.
+     * @param out a writer
+     * @throws IOException thrown when unable to write to the writer
+     */
+    protected final void writeEnd(final Writer out) throws IOException {
+        out.write(END);
+        out.write(':');
+        out.write(getName());
+        out.write("\r\n");
     }
 
     /**
@@ -43,20 +43,52 @@ import net.fortuna.ical4j.model.component.VJournal;
 import net.fortuna.ical4j.model.component.VTimeZone;
 import net.fortuna.ical4j.model.component.VToDo;
 import net.fortuna.ical4j.model.component.XComponent;
+import net.fortuna.ical4j.util.NameTable;
 
 /**
  * A factory for creating iCalendar components.
+ * <p>
+ * Components are looked up by name ignoring case, so names needn't be
+ * converted to upper case prior to creating a component.
  *
  * @author Ben Fortuna
  */
 public final class ComponentFactory {
 
+    private static final int VALARM = 1;
+
+    private static final int VEVENT = 2;
+
+    private static final int VFREEBUSY = 3;
+
+    private static final int VJOURNAL = 4;
+
+    private static final int VTODO = 5;
+
+    private static final int STANDARD = 6;
+
+    private static final int DAYLIGHT = 7;
+
+    private static final int VTIMEZONE = 8;
+
     private static ComponentFactory instance = new ComponentFactory();
 
+    // component types by name..
+    private final NameTable types;
+
     /**
      * Constructor made private to prevent instantiation.
      */
     private ComponentFactory() {
+        types = NameTable.EMPTY
+                .put(Component.VALARM, new Integer(VALARM))
+                .put(Component.VEVENT, new Integer(VEVENT))
+                .put(Component.VFREEBUSY, new Integer(VFREEBUSY))
+                .put(Component.VJOURNAL, new Integer(VJOURNAL))
+                .put(Component.VTODO, new Integer(VTODO))
+                .put(Observance.STANDARD, new Integer(STANDARD))
+                .put(Observance.DAYLIGHT, new Integer(DAYLIGHT))
+                .put(Component.VTIMEZONE, new Integer(VTIMEZONE));
     }
 
     /**
@@ -65,6 +97,19 @@ public final class ComponentFactory {
     public static ComponentFactory getInstance() {
         return instance;
     }
+
+    /**
+     * Returns the name of a component created by this factory, matching the
+     * specified characters ignoring case. This allows a parser to obtain the
+     * name of a known component without creating a string.
+     * @param chars a character array
+     * @param offset the offset of a component name in the array
+     * @param length the length of the component name
+     * @return a component name, or null if the name is not known
+     */
+    public String getName(final char[] chars, final int offset, final int length) {
+        return types.getName(chars, offset, length);
+    }
     
     public Component createComponent(final String name) {
         return createComponent(name, new PropertyList());
@@ -82,33 +127,26 @@ public final class ComponentFactory {
     public Component createComponent(final String name,
             final PropertyList properties) {
 
-        if (Component.VALARM.equals(name)) {
-            return new VAlarm(properties);
-        }
-        else if (Component.VEVENT.equals(name)) {
-            return new VEvent(properties);
-        }
-        else if (Component.VFREEBUSY.equals(name)) {
-            return new VFreeBusy(properties);
-        }
-        else if (Component.VJOURNAL.equals(name)) {
-            return new VJournal(properties);
-        }
-        else if (Component.VTODO.equals(name)) {
-            return new VToDo(properties);
-        }
-        else if (Observance.STANDARD.equals(name)) {
-            return new Standard(properties);
-        }
-        else if (Observance.DAYLIGHT.equals(name)) {
-            return new Daylight(properties);
-        }
-        else if (Component.VTIMEZONE.equals(name)) {
-            return new VTimeZone(properties);
-        }
-        else {
-            throw new IllegalArgumentException("Unkown component [" + name
-                    + "]");
+        switch (getType(name)) {
+            case VALARM:
+                return new VAlarm(properties);
+            case VEVENT:
+                return new VEvent(properties);
+            case VFREEBUSY:
+                return new VFreeBusy(properties);
+            case VJOURNAL:
+                return new VJournal(properties);
+            case VTODO:
+                return new VToDo(properties);
+            case STANDARD:
+                return new Standard(properties);
+            case DAYLIGHT:
+                return new Daylight(properties);
+            case VTIMEZONE:
+                return new VTimeZone(properties);
+            default:
+                throw new IllegalArgumentException("Unkown component [" + name
+                        + "]");
         }
     }
 
@@ -129,11 +167,12 @@ public final class ComponentFactory {
 
         if (components != null) {
 
-            if (Component.VTIMEZONE.equals(name)) {
+            int type = getType(name);
+            if (type == VTIMEZONE) {
 
                 return new VTimeZone(properties, components);
             }
-            else if (Component.VEVENT.equals(name)) {
+            else if (type == VEVENT) {
 
                 return new VEvent(properties, components);
             }
@@ -149,6 +188,18 @@ public final class ComponentFactory {
         return createComponent(name, properties);
     }
     
+    /**
+     * @param name a component name
+     * @return the type of the named component, or zero if the name is not known
+     */
+    private int getType(final String name) {
+        Integer type = (Integer) types.get(name);
+        if (type != null) {
+            return type.intValue();
+        }
+        return 0;
+    }
+    
     /**
      * @param name
      * @return
@@ -33,9 +33,15 @@
  */
 package net.fortuna.ical4j.model;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 import net.fortuna.ical4j.model.component.VEvent;
 import net.fortuna.ical4j.model.filter.OutputFilter;
@@ -43,10 +49,19 @@ import net.fortuna.ical4j.model.parameter.Range;
 import net.fortuna.ical4j.model.property.DtEnd;
 import net.fortuna.ical4j.model.property.DtStart;
 import net.fortuna.ical4j.model.property.RecurrenceId;
+import net.fortuna.ical4j.model.property.Uid;
 import net.fortuna.ical4j.util.Dates;
 
 /**
  * Defines a list of iCalendar components.
+ * <p>
+ * Components may be looked up by UID, and overrides of recurring components
+ * by UID and RECURRENCE-ID, via an index of the list. The index is only built
+ * on first lookup, is updated in place as components are appended, and is
+ * rebuilt on first lookup after any other modification. Lookups from
+ * multiple threads are safe provided the list itself is no longer modified.
+ * Note that changes to the UID or RECURRENCE-ID of a component already in
+ * the list aren't detected.
  * 
  * @author Ben Fortuna
  */
@@ -54,6 +69,9 @@ public class ComponentList extends ArrayList implements Serializable {
 
     private static final long serialVersionUID = 7308557606558767449L;
 
+    // components by uid..
+    private transient volatile UidIndex uidIndex;
+
     /**
      * Default constructor.
      */
@@ -74,11 +92,14 @@ public class ComponentList extends ArrayList implements Serializable {
      * @see java.util.AbstractCollection#toString()
      */
     public final String toString() {
-        StringBuffer buffer = new StringBuffer();
-        for (Iterator i = iterator(); i.hasNext();) {
-            buffer.append(i.next().toString());
+        StringWriter out = new StringWriter();
+        try {
+            write(out);
         }
-        return buffer.toString();
+        catch (IOException ioe) {
+            // not thrown by StringWriter..
+        }
+        return out.toString();
     }
 
     /**
@@ -90,12 +111,49 @@ public class ComponentList extends ArrayList implements Serializable {
      * @return iCalendar data written.
      */
     public final String toString(OutputFilter filter) {
+        StringWriter out = new StringWriter();
+        try {
+            write(out, filter);
+        }
+        catch (IOException ioe) {
+            // not thrown by StringWriter..
+        }
+        return out.toString();
+    }
+
+    /**
+     * Writes each component in the list to the specified writer.
+     * 
+     * @param out
+     *            a writer
+     * @throws IOException
+     *             thrown when unable to write to the writer
+     */
+    public final void write(final Writer out) throws IOException {
+        for (Iterator i = iterator(); i.hasNext();) {
+            ((Component) i.next()).write(out);
+        }
+    }
+
+    /**
+     * Writes the component list to the specified writer filtering the
+     * components according to the supplied filter.
+     * 
+     * @param out
+     *            a writer
+     * @param filter
+     *            filter to use.
+     * @throws IOException
+     *             thrown when unable to write to the writer
+     */
+    public final void write(final Writer out, final OutputFilter filter)
+            throws IOException {
 
         // Short cut for all components
-        if (filter.isAllSubComponents() && (filter.getLimit() == null))
-            return toString();
+        if (filter.isAllSubComponents() && (filter.getLimit() == null)) {
+            write(out);
+        }
         else if (filter.hasSubComponentFilters() || filter.isAllSubComponents()) {
-            StringBuffer buffer = new StringBuffer();
             for (Iterator i = iterator(); i.hasNext();) {
                 // Test each property to see whether it is in the filter
                 Component c = (Component) i.next();
@@ -156,19 +214,17 @@ public class ComponentList extends ArrayList implements Serializable {
 
                 // Write all or some
                 if (filter.isAllSubComponents()) {
-                    buffer.append(c.toString());
+                    c.write(out);
                 } else {
                     OutputFilter subfilter = filter.getSubComponentFilter(c);
 
                     // Check whether to write it out
                     if (subfilter != null) {
-                        buffer.append(c.toString(subfilter));
+                        c.write(out, subfilter);
                     }
                 }
             }
-            return buffer.toString();
-        } else
-            return "";
+        }
     }
 
     /**
@@ -220,6 +276,72 @@ public class ComponentList extends ArrayList implements Serializable {
         return components;
     }
 
+    /**
+     * Returns a list containing all components with the specified UID, that
+     * is, a recurring component along with any overrides.
+     * 
+     * @param uid
+     *            the UID of components to return
+     * @return a list of components with the matching UID
+     */
+    public final ComponentList getComponentsByUid(final String uid) {
+        UidEntry entry = getUidIndex().get(uid);
+        if (entry != null) {
+            ComponentList components = new ComponentList(entry.components.size());
+            components.addAll(entry.components);
+            return components;
+        }
+        return new ComponentList();
+    }
+
+    /**
+     * Returns the master component with the specified UID, that is, the
+     * first component with the UID and no RECURRENCE-ID.
+     * 
+     * @param uid
+     *            the UID of the component to return
+     * @return a component or null if no matching component found
+     */
+    public final Component getMaster(final String uid) {
+        UidEntry entry = getUidIndex().get(uid);
+        if (entry != null) {
+            return entry.master;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the component overriding the instance of a recurring component
+     * starting at the specified time.
+     * 
+     * @param uid
+     *            the UID of the recurring component
+     * @param recurrenceId
+     *            the (original) start of the overridden instance
+     * @return the first component with matching UID and RECURRENCE-ID, or
+     *         null if no matching component found
+     */
+    public final Component getOverride(final String uid,
+            final java.util.Date recurrenceId) {
+        UidEntry entry = getUidIndex().get(uid);
+        if (entry != null && entry.overrides != null) {
+            return (Component) entry.overrides.get(new Long(recurrenceId.getTime()));
+        }
+        return null;
+    }
+
+    /**
+     * @return an index of the components in this list by UID
+     */
+    private UidIndex getUidIndex() {
+        UidIndex current = uidIndex;
+        if (current == null || current.modCount != modCount) {
+            current = new UidIndex(this, modCount);
+            uidIndex = current;
+        }
+        return current;
+    }
+
     /**
      * Add a component to the list.
      * 
@@ -243,7 +365,36 @@ public class ComponentList extends ArrayList implements Serializable {
             throw new IllegalArgumentException("Argument not a "
                     + Component.class.getName());
         }
-        return super.add(arg0);
+        UidIndex current = uidIndex;
+        boolean indexed = current != null && current.modCount == modCount;
+        boolean result = super.add(arg0);
+        // update the index in place rather than rebuild it on next lookup..
+        if (indexed) {
+            current.add((Component) arg0, modCount);
+        }
+        return result;
+    }
+
+    /**
+     * Overrides superclass to invalidate the index of components.
+     * 
+     * @see List#set(int, java.lang.Object)
+     */
+    public final Object set(final int position, final Object arg0) {
+        uidIndex = null;
+        return super.set(position, arg0);
+    }
+
+    /**
+     * Overrides superclass such that the index of components isn't shared
+     * with the copy.
+     * 
+     * @see java.lang.Object#clone()
+     */
+    public Object clone() {
+        ComponentList list = (ComponentList) super.clone();
+        list.uidIndex = null;
+        return list;
     }
 
     /**
@@ -288,4 +439,100 @@ public class ComponentList extends ArrayList implements Serializable {
     // public final List toList() {
     // return new ArrayList(components);
     // }
+
+    /**
+     * @param component a component
+     * @return the UID of the specified component, or null if it has no UID
+     */
+    private static String getUid(final Component component) {
+        Uid uid = (Uid) component.getProperties().getProperty(Property.UID);
+        if (uid != null) {
+            return uid.getValue();
+        }
+        return null;
+    }
+
+    /**
+     * The components of a list by UID, in list order. An index is updated in
+     * place as components are appended to the list, and so may only be shared
+     * by threads without synchronization once the list is no longer modified.
+     */
+    private static class UidIndex {
+
+        private final Map entries = new HashMap();
+
+        private int modCount;
+
+        /**
+         * @param list a component list
+         * @param modCount the modification count of the list
+         */
+        public UidIndex(final ComponentList list, final int modCount) {
+            for (int i = 0; i < list.size(); i++) {
+                add((Component) list.get(i), modCount);
+            }
+            this.modCount = modCount;
+        }
+
+        /**
+         * @param uid a UID
+         * @return the entry for the specified UID, or null if there is none
+         */
+        public UidEntry get(final String uid) {
+            return (UidEntry) entries.get(uid);
+        }
+
+        /**
+         * @param component a component appended to the list
+         * @param modCount the modification count of the list
+         */
+        public void add(final Component component, final int modCount) {
+            String uid = getUid(component);
+            if (uid != null) {
+                UidEntry entry = get(uid);
+                if (entry == null) {
+                    entry = new UidEntry();
+                    entries.put(uid, entry);
+                }
+                entry.add(component);
+            }
+            this.modCount = modCount;
+        }
+    }
+
+    /**
+     * The components with a single UID.
+     */
+    private static class UidEntry {
+
+        private final List components = new ArrayList(1);
+
+        private Component master;
+
+        // overrides by recurrence instant..
+        private Map overrides;
+
+        /**
+         * @param component a component with the UID of this entry
+         */
+        public void add(final Component component) {
+            components.add(component);
+            RecurrenceId rid = (RecurrenceId) component.getProperties().getProperty(
+                    Property.RECURRENCE_ID);
+            if (rid == null || rid.getDate() == null) {
+                if (master == null) {
+                    master = component;
+                }
+            }
+            else {
+                if (overrides == null) {
+                    overrides = new HashMap();
+                }
+                Long instant = new Long(rid.getDate().getTime());
+                if (!overrides.containsKey(instant)) {
+                    overrides.put(instant, component);
+                }
+            }
+        }
+    }
 }
@@ -38,6 +38,7 @@ package net.fortuna.ical4j.model;
 import java.text.ParseException;
 
 import net.fortuna.ical4j.util.Dates;
+import net.fortuna.ical4j.util.Iso8601Format;
 
 
 /**
@@ -99,6 +100,6 @@ public class Date extends Iso8601 {
      */
     public Date(final String value) throws ParseException {
         this();
-        setTime(getFormat().parse(value).getTime());
+        setTime(Iso8601Format.parse(value, Iso8601Format.DATE, getFormat().getTimeZone()));
     }
 }
@@ -36,15 +36,22 @@ package net.fortuna.ical4j.model;
 import java.io.Serializable;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.StringTokenizer;
 
 import net.fortuna.ical4j.model.parameter.Value;
+import net.fortuna.ical4j.util.Dates;
 import net.fortuna.ical4j.util.TimeZones;
 
 /**
  * Defines a list of iCalendar dates. If no value type is specified a list
  * defaults to DATE-TIME instances.
+ * <p>
+ * Membership of a time may be tested in logarithmic time via
+ * {@link #includes(java.util.Date)}, which is backed by a sorted index of
+ * the times in the list. The index is rebuilt on first use after the list
+ * is modified (but not after a date in the list is modified).
  * @author Ben Fortuna
  */
 public class DateList extends ArrayList implements Serializable {
@@ -57,6 +64,9 @@ public class DateList extends ArrayList implements Serializable {
     
     private boolean utc;
 
+    // sorted times of the dates in the list..
+    private transient Index index;
+
     /**
      * Default constructor.
      */
@@ -215,6 +225,53 @@ public class DateList extends ArrayList implements Serializable {
         return remove((Object) date);
     }
 
+    /**
+     * Overrides superclass to invalidate the index of times.
+     * @see List#set(int, java.lang.Object)
+     */
+    public final Object set(final int position, final Object arg0) {
+        index = null;
+        return super.set(position, arg0);
+    }
+
+    /**
+     * Indicates whether this list contains a date at the same time as the
+     * specified date, regardless of the type of either date. Unlike
+     * <code>contains()</code>, this method doesn't search the list.
+     * @param date a date
+     * @return true if this list contains a date at the specified time
+     */
+    public final boolean includes(final java.util.Date date) {
+        return includes(date.getTime());
+    }
+
+    /**
+     * Indicates whether this list contains a date at the same time as the
+     * specified date, or where the specified date is a DATE-TIME, at the
+     * start of the day of the specified date as per
+     * {@link Date#Date(java.util.Date)}. That is, whether this list contains
+     * either a DATE-TIME or a DATE matching the specified date.
+     * @param date a date
+     * @return true if this list contains a date matching the specified date
+     */
+    public final boolean includesDay(final java.util.Date date) {
+        return includes(date.getTime())
+                || includes(Dates.round(date.getTime(), Dates.PRECISION_DAY));
+    }
+
+    /**
+     * @param time a time in milliseconds
+     * @return true if this list contains a date at the specified time
+     */
+    private boolean includes(final long time) {
+        Index current = index;
+        if (current == null || current.modCount != modCount) {
+            current = new Index(this, modCount);
+            index = current;
+        }
+        return Arrays.binarySearch(current.times, time) >= 0;
+    }
+
     /**
      * Returns the VALUE parameter specifying the type of dates (ie. date or
      * date-time) stored in this date list.
@@ -249,6 +306,7 @@ public class DateList extends ArrayList implements Serializable {
         }
         this.timeZone = null;
         this.utc = true;
+        index = null;
     }
     
     /**
@@ -265,6 +323,7 @@ public class DateList extends ArrayList implements Serializable {
         }
         this.timeZone = timeZone;
         this.utc = false;
+        index = null;
     }
 
     /**
@@ -273,4 +332,29 @@ public class DateList extends ArrayList implements Serializable {
     public final TimeZone getTimeZone() {
         return timeZone;
     }
+
+    /**
+     * The sorted times of the dates in a list. Instances are immutable, such
+     * that an index may be shared by threads reading a list.
+     */
+    private static class Index {
+
+        private final long[] times;
+
+        private final int modCount;
+
+        /**
+         * @param list a date list
+         * @param modCount the modification count of the list
+         */
+        public Index(final DateList list, final int modCount) {
+            long[] times = new long[list.size()];
+            for (int i = 0; i < times.length; i++) {
+                times[i] = ((java.util.Date) list.get(i)).getTime();
+            }
+            Arrays.sort(times);
+            this.times = times;
+            this.modCount = modCount;
+        }
+    }
 }
@@ -35,11 +35,10 @@
  */
 package net.fortuna.ical4j.model;
 
-import java.text.DateFormat;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 
 import net.fortuna.ical4j.util.Dates;
+import net.fortuna.ical4j.util.Iso8601Format;
 import net.fortuna.ical4j.util.TimeZones;
 
 /**
@@ -51,22 +50,11 @@ public class DateTime extends Date {
     
     private static final long serialVersionUID = -6407231357919440387L;
 
-    private static final String DEFAULT_PATTERN = "yyyyMMdd'T'HHmmss";
-
-    private static final String UTC_PATTERN = "yyyyMMdd'T'HHmmss'Z'";
-    
-    /**
-     * Used for parsing times in a local date-time representation.
-     */
-    private DateFormat defaultFormat = new SimpleDateFormat(DEFAULT_PATTERN);
-    
     /**
      * Used for parsing times in a UTC date-time representation.
      */
-    private DateFormat utcFormat = new SimpleDateFormat(UTC_PATTERN);
-    {
-        utcFormat.setTimeZone(TimeZone.getTimeZone(TimeZones.UTC_ID));
-    }
+    private static final java.util.TimeZone UTC_TIMEZONE = java.util.TimeZone.getTimeZone(
+            TimeZones.UTC_ID);
     
     private Time time;
     
@@ -121,17 +109,13 @@ public class DateTime extends Date {
      */
     public DateTime(final String value) throws ParseException {
         this();
-        long time = 0;
-        try {
-            time = utcFormat.parse(value).getTime();
+        if (Iso8601Format.isValid(value, Iso8601Format.UTC_DATE_TIME)) {
+            setTime(Iso8601Format.parse(value, Iso8601Format.UTC_DATE_TIME, UTC_TIMEZONE));
             setUtc(true);
         }
-        catch (ParseException pe) {
-            defaultFormat.setTimeZone(getFormat().getTimeZone());
-            time = defaultFormat.parse(value).getTime();
-            this.time = new Time(time, getFormat().getTimeZone());
+        else {
+            setTime(Iso8601Format.parse(value, Iso8601Format.DATE_TIME, getFormat().getTimeZone()));
         }
-        setTime(time);
     }
     
     /**
@@ -140,18 +124,17 @@ public class DateTime extends Date {
      */
     public DateTime(final String value, final TimeZone timezone) throws ParseException {
         this();
-        try {
-            setTime(utcFormat.parse(value).getTime());
+        if (Iso8601Format.isValid(value, Iso8601Format.UTC_DATE_TIME)) {
+            setTime(Iso8601Format.parse(value, Iso8601Format.UTC_DATE_TIME, UTC_TIMEZONE));
             setUtc(true);
         }
-        catch (ParseException pe) {
+        else {
             if (timezone != null) {
-                defaultFormat.setTimeZone(timezone);
+                setTime(Iso8601Format.parse(value, Iso8601Format.DATE_TIME, timezone));
             }
             else {
-                defaultFormat.setTimeZone(getFormat().getTimeZone());
+                setTime(Iso8601Format.parse(value, Iso8601Format.DATE_TIME, getFormat().getTimeZone()));
             }
-            setTime(defaultFormat.parse(value).getTime());
             setTimeZone(timezone);
         }
     }
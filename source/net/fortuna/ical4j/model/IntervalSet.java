@@ -0,0 +1,379 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2007, Ben Fortuna
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  o Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Ben Fortuna nor the names of any other contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.fortuna.ical4j.model;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * An immutable set of intervals of time, held as parallel arrays of UTC
+ * start and end times. Intervals are always normalised, that is sorted by
+ * start time, with overlapping and adjacent intervals combined. Union,
+ * intersection and subtraction are implemented as a single merge of two
+ * sets, such that they are linear in the number of intervals.
+ * <p>
+ * Intervals are closed as per {@link Period}, such that intervals sharing an
+ * end point are combined, and an interval may be empty (i.e. start and end
+ * at the same time). Empty intervals resulting from an intersection or
+ * subtraction are discarded.
+ * @author Ben Fortuna
+ */
+public final class IntervalSet implements Serializable {
+
+    private static final long serialVersionUID = -2467359735870362015L;
+
+    /**
+     * An empty interval set.
+     */
+    public static final IntervalSet EMPTY = new IntervalSet(new long[0], new long[0], 0);
+
+    private final long[] starts;
+
+    private final long[] ends;
+
+    private final int size;
+
+    /**
+     * Constructs a set of a single interval.
+     * @param start the start of the interval
+     * @param end the end of the interval
+     */
+    public IntervalSet(final long start, final long end) {
+        this(new long[] {start}, new long[] {Math.max(start, end)}, 1);
+    }
+
+    /**
+     * Constructs a set of the specified intervals, which may be in any order
+     * and need not be normalised. The arrays are not modified.
+     * @param starts the start times of the intervals
+     * @param ends the end times of the intervals
+     * @param length the number of intervals
+     */
+    public IntervalSet(final long[] starts, final long[] ends, final int length) {
+        long[][] intervals = normalise(starts, ends, length);
+        this.starts = intervals[0];
+        this.ends = intervals[1];
+        this.size = this.starts.length;
+    }
+
+    /**
+     * Constructs a set of the intervals of the specified periods.
+     * @param periods a list of periods
+     */
+    public IntervalSet(final PeriodList periods) {
+        long[] periodStarts = new long[periods.size()];
+        long[] periodEnds = new long[periods.size()];
+        int index = 0;
+        for (Iterator i = periods.iterator(); i.hasNext(); index++) {
+            Period period = (Period) i.next();
+            periodStarts[index] = period.getStart().getTime();
+            periodEnds[index] = period.getEnd().getTime();
+        }
+        long[][] intervals = normalise(periodStarts, periodEnds, index);
+        this.starts = intervals[0];
+        this.ends = intervals[1];
+        this.size = this.starts.length;
+    }
+
+    /**
+     * Constructs a set of intervals already normalised.
+     * @param starts normalised start times
+     * @param ends normalised end times
+     */
+    private IntervalSet(final long[] starts, final long[] ends) {
+        this.starts = starts;
+        this.ends = ends;
+        this.size = starts.length;
+    }
+
+    /**
+     * Sorts and combines the specified intervals.
+     * @return normalised start and end times
+     */
+    private static long[][] normalise(final long[] starts, final long[] ends, final int length) {
+        long[] sortedStarts = new long[length];
+        long[] sortedEnds = new long[length];
+        boolean sorted = true;
+        for (int i = 0; i < length; i++) {
+            sortedStarts[i] = starts[i];
+            sortedEnds[i] = Math.max(starts[i], ends[i]);
+            if (i > 0 && starts[i] < starts[i - 1]) {
+                sorted = false;
+            }
+        }
+        if (!sorted) {
+            // sort start times and end times independently, which for a union
+            // of intervals is equivalent to sorting the intervals..
+            Arrays.sort(sortedStarts);
+            Arrays.sort(sortedEnds);
+        }
+        Builder builder = new Builder(length);
+        for (int i = 0; i < length; i++) {
+            builder.add(sortedStarts[i], sortedEnds[i]);
+        }
+        return new long[][] {builder.getStarts(), builder.getEnds()};
+    }
+
+    /**
+     * @return the number of intervals in this set
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if this set contains no intervals
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param index the index of an interval
+     * @return the start time of the interval
+     */
+    public long getStart(final int index) {
+        return starts[index];
+    }
+
+    /**
+     * @param index the index of an interval
+     * @return the end time of the interval
+     */
+    public long getEnd(final int index) {
+        return ends[index];
+    }
+
+    /**
+     * Returns the union of this set with the specified set.
+     * @param set an interval set
+     * @return an interval set containing the time in either set
+     */
+    public IntervalSet union(final IntervalSet set) {
+        if (set.isEmpty()) {
+            return this;
+        }
+        else if (isEmpty()) {
+            return set;
+        }
+        Builder builder = new Builder(size + set.size);
+        int i = 0;
+        int j = 0;
+        while (i < size || j < set.size) {
+            if (j >= set.size || (i < size && starts[i] <= set.starts[j])) {
+                builder.add(starts[i], ends[i]);
+                i++;
+            }
+            else {
+                builder.add(set.starts[j], set.ends[j]);
+                j++;
+            }
+        }
+        return builder.toIntervalSet();
+    }
+
+    /**
+     * Returns the intersection of this set with the specified set. Intervals
+     * sharing only an end point don't intersect.
+     * @param set an interval set
+     * @return an interval set containing the time in both sets
+     */
+    public IntervalSet intersection(final IntervalSet set) {
+        // each interval may overlap several in the other set..
+        Builder builder = new Builder(size + set.size);
+        int i = 0;
+        int j = 0;
+        while (i < size && j < set.size) {
+            long start = Math.max(starts[i], set.starts[j]);
+            long end = Math.min(ends[i], set.ends[j]);
+            if (start < end) {
+                builder.add(start, end);
+            }
+            // advance the interval that ends first..
+            if (ends[i] < set.ends[j]) {
+                i++;
+            }
+            else {
+                j++;
+            }
+        }
+        return builder.toIntervalSet();
+    }
+
+    /**
+     * Returns the time in this set that is not in the specified set.
+     * @param set an interval set
+     * @return an interval set containing the time in this set only
+     */
+    public IntervalSet subtract(final IntervalSet set) {
+        if (isEmpty() || set.isEmpty()) {
+            return this;
+        }
+        Builder builder = new Builder(size + set.size);
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            long start = starts[i];
+            long end = ends[i];
+            // subtractions ending before this interval can't affect this
+            // or any later interval..
+            while (j < set.size && set.ends[j] < start) {
+                j++;
+            }
+            boolean consumed = false;
+            for (int k = j; k < set.size && set.starts[k] <= end; k++) {
+                if (set.starts[k] > start) {
+                    builder.add(start, set.starts[k]);
+                }
+                if (set.ends[k] >= end) {
+                    consumed = true;
+                    break;
+                }
+                start = Math.max(start, set.ends[k]);
+            }
+            if (!consumed) {
+                builder.add(start, end);
+            }
+        }
+        return builder.toIntervalSet();
+    }
+
+    /**
+     * Returns the intervals of this set as a list of periods in UTC.
+     * @return a normalised period list
+     */
+    public PeriodList toPeriodList() {
+        PeriodList periods = new PeriodList();
+        for (int i = 0; i < size; i++) {
+            DateTime start = new DateTime(starts[i]);
+            start.setUtc(true);
+            DateTime end = new DateTime(ends[i]);
+            end.setUtc(true);
+            periods.add(new Period(start, end));
+        }
+        return periods;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    public boolean equals(final Object arg0) {
+        if (arg0 instanceof IntervalSet) {
+            IntervalSet set = (IntervalSet) arg0;
+            return Arrays.equals(starts, set.starts) && Arrays.equals(ends, set.ends);
+        }
+        return super.equals(arg0);
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#hashCode()
+     */
+    public int hashCode() {
+        int result = 0;
+        for (int i = 0; i < size; i++) {
+            result = 29 * result + (int) (starts[i] ^ (starts[i] >>> 32));
+            result = 29 * result + (int) (ends[i] ^ (ends[i] >>> 32));
+        }
+        return result;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    public String toString() {
+        return toPeriodList().toString();
+    }
+
+    /**
+     * Accumulates intervals in order of start time, combining overlapping
+     * and adjacent intervals.
+     */
+    private static class Builder {
+
+        private long[] starts;
+
+        private long[] ends;
+
+        private int size;
+
+        /**
+         * @param capacity the maximum number of intervals
+         */
+        public Builder(final int capacity) {
+            starts = new long[capacity];
+            ends = new long[capacity];
+        }
+
+        /**
+         * Adds an interval starting no earlier than the last interval added.
+         * @param start the start of an interval
+         * @param end the end of an interval
+         */
+        public void add(final long start, final long end) {
+            if (size > 0 && start <= ends[size - 1]) {
+                ends[size - 1] = Math.max(ends[size - 1], end);
+            }
+            else {
+                starts[size] = start;
+                ends[size] = end;
+                size++;
+            }
+        }
+
+        /**
+         * @return the start times of the intervals added
+         */
+        public long[] getStarts() {
+            long[] result = new long[size];
+            System.arraycopy(starts, 0, result, 0, size);
+            return result;
+        }
+
+        /**
+         * @return the end times of the intervals added
+         */
+        public long[] getEnds() {
+            long[] result = new long[size];
+            System.arraycopy(ends, 0, result, 0, size);
+            return result;
+        }
+
+        /**
+         * @return an interval set of the intervals added
+         */
+        public IntervalSet toIntervalSet() {
+            return new IntervalSet(getStarts(), getEnds());
+        }
+    }
+}
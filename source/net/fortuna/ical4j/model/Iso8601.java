@@ -41,6 +41,7 @@ import java.util.Calendar;
 import java.util.Date;
 
 import net.fortuna.ical4j.util.Dates;
+import net.fortuna.ical4j.util.Iso8601Format;
 
 /**
  * Base class for date and time representations as defined
@@ -61,7 +62,13 @@ public abstract class Iso8601 extends Date {
      */
     public Iso8601(final long time, final String pattern, final int precision) {
         super(Dates.round(time, precision));
-        format = new SimpleDateFormat(pattern);
+        int form = Iso8601Format.getForm(pattern);
+        if (form >= 0) {
+            format = new Iso8601Format(form);
+        }
+        else {
+            format = new SimpleDateFormat(pattern);
+        }
         // use GMT timezone to avoid daylight savings rules affecting floating
         // time values..
 //        format.setTimeZone(TimeZone.getTimeZone(TimeZones.GMT_ID));
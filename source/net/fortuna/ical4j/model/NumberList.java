@@ -102,6 +102,23 @@ public class NumberList extends ArrayList implements Serializable {
         return remove((Object) aNumber);
     }
 
+    /**
+     * Overrides superclass such that replacing a number is also counted as a
+     * modification of the list.
+     * @see List#set(int, E)
+     */
+    public final Object set(final int index, final Object arg0) {
+        modCount++;
+        return super.set(index, arg0);
+    }
+
+    /**
+     * @return the number of modifications of this list, which only increases
+     */
+    final int getModCount() {
+        return modCount;
+    }
+
     /**
      * @see java.lang.Object#toString()
      */
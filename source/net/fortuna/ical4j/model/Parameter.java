@@ -33,6 +33,9 @@
  */
 package net.fortuna.ical4j.model;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.net.URISyntaxException;
 
 import net.fortuna.ical4j.util.Strings;
@@ -177,18 +180,31 @@ public abstract class Parameter extends Content {
      * @see java.lang.Object#toString()
      */
     public final String toString() {
-        StringBuffer b = new StringBuffer();
-        b.append(getName());
-        b.append('=');
+        StringWriter out = new StringWriter();
+        try {
+            write(out);
+        }
+        catch (IOException ioe) {
+            // not thrown by StringWriter..
+        }
+        return out.toString();
+    }
+
+    /**
+     * Writes the parameter in iCalendar format to the specified writer.
+     * @param out a writer
+     * @throws IOException thrown when unable to write to the writer
+     */
+    public final void write(final Writer out) throws IOException {
+        out.write(getName());
+        out.write('=');
 
         if (this instanceof Escapable) {
-            b.append(Strings.escape(Strings.valueOf(getValue())));
+            out.write(Strings.escape(Strings.valueOf(getValue())));
         }
         else {
-            b.append(Strings.valueOf(getValue()));
+            out.write(Strings.valueOf(getValue()));
         }
-
-        return b.toString();
     }
 
     /**
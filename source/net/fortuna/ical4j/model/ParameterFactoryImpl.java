@@ -37,6 +37,7 @@ package net.fortuna.ical4j.model;
 
 import java.net.URISyntaxException;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import net.fortuna.ical4j.model.parameter.AltRep;
@@ -63,15 +64,32 @@ import net.fortuna.ical4j.model.parameter.XParameter;
 
 /**
  * A factory for creating iCalendar parameters.
+ * <p>
+ * As parameters are immutable, instances are shared where possible. Where a
+ * parameter class defines a constant for a value (e.g. {@link Value#DATE}),
+ * the constant is returned rather than a new instance. Parameters with
+ * repetitive values that aren't constants (e.g. {@link TzId}) are shared via
+ * a cache of recently created parameters.
  *
  * @author Ben Fortuna
  */
 public final class ParameterFactoryImpl implements ParameterFactory {
 
+    /**
+     * The maximum number of values cached for each cached parameter name.
+     */
+    private static final int MAX_CACHE_SIZE = 100;
+
     private static ParameterFactoryImpl instance = new ParameterFactoryImpl();
     
     private Map factories;
 
+    // maps of constants by value, by parameter name..
+    private Map constants;
+
+    // caches of recently created parameters by value, by parameter name..
+    private Map caches;
+
     /**
      * Constructor made private to prevent instantiation.
      */
@@ -97,6 +115,62 @@ public final class ParameterFactoryImpl implements ParameterFactory {
         factories.put(Parameter.SENT_BY, createSentByFactory());
         factories.put(Parameter.TZID, createTzIdFactory());
         factories.put(Parameter.VALUE, createValueFactory());
+
+        constants = new HashMap();
+        registerConstants(new Parameter[] {CuType.INDIVIDUAL, CuType.GROUP,
+                CuType.RESOURCE, CuType.ROOM, CuType.UNKNOWN});
+        registerConstants(new Parameter[] {Encoding.EIGHT_BIT, Encoding.BASE64});
+        registerConstants(new Parameter[] {FbType.FREE, FbType.BUSY,
+                FbType.BUSY_TENTATIVE, FbType.BUSY_UNAVAILABLE});
+        registerConstants(new Parameter[] {PartStat.NEEDS_ACTION,
+                PartStat.ACCEPTED, PartStat.DECLINED, PartStat.TENTATIVE,
+                PartStat.DELEGATED, PartStat.COMPLETED, PartStat.IN_PROCESS});
+        registerConstants(new Parameter[] {Range.THISANDFUTURE, Range.THISANDPRIOR});
+        registerConstants(new Parameter[] {Related.START, Related.END});
+        registerConstants(new Parameter[] {RelType.PARENT, RelType.CHILD,
+                RelType.SIBLING});
+        registerConstants(new Parameter[] {Role.CHAIR, Role.REQ_PARTICIPANT,
+                Role.OPT_PARTICIPANT, Role.NON_PARTICIPANT});
+        registerConstants(new Parameter[] {Rsvp.TRUE, Rsvp.FALSE});
+        registerConstants(new Parameter[] {Value.BINARY, Value.BOOLEAN,
+                Value.CAL_ADDRESS, Value.DATE, Value.DATE_TIME, Value.DURATION,
+                Value.FLOAT, Value.INTEGER, Value.PERIOD, Value.RECUR,
+                Value.TEXT, Value.TIME, Value.URI, Value.UTC_OFFSET});
+
+        caches = new HashMap();
+        caches.put(Parameter.FMTTYPE, createCache());
+        caches.put(Parameter.LANGUAGE, createCache());
+        caches.put(Parameter.TZID, createCache());
+    }
+
+    /**
+     * Registers parameters to be returned in place of new instances with the
+     * same name and value.
+     * @param parameters an array of parameter constants
+     */
+    private void registerConstants(final Parameter[] parameters) {
+        for (int i = 0; i < parameters.length; i++) {
+            Map values = (Map) constants.get(parameters[i].getName());
+            if (values == null) {
+                values = new HashMap();
+                constants.put(parameters[i].getName(), values);
+            }
+            values.put(parameters[i].getValue(), parameters[i]);
+        }
+    }
+
+    /**
+     * @return a map in which least recently used entries are discarded first
+     */
+    private static Map createCache() {
+        return new LinkedHashMap(16, 0.75f, true) {
+
+            private static final long serialVersionUID = -2408716484245453711L;
+
+            protected boolean removeEldestEntry(final Map.Entry eldest) {
+                return size() > MAX_CACHE_SIZE;
+            }
+        };
     }
     
     /**
@@ -138,23 +212,7 @@ public final class ParameterFactoryImpl implements ParameterFactory {
              */
             public Parameter createParameter(final String name, final String value)
                     throws URISyntaxException {
-                CuType parameter =  new CuType(value);
-                if (CuType.INDIVIDUAL.equals(parameter)) {
-                    return CuType.INDIVIDUAL;
-                }
-                else if (CuType.GROUP.equals(parameter)) {
-                    return CuType.GROUP;
-                }
-                else if (CuType.RESOURCE.equals(parameter)) {
-                    return CuType.RESOURCE;
-                }
-                else if (CuType.ROOM.equals(parameter)) {
-                    return CuType.ROOM;
-                }
-                else if (CuType.UNKNOWN.equals(parameter)) {
-                    return CuType.UNKNOWN;
-                }
-                return parameter;
+                return new CuType(value);
             }
         };
     }
@@ -214,14 +272,7 @@ public final class ParameterFactoryImpl implements ParameterFactory {
              */
             public Parameter createParameter(final String name, final String value)
                     throws URISyntaxException {
-                Encoding parameter = new Encoding(value);
-                if (Encoding.EIGHT_BIT.equals(parameter)) {
-                    return Encoding.EIGHT_BIT;
-                }
-                else if (Encoding.BASE64.equals(parameter)) {
-                    return Encoding.BASE64;
-                }
-                return parameter;
+                return new Encoding(value);
             }
         };
     }
@@ -251,20 +302,7 @@ public final class ParameterFactoryImpl implements ParameterFactory {
              */
             public Parameter createParameter(final String name, final String value)
                     throws URISyntaxException {
-                FbType parameter = new FbType(value);
-                if (FbType.FREE.equals(parameter)) {
-                    return FbType.FREE;
-                }
-                else if (FbType.BUSY.equals(parameter)) {
-                    return FbType.BUSY;
-                }
-                else if (FbType.BUSY_TENTATIVE.equals(parameter)) {
-                    return FbType.BUSY_TENTATIVE;
-                }
-                else if (FbType.BUSY_UNAVAILABLE.equals(parameter)) {
-                    return FbType.BUSY_UNAVAILABLE;
-                }
-                return parameter;
+                return new FbType(value);
             }
         };
     }
@@ -309,29 +347,7 @@ public final class ParameterFactoryImpl implements ParameterFactory {
              */
             public Parameter createParameter(final String name, final String value)
                     throws URISyntaxException {
-                PartStat parameter = new PartStat(value);
-                if (PartStat.NEEDS_ACTION.equals(parameter)) {
-                    return PartStat.NEEDS_ACTION;
-                }
-                else if (PartStat.ACCEPTED.equals(parameter)) {
-                    return PartStat.ACCEPTED;
-                }
-                else if (PartStat.DECLINED.equals(parameter)) {
-                    return PartStat.DECLINED;
-                }
-                else if (PartStat.TENTATIVE.equals(parameter)) {
-                    return PartStat.TENTATIVE;
-                }
-                else if (PartStat.DELEGATED.equals(parameter)) {
-                    return PartStat.DELEGATED;
-                }
-                else if (PartStat.COMPLETED.equals(parameter)) {
-                    return PartStat.COMPLETED;
-                }
-                else if (PartStat.IN_PROCESS.equals(parameter)) {
-                    return PartStat.IN_PROCESS;
-                }
-                return parameter;
+                return new PartStat(value);
             }
         };
     }
@@ -346,14 +362,7 @@ public final class ParameterFactoryImpl implements ParameterFactory {
              */
             public Parameter createParameter(final String name, final String value)
                     throws URISyntaxException {
-                Range parameter = new Range(value);
-                if (Range.THISANDFUTURE.equals(parameter)) {
-                    return Range.THISANDFUTURE;
-                }
-                else if (Range.THISANDPRIOR.equals(parameter)) {
-                    return Range.THISANDPRIOR;
-                }
-                return parameter;
+                return new Range(value);
             }
         };
     }
@@ -368,14 +377,7 @@ public final class ParameterFactoryImpl implements ParameterFactory {
              */
             public Parameter createParameter(final String name, final String value)
                     throws URISyntaxException {
-                Related parameter = new Related(value);
-                if (Related.START.equals(parameter)) {
-                    return Related.START;
-                }
-                else if (Related.END.equals(parameter)) {
-                    return Related.END;
-                }
-                return parameter;
+                return new Related(value);
             }
         };
     }
@@ -390,17 +392,7 @@ public final class ParameterFactoryImpl implements ParameterFactory {
              */
             public Parameter createParameter(final String name, final String value)
                     throws URISyntaxException {
-                RelType parameter = new RelType(value);
-                if (RelType.PARENT.equals(parameter)) {
-                    return RelType.PARENT;
-                }
-                else if (RelType.CHILD.equals(parameter)) {
-                    return RelType.CHILD;
-                }
-                if (RelType.SIBLING.equals(parameter)) {
-                    return RelType.SIBLING;
-                }
-                return parameter;
+                return new RelType(value);
             }
         };
     }
@@ -415,20 +407,7 @@ public final class ParameterFactoryImpl implements ParameterFactory {
              */
             public Parameter createParameter(final String name, final String value)
                     throws URISyntaxException {
-                Role parameter = new Role(value);
-                if (Role.CHAIR.equals(parameter)) {
-                    return Role.CHAIR;
-                }
-                else if (Role.REQ_PARTICIPANT.equals(parameter)) {
-                    return Role.REQ_PARTICIPANT;
-                }
-                else if (Role.OPT_PARTICIPANT.equals(parameter)) {
-                    return Role.OPT_PARTICIPANT;
-                }
-                else if (Role.NON_PARTICIPANT.equals(parameter)) {
-                    return Role.NON_PARTICIPANT;
-                }
-                return parameter;
+                return new Role(value);
             }
         };
     }
@@ -443,14 +422,7 @@ public final class ParameterFactoryImpl implements ParameterFactory {
              */
             public Parameter createParameter(final String name, final String value)
                     throws URISyntaxException {
-                Rsvp parameter = new Rsvp(value);
-                if (Rsvp.TRUE.equals(parameter)) {
-                    return Rsvp.TRUE;
-                }
-                else if (Rsvp.FALSE.equals(parameter)) {
-                    return Rsvp.FALSE;
-                }
-                return parameter;
+                return new Rsvp(value);
             }
         };
     }
@@ -495,50 +467,7 @@ public final class ParameterFactoryImpl implements ParameterFactory {
              */
             public Parameter createParameter(final String name, final String value)
                     throws URISyntaxException {
-                Value parameter = new Value(value);
-                if (Value.BINARY.equals(parameter)) {
-                    return Value.BINARY;
-                }
-                else if (Value.BOOLEAN.equals(parameter)) {
-                    return Value.BOOLEAN;
-                }
-                else if (Value.CAL_ADDRESS.equals(parameter)) {
-                    return Value.CAL_ADDRESS;
-                }
-                else if (Value.DATE.equals(parameter)) {
-                    return Value.DATE;
-                }
-                else if (Value.DATE_TIME.equals(parameter)) {
-                    return Value.DATE_TIME;
-                }
-                else if (Value.DURATION.equals(parameter)) {
-                    return Value.DURATION;
-                }
-                else if (Value.FLOAT.equals(parameter)) {
-                    return Value.FLOAT;
-                }
-                else if (Value.INTEGER.equals(parameter)) {
-                    return Value.INTEGER;
-                }
-                else if (Value.PERIOD.equals(parameter)) {
-                    return Value.PERIOD;
-                }
-                else if (Value.RECUR.equals(parameter)) {
-                    return Value.RECUR;
-                }
-                else if (Value.TEXT.equals(parameter)) {
-                    return Value.TEXT;
-                }
-                else if (Value.TIME.equals(parameter)) {
-                    return Value.TIME;
-                }
-                else if (Value.URI.equals(parameter)) {
-                    return Value.URI;
-                }
-                else if (Value.UTC_OFFSET.equals(parameter)) {
-                    return Value.UTC_OFFSET;
-                }
-                return parameter;
+                return new Value(value);
             }
         };
     }
@@ -563,8 +492,28 @@ public final class ParameterFactoryImpl implements ParameterFactory {
      */
     public Parameter createParameter(final String name, final String value)
             throws URISyntaxException {
+        Map values = (Map) constants.get(name);
+        if (values != null) {
+            Parameter parameter = (Parameter) values.get(value);
+            if (parameter != null) {
+                return parameter;
+            }
+        }
         ParameterFactory factory = (ParameterFactory) factories.get(name);
         if (factory != null) {
+            Map cache = (Map) caches.get(name);
+            // NOTE: quoted values aren't cached, as they may be unquoted
+            // depending on compatibility settings (see TzId)..
+            if (cache != null && value != null && !value.startsWith("\"")) {
+                synchronized (cache) {
+                    Parameter parameter = (Parameter) cache.get(value);
+                    if (parameter == null) {
+                        parameter = factory.createParameter(name, value);
+                        cache.put(value, parameter);
+                    }
+                    return parameter;
+                }
+            }
             return factory.createParameter(name, value);
         }
         else if (isExperimentalName(name)) {
@@ -33,7 +33,10 @@
  */
 package net.fortuna.ical4j.model;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -53,6 +56,8 @@ public class ParameterList implements Serializable {
 
     private List parameters;
 
+    private boolean unmodifiable;
+
     /**
      * Default constructor. Creates a modifiable parameter list.
      */
@@ -64,6 +69,7 @@ public class ParameterList implements Serializable {
      * Constructor.
      */
     public ParameterList(final boolean unmodifiable) {
+        this.unmodifiable = unmodifiable;
         if (unmodifiable) {
             parameters = Collections.unmodifiableList(new ArrayList());
         }
@@ -85,25 +91,44 @@ public class ParameterList implements Serializable {
             Parameter parameter = (Parameter) i.next();
             parameters.add(ParameterFactoryImpl.getInstance().createParameter(parameter.getName(), parameter.getValue()));
         }
+        this.unmodifiable = unmodifiable;
         if (unmodifiable) {
             parameters = Collections.unmodifiableList(parameters);
         }
     }
 
+    /**
+     * @return true if this list was specified as unmodifiable at instantiation
+     */
+    public final boolean isUnmodifiable() {
+        return unmodifiable;
+    }
+
     /**
      * @see java.util.AbstractCollection#toString()
      */
     public final String toString() {
+        StringWriter out = new StringWriter();
+        try {
+            write(out);
+        }
+        catch (IOException ioe) {
+            // not thrown by StringWriter..
+        }
+        return out.toString();
+    }
 
-        StringBuffer buffer = new StringBuffer();
-
+    /**
+     * Writes each parameter in the list, preceded by a semi-colon, to the
+     * specified writer.
+     * @param out a writer
+     * @throws IOException thrown when unable to write to the writer
+     */
+    public final void write(final Writer out) throws IOException {
         for (Iterator i = parameters.iterator(); i.hasNext();) {
-
-            buffer.append(';');
-            buffer.append(i.next().toString());
+            out.write(';');
+            ((Parameter) i.next()).write(out);
         }
-
-        return buffer.toString();
     }
 
     /**
@@ -34,6 +34,8 @@
 package net.fortuna.ical4j.model;
 
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.net.URISyntaxException;
 import java.text.ParseException;
 import java.util.Iterator;
@@ -169,6 +171,12 @@ public abstract class Property extends Content {
 
     private ParameterList parameters;
 
+    /**
+     * A property value retained as a string until it is first required in
+     * typed form (see {@link #deferValue(String)}).
+     */
+    protected String deferredValue;
+
     /**
      * Constructor.
      * 
@@ -242,18 +250,35 @@ public abstract class Property extends Content {
      * @see java.lang.Object#toString()
      */
     public final String toString() {
-        StringBuffer buffer = new StringBuffer();
-        buffer.append(getName());
-        buffer.append(getParameters());
-        buffer.append(':');
+        StringWriter out = new StringWriter();
+        try {
+            write(out);
+        }
+        catch (IOException ioe) {
+            // not thrown by StringWriter..
+        }
+        return out.toString();
+    }
+
+    /**
+     * Writes the property as an (unfolded) iCalendar content line to the
+     * specified writer.
+     * 
+     * @param out
+     *            a writer
+     * @throws IOException
+     *             thrown when unable to write to the writer
+     */
+    public final void write(final Writer out) throws IOException {
+        out.write(getName());
+        getParameters().write(out);
+        out.write(':');
         if (this instanceof Escapable) {
-            buffer.append(Strings.escape(Strings.valueOf(getValue())));
+            out.write(Strings.escape(Strings.valueOf(getValue())));
         } else {
-            buffer.append(Strings.valueOf(getValue()));
+            out.write(Strings.valueOf(getValue()));
         }
-        buffer.append("\r\n");
-
-        return buffer.toString();
+        out.write("\r\n");
     }
 
     /**
@@ -263,13 +288,30 @@ public abstract class Property extends Content {
      * @return string containing iCalendar data written out.
      */
     public final String toStringNoValue() {
-        StringBuffer buffer = new StringBuffer();
-        buffer.append(getName());
-        buffer.append(getParameters());
-        buffer.append(':');
-        buffer.append("\r\n");
+        StringWriter out = new StringWriter();
+        try {
+            writeNoValue(out);
+        }
+        catch (IOException ioe) {
+            // not thrown by StringWriter..
+        }
+        return out.toString();
+    }
 
-        return buffer.toString();
+    /**
+     * Writes the property to the specified writer without the actual value
+     * data. This is used when filtering the output.
+     * 
+     * @param out
+     *            a writer
+     * @throws IOException
+     *             thrown when unable to write to the writer
+     */
+    public final void writeNoValue(final Writer out) throws IOException {
+        out.write(getName());
+        getParameters().write(out);
+        out.write(':');
+        out.write("\r\n");
     }
 
     /**
@@ -359,6 +401,52 @@ public abstract class Property extends Content {
     public abstract void setValue(String aValue) throws IOException,
             URISyntaxException, ParseException;
 
+    /**
+     * Sets the current value of the property, deferring the parsing of the
+     * value where supported until a typed representation of the value is
+     * first required. Until that time <code>getValue()</code> returns the
+     * specified string unchanged. The default implementation parses the
+     * value immediately.
+     * 
+     * @param aValue
+     *            a string representation of the property value
+     * @throws IOException
+     *             possibly thrown by setting the value of certain properties
+     * @throws URISyntaxException
+     *             possibly thrown by setting the value of certain properties
+     * @throws ParseException
+     *             possibly thrown by setting the value of certain properties
+     */
+    public void deferValue(final String aValue) throws IOException,
+            URISyntaxException, ParseException {
+        setValue(aValue);
+    }
+
+    /**
+     * Parses a deferred property value, if any. Sub-classes that support
+     * deferred values must invoke this method prior to accessing a typed
+     * representation of the value. This method is synchronized such that a
+     * property shared by multiple threads is parsed once, and its typed
+     * value is visible to each thread on return. An invalid deferred value
+     * is retained, such that the property may still be output unchanged.
+     * @throws IllegalArgumentException where the deferred value is invalid
+     */
+    protected final synchronized void parseDeferredValue() {
+        if (deferredValue != null) {
+            String value = deferredValue;
+            try {
+                setValue(value);
+            }
+            catch (Exception e) {
+                // restore the original value cleared by setValue()..
+                deferredValue = value;
+                throw new IllegalArgumentException("Invalid value [" + value
+                        + "] for property [" + getName() + "]: " + e.getMessage());
+            }
+            deferredValue = null;
+        }
+    }
+
     /**
      * @return Returns the value.
      */
@@ -36,8 +36,6 @@ package net.fortuna.ical4j.model;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.text.ParseException;
-import java.util.HashMap;
-import java.util.Map;
 
 import net.fortuna.ical4j.model.property.Action;
 import net.fortuna.ical4j.model.property.Attach;
@@ -87,9 +85,15 @@ import net.fortuna.ical4j.model.property.Uid;
 import net.fortuna.ical4j.model.property.Url;
 import net.fortuna.ical4j.model.property.Version;
 import net.fortuna.ical4j.model.property.XProperty;
+import net.fortuna.ical4j.util.NameTable;
 
 /**
  * A factory for creating iCalendar properties.
+ * <p>
+ * Factories are looked up by property name ignoring case, so names needn't be
+ * converted to upper case prior to creating a property. Factories for further
+ * properties, such as common experimental properties, may be registered via
+ * {@link #register(String, PropertyFactory)}.
  *
  * @author Ben Fortuna
  */
@@ -97,60 +101,62 @@ public final class PropertyFactoryImpl implements PropertyFactory {
 
     private static PropertyFactoryImpl instance = new PropertyFactoryImpl();
     
-    private Map factories;
+    // NOTE: tables are immutable and replaced when updated, such that lookups
+    // don't require locking..
+    private volatile NameTable factories;
 
     /**
      * Constructor made private to prevent instantiation.
      */
     private PropertyFactoryImpl() {
-        factories = new HashMap();
-        factories.put(Property.ACTION, createActionFactory());
-        factories.put(Property.ATTACH, createAttachFactory());
-        factories.put(Property.ATTENDEE, createAttendeeFactory());
-        factories.put(Property.CALSCALE, createCalScaleFactory());
-        factories.put(Property.CATEGORIES, createCategoriesFactory());
-        factories.put(Property.CLASS, createClazzFactory());
-        factories.put(Property.COMMENT, createCommentFactory());
-        factories.put(Property.COMPLETED, createCompletedFactory());
-        factories.put(Property.CONTACT, createContactFactory());
-        factories.put(Property.CREATED, createCreatedFactory());
-        factories.put(Property.DESCRIPTION, createDescriptionFactory());
-        factories.put(Property.DTEND, createDtEndFactory());
-        factories.put(Property.DTSTAMP, createDtStampFactory());
-        factories.put(Property.DTSTART, createDtStartFactory());
-        factories.put(Property.DUE, createDueFactory());
-        factories.put(Property.DURATION, createDurationFactory());
-        factories.put(Property.EXDATE, createExDateFactory());
-        factories.put(Property.EXRULE, createExRuleFactory());
-        factories.put(Property.FREEBUSY, createFreeBusyFactory());
-        factories.put(Property.GEO, createGeoFactory());
-        factories.put(Property.LAST_MODIFIED, createLastModifiedFactory());
-        factories.put(Property.LOCATION, createLocationFactory());
-        factories.put(Property.METHOD, createMethodFactory());
-        factories.put(Property.ORGANIZER, createOrganizerFactory());
-        factories.put(Property.PERCENT_COMPLETE, createPercentCompleteFactory());
-        factories.put(Property.PRIORITY, createPriorityFactory());
-        factories.put(Property.PRODID, createProdIdFactory());
-        factories.put(Property.RDATE, createRDateFactory());
-        factories.put(Property.RECURRENCE_ID, createRecurrenceIdFactory());
-        factories.put(Property.RELATED_TO, createRelatedToFactory());
-        factories.put(Property.REPEAT, createRepeatFactory());
-        factories.put(Property.REQUEST_STATUS, createRequestStatusFactory());
-        factories.put(Property.RESOURCES, createResourcesFactory());
-        factories.put(Property.RRULE, createRRuleFactory());
-        factories.put(Property.SEQUENCE, createSequenceFactory());
-        factories.put(Property.STATUS, createStatusFactory());
-        factories.put(Property.SUMMARY, createSummaryFactory());
-        factories.put(Property.TRANSP, createTranspFactory());
-        factories.put(Property.TRIGGER, createTriggerFactory());
-        factories.put(Property.TZID, createTzIdFactory());
-        factories.put(Property.TZNAME, createTzNameFactory());
-        factories.put(Property.TZOFFSETFROM, createTzOffsetFromFactory());
-        factories.put(Property.TZOFFSETTO, createTzOffsetToFactory());
-        factories.put(Property.TZURL, createTzUrlFactory());
-        factories.put(Property.UID, createUidFactory());
-        factories.put(Property.URL, createUrlFactory());
-        factories.put(Property.VERSION, createVersionFactory());
+        factories = NameTable.EMPTY;
+        factories = factories.put(Property.ACTION, createActionFactory());
+        factories = factories.put(Property.ATTACH, createAttachFactory());
+        factories = factories.put(Property.ATTENDEE, createAttendeeFactory());
+        factories = factories.put(Property.CALSCALE, createCalScaleFactory());
+        factories = factories.put(Property.CATEGORIES, createCategoriesFactory());
+        factories = factories.put(Property.CLASS, createClazzFactory());
+        factories = factories.put(Property.COMMENT, createCommentFactory());
+        factories = factories.put(Property.COMPLETED, createCompletedFactory());
+        factories = factories.put(Property.CONTACT, createContactFactory());
+        factories = factories.put(Property.CREATED, createCreatedFactory());
+        factories = factories.put(Property.DESCRIPTION, createDescriptionFactory());
+        factories = factories.put(Property.DTEND, createDtEndFactory());
+        factories = factories.put(Property.DTSTAMP, createDtStampFactory());
+        factories = factories.put(Property.DTSTART, createDtStartFactory());
+        factories = factories.put(Property.DUE, createDueFactory());
+        factories = factories.put(Property.DURATION, createDurationFactory());
+        factories = factories.put(Property.EXDATE, createExDateFactory());
+        factories = factories.put(Property.EXRULE, createExRuleFactory());
+        factories = factories.put(Property.FREEBUSY, createFreeBusyFactory());
+        factories = factories.put(Property.GEO, createGeoFactory());
+        factories = factories.put(Property.LAST_MODIFIED, createLastModifiedFactory());
+        factories = factories.put(Property.LOCATION, createLocationFactory());
+        factories = factories.put(Property.METHOD, createMethodFactory());
+        factories = factories.put(Property.ORGANIZER, createOrganizerFactory());
+        factories = factories.put(Property.PERCENT_COMPLETE, createPercentCompleteFactory());
+        factories = factories.put(Property.PRIORITY, createPriorityFactory());
+        factories = factories.put(Property.PRODID, createProdIdFactory());
+        factories = factories.put(Property.RDATE, createRDateFactory());
+        factories = factories.put(Property.RECURRENCE_ID, createRecurrenceIdFactory());
+        factories = factories.put(Property.RELATED_TO, createRelatedToFactory());
+        factories = factories.put(Property.REPEAT, createRepeatFactory());
+        factories = factories.put(Property.REQUEST_STATUS, createRequestStatusFactory());
+        factories = factories.put(Property.RESOURCES, createResourcesFactory());
+        factories = factories.put(Property.RRULE, createRRuleFactory());
+        factories = factories.put(Property.SEQUENCE, createSequenceFactory());
+        factories = factories.put(Property.STATUS, createStatusFactory());
+        factories = factories.put(Property.SUMMARY, createSummaryFactory());
+        factories = factories.put(Property.TRANSP, createTranspFactory());
+        factories = factories.put(Property.TRIGGER, createTriggerFactory());
+        factories = factories.put(Property.TZID, createTzIdFactory());
+        factories = factories.put(Property.TZNAME, createTzNameFactory());
+        factories = factories.put(Property.TZOFFSETFROM, createTzOffsetFromFactory());
+        factories = factories.put(Property.TZOFFSETTO, createTzOffsetToFactory());
+        factories = factories.put(Property.TZURL, createTzUrlFactory());
+        factories = factories.put(Property.UID, createUidFactory());
+        factories = factories.put(Property.URL, createUrlFactory());
+        factories = factories.put(Property.VERSION, createVersionFactory());
     }
     
     /**
@@ -1147,6 +1153,49 @@ public final class PropertyFactoryImpl implements PropertyFactory {
         return instance;
     }
 
+    /**
+     * Registers a factory for creating properties of the specified name,
+     * replacing any existing factory for the name. Registered factories are
+     * used in place of {@link XProperty} for experimental properties.
+     * @param name a property name
+     * @param factory a factory for creating properties of the specified name
+     */
+    public synchronized void register(final String name, final PropertyFactory factory) {
+        factories = factories.put(name, factory);
+    }
+
+    /**
+     * Removes the factory for creating properties of the specified name, if
+     * any. Note that this includes the factories of standard properties.
+     * @param name a property name
+     */
+    public synchronized void unregister(final String name) {
+        factories = factories.remove(name);
+    }
+
+    /**
+     * Returns the name of a property created by a factory of this instance,
+     * matching the specified name ignoring case.
+     * @param name a property name
+     * @return a property name, or null if no factory exists for the name
+     */
+    public String getName(final String name) {
+        return factories.getName(name);
+    }
+
+    /**
+     * Returns the name of a property created by a factory of this instance,
+     * matching the specified characters ignoring case. This allows a parser
+     * to obtain the name of a known property without creating a string.
+     * @param chars a character array
+     * @param offset the offset of a property name in the array
+     * @param length the length of the property name
+     * @return a property name, or null if no factory exists for the name
+     */
+    public String getName(final char[] chars, final int offset, final int length) {
+        return factories.getName(chars, offset, length);
+    }
+
     /**
      * Creates an uninitialised property.
      * @param name
@@ -1193,11 +1242,12 @@ public final class PropertyFactoryImpl implements PropertyFactory {
     }
     
     /**
-     * @param name
-     * @return
+     * @param name a property name
+     * @return true if the name has the experimental prefix (ignoring case)
      */
     private boolean isExperimentalName(final String name) {
-        return name.startsWith(Property.EXPERIMENTAL_PREFIX)
-                && name.length() > Property.EXPERIMENTAL_PREFIX.length();
+        return name.length() > Property.EXPERIMENTAL_PREFIX.length()
+                && name.regionMatches(true, 0, Property.EXPERIMENTAL_PREFIX, 0,
+                        Property.EXPERIMENTAL_PREFIX.length());
     }
 }
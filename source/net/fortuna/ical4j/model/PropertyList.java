@@ -33,14 +33,30 @@
  */
 package net.fortuna.ical4j.model;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
 
 import net.fortuna.ical4j.model.filter.OutputFilter;
 
 /**
  * Defines a list of iCalendar properties.
+ * <p>
+ * Properties are looked up by name via an index of the list, such that
+ * {@link #getProperty(String)} and {@link #getPropertiesView(String)} don't
+ * search the list. The index is built on first use, updated in place as
+ * properties are appended, and rebuilt on first use after any other
+ * modification. Lookups from multiple threads are safe provided the list
+ * itself is no longer modified.
  * 
  * @author Ben Fortuna
  */
@@ -48,6 +64,9 @@ public class PropertyList extends ArrayList implements Serializable {
 
     private static final long serialVersionUID = -8875923766224921031L;
 
+    // properties by name..
+    private transient volatile Index index;
+
     /**
      * Default constructor.
      */
@@ -68,11 +87,14 @@ public class PropertyList extends ArrayList implements Serializable {
      * @see java.util.AbstractCollection#toString()
      */
     public final String toString() {
-        StringBuffer buffer = new StringBuffer();
-        for (Iterator i = iterator(); i.hasNext();) {
-            buffer.append(i.next().toString());
+        StringWriter out = new StringWriter();
+        try {
+            write(out);
         }
-        return buffer.toString();
+        catch (IOException ioe) {
+            // not thrown by StringWriter..
+        }
+        return out.toString();
     }
 
     /**
@@ -84,12 +106,50 @@ public class PropertyList extends ArrayList implements Serializable {
      * @return iCalendar data written.
      */
     public final String toString(OutputFilter filter) {
+        StringWriter out = new StringWriter();
+        try {
+            write(out, filter);
+        }
+        catch (IOException ioe) {
+            // not thrown by StringWriter..
+        }
+        return out.toString();
+    }
+
+    /**
+     * Writes each property in the list to the specified writer, one content
+     * line at a time.
+     * 
+     * @param out
+     *            a writer
+     * @throws IOException
+     *             thrown when unable to write to the writer
+     */
+    public final void write(final Writer out) throws IOException {
+        for (Iterator i = iterator(); i.hasNext();) {
+            ((Property) i.next()).write(out);
+        }
+    }
+
+    /**
+     * Writes the property list to the specified writer filtering the
+     * properties according to the supplied filter.
+     * 
+     * @param out
+     *            a writer
+     * @param filter
+     *            filter to use.
+     * @throws IOException
+     *             thrown when unable to write to the writer
+     */
+    public final void write(final Writer out, final OutputFilter filter)
+            throws IOException {
 
         // Short cut for all properties
-        if (filter.isAllProperties())
-            return toString();
+        if (filter.isAllProperties()) {
+            write(out);
+        }
         else if (filter.hasPropertyFilters()) {
-            StringBuffer buffer = new StringBuffer();
             for (Iterator i = iterator(); i.hasNext();) {
                 // Test each property to see whether it is in the filter
                 Property p = (Property) i.next();
@@ -100,15 +160,13 @@ public class PropertyList extends ArrayList implements Serializable {
                     // Check whether no-value is set
                     if (filterit[1]) {
                         // Write without the value
-                        buffer.append(p.toStringNoValue());
+                        p.writeNoValue(out);
                     } else {
-                        buffer.append(p.toString());
+                        p.write(out);
                     }
                 }
             }
-            return buffer.toString();
-        } else
-            return "";
+        }
     }
 
     /**
@@ -133,11 +191,9 @@ public class PropertyList extends ArrayList implements Serializable {
      * @return a property or null if no matching property found
      */
     public final Property getProperty(final String aName) {
-        for (Iterator i = iterator(); i.hasNext();) {
-            Property p = (Property) i.next();
-            if (p.getName().equals(aName)) {
-                return p;
-            }
+        List properties = getIndex().get(aName);
+        if (properties != null) {
+            return (Property) properties.get(0);
         }
         return null;
     }
@@ -150,14 +206,43 @@ public class PropertyList extends ArrayList implements Serializable {
      * @return a property list
      */
     public final PropertyList getProperties(final String name) {
-        PropertyList list = new PropertyList();
-        for (Iterator i = iterator(); i.hasNext();) {
-            Property p = (Property) i.next();
-            if (p.getName().equals(name)) {
-                list.add(p);
-            }
+        List properties = getIndex().get(name);
+        if (properties != null) {
+            PropertyList list = new PropertyList(properties.size());
+            list.addAll(properties);
+            return list;
         }
-        return list;
+        return new PropertyList();
+    }
+
+    /**
+     * Returns an unmodifiable view of the properties with the specified name.
+     * Unlike {@link #getProperties(String)}, the properties aren't copied, and
+     * so this method is preferred where properties are only read. The view isn't
+     * updated by subsequent modifications of this list.
+     * 
+     * @param name
+     *            name of properties to return
+     * @return a list of properties
+     */
+    public final List getPropertiesView(final String name) {
+        List properties = getIndex().getView(name);
+        if (properties != null) {
+            return properties;
+        }
+        return Collections.EMPTY_LIST;
+    }
+
+    /**
+     * @return an index of the properties in this list
+     */
+    private Index getIndex() {
+        Index current = index;
+        if (current == null || current.modCount != modCount) {
+            current = new Index(this, modCount);
+            index = current;
+        }
+        return current;
     }
 
     /**
@@ -183,7 +268,36 @@ public class PropertyList extends ArrayList implements Serializable {
             throw new IllegalArgumentException("Argument not a "
                     + Property.class.getName());
         }
-        return super.add(arg0);
+        Index current = index;
+        boolean indexed = current != null && current.modCount == modCount;
+        boolean result = super.add(arg0);
+        // update the index in place rather than rebuild it on next use..
+        if (indexed) {
+            current.add((Property) arg0, modCount);
+        }
+        return result;
+    }
+
+    /**
+     * Overrides superclass to invalidate the index of properties.
+     * 
+     * @see List#set(int, java.lang.Object)
+     */
+    public final Object set(final int position, final Object arg0) {
+        index = null;
+        return super.set(position, arg0);
+    }
+
+    /**
+     * Overrides superclass such that the index of properties isn't shared
+     * with the copy.
+     * 
+     * @see java.lang.Object#clone()
+     */
+    public Object clone() {
+        PropertyList list = (PropertyList) super.clone();
+        list.index = null;
+        return list;
     }
 
     /**
@@ -219,4 +333,123 @@ public class PropertyList extends ArrayList implements Serializable {
     // public final int size() {
     // return properties.size();
     // }
+
+    /**
+     * The properties of a list by name, in list order. An index is updated in
+     * place as properties are appended to the list, and so may only be shared
+     * by threads without synchronization once the list is no longer modified.
+     * As the lists of an index are only ever appended to, views of their
+     * current properties aren't affected by updates.
+     */
+    private static class Index {
+
+        // entries of properties by name..
+        private final Map entries = new HashMap();
+
+        private int modCount;
+
+        /**
+         * @param list a property list
+         * @param modCount the modification count of the list
+         */
+        public Index(final PropertyList list, final int modCount) {
+            for (int i = 0; i < list.size(); i++) {
+                add((Property) list.get(i), modCount);
+            }
+            this.modCount = modCount;
+        }
+
+        /**
+         * @param name a property name
+         * @return a list of properties with the specified name, or null if
+         * there are none
+         */
+        public List get(final String name) {
+            Entry entry = (Entry) entries.get(name);
+            if (entry != null) {
+                return entry.properties;
+            }
+            return null;
+        }
+
+        /**
+         * @param name a property name
+         * @return an unmodifiable view of the properties currently indexed
+         * with the specified name, or null if there are none
+         */
+        public List getView(final String name) {
+            Entry entry = (Entry) entries.get(name);
+            if (entry != null) {
+                View view = entry.view;
+                // a view is only created after properties are appended..
+                if (view == null || view.size != entry.properties.size()) {
+                    view = new View(entry.properties, entry.properties.size());
+                    entry.view = view;
+                }
+                return view;
+            }
+            return null;
+        }
+
+        /**
+         * @param property a property appended to the list
+         * @param modCount the modification count of the list
+         */
+        public void add(final Property property, final int modCount) {
+            Entry entry = (Entry) entries.get(property.getName());
+            if (entry == null) {
+                entry = new Entry();
+                entries.put(property.getName(), entry);
+            }
+            entry.properties.add(property);
+            this.modCount = modCount;
+        }
+    }
+
+    /**
+     * The properties of an index with a single name.
+     */
+    private static class Entry {
+
+        private final List properties = new ArrayList(1);
+
+        private View view;
+    }
+
+    /**
+     * An unmodifiable view of the leading properties of an index list. As
+     * index lists are only appended to, the view is unaffected by updates.
+     */
+    private static class View extends AbstractList implements RandomAccess {
+
+        private final List properties;
+
+        private final int size;
+
+        /**
+         * @param properties an index list
+         * @param size the number of properties in the view
+         */
+        public View(final List properties, final int size) {
+            this.properties = properties;
+            this.size = size;
+        }
+
+        /* (non-Javadoc)
+         * @see java.util.AbstractList#get(int)
+         */
+        public Object get(final int index) {
+            if (index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return properties.get(index);
+        }
+
+        /* (non-Javadoc)
+         * @see java.util.AbstractCollection#size()
+         */
+        public int size() {
+            return size;
+        }
+    }
 }
@@ -41,6 +41,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.StringTokenizer;
 
 import net.fortuna.ical4j.model.parameter.Value;
@@ -101,6 +102,13 @@ public class Recur implements Serializable {
 
     public static final String YEARLY = "YEARLY";
 
+    /**
+     * The maximum number of consecutive periods that may produce no dates
+     * before an iterator assumes the rule will produce no more dates (e.g.
+     * FREQ=YEARLY;BYMONTH=2;BYMONTHDAY=30).
+     */
+    private static final int MAX_EMPTY_PERIODS = 1000;
+
     private static Log log = LogFactory.getLog(Recur.class);
 
     private String frequency;
@@ -133,6 +141,16 @@ public class Recur implements Serializable {
 
     private Map experimentalValues = new HashMap();
 
+    // NOTE: checkpoints and expansions are immutable, and so are safely
+    // shared between threads once published via these fields..
+    private transient volatile Checkpoint checkpoint;
+
+    private transient volatile RecurExpansion expansion;
+
+    // the modification count of the lists of rule values when the expansion
+    // was obtained (written before the expansion is published)..
+    private transient int expansionModCount;
+
     /**
      * Constructs a new instance from the specified string value.
      * @param aValue
@@ -357,6 +375,7 @@ public class Recur implements Serializable {
      */
     public final void setWeekStartDay(final String weekStartDay) {
         this.weekStartDay = weekStartDay;
+        invalidate();
     }
 
     /**
@@ -486,28 +505,80 @@ public class Recur implements Serializable {
         }
         Calendar cal = Dates.getCalendarInstance(seed);
         cal.setTime(seed);
+        long seedTime = cal.getTimeInMillis();
+        int period = 0;
         int invalidCandidateCount = 0;
-        while (!((getUntil() != null && cal.getTime().after(getUntil()))
-                || (periodEnd != null && cal.getTime().after(periodEnd))
+
+        RecurExpansion expansion = getExpansion();
+
+        // skip periods that cannot produce dates in the requested period..
+        if (getCount() >= 1) {
+            // with COUNT every date from the seed must be counted, so resume
+            // from a checkpoint left by an earlier call if possible..
+            Checkpoint checkpoint = this.checkpoint;
+            if (checkpoint != null && checkpoint.matches(expansion, cal, value)
+                    && periodStart.getTime() >= checkpoint.periodStart) {
+                period = checkpoint.period;
+                invalidCandidateCount = checkpoint.candidateCount;
+            }
+        }
+        else if (getUntil() == null || !getUntil().before(periodStart)) {
+            period = expansion.getPeriodBefore(cal,
+                    periodStart.getTime() - expansion.getCandidateRange());
+        }
+        expansion.setPeriod(cal, seedTime, period);
+
+        // the first period that may produce dates on or after periodStart..
+        int checkpointPeriod = period;
+        int checkpointCount = invalidCandidateCount;
+        boolean beforePeriodStart = true;
+
+        // candidates are compared as primitive times, and only those in the
+        // period are created as dates. Candidates are expanded in the
+        // timezone of the seed..
+        int precision = RecurExpansion.getPrecision(value);
+        Calendar expansionCal = Dates.getCalendarInstance(seed);
+        Calendar scratch = Dates.getCalendarInstance(seed);
+        long seedStart = seed.getTime();
+        long start = periodStart.getTime();
+        long end = periodEnd.getTime();
+        long untilTime = (getUntil() != null) ? getUntil().getTime() : Long.MAX_VALUE;
+
+        while (!(cal.getTimeInMillis() > untilTime
+                || cal.getTimeInMillis() > end
                 || (getCount() >= 1 && (dates.size() + invalidCandidateCount) >= getCount()))) {
-            DateList candidates = getCandidates(Dates.getInstance(cal.getTime(), value), value);
-            for (Iterator i = candidates.iterator(); i.hasNext();) {
-                Date candidate = (Date) i.next();
+            long[] candidates = getCandidates(expansion,
+                    Dates.round(cal.getTimeInMillis(), precision), precision,
+                    expansionCal, scratch, value);
+            for (int i = 0; i < candidates.length; i++) {
+                long candidate = candidates[i];
                 // don't count candidates that occur before the seed date..
-                if (!candidate.before(seed)) {
+                if (candidate >= seedStart) {
+                    if (candidate >= start) {
+                        beforePeriodStart = false;
+                    }
                     // candidates exclusive of periodEnd..
-                    if (candidate.before(periodStart) || !candidate.before(periodEnd)) {
+                    if (candidate < start || candidate >= end) {
                         invalidCandidateCount++;
                     }
                     else if (getCount() >= 1 && (dates.size() + invalidCandidateCount) >= getCount()) {
                         break;
                     }
-                    else if (!(getUntil() != null && candidate.after(getUntil()))) {
-                        dates.add(candidate);
+                    else if (candidate <= untilTime) {
+                        dates.add(Dates.getInstance(new java.util.Date(candidate), value));
                     }
                 }
             }
-            increment(cal);
+            expansion.setPeriod(cal, seedTime, ++period);
+            if (beforePeriodStart) {
+                checkpointPeriod = period;
+                checkpointCount = invalidCandidateCount;
+            }
+        }
+        if (getCount() >= 1 && checkpointPeriod > 0) {
+            expansion.setPeriod(cal, seedTime, 0);
+            checkpoint = new Checkpoint(expansion, cal, value, periodStart.getTime(),
+                    checkpointPeriod, checkpointCount);
         }
         // sort final list..
         Collections.sort(dates);
@@ -515,413 +586,278 @@ public class Recur implements Serializable {
     }
 
     /**
-     * Increments the specified calendar according to the
-     * frequency and interval specified in this recurrence
-     * rule.
-     * @param cal a java.util.Calendar to increment
+     * Returns an iterator over the start dates represented by this recur, in
+     * chronological order, beginning with the specified seed. Dates are
+     * generated a period at a time as the iterator advances, so a caller
+     * interested only in the next (or first few) occurrences need not expand
+     * the recurrence to its UNTIL or COUNT limit, nor choose an artificial
+     * period end for a recurrence that has neither. COUNT and UNTIL are
+     * honoured, and the dates returned are the same as those returned by
+     * {@link #getDates(Date, Date, Date, Value)} with the seed as the period
+     * start.
+     * @param seed the start date of this recurrence's first instance
+     * @param value the type of dates to generate (i.e. date/date-time)
+     * @return an iterator of {@link Date} instances
      */
-    private void increment(final Calendar cal) {
-        // initialise interval..
-        int calInterval = (getInterval() >= 1) ? getInterval() : 1;
-        if (SECONDLY.equals(getFrequency())) {
-            cal.add(Calendar.SECOND, calInterval);
-        }
-        else if (MINUTELY.equals(getFrequency())) {
-            cal.add(Calendar.MINUTE, calInterval);
-        }
-        else if (HOURLY.equals(getFrequency())) {
-            cal.add(Calendar.HOUR_OF_DAY, calInterval);
-        }
-        else if (DAILY.equals(getFrequency())) {
-            cal.add(Calendar.DAY_OF_YEAR, calInterval);
-        }
-        else if (WEEKLY.equals(getFrequency())) {
-            cal.add(Calendar.WEEK_OF_YEAR, calInterval);
-        }
-        else if (MONTHLY.equals(getFrequency())) {
-            cal.add(Calendar.MONTH, calInterval);
-        }
-        else if (YEARLY.equals(getFrequency())) {
-            cal.add(Calendar.YEAR, calInterval);
-        }
-    }
-    
-    /**
-     * Returns a list of possible dates generated from the applicable
-     * BY* rules, using the specified date as a seed.
-     * @param date the seed date
-     * @param value the type of date list to return
-     * @return a DateList
-     */
-    private DateList getCandidates(final Date date, final Value value) {
-        DateList dates = new DateList(value);
-        dates.add(date);
-        dates = getMonthVariants(dates);
-        // debugging..
-        if (log.isDebugEnabled()) {
-            log.debug("Dates after BYMONTH processing: " + dates);
-        }
-        dates = getWeekNoVariants(dates);
-        // debugging..
-        if (log.isDebugEnabled()) {
-            log.debug("Dates after BYWEEKNO processing: " + dates);
-        }
-        dates = getYearDayVariants(dates);
-        // debugging..
-        if (log.isDebugEnabled()) {
-            log.debug("Dates after BYYEARDAY processing: " + dates);
-        }
-        dates = getMonthDayVariants(dates);
-        // debugging..
-        if (log.isDebugEnabled()) {
-            log.debug("Dates after BYMONTHDAY processing: " + dates);
-        }
-        dates = getDayVariants(dates);
-        // debugging..
-        if (log.isDebugEnabled()) {
-            log.debug("Dates after BYDAY processing: " + dates);
-        }
-        dates = getHourVariants(dates);
-        // debugging..
-        if (log.isDebugEnabled()) {
-            log.debug("Dates after BYHOUR processing: " + dates);
-        }
-        dates = getMinuteVariants(dates);
-        // debugging..
-        if (log.isDebugEnabled()) {
-            log.debug("Dates after BYMINUTE processing: " + dates);
-        }
-        dates = getSecondVariants(dates);
-        // debugging..
-        if (log.isDebugEnabled()) {
-            log.debug("Dates after BYSECOND processing: " + dates);
-        }
-        dates = applySetPosRules(dates);
-        // debugging..
-        if (log.isDebugEnabled()) {
-            log.debug("Dates after SETPOS processing: " + dates);
-        }
-        return dates;
+    public final Iterator iterator(final Date seed, final Value value) {
+        return new RecurIterator(seed, value);
     }
 
     /**
-     * Applies BYSETPOS rules to <code>dates</code>. Valid positions are from
-     * 1 to the size of the date list. Invalid positions are ignored.
-     * 
-     * @param dates
+     * Lazily generates the dates of a recurrence.
      */
-    private DateList applySetPosRules(final DateList dates) {
-        // return if no SETPOS rules specified..
-        if (getSetPosList().isEmpty()) {
-            return dates;
+    private class RecurIterator implements Iterator {
+
+        private Date seed;
+
+        private Value value;
+
+        private Calendar cal;
+
+        private long seedTime;
+
+        private int period;
+
+        // dates of the current period..
+        private DateList dates;
+
+        private int index;
+
+        // number of dates generated so far, for comparison with COUNT..
+        private int dateCount;
+
+        private boolean finished;
+
+        private RecurExpansion expansion;
+
+        private int precision;
+
+        private Calendar expansionCal;
+
+        private Calendar scratch;
+
+        /**
+         * @param seed the start date of the recurrence
+         * @param value the type of dates to generate
+         */
+        public RecurIterator(final Date seed, final Value value) {
+            this.seed = seed;
+            this.value = value;
+            expansion = getExpansion();
+            precision = RecurExpansion.getPrecision(value);
+            expansionCal = Dates.getCalendarInstance(seed);
+            scratch = Dates.getCalendarInstance(seed);
+            cal = Dates.getCalendarInstance(seed);
+            cal.setTime(seed);
+            seedTime = cal.getTimeInMillis();
+            dates = new DateList(value);
         }
-        // sort the list before processing..
-        Collections.sort(dates);
-        DateList setPosDates = new DateList(dates.getType());
-        int size = dates.size();
-        for (Iterator i = getSetPosList().iterator(); i.hasNext();) {
-            Integer setPos = (Integer) i.next();
-            int pos = setPos.intValue();
-            if (pos > 0 && pos <= size) {
-                setPosDates.add(dates.get(pos - 1));
-            }
-            else if (pos < 0 && pos >= -size) {
-                setPosDates.add(dates.get(size + pos));
+
+        /* (non-Javadoc)
+         * @see java.util.Iterator#hasNext()
+         */
+        public boolean hasNext() {
+            if (index >= dates.size() && !finished) {
+                nextPeriod();
             }
+            return index < dates.size();
         }
-        return setPosDates;
-    }
-    
-    /**
-     * Applies BYMONTH rules specified in this Recur instance to the
-     * specified date list. If no BYMONTH rules are specified the
-     * date list is returned unmodified.
-     * @param dates
-     * @return
-     */
-    private DateList getMonthVariants(final DateList dates) {
-        if (getMonthList().isEmpty()) {
-            return dates;
-        }
-        DateList monthlyDates = new DateList(dates.getType());
-        for (Iterator i = dates.iterator(); i.hasNext();) {
-            Date date = (Date) i.next();
-            Calendar cal = Dates.getCalendarInstance(date);
-            cal.setTime(date);
-            for (Iterator j = getMonthList().iterator(); j.hasNext();) {
-                Integer month = (Integer) j.next();
-                // Java months are zero-based..
-                cal.set(Calendar.MONTH, month.intValue() - 1);
-                monthlyDates.add(Dates.getInstance(cal.getTime(), monthlyDates.getType()));
+
+        /* (non-Javadoc)
+         * @see java.util.Iterator#next()
+         */
+        public Object next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
             }
+            return dates.get(index++);
         }
-        return monthlyDates;
-    }
 
-    /**
-     * Applies BYWEEKNO rules specified in this Recur instance to the
-     * specified date list. If no BYWEEKNO rules are specified the
-     * date list is returned unmodified.
-     * @param dates
-     * @return
-     */
-    private DateList getWeekNoVariants(final DateList dates) {
-        if (getWeekNoList().isEmpty()) {
-            return dates;
+        /* (non-Javadoc)
+         * @see java.util.Iterator#remove()
+         */
+        public void remove() {
+            throw new UnsupportedOperationException();
         }
-        DateList weekNoDates = new DateList(dates.getType());
-        for (Iterator i = dates.iterator(); i.hasNext();) {
-            Date date = (Date) i.next();
-            Calendar cal = Dates.getCalendarInstance(date);
-            cal.setTime(date);
-            for (Iterator j = getWeekNoList().iterator(); j.hasNext();) {
-                Integer weekNo = (Integer) j.next();
-                cal.set(Calendar.WEEK_OF_YEAR, Dates.getAbsWeekNo(cal.getTime(), weekNo.intValue()));
-                weekNoDates.add(Dates.getInstance(cal.getTime(), weekNoDates.getType()));
+
+        /**
+         * Generates dates for successive periods until a period produces at
+         * least one date, or the recurrence is exhausted.
+         */
+        private void nextPeriod() {
+            dates = new DateList(value);
+            if ((seed instanceof DateTime) && ((DateTime) seed).isUtc()) {
+                dates.setUtc(true);
             }
+            index = 0;
+            int emptyPeriods = 0;
+            while (dates.isEmpty()) {
+                if ((getUntil() != null && cal.getTime().after(getUntil()))
+                        || (getCount() >= 1 && dateCount >= getCount())
+                        || emptyPeriods++ >= MAX_EMPTY_PERIODS) {
+                    finished = true;
+                    return;
+                }
+                long[] candidates = getCandidates(expansion,
+                        Dates.round(cal.getTimeInMillis(), precision), precision,
+                        expansionCal, scratch, value);
+                for (int i = 0; i < candidates.length; i++) {
+                    // don't count candidates that occur before the seed date..
+                    if (candidates[i] >= seed.getTime()) {
+                        if (getCount() >= 1 && dateCount >= getCount()) {
+                            break;
+                        }
+                        else if (!(getUntil() != null && candidates[i] > getUntil().getTime())) {
+                            dates.add(Dates.getInstance(new java.util.Date(candidates[i]), value));
+                            dateCount++;
+                        }
+                    }
+                }
+                expansion.setPeriod(cal, seedTime, ++period);
+            }
+            Collections.sort(dates);
         }
-        return weekNoDates;
     }
 
     /**
-     * Applies BYYEARDAY rules specified in this Recur instance to the
-     * specified date list. If no BYYEARDAY rules are specified the
-     * date list is returned unmodified.
-     * @param dates
-     * @return
+     * Returns the compiled form of this recurrence used to expand it. The
+     * expansion is discarded by the setters of this recurrence, and as the
+     * lists of rule values are mutable, is also validated against their
+     * modification counts.
+     * @return an expansion of this recurrence
      */
-    private DateList getYearDayVariants(final DateList dates) {
-        if (getYearDayList().isEmpty()) {
-            return dates;
-        }
-        DateList yearDayDates = new DateList(dates.getType());
-        for (Iterator i = dates.iterator(); i.hasNext();) {
-            Date date = (Date) i.next();
-            Calendar cal = Dates.getCalendarInstance(date);
-            cal.setTime(date);
-            for (Iterator j = getYearDayList().iterator(); j.hasNext();) {
-                Integer yearDay = (Integer) j.next();
-                cal.set(Calendar.DAY_OF_YEAR, Dates.getAbsYearDay(cal.getTime(), yearDay.intValue()));
-                yearDayDates.add(Dates.getInstance(cal.getTime(), yearDayDates.getType()));
-            }
+    private RecurExpansion getExpansion() {
+        RecurExpansion expansion = this.expansion;
+        int modCount = getModCount();
+        if (expansion == null || expansionModCount != modCount) {
+            expansion = RecurExpansion.getInstance(this, toString());
+            expansionModCount = modCount;
+            this.expansion = expansion;
         }
-        return yearDayDates;
+        return expansion;
     }
 
     /**
-     * Applies BYMONTHDAY rules specified in this Recur instance to the
-     * specified date list. If no BYMONTHDAY rules are specified the
-     * date list is returned unmodified.
-     * @param dates
-     * @return
+     * @return the total modification count of the lists of rule values. As the
+     * count of each list only increases, any modification changes the total
      */
-    private DateList getMonthDayVariants(final DateList dates) {
-        if (getMonthDayList().isEmpty()) {
-            return dates;
-        }
-        DateList monthDayDates = new DateList(dates.getType());
-        for (Iterator i = dates.iterator(); i.hasNext();) {
-            Date date = (Date) i.next();
-            Calendar cal = Dates.getCalendarInstance(date);
-            cal.setTime(date);
-            for (Iterator j = getMonthDayList().iterator(); j.hasNext();) {
-                Integer monthDay = (Integer) j.next();
-                cal.set(Calendar.DAY_OF_MONTH, Dates.getAbsMonthDay(cal.getTime(), monthDay.intValue()));
-                monthDayDates.add(Dates.getInstance(cal.getTime(), monthDayDates.getType()));
-            }
-        }
-        return monthDayDates;
+    private int getModCount() {
+        return getModCount(secondList) + getModCount(minuteList)
+            + getModCount(hourList) + getModCount(monthDayList)
+            + getModCount(yearDayList) + getModCount(weekNoList)
+            + getModCount(monthList) + getModCount(setPosList)
+            + ((dayList != null) ? dayList.getModCount() : 0);
     }
 
     /**
-     * Applies BYDAY rules specified in this Recur instance to the
-     * specified date list. If no BYDAY rules are specified the
-     * date list is returned unmodified.
-     * @param dates
-     * @return
+     * @param list a list of rule values, or null
+     * @return the modification count of the list
      */
-    private DateList getDayVariants(final DateList dates) {
-        if (getDayList().isEmpty()) {
-            return dates;
-        }
-        DateList weekDayDates = new DateList(dates.getType());
-        for (Iterator i = dates.iterator(); i.hasNext();) {
-            Date date = (Date) i.next();
-            for (Iterator j = getDayList().iterator(); j.hasNext();) {
-                WeekDay weekDay = (WeekDay) j.next();
-                weekDayDates.addAll(getAbsWeekDays(date, dates.getType(), weekDay));
-            }
-        }
-        return weekDayDates;
+    private static int getModCount(final NumberList list) {
+        return (list != null) ? list.getModCount() : 0;
     }
 
     /**
-     * Returns a list of applicable dates corresponding to the specified
-     * week day in accordance with the frequency specified by this recurrence
-     * rule.
-     * @param date
-     * @param weekDay
-     * @return
+     * Discards the expansion and checkpoint of this recurrence following a
+     * change to the rule.
      */
-    private List getAbsWeekDays(final Date date, final Value type, final WeekDay weekDay) {
-        Calendar cal = Dates.getCalendarInstance(date);
-        cal.setTime(date);
-        DateList days = new DateList(type);
-        int calDay = WeekDay.getCalendarDay(weekDay);
-        if (calDay == -1) {
-            // a matching weekday cannot be identified..
-            return days;
-        }
-        if (DAILY.equals(getFrequency())) {
-            if (cal.get(Calendar.DAY_OF_WEEK) == calDay) {
-                days.add(Dates.getInstance(cal.getTime(), type));
-            }
-        }
-        else if (WEEKLY.equals(getFrequency())  || !getWeekNoList().isEmpty()) {
-            //int weekNo = cal.get(Calendar.WEEK_OF_YEAR);
-            // construct a list of possible week days..
-//            cal.set(Calendar.DAY_OF_WEEK_IN_MONTH, 1);
-            while (cal.get(Calendar.DAY_OF_WEEK) != calDay) {
-                cal.add(Calendar.DAY_OF_WEEK, 1);
-            }
-            int weekNo = cal.get(Calendar.WEEK_OF_YEAR);
-            while (cal.get(Calendar.WEEK_OF_YEAR) == weekNo) {
-                days.add(Dates.getInstance(cal.getTime(), type));
-                cal.add(Calendar.DAY_OF_WEEK, Dates.DAYS_PER_WEEK);
-            }
-        }
-        else if (MONTHLY.equals(getFrequency())  || !getMonthList().isEmpty()) {
-            int month = cal.get(Calendar.MONTH);
-            // construct a list of possible month days..
-            cal.set(Calendar.DAY_OF_MONTH, 1);
-            while (cal.get(Calendar.DAY_OF_WEEK) != calDay) {
-                cal.add(Calendar.DAY_OF_MONTH, 1);
-            }
-            while (cal.get(Calendar.MONTH) == month) {
-                days.add(Dates.getInstance(cal.getTime(), type));
-                cal.add(Calendar.DAY_OF_MONTH, Dates.DAYS_PER_WEEK);
-            }
-        }
-        else if (YEARLY.equals(getFrequency())) {
-            int year = cal.get(Calendar.YEAR);
-            // construct a list of possible year days..
-            cal.set(Calendar.DAY_OF_YEAR, 1);
-            while (cal.get(Calendar.DAY_OF_WEEK) != calDay) {
-                cal.add(Calendar.DAY_OF_YEAR, 1);
-            }
-            while (cal.get(Calendar.YEAR) == year) {
-                days.add(Dates.getInstance(cal.getTime(), type));
-                cal.add(Calendar.DAY_OF_YEAR, Dates.DAYS_PER_WEEK);
-            }
-        }
-        DateList weekDays = new DateList(days.getType());
-        sublist(days, weekDay.getOffset(), weekDays);
-        return weekDays;
+    private void invalidate() {
+        expansion = null;
+        checkpoint = null;
     }
 
     /**
-     * Returns a single-element sublist containing the element of
-     * <code>list</code> at <code>offset</code>. Valid offsets are from 1
-     * to the size of the list. If an invalid offset is supplied, all elements
-     * from <code>list</code> are added to <code>sublist</code>.
-     * 
-     * @param list
-     * @param offset
-     * @param sublist
+     * A record of the number of dates generated by a recurrence with a COUNT
+     * before a given period. This allows subsequent calls for the same seed
+     * to resume from that period instead of expanding the recurrence from
+     * the seed.
      */
-    private void sublist(final List list, final int offset, final List sublist) {
-        int size = list.size();
-        if (offset < 0 && offset >= -size) {
-            sublist.add(list.get(size + offset));
-        } else if (offset > 0 && offset <= size) {
-            sublist.add(list.get(offset - 1));
-        } else {
-            sublist.addAll(list);
-        }
-    }
-    
-    /**
-     * Applies BYHOUR rules specified in this Recur instance to the specified
-     * date list. If no BYHOUR rules are specified the date list is returned
-     * unmodified.
-     * 
-     * @param dates
-     * @return
-     */
-    private DateList getHourVariants(final DateList dates) {
-        if (getHourList().isEmpty()) {
-            return dates;
-        }
-        DateList hourlyDates = new DateList(dates.getType());
-        for (Iterator i = dates.iterator(); i.hasNext();) {
-            Date date = (Date) i.next();
-            Calendar cal = Dates.getCalendarInstance(date);
-            cal.setTime(date);
-            for (Iterator j = getHourList().iterator(); j.hasNext();) {
-                Integer hour = (Integer) j.next();
-                cal.set(Calendar.HOUR_OF_DAY, hour.intValue());
-                hourlyDates.add(Dates.getInstance(cal.getTime(), hourlyDates.getType()));
-            }
+    private static class Checkpoint {
+
+        private final RecurExpansion expansion;
+
+        private final long seedTime;
+
+        private final String timeZoneId;
+
+        private final Value value;
+
+        private final long periodStart;
+
+        private final int period;
+
+        private final int candidateCount;
+
+        /**
+         * @param expansion the expansion of the recurrence
+         * @param cal a calendar set to the recurrence seed
+         * @param value the type of dates generated
+         * @param periodStart all dates generated before the checkpoint period
+         * occur before this time
+         * @param period the checkpoint period
+         * @param candidateCount the number of dates generated by periods prior
+         * to the checkpoint period
+         */
+        public Checkpoint(final RecurExpansion expansion, final Calendar cal, final Value value,
+                final long periodStart, final int period, final int candidateCount) {
+            this.expansion = expansion;
+            this.seedTime = cal.getTimeInMillis();
+            this.timeZoneId = cal.getTimeZone().getID();
+            this.value = value;
+            this.periodStart = periodStart;
+            this.period = period;
+            this.candidateCount = candidateCount;
         }
-        return hourlyDates;
-    }
-    
-    /**
-     * Applies BYMINUTE rules specified in this Recur instance to the
-     * specified date list. If no BYMINUTE rules are specified the
-     * date list is returned unmodified.
-     * @param dates
-     * @return
-     */
-    private DateList getMinuteVariants(final DateList dates) {
-        if (getMinuteList().isEmpty()) {
-            return dates;
-        }
-        DateList minutelyDates = new DateList(dates.getType());
-        for (Iterator i = dates.iterator(); i.hasNext();) {
-            Date date = (Date) i.next();
-            Calendar cal = Dates.getCalendarInstance(date);
-            cal.setTime(date);
-            for (Iterator j = getMinuteList().iterator(); j.hasNext();) {
-                Integer minute = (Integer) j.next();
-                cal.set(Calendar.MINUTE, minute.intValue());
-                minutelyDates.add(Dates.getInstance(cal.getTime(), minutelyDates.getType()));
-            }
+
+        /**
+         * @param expansion the expansion of a recurrence
+         * @param cal a calendar set to a recurrence seed
+         * @param value the type of dates to generate
+         * @return true if the checkpoint applies to the specified recurrence
+         */
+        public boolean matches(final RecurExpansion expansion, final Calendar cal,
+                final Value value) {
+            // expansions are shared by rules with the same string representation..
+            return this.expansion == expansion
+                && seedTime == cal.getTimeInMillis()
+                && timeZoneId.equals(cal.getTimeZone().getID())
+                && (this.value == null ? value == null : this.value.equals(value));
         }
-        return minutelyDates;
     }
-    
+
     /**
-     * Applies BYSECOND rules specified in this Recur instance to the
-     * specified date list. If no BYSECOND rules are specified the
-     * date list is returned unmodified.
-     * @param dates
-     * @return
-     */
-    private DateList getSecondVariants(final DateList dates) {
-        if (getSecondList().isEmpty()) {
-            return dates;
-        }
-        DateList secondlyDates = new DateList(dates.getType());
-        for (Iterator i = dates.iterator(); i.hasNext();) {
-            Date date = (Date) i.next();
-            Calendar cal = Dates.getCalendarInstance(date);
-            cal.setTime(date);
-            for (Iterator j = getSecondList().iterator(); j.hasNext();) {
-                Integer second = (Integer) j.next();
-                cal.set(Calendar.SECOND, second.intValue());
-                secondlyDates.add(Dates.getInstance(cal.getTime(), secondlyDates.getType()));
+     * Returns the possible times generated from the applicable BY* rules,
+     * using the specified time as a seed.
+     * @param expansion the BY* rules of this recurrence
+     * @param time the seed time, rounded to the specified precision
+     * @param precision the precision of the dates to generate
+     * @param cal a calendar in the timezone of the seed
+     * @param scratch a second calendar in the timezone of the seed
+     * @param value the type of dates to generate
+     * @return an array of candidate times
+     */
+    private long[] getCandidates(final RecurExpansion expansion, final long time,
+            final int precision, final Calendar cal, final Calendar scratch,
+            final Value value) {
+        long[] candidates = expansion.getCandidates(time, precision, cal, scratch);
+        // debugging..
+        if (log.isDebugEnabled()) {
+            DateList dates = new DateList(value);
+            for (int i = 0; i < candidates.length; i++) {
+                dates.add(Dates.getInstance(new java.util.Date(candidates[i]), value));
             }
+            log.debug("Candidates after BY* processing: " + dates);
         }
-        return secondlyDates;
+        return candidates;
     }
-    
+
     /**
      * @param count The count to set.
      */
     public final void setCount(final int count) {
         this.count = count;
         this.until = null;
+        invalidate();
     }
     
     /**
@@ -929,6 +865,7 @@ public class Recur implements Serializable {
      */
     public final void setFrequency(final String frequency) {
         this.frequency = frequency;
+        invalidate();
     }
     
     /**
@@ -936,6 +873,7 @@ public class Recur implements Serializable {
      */
     public final void setInterval(final int interval) {
         this.interval = interval;
+        invalidate();
     }
     
     /**
@@ -944,5 +882,6 @@ public class Recur implements Serializable {
     public final void setUntil(final Date until) {
         this.until = until;
         this.count = -1;
+        invalidate();
     }
 }
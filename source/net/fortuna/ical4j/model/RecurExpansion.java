@@ -0,0 +1,614 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2007, Ben Fortuna
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  o Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Ben Fortuna nor the names of any other contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.fortuna.ical4j.model;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.fortuna.ical4j.model.parameter.Value;
+import net.fortuna.ical4j.util.Dates;
+
+/**
+ * A recurrence rule compiled for expansion. The frequency is resolved to the
+ * <code>java.util.Calendar</code> field it increments, and the BY* rules to
+ * primitive arrays. Candidates are expanded from a period as an array of
+ * times (in milliseconds), such that only the dates that are ultimately
+ * returned need be created as {@link Date} instances.
+ * 
+ * Each BY* rule is applied by setting the corresponding
+ * <code>java.util.Calendar</code> field of each candidate, and each time is
+ * rounded to the precision of the date type in the same way as a new
+ * {@link Date} or {@link DateTime} instance. Negative month and year days are
+ * resolved from the actual maximum of the field rather than by enumerating
+ * each day, where the days are numbered consecutively.
+ * Candidates are expanded in the timezone of the calendars provided, which
+ * is that of the recurrence seed.
+ * 
+ * Rule values are kept in the order specified rather than sorted, as the
+ * candidates of a period are generated, and so counted towards COUNT, in
+ * that order.
+ * 
+ * Instances are immutable, and so may be shared between threads and between
+ * recurrences with the same rule; the calendars used for expansion are
+ * provided by the caller. Shared instances are obtained via
+ * {@link #getInstance(Recur, String)}.
+ */
+final class RecurExpansion {
+
+    /**
+     * The maximum number of rules for which expansions are cached.
+     */
+    private static final int MAX_CACHE_SIZE = 1000;
+
+    // least recently used expansions are discarded first..
+    private static final Map CACHE = new LinkedHashMap(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 7307287622327449587L;
+
+        protected boolean removeEldestEntry(final Map.Entry eldest) {
+            return size() > MAX_CACHE_SIZE;
+        }
+    };
+
+    private final String rule;
+
+    // the java.util.Calendar field incremented by the frequency, or -1..
+    private final int frequencyField;
+
+    private final int interval;
+
+    private final int[] months;
+
+    private final int[] weekNos;
+
+    private final int[] yearDays;
+
+    private final int[] monthDays;
+
+    // java.util.Calendar days of the week..
+    private final int[] weekDays;
+
+    private final int[] weekDayOffsets;
+
+    // the java.util.Calendar field over which week days are expanded, or
+    // -1 if week days are not expanded..
+    private final int weekDayScope;
+
+    private final int[] hours;
+
+    private final int[] minutes;
+
+    private final int[] seconds;
+
+    private final int[] setPositions;
+
+    private final long candidateRange;
+
+    /**
+     * @param recur a recurrence rule
+     * @param rule the string representation of the recurrence rule
+     */
+    public RecurExpansion(final Recur recur, final String rule) {
+        this.rule = rule;
+        frequencyField = getFrequencyField(recur.getFrequency());
+        interval = (recur.getInterval() >= 1) ? recur.getInterval() : 1;
+        months = toArray(recur.getMonthList());
+        weekNos = toArray(recur.getWeekNoList());
+        yearDays = toArray(recur.getYearDayList());
+        monthDays = toArray(recur.getMonthDayList());
+        hours = toArray(recur.getHourList());
+        minutes = toArray(recur.getMinuteList());
+        seconds = toArray(recur.getSecondList());
+        setPositions = toArray(recur.getSetPosList());
+        WeekDayList dayList = recur.getDayList();
+        weekDays = new int[dayList.size()];
+        weekDayOffsets = new int[dayList.size()];
+        int i = 0;
+        for (Iterator j = dayList.iterator(); j.hasNext(); i++) {
+            WeekDay weekDay = (WeekDay) j.next();
+            weekDays[i] = WeekDay.getCalendarDay(weekDay);
+            weekDayOffsets[i] = weekDay.getOffset();
+        }
+        if (frequencyField == Calendar.DAY_OF_YEAR) {
+            weekDayScope = Calendar.DAY_OF_YEAR;
+        }
+        else if (frequencyField == Calendar.WEEK_OF_YEAR || weekNos.length > 0) {
+            weekDayScope = Calendar.WEEK_OF_YEAR;
+        }
+        else if (frequencyField == Calendar.MONTH || months.length > 0) {
+            weekDayScope = Calendar.MONTH;
+        }
+        else if (frequencyField == Calendar.YEAR) {
+            weekDayScope = Calendar.YEAR;
+        }
+        else {
+            weekDayScope = -1;
+        }
+        candidateRange = calculateCandidateRange();
+    }
+
+    /**
+     * Returns a shared expansion of the specified recurrence rule.
+     * @param recur a recurrence rule
+     * @param rule the string representation of the recurrence rule
+     * @return an expansion of the rule
+     */
+    public static RecurExpansion getInstance(final Recur recur, final String rule) {
+        synchronized (CACHE) {
+            RecurExpansion expansion = (RecurExpansion) CACHE.get(rule);
+            if (expansion == null) {
+                expansion = new RecurExpansion(recur, rule);
+                CACHE.put(rule, expansion);
+            }
+            return expansion;
+        }
+    }
+
+    /**
+     * @param frequency a recurrence frequency
+     * @return the java.util.Calendar field incremented by the frequency, or
+     * -1 if the frequency is not recognised
+     */
+    private static int getFrequencyField(final String frequency) {
+        if (Recur.SECONDLY.equals(frequency)) {
+            return Calendar.SECOND;
+        }
+        else if (Recur.MINUTELY.equals(frequency)) {
+            return Calendar.MINUTE;
+        }
+        else if (Recur.HOURLY.equals(frequency)) {
+            return Calendar.HOUR_OF_DAY;
+        }
+        else if (Recur.DAILY.equals(frequency)) {
+            return Calendar.DAY_OF_YEAR;
+        }
+        else if (Recur.WEEKLY.equals(frequency)) {
+            return Calendar.WEEK_OF_YEAR;
+        }
+        else if (Recur.MONTHLY.equals(frequency)) {
+            return Calendar.MONTH;
+        }
+        else if (Recur.YEARLY.equals(frequency)) {
+            return Calendar.YEAR;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the maximum amount of time by which a candidate generated by
+     * the BY* rules may follow the start of the period it was generated from.
+     * @return a time in milliseconds
+     */
+    private long calculateCandidateRange() {
+        long days = 0;
+        if (months.length > 0 || weekNos.length > 0 || yearDays.length > 0
+                || (weekDays.length > 0 && frequencyField == Calendar.YEAR)) {
+            // variants within the year, or the first week of the next..
+            days = 366 + 2 * Dates.DAYS_PER_WEEK;
+        }
+        else if (monthDays.length > 0
+                || (weekDays.length > 0 && frequencyField == Calendar.MONTH)) {
+            // variants within the month (or days past the end of a short month)..
+            days = 31 + Dates.DAYS_PER_WEEK;
+        }
+        else if (weekDays.length > 0) {
+            days = 2 * Dates.DAYS_PER_WEEK;
+        }
+        else if (hours.length > 0 || minutes.length > 0 || seconds.length > 0) {
+            days = 2;
+        }
+        return days * Dates.MILLIS_PER_DAY;
+    }
+
+    /**
+     * @return the string representation of the rule expanded
+     */
+    public String getRule() {
+        return rule;
+    }
+
+    /**
+     * Returns the maximum amount of time by which a candidate generated by
+     * the BY* rules may follow the start of the period it was generated from.
+     * @return a time in milliseconds
+     */
+    public long getCandidateRange() {
+        return candidateRange;
+    }
+
+    /**
+     * Sets the specified calendar to the start of a period of the recurrence.
+     * Periods are always calculated from the seed rather than by
+     * incrementing the previous period, so that any period may be calculated
+     * directly, and so that a period adjusted to fit a shorter month or to
+     * avoid a daylight savings transition doesn't offset all later periods.
+     * @param cal a java.util.Calendar to set
+     * @param seedTime the time of the recurrence seed
+     * @param period the number of periods since the seed
+     */
+    public void setPeriod(final Calendar cal, final long seedTime, final int period) {
+        cal.setTimeInMillis(seedTime);
+        if (period > 0 && frequencyField >= 0) {
+            cal.add(frequencyField, period * interval);
+        }
+    }
+
+    /**
+     * Returns the last period of the recurrence that starts no later than
+     * the specified time. The calendar is set to the start of that period.
+     * @param cal a calendar set to the recurrence seed
+     * @param time a time in milliseconds
+     * @return the number of periods since the seed, or zero if the seed is
+     * not before the specified time
+     */
+    public int getPeriodBefore(final Calendar cal, final long time) {
+        long seedTime = cal.getTimeInMillis();
+        long periodLength = getMaxFrequencyLength() * interval;
+        int period = 0;
+        if (periodLength > 0) {
+            // estimate using the longest possible period length, which always
+            // falls short of the time, and repeat until within a period..
+            long periods = (time - seedTime) / periodLength;
+            while (periods > 0
+                    && (period + periods) * interval <= Integer.MAX_VALUE) {
+                period += (int) periods;
+                setPeriod(cal, seedTime, period);
+                periods = (time - cal.getTimeInMillis()) / periodLength;
+            }
+        }
+        return period;
+    }
+
+    /**
+     * @return the maximum length of one increment of the frequency (allowing
+     * for daylight savings transitions), in milliseconds
+     */
+    private long getMaxFrequencyLength() {
+        long maxDay = Dates.MILLIS_PER_DAY + 2 * Dates.MILLIS_PER_HOUR;
+        switch (frequencyField) {
+            case Calendar.SECOND: return Dates.MILLIS_PER_SECOND;
+            case Calendar.MINUTE: return Dates.MILLIS_PER_MINUTE;
+            case Calendar.HOUR_OF_DAY: return Dates.MILLIS_PER_HOUR;
+            case Calendar.DAY_OF_YEAR: return maxDay;
+            case Calendar.WEEK_OF_YEAR: return Dates.DAYS_PER_WEEK * maxDay;
+            case Calendar.MONTH: return 31 * maxDay;
+            case Calendar.YEAR: return 366 * maxDay;
+            default: return 0;
+        }
+    }
+
+    /**
+     * @param list a list of numbers
+     * @return an array containing the int value of each number in the list
+     */
+    private static int[] toArray(final List list) {
+        int[] values = new int[list.size()];
+        int i = 0;
+        for (Iterator j = list.iterator(); j.hasNext(); i++) {
+            values[i] = ((Number) j.next()).intValue();
+        }
+        return values;
+    }
+
+    /**
+     * @param value a date type
+     * @return the precision of dates of the specified type
+     */
+    public static int getPrecision(final Value value) {
+        if (Value.DATE.equals(value)) {
+            return Dates.PRECISION_DAY;
+        }
+        return Dates.PRECISION_SECOND;
+    }
+
+    /**
+     * Returns the candidate times generated by the applicable BY* rules from
+     * the specified time. The candidates are not necessarily in chronological
+     * order.
+     * @param time the start of a recurrence period, rounded to the
+     * specified precision
+     * @param precision the precision of the dates to generate
+     * @param cal a calendar in the timezone of the seed used for expansion
+     * @param scratch a second calendar in the timezone of the seed
+     * @return an array of candidate times
+     */
+    public long[] getCandidates(final long time, final int precision,
+            final Calendar cal, final Calendar scratch) {
+        long[] times = new long[] {time};
+        times = getVariants(times, months, Calendar.MONTH, precision, cal, scratch);
+        times = getVariants(times, weekNos, Calendar.WEEK_OF_YEAR, precision, cal, scratch);
+        times = getVariants(times, yearDays, Calendar.DAY_OF_YEAR, precision, cal, scratch);
+        times = getVariants(times, monthDays, Calendar.DAY_OF_MONTH, precision, cal, scratch);
+        times = getDayVariants(times, precision, cal);
+        times = getVariants(times, hours, Calendar.HOUR_OF_DAY, precision, cal, scratch);
+        times = getVariants(times, minutes, Calendar.MINUTE, precision, cal, scratch);
+        times = getVariants(times, seconds, Calendar.SECOND, precision, cal, scratch);
+        return applySetPosRules(times);
+    }
+
+    /**
+     * Applies the values of a BY* rule to each of the specified times. If no
+     * values are specified the times are returned unmodified.
+     * @param times an array of times
+     * @param values the values of the rule
+     * @param field the java.util.Calendar field the rule applies to
+     * @param precision the precision of the dates to generate
+     * @param cal a calendar used for expansion
+     * @param scratch a second calendar
+     * @return an array of times
+     */
+    private long[] getVariants(final long[] times, final int[] values, final int field,
+            final int precision, final Calendar cal, final Calendar scratch) {
+        if (values.length == 0) {
+            return times;
+        }
+        long[] variants = new long[times.length * values.length];
+        int n = 0;
+        for (int i = 0; i < times.length; i++) {
+            cal.setTimeInMillis(times[i]);
+            for (int j = 0; j < values.length; j++) {
+                switch (field) {
+                    case Calendar.MONTH:
+                        // Java months are zero-based..
+                        cal.set(field, values[j] - 1);
+                        break;
+                    case Calendar.WEEK_OF_YEAR:
+                    case Calendar.DAY_OF_YEAR:
+                    case Calendar.DAY_OF_MONTH:
+                        cal.set(field, getAbsValue(field, cal.getTimeInMillis(), values[j], scratch));
+                        break;
+                    default:
+                        cal.set(field, values[j]);
+                }
+                variants[n++] = Dates.round(cal.getTimeInMillis(), precision);
+            }
+        }
+        return variants;
+    }
+
+    /**
+     * Returns the absolute value of a BY* rule value that may be negative
+     * (i.e. relative to the end of the year or month), as provided by the
+     * corresponding <code>Dates.getAbs*()</code> method.
+     * @param field the java.util.Calendar field the rule applies to
+     * @param time the time the value is relative to
+     * @param value a rule value
+     * @param scratch a calendar in the timezone of the seed
+     * @return an absolute field value
+     */
+    private static int getAbsValue(final int field, final long time, final int value,
+            final Calendar scratch) {
+        if (value > 0 && value <= getMaximum(field)) {
+            return value;
+        }
+        if (value < 0 && field != Calendar.WEEK_OF_YEAR) {
+            scratch.setTimeInMillis(time);
+            int max = scratch.getActualMaximum(field);
+            if (max + value >= 0 && isConsecutive(field, max, scratch)) {
+                return max + value + 1;
+            }
+        }
+        // week numbering is irregular, and invalid values must fail in the
+        // same way, so defer to Dates..
+        java.util.Date date = new java.util.Date(time);
+        if (field == Calendar.WEEK_OF_YEAR) {
+            return Dates.getAbsWeekNo(date, value);
+        }
+        else if (field == Calendar.DAY_OF_YEAR) {
+            return Dates.getAbsYearDay(date, value);
+        }
+        return Dates.getAbsMonthDay(date, value);
+    }
+
+    /**
+     * @param field a java.util.Calendar field
+     * @return the largest valid positive rule value for the field
+     */
+    private static int getMaximum(final int field) {
+        switch (field) {
+            case Calendar.WEEK_OF_YEAR: return 53;
+            case Calendar.DAY_OF_YEAR: return 366;
+            default: return 31;
+        }
+    }
+
+    /**
+     * Indicates whether the days of the year or month containing the time of
+     * the specified calendar are numbered consecutively from one to the
+     * specified maximum, such that a negative day is simply relative to the
+     * maximum. This is not the case where days are skipped, either by a
+     * calendar cutover or by a timezone changing sides of the date line.
+     * @param field the java.util.Calendar day field
+     * @param max the actual maximum of the field
+     * @param cal a calendar, which is modified
+     * @return true if the days are numbered consecutively
+     */
+    private static boolean isConsecutive(final int field, final int max, final Calendar cal) {
+        cal.set(field, 1);
+        cal.set(Calendar.HOUR_OF_DAY, 0);
+        cal.set(Calendar.MINUTE, 0);
+        cal.set(Calendar.SECOND, 0);
+        cal.set(Calendar.MILLISECOND, 0);
+        long start = cal.getTimeInMillis();
+        if (field == Calendar.DAY_OF_YEAR) {
+            cal.add(Calendar.YEAR, 1);
+        }
+        else {
+            cal.add(Calendar.MONTH, 1);
+        }
+        // allow for daylight savings and other offset changes..
+        long length = cal.getTimeInMillis() - start;
+        return Math.abs(length - max * Dates.MILLIS_PER_DAY) < Dates.MILLIS_PER_DAY / 2;
+    }
+
+    /**
+     * Applies the BYDAY rule to each of the specified times. If no BYDAY rule
+     * is specified the times are returned unmodified.
+     * @param times an array of times
+     * @param precision the precision of the dates to generate
+     * @param cal a calendar used for expansion
+     * @return an array of times
+     */
+    private long[] getDayVariants(final long[] times, final int precision,
+            final Calendar cal) {
+        if (weekDays.length == 0) {
+            return times;
+        }
+        long[] variants = new long[times.length * weekDays.length];
+        int n = 0;
+        long[] days = new long[Dates.DAYS_PER_WEEK];
+        for (int i = 0; i < times.length; i++) {
+            for (int j = 0; j < weekDays.length; j++) {
+                int calDay = weekDays[j];
+                if (calDay == -1) {
+                    // a matching weekday cannot be identified..
+                    continue;
+                }
+                cal.setTimeInMillis(times[i]);
+                int count = 0;
+                if (weekDayScope == Calendar.DAY_OF_YEAR) {
+                    if (cal.get(Calendar.DAY_OF_WEEK) == calDay) {
+                        days[count++] = Dates.round(cal.getTimeInMillis(), precision);
+                    }
+                }
+                else if (weekDayScope == Calendar.WEEK_OF_YEAR) {
+                    while (cal.get(Calendar.DAY_OF_WEEK) != calDay) {
+                        cal.add(Calendar.DAY_OF_WEEK, 1);
+                    }
+                    int weekNo = cal.get(Calendar.WEEK_OF_YEAR);
+                    while (cal.get(Calendar.WEEK_OF_YEAR) == weekNo) {
+                        days = add(days, count++, Dates.round(cal.getTimeInMillis(), precision));
+                        cal.add(Calendar.DAY_OF_WEEK, Dates.DAYS_PER_WEEK);
+                    }
+                }
+                else if (weekDayScope == Calendar.MONTH) {
+                    int month = cal.get(Calendar.MONTH);
+                    cal.set(Calendar.DAY_OF_MONTH, 1);
+                    while (cal.get(Calendar.DAY_OF_WEEK) != calDay) {
+                        cal.add(Calendar.DAY_OF_MONTH, 1);
+                    }
+                    while (cal.get(Calendar.MONTH) == month) {
+                        days = add(days, count++, Dates.round(cal.getTimeInMillis(), precision));
+                        cal.add(Calendar.DAY_OF_MONTH, Dates.DAYS_PER_WEEK);
+                    }
+                }
+                else if (weekDayScope == Calendar.YEAR) {
+                    int year = cal.get(Calendar.YEAR);
+                    cal.set(Calendar.DAY_OF_YEAR, 1);
+                    while (cal.get(Calendar.DAY_OF_WEEK) != calDay) {
+                        cal.add(Calendar.DAY_OF_YEAR, 1);
+                    }
+                    while (cal.get(Calendar.YEAR) == year) {
+                        days = add(days, count++, Dates.round(cal.getTimeInMillis(), precision));
+                        cal.add(Calendar.DAY_OF_YEAR, Dates.DAYS_PER_WEEK);
+                    }
+                }
+                // select the day at the offset, or all days if the offset is
+                // not valid..
+                int offset = weekDayOffsets[j];
+                if (offset < 0 && offset >= -count) {
+                    variants = add(variants, n++, days[count + offset]);
+                }
+                else if (offset > 0 && offset <= count) {
+                    variants = add(variants, n++, days[offset - 1]);
+                }
+                else {
+                    for (int k = 0; k < count; k++) {
+                        variants = add(variants, n++, days[k]);
+                    }
+                }
+            }
+        }
+        return trim(variants, n);
+    }
+
+    /**
+     * Applies BYSETPOS rules to the specified times. Valid positions are from
+     * 1 to the number of times. Invalid positions are ignored.
+     * @param times an array of times
+     * @return an array of times
+     */
+    private long[] applySetPosRules(final long[] times) {
+        if (setPositions.length == 0) {
+            return times;
+        }
+        Arrays.sort(times);
+        long[] setPosTimes = new long[setPositions.length];
+        int n = 0;
+        for (int i = 0; i < setPositions.length; i++) {
+            int pos = setPositions[i];
+            if (pos > 0 && pos <= times.length) {
+                setPosTimes[n++] = times[pos - 1];
+            }
+            else if (pos < 0 && pos >= -times.length) {
+                setPosTimes[n++] = times[times.length + pos];
+            }
+        }
+        return trim(setPosTimes, n);
+    }
+
+    /**
+     * @param times an array of times
+     * @param index the index at which to set a time
+     * @param time a time
+     * @return the array, or a larger copy if the index is beyond its length
+     */
+    private static long[] add(final long[] times, final int index, final long time) {
+        long[] result = times;
+        if (index >= times.length) {
+            result = new long[Math.max(index + 1, times.length * 2)];
+            System.arraycopy(times, 0, result, 0, times.length);
+        }
+        result[index] = time;
+        return result;
+    }
+
+    /**
+     * @param times an array of times
+     * @param length the number of times in use
+     * @return the array, or a copy of the specified length
+     */
+    private static long[] trim(final long[] times, final int length) {
+        if (length == times.length) {
+            return times;
+        }
+        long[] result = new long[length];
+        System.arraycopy(times, 0, result, 0, length);
+        return result;
+    }
+}
@@ -35,25 +35,53 @@
  */
 package net.fortuna.ical4j.model;
 
+import java.io.ByteArrayInputStream;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.GregorianCalendar;
 
-import net.fortuna.ical4j.model.component.Daylight;
+import net.fortuna.ical4j.data.CalendarBuilder;
 import net.fortuna.ical4j.model.component.Observance;
 import net.fortuna.ical4j.model.component.VTimeZone;
 import net.fortuna.ical4j.model.property.TzId;
-import net.fortuna.ical4j.model.property.TzOffsetTo;
+import net.fortuna.ical4j.util.Dates;
+import net.fortuna.ical4j.util.TimeZones;
 
 /**
  * A Java timezone implementation based on an underlying VTimeZone
- * definition.
+ * definition. The definition is compiled into a table of
+ * {@link TimeZoneTransitions} on first use, such that offsets are found by a
+ * binary search.
  * @author Ben Fortuna
  */
 public class TimeZone extends java.util.TimeZone {
     
     private static final long serialVersionUID = -5620979316746547234L;
+
+    /**
+     * The number of years beyond the current or a requested date for which
+     * transitions are compiled. Configurable via the
+     * <code>ical4j.timezone.transition.years</code> system property.
+     */
+    private static final int TRANSITION_YEARS = Integer.getInteger(
+            "ical4j.timezone.transition.years", 50).intValue();
+
+    /**
+     * The latest horizon to which transitions are compiled (10000-01-01).
+     */
+    private static final long MAX_HORIZON = 253402300800000L;
+
+    private static final java.util.TimeZone UTC_TIMEZONE = java.util.TimeZone.getTimeZone(
+            TimeZones.UTC_ID);
     
-    private VTimeZone vTimeZone;
+    private volatile VTimeZone vTimeZone;
+
+    // an iCalendar definition of the VTimeZone, parsed on first use..
+    private byte[] definition;
+
+    // NOTE: the table is immutable and replaced when extended, such that
+    // lookups don't require locking..
+    private transient volatile TimeZoneTransitions transitions;
     
     /**
      * Constructs a new instance based on the specified VTimeZone.
@@ -65,39 +93,63 @@ public class TimeZone extends java.util.TimeZone {
         setID(tzId.getValue());
     }
 
+    /**
+     * Constructs a new instance with precompiled transitions, such that the
+     * VTimeZone definition need not be parsed until it is required.
+     * @param id the timezone identifier
+     * @param definition UTF-8 encoded iCalendar data containing the VTimeZone
+     * @param transitions the transitions of the VTimeZone
+     */
+    TimeZone(final String id, final byte[] definition,
+            final TimeZoneTransitions transitions) {
+        this.definition = definition;
+        this.transitions = transitions;
+        setID(id);
+    }
+
     /* (non-Javadoc)
      * @see java.util.TimeZone#getOffset(int, int, int, int, int, int)
      */
     public final int getOffset(final int era, final int year, final int month, final int day, final int dayOfWeek, final int milliseconds) {
-        Calendar cal = Calendar.getInstance();
-        cal.set(Calendar.ERA, era);
-        cal.set(Calendar.YEAR, year);
-        cal.set(Calendar.MONTH, month);
-        cal.set(Calendar.DAY_OF_YEAR, day);
-        cal.set(Calendar.DAY_OF_WEEK, dayOfWeek);
-        cal.set(Calendar.MILLISECOND, milliseconds);
-        Observance observance = vTimeZone.getApplicableObservance(new DateTime(cal.getTime()));
-        if (observance != null) {
-            TzOffsetTo offset = (TzOffsetTo) observance.getProperties().getProperty(Property.TZOFFSETTO);
-            return (int) offset.getOffset().getOffset();
+        long local;
+        if (era == GregorianCalendar.BC || year <= 1582) {
+            // Julian calendar dates..
+            Calendar cal = new GregorianCalendar(UTC_TIMEZONE);
+            cal.clear();
+            cal.set(Calendar.ERA, era);
+            cal.set(year, month, day);
+            local = cal.getTimeInMillis() + milliseconds;
+        }
+        else {
+            local = Dates.getUtcTime(year, month + 1, day) + milliseconds;
         }
-        return 0;
+        // milliseconds are specified in local standard time..
+        long time = local - getRawOffset(local - getRawOffset());
+        return getTransitions(time).getOffset(time);
     }
 
     /* (non-Javadoc)
+     * @see java.util.TimeZone#getOffset(long)
+     */
+    public final int getOffset(final long date) {
+        return getTransitions(date).getOffset(date);
+    }
+
+    /**
+     * Returns the offset of standard time (i.e. excluding daylight time) in
+     * effect at the current time.
      * @see java.util.TimeZone#getRawOffset()
      */
     public final int getRawOffset() {
-        Component seasonalTime = vTimeZone.getObservances().getComponent(Observance.STANDARD);
-        // if no standard time use daylight time..
-        if (seasonalTime == null) {
-            seasonalTime = vTimeZone.getObservances().getComponent(Observance.DAYLIGHT);
-        }
-        TzOffsetTo offsetTo = (TzOffsetTo) seasonalTime.getProperties().getProperty(Property.TZOFFSETTO);
-        if (offsetTo != null) {
-            return (int) offsetTo.getOffset().getOffset();
-        }
-        return 0;
+        return getRawOffset(System.currentTimeMillis());
+    }
+
+    /**
+     * @param date a UTC time
+     * @return the offset of standard time in effect at the specified time
+     */
+    private int getRawOffset(final long date) {
+        return getTransitions(date).getRawOffset(date);
     }
 
     /**
@@ -107,8 +159,41 @@ public class TimeZone extends java.util.TimeZone {
      * daylight time.
      */
     public final boolean inDaylightTime(final Date date) {
-        Observance observance = vTimeZone.getApplicableObservance(new DateTime(date));
-        return (observance != null && observance instanceof Daylight);
+        return getTransitions(date.getTime()).inDaylightTime(date.getTime());
+    }
+
+    /**
+     * Returns a table of the transitions of this timezone that includes the
+     * specified time, compiling the table if necessary.
+     * @param date a UTC time
+     * @return a table of transitions
+     */
+    private TimeZoneTransitions getTransitions(final long date) {
+        TimeZoneTransitions transitions = this.transitions;
+        if (transitions == null || (date >= transitions.getHorizon()
+                && transitions.getHorizon() < MAX_HORIZON)) {
+            transitions = compileTransitions(date);
+        }
+        return transitions;
+    }
+
+    /**
+     * @param date a UTC time
+     * @return a table of the transitions of this timezone that includes the
+     * specified time
+     */
+    private synchronized TimeZoneTransitions compileTransitions(final long date) {
+        if (transitions == null || (date >= transitions.getHorizon()
+                && transitions.getHorizon() < MAX_HORIZON)) {
+            Calendar cal = new GregorianCalendar(UTC_TIMEZONE);
+            cal.setTimeInMillis(Math.max(Math.min(date, MAX_HORIZON),
+                    System.currentTimeMillis()));
+            cal.set(cal.get(Calendar.YEAR) + TRANSITION_YEARS, Calendar.JANUARY, 1, 0, 0, 0);
+            cal.set(Calendar.MILLISECOND, 0);
+            transitions = new TimeZoneTransitions(getVTimeZone(),
+                    Math.min(cal.getTimeInMillis(), MAX_HORIZON));
+        }
+        return transitions;
     }
 
     /* (non-Javadoc)
@@ -122,7 +207,7 @@ public class TimeZone extends java.util.TimeZone {
      * @see java.util.TimeZone#useDaylightTime()
      */
     public final boolean useDaylightTime() {
-        ComponentList daylights = vTimeZone.getObservances().getComponents(Observance.DAYLIGHT);
+        ComponentList daylights = getVTimeZone().getObservances().getComponents(Observance.DAYLIGHT);
         return (!daylights.isEmpty());
     }
 
@@ -130,6 +215,31 @@ public class TimeZone extends java.util.TimeZone {
      * @return Returns the VTimeZone backing this instance.
      */
     public final VTimeZone getVTimeZone() {
+        VTimeZone vTimeZone = this.vTimeZone;
+        if (vTimeZone == null) {
+            vTimeZone = parseDefinition();
+        }
+        return vTimeZone;
+    }
+
+    /**
+     * @return the VTimeZone parsed from the definition of this timezone
+     */
+    private synchronized VTimeZone parseDefinition() {
+        if (vTimeZone == null) {
+            try {
+                net.fortuna.ical4j.model.Calendar calendar = new CalendarBuilder().build(
+                        new ByteArrayInputStream(definition));
+                vTimeZone = (VTimeZone) calendar.getComponents().getComponent(
+                        Component.VTIMEZONE);
+            }
+            catch (Exception e) {
+                // definitions are validated when compiled..
+                throw new RuntimeException("Invalid definition for timezone ["
+                        + getID() + "]", e);
+            }
+            definition = null;
+        }
         return vTimeZone;
     }
 }
@@ -0,0 +1,404 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2007, Ben Fortuna
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  o Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Ben Fortuna nor the names of any other contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.fortuna.ical4j.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.fortuna.ical4j.data.CalendarBuilder;
+import net.fortuna.ical4j.data.ParserException;
+import net.fortuna.ical4j.model.component.VTimeZone;
+import net.fortuna.ical4j.model.property.TzId;
+import net.fortuna.ical4j.util.TimeZones;
+
+/**
+ * A precompiled database of timezone definitions, such as those in
+ * etc/zoneinfo. Each timezone is stored as its iCalendar definition together
+ * with its {@link TimeZoneTransitions}, such that timezones may be loaded
+ * without parsing any iCalendar data. Definitions are only parsed when the
+ * VTimeZone of a timezone is required.
+ * <p>
+ * A database begins with an index of the timezones it contains, such that a
+ * single timezone may be read without reading the entire database. Only the
+ * index is read when a database is opened, and each timezone is read on
+ * first use. Databases on the file system are memory-mapped.
+ * <p>
+ * A database is compiled from a directory of definitions as follows:
+ * <pre>java net.fortuna.ical4j.model.TimeZoneDatabase etc/zoneinfo zones.dat</pre>
+ * The build compiles etc/zoneinfo and its variants into a database
+ * named <code>zones.dat</code> alongside the definitions (e.g.
+ * <code>/zoneinfo/zones.dat</code>).
+ */
+public final class TimeZoneDatabase {
+
+    /**
+     * The name of the database compiled into each directory of definitions.
+     */
+    public static final String DEFAULT_NAME = "zones.dat";
+
+    /**
+     * The year up to which transitions are compiled where none is specified. This is fixed (rather
+     * than relative to the current year) so that a database is the same regardless of when it is built.
+     */
+    public static final int DEFAULT_HORIZON_YEAR = 2060;
+
+    private static final int MAGIC = 0x69637a64;
+
+    private static final int VERSION = 3;
+
+    // magic, version, count and index length..
+    private static final int HEADER_LENGTH = 16;
+
+    private static final String EXTENSION = ".ics";
+
+    private ByteBuffer buffer;
+
+    // offsets and lengths of timezone records, by identifier..
+    private Map index;
+
+    // NOTE: timezones are immutable once read, and the map is replaced when
+    // updated, such that lookups don't require locking..
+    private volatile Map timezones = Collections.EMPTY_MAP;
+
+    /**
+     * Opens a database, reading its index.
+     * @param buffer a buffer containing a database, positioned at the start
+     * of the database
+     * @throws IOException where the buffer does not contain a valid database
+     */
+    public TimeZoneDatabase(final ByteBuffer buffer) throws IOException {
+        this.buffer = buffer.slice();
+        if (this.buffer.remaining() < HEADER_LENGTH || this.buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a timezone database");
+        }
+        int version = this.buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported timezone database version: " + version);
+        }
+        int count = this.buffer.getInt(8);
+        DataInputStream data = new DataInputStream(new ByteArrayInputStream(
+                getBytes(HEADER_LENGTH, this.buffer.getInt(12))));
+        int recordsStart = HEADER_LENGTH + this.buffer.getInt(12);
+        index = new HashMap(count * 2);
+        for (int i = 0; i < count; i++) {
+            String id = data.readUTF();
+            int offset = recordsStart + data.readInt();
+            int length = data.readInt();
+            index.put(id, new int[] {offset, length});
+        }
+    }
+
+    /**
+     * Opens the database at the specified location. A database on the file
+     * system is memory-mapped, otherwise it is read in full.
+     * @param location the location of a database
+     * @return a database
+     * @throws IOException where an error occurs reading the database
+     */
+    public static TimeZoneDatabase open(final URL location) throws IOException {
+        if ("file".equals(location.getProtocol())) {
+            File file;
+            try {
+                file = new File(new URI(location.toString()));
+            }
+            catch (URISyntaxException use) {
+                file = new File(location.getPath());
+            }
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                // the mapping remains valid once the file is closed..
+                return new TimeZoneDatabase(raf.getChannel().map(
+                        FileChannel.MapMode.READ_ONLY, 0, raf.length()));
+            }
+            finally {
+                raf.close();
+            }
+        }
+        InputStream in = location.openStream();
+        try {
+            return new TimeZoneDatabase(ByteBuffer.wrap(readFully(in)));
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Reads the timezones of a database in full.
+     * @param in an input stream from which to read a database
+     * @return a map of {@link TimeZone} instances, keyed by the identifiers
+     * used to look them up
+     * @throws IOException where an error occurs reading the database
+     */
+    public static Map read(final InputStream in) throws IOException {
+        TimeZoneDatabase database = new TimeZoneDatabase(ByteBuffer.wrap(readFully(in)));
+        Map timezones = new HashMap(database.index.size() * 2);
+        for (Iterator i = database.index.keySet().iterator(); i.hasNext();) {
+            String id = (String) i.next();
+            timezones.put(id, database.readTimeZone((int[]) database.index.get(id)));
+        }
+        return timezones;
+    }
+
+    /**
+     * @return the identifiers used to look up the timezones in this database
+     */
+    public Set getIds() {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+
+    /**
+     * Returns the timezone with the specified identifier, reading it from
+     * this database on first use. Note that the identifier of the timezone
+     * returned is that of its definition, which may differ from the
+     * identifier used to look it up.
+     * @param id a timezone identifier
+     * @return the timezone with the specified identifier, or null if this
+     * database contains no such timezone
+     * @throws IOException where an error occurs reading the timezone
+     */
+    public TimeZone getTimeZone(final String id) throws IOException {
+        TimeZone timezone = (TimeZone) timezones.get(id);
+        if (timezone == null) {
+            int[] record = (int[]) index.get(id);
+            if (record != null) {
+                timezone = readTimeZone(record);
+                synchronized (this) {
+                    // another thread may have read the timezone concurrently..
+                    TimeZone existing = (TimeZone) timezones.get(id);
+                    if (existing != null) {
+                        return existing;
+                    }
+                    Map updated = new HashMap(timezones);
+                    updated.put(id, timezone);
+                    timezones = updated;
+                }
+            }
+        }
+        return timezone;
+    }
+
+    /**
+     * @param record the offset and length of the timezone record
+     * @return the timezone read from the specified record
+     * @throws IOException where the record is invalid
+     */
+    private TimeZone readTimeZone(final int[] record) throws IOException {
+        DataInputStream data = new DataInputStream(new ByteArrayInputStream(
+                getBytes(record[0], record[1])));
+        String id = data.readUTF();
+        byte[] definition = new byte[data.readInt()];
+        data.readFully(definition);
+        return new TimeZone(id, definition, TimeZoneTransitions.read(data));
+    }
+
+    /**
+     * @param offset an offset into the database
+     * @param length a number of bytes
+     * @return a copy of the specified bytes of the database
+     * @throws IOException where the bytes are beyond the end of the database
+     */
+    private byte[] getBytes(final int offset, final int length) throws IOException {
+        if (offset < 0 || length < 0 || offset > buffer.limit() - length) {
+            throw new IOException("Invalid timezone database");
+        }
+        byte[] bytes = new byte[length];
+        // buffer positions are not thread-safe..
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(offset);
+        duplicate.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Compiles a database from the definitions found in the specified
+     * directory and its subdirectories. Each timezone is looked up by the
+     * path of its definition relative to the directory (e.g.
+     * <code>Australia/Melbourne</code>), and is identified by the TZID of
+     * its definition.
+     * @param dir a directory containing iCalendar timezone definitions
+     * @param horizon the UTC time up to which transitions are compiled
+     * @param out an output stream to write the database to
+     * @throws IOException where an error occurs reading a definition or
+     * writing the database
+     * @throws ParserException where a definition is invalid
+     */
+    public static void write(final File dir, final long horizon, final OutputStream out)
+            throws IOException, ParserException {
+
+        List files = new ArrayList();
+        listDefinitions(dir, files);
+
+        ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+        DataOutputStream index = new DataOutputStream(indexBytes);
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+        DataOutputStream records = new DataOutputStream(recordBytes);
+        int prefixLength = dir.getPath().length() + 1;
+        for (Iterator i = files.iterator(); i.hasNext();) {
+            File file = (File) i.next();
+            String path = file.getPath();
+            String id = path.substring(prefixLength, path.length() - EXTENSION.length())
+                    .replace(File.separatorChar, '/');
+            InputStream in = new FileInputStream(file);
+            byte[] definition;
+            try {
+                definition = readFully(in);
+            }
+            finally {
+                in.close();
+            }
+
+            Calendar calendar = new CalendarBuilder().build(
+                    new ByteArrayInputStream(definition));
+            VTimeZone vTimeZone = (VTimeZone) calendar.getComponents().getComponent(
+                    Component.VTIMEZONE);
+            if (vTimeZone == null) {
+                throw new ParserException("No VTIMEZONE in definition: " + path);
+            }
+
+            TzId tzId = (TzId) vTimeZone.getProperties().getProperty(Property.TZID);
+            if (tzId == null) {
+                throw new ParserException("No TZID in definition: " + path);
+            }
+
+            int offset = records.size();
+            records.writeUTF(tzId.getValue());
+            records.writeInt(definition.length);
+            records.write(definition);
+            new TimeZoneTransitions(vTimeZone, horizon).write(records);
+
+            index.writeUTF(id);
+            index.writeInt(offset);
+            index.writeInt(records.size() - offset);
+        }
+        index.flush();
+        records.flush();
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(files.size());
+        data.writeInt(indexBytes.size());
+        indexBytes.writeTo(data);
+        recordBytes.writeTo(data);
+        data.flush();
+    }
+
+    /**
+     * @param dir a directory
+     * @param files a list to add the definitions in the directory to, in
+     * order of their path
+     */
+    private static void listDefinitions(final File dir, final List files) {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return;
+        }
+        Arrays.sort(children);
+        for (int i = 0; i < children.length; i++) {
+            if (children[i].isDirectory()) {
+                listDefinitions(children[i], files);
+            }
+            else if (children[i].getName().endsWith(EXTENSION)) {
+                files.add(children[i]);
+            }
+        }
+    }
+
+    /**
+     * @param in an input stream
+     * @return the remaining contents of the stream
+     * @throws IOException
+     */
+    private static byte[] readFully(final InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[65536];
+        int length;
+        while ((length = in.read(buffer)) >= 0) {
+            bytes.write(buffer, 0, length);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Compiles a database from a directory of definitions.
+     * @param args the directory of definitions, the database file to write,
+     * and optionally the year up to which transitions are compiled
+     * @throws Exception where the database cannot be compiled
+     */
+    public static void main(final String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: TimeZoneDatabase <dir> <file> [<year>]");
+            System.exit(1);
+        }
+        java.util.Calendar cal = java.util.Calendar.getInstance(
+                java.util.TimeZone.getTimeZone(TimeZones.UTC_ID));
+        cal.clear();
+        if (args.length > 2) {
+            cal.set(Integer.parseInt(args[2]), java.util.Calendar.JANUARY, 1);
+        }
+        else {
+            cal.set(DEFAULT_HORIZON_YEAR, java.util.Calendar.JANUARY, 1);
+        }
+        OutputStream out = new FileOutputStream(args[1]);
+        try {
+            write(new File(args[0]), cal.getTimeInMillis(), out);
+        }
+        finally {
+            out.close();
+        }
+    }
+}
@@ -36,8 +36,11 @@
 package net.fortuna.ical4j.model;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 
 import net.fortuna.ical4j.data.CalendarBuilder;
@@ -51,6 +54,12 @@ import org.apache.commons.logging.LogFactory;
  * The default implementation of a <code>TimeZoneRegistry</code>. This
  * implementation will search the classpath for applicable VTimeZone definitions
  * used to back the provided TimeZone instances.
+ * <p>
+ * Lookups don't require locking, and default timezones are loaded under a
+ * lock per timezone identifier, such that different timezones may be loaded
+ * concurrently. Default timezones may also be preloaded from a
+ * {@link TimeZoneDatabase}, either explicitly or from the classpath resource
+ * named by the <code>ical4j.timezone.database</code> system property.
  * @author Ben Fortuna
  */
 public class TimeZoneRegistryImpl implements TimeZoneRegistry {
@@ -58,12 +67,43 @@ public class TimeZoneRegistryImpl implements TimeZoneRegistry {
     private static final String DEFAULT_RESOURCE_PREFIX = "/zoneinfo/";
     
     private static Log log = LogFactory.getLog(TimeZoneRegistryImpl.class);
+
+    // NOTE: maps of timezones are immutable and replaced when updated, such
+    // that lookups don't require locking. Default timezones are keyed by the
+    // resource path of their definitions, such that registries with different
+    // resource prefixes don't share timezones..
+    private static volatile Map defaultTimeZones = Collections.EMPTY_MAP;
+
+    // locks held while loading a default timezone, by resource path..
+    private static final Map LOADING_LOCKS = new HashMap();
     
-    private static final Map DEFAULT_TIMEZONES = new HashMap();
-    
-    private Map timezones;
+    private volatile Map timezones;
     
     private String resourcePrefix;
+
+    static {
+        String database = System.getProperty("ical4j.timezone.database");
+        if (database != null) {
+            InputStream in = TimeZoneRegistryImpl.class.getResourceAsStream(database);
+            if (in != null) {
+                try {
+                    try {
+                        preload(in);
+                    }
+                    finally {
+                        in.close();
+                    }
+                }
+                catch (IOException ioe) {
+                    log.warn("Error occurred loading timezone database [" + database + "]",
+                            ioe);
+                }
+            }
+            else {
+                log.warn("Timezone database [" + database + "] not found");
+            }
+        }
+    }
     
     /**
      * Default constructor.
@@ -79,21 +119,56 @@ public class TimeZoneRegistryImpl implements TimeZoneRegistry {
      */
     public TimeZoneRegistryImpl(final String resourcePrefix) {
         this.resourcePrefix = resourcePrefix;
-        timezones = new HashMap();
+        timezones = Collections.EMPTY_MAP;
+    }
+
+    /**
+     * Adds the timezones of the specified database to the default timezones
+     * shared by all registries using the default resource prefix, replacing
+     * any with the same identifiers.
+     * @param in an input stream from which to read a {@link TimeZoneDatabase}
+     * @throws IOException where an error occurs reading the database
+     */
+    public static void preload(final InputStream in) throws IOException {
+        preload(in, DEFAULT_RESOURCE_PREFIX);
+    }
+
+    /**
+     * Adds the timezones of the specified database to the default timezones
+     * shared by all registries using the specified resource prefix, replacing
+     * any with the same identifiers.
+     * @param in an input stream from which to read a {@link TimeZoneDatabase}
+     * @param resourcePrefix the resource prefix of the timezone definitions
+     * compiled into the database
+     * @throws IOException where an error occurs reading the database
+     */
+    public static void preload(final InputStream in, final String resourcePrefix)
+            throws IOException {
+        Map timezones = TimeZoneDatabase.read(in);
+        synchronized (LOADING_LOCKS) {
+            Map defaults = new HashMap(defaultTimeZones);
+            for (Iterator i = timezones.keySet().iterator(); i.hasNext();) {
+                String id = (String) i.next();
+                defaults.put(resourcePrefix + id, timezones.get(id));
+            }
+            defaultTimeZones = defaults;
+        }
     }
 
     /* (non-Javadoc)
      * @see net.fortuna.ical4j.model.TimeZoneRegistry#register(net.fortuna.ical4j.model.TimeZone)
      */
-    public final void register(final TimeZone timezone) {
-        timezones.put(timezone.getID(), timezone);
+    public final synchronized void register(final TimeZone timezone) {
+        Map registered = new HashMap(timezones);
+        registered.put(timezone.getID(), timezone);
+        timezones = registered;
     }
     
     /* (non-Javadoc)
      * @see net.fortuna.ical4j.model.TimeZoneRegistry#clear()
      */
-    public final void clear() {
-        timezones.clear();
+    public final synchronized void clear() {
+        timezones = Collections.EMPTY_MAP;
     }
 
     /* (non-Javadoc)
@@ -102,25 +177,59 @@ public class TimeZoneRegistryImpl implements TimeZoneRegistry {
     public final TimeZone getTimeZone(final String id) {
         TimeZone timezone = (TimeZone) timezones.get(id);
         if (timezone == null) {
-            timezone = (TimeZone) DEFAULT_TIMEZONES.get(id);
+            timezone = (TimeZone) defaultTimeZones.get(resourcePrefix + id);
             if (timezone == null) {
-                synchronized (DEFAULT_TIMEZONES) {
-                    try {
-                        VTimeZone vTimeZone = loadVTimeZone(id);
-                        if (vTimeZone != null) {
-                            // XXX: temporary kludge..
-//                            ((TzId) vTimeZone.getProperties().getProperty(Property.TZID)).setValue(id);
-                            timezone = new TimeZone(vTimeZone);
-                            DEFAULT_TIMEZONES.put(timezone.getID(), timezone);
+                timezone = loadTimeZone(id);
+            }
+        }
+        return timezone;
+    }
+
+    /**
+     * Loads a default timezone, unless already loaded by another thread.
+     * @param id a timezone identifier
+     * @return the default timezone with the specified identifier, or null
+     * if no such timezone exists
+     */
+    private TimeZone loadTimeZone(final String id) {
+        String path = resourcePrefix + id;
+        Object lock;
+        synchronized (LOADING_LOCKS) {
+            lock = LOADING_LOCKS.get(path);
+            if (lock == null) {
+                lock = new Object();
+                LOADING_LOCKS.put(path, lock);
+            }
+        }
+        synchronized (lock) {
+            try {
+                TimeZone timezone = (TimeZone) defaultTimeZones.get(path);
+                if (timezone == null) {
+                    VTimeZone vTimeZone = loadVTimeZone(id);
+                    if (vTimeZone != null) {
+                        // XXX: temporary kludge..
+//                        ((TzId) vTimeZone.getProperties().getProperty(Property.TZID)).setValue(id);
+                        timezone = new TimeZone(vTimeZone);
+                        synchronized (LOADING_LOCKS) {
+                            Map defaults = new HashMap(defaultTimeZones);
+                            defaults.put(path, timezone);
+                            defaultTimeZones = defaults;
                         }
                     }
-                    catch (Exception e) {
-                        log.warn("Error occurred loading VTimeZone", e);
-                    }
+                }
+                return timezone;
+            }
+            catch (Exception e) {
+                log.warn("Error occurred loading VTimeZone", e);
+                return null;
+            }
+            finally {
+                // threads waiting on the lock will find the loaded timezone..
+                synchronized (LOADING_LOCKS) {
+                    LOADING_LOCKS.remove(path);
                 }
             }
         }
-        return timezone;
     }
 
     /**
@@ -0,0 +1,387 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2007, Ben Fortuna
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  o Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Ben Fortuna nor the names of any other contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.fortuna.ical4j.model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.StringTokenizer;
+
+import net.fortuna.ical4j.model.component.Daylight;
+import net.fortuna.ical4j.model.component.Observance;
+import net.fortuna.ical4j.model.component.VTimeZone;
+import net.fortuna.ical4j.model.parameter.Value;
+import net.fortuna.ical4j.model.property.DtStart;
+import net.fortuna.ical4j.model.property.RDate;
+import net.fortuna.ical4j.model.property.RRule;
+import net.fortuna.ical4j.model.property.TzOffsetFrom;
+import net.fortuna.ical4j.model.property.TzOffsetTo;
+import net.fortuna.ical4j.util.Dates;
+import net.fortuna.ical4j.util.Iso8601Format;
+import net.fortuna.ical4j.util.TimeZones;
+
+/**
+ * The transitions of a timezone compiled from a VTIMEZONE definition, up to
+ * a horizon. Each transition is the UTC time at which an observance takes
+ * effect (i.e. its local onset less the TZOFFSETFROM), such that the offset
+ * in effect at any time before the horizon is found by a binary search.
+ * Times before the first transition have the TZOFFSETFROM of the first
+ * transition, and times at or after the horizon those of the last
+ * transition.
+ *
+ * Instances are immutable, and so may be shared between threads. A compact
+ * binary form is provided by {@link #write(DataOutput)} and
+ * {@link #read(DataInput)}, such that transitions may be compiled in advance.
+ */
+public final class TimeZoneTransitions implements Serializable {
+
+    private static final long serialVersionUID = 2891047416723609835L;
+
+    private static final java.util.TimeZone UTC_TIMEZONE = java.util.TimeZone.getTimeZone(
+            TimeZones.UTC_ID);
+
+    private final long[] transitions;
+
+    private final int[] offsets;
+
+    private final int[] rawOffsets;
+
+    private final boolean[] daylight;
+
+    private final int initialOffset;
+
+    private final long horizon;
+
+    /**
+     * Compiles the transitions of the specified timezone definition.
+     * @param vTimeZone a timezone definition
+     * @param horizon the UTC time before which all transitions are included
+     */
+    public TimeZoneTransitions(final VTimeZone vTimeZone, final long horizon) {
+        List transitionList = new ArrayList();
+        for (Iterator i = vTimeZone.getObservances().iterator(); i.hasNext();) {
+            addTransitions((Observance) i.next(), horizon, transitionList);
+        }
+        Collections.sort(transitionList);
+        // the later of simultaneous transitions takes effect..
+        List unique = new ArrayList(transitionList.size());
+        for (Iterator i = transitionList.iterator(); i.hasNext();) {
+            Transition transition = (Transition) i.next();
+            if (!unique.isEmpty() && ((Transition) unique.get(unique.size() - 1)).time
+                    == transition.time) {
+                unique.remove(unique.size() - 1);
+            }
+            unique.add(transition);
+        }
+
+        transitions = new long[unique.size()];
+        offsets = new int[unique.size()];
+        rawOffsets = new int[unique.size()];
+        daylight = new boolean[unique.size()];
+        for (int i = 0; i < transitions.length; i++) {
+            Transition transition = (Transition) unique.get(i);
+            transitions[i] = transition.time;
+            offsets[i] = transition.offset;
+            rawOffsets[i] = transition.rawOffset;
+            daylight[i] = transition.daylight;
+        }
+        if (unique.isEmpty()) {
+            initialOffset = 0;
+        }
+        else {
+            initialOffset = ((Transition) unique.get(0)).offsetFrom;
+        }
+        this.horizon = horizon;
+    }
+
+    /**
+     * @param transitions the UTC times of transitions
+     * @param offsets the offsets following each transition
+     * @param rawOffsets the standard time offsets following each transition
+     * @param daylight indicates whether each transition is to daylight time
+     * @param initialOffset the offset prior to the first transition
+     * @param horizon the UTC time before which all transitions are included
+     */
+    private TimeZoneTransitions(final long[] transitions, final int[] offsets,
+            final int[] rawOffsets, final boolean[] daylight, final int initialOffset,
+            final long horizon) {
+        this.transitions = transitions;
+        this.offsets = offsets;
+        this.rawOffsets = rawOffsets;
+        this.daylight = daylight;
+        this.initialOffset = initialOffset;
+        this.horizon = horizon;
+    }
+
+    /**
+     * Reads transitions in the form written by {@link #write(DataOutput)}.
+     * @param in the input to read from
+     * @return the transitions read
+     * @throws IOException where an error occurs reading the input
+     */
+    public static TimeZoneTransitions read(final DataInput in) throws IOException {
+        long horizon = in.readLong();
+        int initialOffset = in.readInt();
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Invalid number of transitions: " + count);
+        }
+        long[] transitions = new long[count];
+        int[] offsets = new int[count];
+        int[] rawOffsets = new int[count];
+        boolean[] daylight = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            transitions[i] = in.readLong();
+            offsets[i] = in.readInt();
+            rawOffsets[i] = in.readInt();
+            daylight[i] = in.readBoolean();
+        }
+        return new TimeZoneTransitions(transitions, offsets, rawOffsets, daylight,
+                initialOffset, horizon);
+    }
+
+    /**
+     * Writes these transitions in a binary form.
+     * @param out the output to write to
+     * @throws IOException where an error occurs writing the output
+     */
+    public void write(final DataOutput out) throws IOException {
+        out.writeLong(horizon);
+        out.writeInt(initialOffset);
+        out.writeInt(transitions.length);
+        for (int i = 0; i < transitions.length; i++) {
+            out.writeLong(transitions[i]);
+            out.writeInt(offsets[i]);
+            out.writeInt(rawOffsets[i]);
+            out.writeBoolean(daylight[i]);
+        }
+    }
+
+    /**
+     * Adds the transitions of an observance prior to the horizon.
+     * @param observance a timezone observance
+     * @param horizon the UTC time before which transitions are added
+     * @param transitionList a list to add transitions to
+     */
+    private static void addTransitions(final Observance observance, final long horizon,
+            final List transitionList) {
+        PropertyList properties = observance.getProperties();
+        DtStart start = (DtStart) properties.getProperty(Property.DTSTART);
+        TzOffsetFrom offsetFrom = (TzOffsetFrom) properties.getProperty(Property.TZOFFSETFROM);
+        TzOffsetTo offsetTo = (TzOffsetTo) properties.getProperty(Property.TZOFFSETTO);
+        // NOTE: the value of the start is read without parsing the date, as
+        // values parsed in the default timezone may have lost their
+        // wall-clock fields (e.g. where they fall in a daylight savings gap
+        // of the default timezone)..
+        if (start == null || start.getValue() == null || start.getValue().length() == 0
+                || offsetFrom == null || offsetTo == null) {
+            return;
+        }
+        int from = (int) offsetFrom.getOffset().getOffset();
+        int to = (int) offsetTo.getOffset().getOffset();
+        boolean isDaylight = observance instanceof Daylight;
+        // standard time during daylight time is that prior to the onset..
+        int raw = isDaylight ? from : to;
+
+        // onsets are local times, and so are expanded as wall-clock fields in
+        // UTC (such that no daylight savings rules apply) prior to conversion
+        // to UTC by the offset from which the observance takes effect..
+        DateTime seed = getLocalTime(start.getValue());
+        long onset = seed.getTime() - from;
+        if (onset < horizon) {
+            transitionList.add(new Transition(onset, from, to, raw, isDaylight));
+        }
+        for (Iterator i = properties.getPropertiesView(Property.RDATE).iterator(); i.hasNext();) {
+            RDate rdate = (RDate) i.next();
+            // periods are not supported as onsets..
+            if (Value.PERIOD.equals(rdate.getParameters().getParameter(Parameter.VALUE))
+                    || rdate.getValue() == null) {
+                continue;
+            }
+            for (StringTokenizer t = new StringTokenizer(rdate.getValue(), ","); t.hasMoreTokens();) {
+                onset = getLocalTime(t.nextToken()).getTime() - from;
+                if (onset < horizon) {
+                    transitionList.add(new Transition(onset, from, to, raw, isDaylight));
+                }
+            }
+        }
+        // local times may follow the UTC horizon by up to a day..
+        DateTime periodEnd = new DateTime(horizon + Dates.MILLIS_PER_DAY);
+        periodEnd.setUtc(true);
+        for (Iterator i = properties.getPropertiesView(Property.RRULE).iterator(); i.hasNext();) {
+            RRule rrule = (RRule) i.next();
+            DateList dates = rrule.getRecur().getDates(seed, periodEnd, Value.DATE_TIME);
+            for (Iterator j = dates.iterator(); j.hasNext();) {
+                onset = ((Date) j.next()).getTime() - from;
+                if (onset < horizon) {
+                    transitionList.add(new Transition(onset, from, to, raw, isDaylight));
+                }
+            }
+        }
+    }
+
+    /**
+     * @param date the value of a date of an observance
+     * @return a UTC date-time with the same wall-clock fields as the specified
+     * date, such that its time is the local time of the date in milliseconds
+     * since the epoch
+     */
+    private static DateTime getLocalTime(final String date) {
+        String value = date;
+        if (value.indexOf('T') < 0) {
+            value = value + "T000000";
+        }
+        else if (value.endsWith("Z")) {
+            // onsets must be local times, so treat UTC times as such..
+            value = value.substring(0, value.length() - 1);
+        }
+        try {
+            DateTime localTime = new DateTime(Iso8601Format.parse(value,
+                    Iso8601Format.DATE_TIME, UTC_TIMEZONE));
+            localTime.setUtc(true);
+            return localTime;
+        }
+        catch (ParseException pe) {
+            throw new IllegalArgumentException("Invalid onset [" + value + "]");
+        }
+    }
+
+    /**
+     * @return the UTC time before which all transitions are included
+     */
+    public long getHorizon() {
+        return horizon;
+    }
+
+    /**
+     * @param time a UTC time
+     * @return the offset from UTC in effect at the specified time
+     */
+    public int getOffset(final long time) {
+        int index = indexOf(time);
+        if (index < 0) {
+            return initialOffset;
+        }
+        return offsets[index];
+    }
+
+    /**
+     * @param time a UTC time
+     * @return the offset from UTC of standard time at the specified time
+     */
+    public int getRawOffset(final long time) {
+        int index = indexOf(time);
+        if (index < 0) {
+            return initialOffset;
+        }
+        return rawOffsets[index];
+    }
+
+    /**
+     * @param time a UTC time
+     * @return true if a daylight observance is in effect at the specified
+     * time, otherwise false
+     */
+    public boolean inDaylightTime(final long time) {
+        int index = indexOf(time);
+        return index >= 0 && daylight[index];
+    }
+
+    /**
+     * @param time a UTC time
+     * @return the index of the latest transition at or before the specified
+     * time, or -1 if the time is before the first transition
+     */
+    private int indexOf(final long time) {
+        int index = Arrays.binarySearch(transitions, time);
+        if (index < 0) {
+            // the transition preceding the insertion point..
+            index = -index - 2;
+        }
+        return index;
+    }
+
+    /**
+     * A transition to an observance.
+     */
+    private static class Transition implements Comparable {
+
+        private final long time;
+
+        private final int offsetFrom;
+
+        private final int offset;
+
+        private final int rawOffset;
+
+        private final boolean daylight;
+
+        /**
+         * @param time the UTC time of the transition
+         * @param offsetFrom the offset prior to the transition
+         * @param offset the offset following the transition
+         * @param rawOffset the standard time offset following the transition
+         * @param daylight indicates whether the transition is to daylight time
+         */
+        public Transition(final long time, final int offsetFrom, final int offset,
+                final int rawOffset, final boolean daylight) {
+            this.time = time;
+            this.offsetFrom = offsetFrom;
+            this.offset = offset;
+            this.rawOffset = rawOffset;
+            this.daylight = daylight;
+        }
+
+        /* (non-Javadoc)
+         * @see java.lang.Comparable#compareTo(java.lang.Object)
+         */
+        public int compareTo(final Object arg0) {
+            long time2 = ((Transition) arg0).time;
+            if (time < time2) {
+                return -1;
+            }
+            else if (time > time2) {
+                return 1;
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2007, Ben Fortuna
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  o Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Ben Fortuna nor the names of any other contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.fortuna.ical4j.model.component;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import net.fortuna.ical4j.model.ComponentList;
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.IntervalSet;
+import net.fortuna.ical4j.model.PeriodList;
+import net.fortuna.ical4j.model.Property;
+import net.fortuna.ical4j.model.parameter.FbType;
+import net.fortuna.ical4j.model.property.Status;
+
+/**
+ * An index of the busy time consumed by the events of a component list over
+ * a range of time, such that busy time may be queried repeatedly for
+ * different ranges without expanding the events again. Recurring events are
+ * expanded once when the index is created, and busy periods are held in
+ * arrays sorted by start time, such that periods intersecting a range are
+ * found by a binary search.
+ * <p>
+ * Busy time is split by free/busy type: events with a status of TENTATIVE
+ * are indexed as {@link FbType#BUSY_TENTATIVE}, and all other events as
+ * {@link FbType#BUSY}. As per {@link VEvent#getConsumedTime(net.fortuna.ical4j.model.Date,
+ * net.fortuna.ical4j.model.Date)} transparent events don't consume time.
+ * <p>
+ * The busy time for the range of the index is the same as that determined
+ * by {@link VFreeBusy#VFreeBusy(VFreeBusy, ComponentList)}. Within the range,
+ * a busy period is included if it starts before the end of the range and
+ * doesn't end before the start of the range.
+ * <p>
+ * Instances are immutable once created, and so may be shared between
+ * threads.
+ * @author Ben Fortuna
+ */
+public class FreeBusyIndex implements Serializable {
+
+    private static final long serialVersionUID = -3129876546587234001L;
+
+    private static final FbType[] TYPES = new FbType[] {FbType.BUSY,
+            FbType.BUSY_TENTATIVE};
+
+    private DateTime start;
+
+    private DateTime end;
+
+    // busy periods by free/busy type..
+    private Map entries;
+
+    /**
+     * Creates an index of the busy time consumed by the specified components
+     * over the specified range.
+     * @param components a list of components
+     * @param start the start of the range of the index
+     * @param end the end of the range of the index
+     */
+    public FreeBusyIndex(final ComponentList components, final DateTime start,
+            final DateTime end) {
+        this.start = start;
+        this.end = end;
+
+        Map intervals = new HashMap();
+        for (int i = 0; i < TYPES.length; i++) {
+            intervals.put(TYPES[i], new ArrayList());
+        }
+        for (Iterator i = components.iterator(); i.hasNext();) {
+            Object component = i.next();
+            // only events consume time..
+            if (component instanceof VEvent) {
+                VEvent event = (VEvent) component;
+                FbType type = FbType.BUSY;
+                if (Status.VEVENT_TENTATIVE.equals(event.getProperties().getProperty(
+                        Property.STATUS))) {
+                    type = FbType.BUSY_TENTATIVE;
+                }
+                ((List) intervals.get(type)).add(event.getConsumedIntervals(start, end));
+            }
+        }
+        entries = new HashMap();
+        for (int i = 0; i < TYPES.length; i++) {
+            entries.put(TYPES[i], new Entries((List) intervals.get(TYPES[i])));
+        }
+    }
+
+    /**
+     * @return the start of the range of this index
+     */
+    public final DateTime getStart() {
+        return start;
+    }
+
+    /**
+     * @return the end of the range of this index
+     */
+    public final DateTime getEnd() {
+        return end;
+    }
+
+    /**
+     * Returns the busy time of all types within the specified range.
+     * @param rangeStart the start of a range within the range of this index
+     * @param rangeEnd the end of a range within the range of this index
+     * @return a normalised list of busy periods in UTC
+     */
+    public final PeriodList getBusyTime(final DateTime rangeStart, final DateTime rangeEnd) {
+        return getBusyIntervals(rangeStart, rangeEnd).toPeriodList();
+    }
+
+    /**
+     * Returns the busy time of all types within the specified range.
+     * @param rangeStart the start of a range within the range of this index
+     * @param rangeEnd the end of a range within the range of this index
+     * @return busy intervals
+     */
+    public final IntervalSet getBusyIntervals(final DateTime rangeStart, final DateTime rangeEnd) {
+        IntervalSet intervals = IntervalSet.EMPTY;
+        for (int i = 0; i < TYPES.length; i++) {
+            intervals = intervals.union(((Entries) entries.get(TYPES[i])).getIntervals(
+                    rangeStart.getTime(), rangeEnd.getTime()));
+        }
+        return intervals;
+    }
+
+    /**
+     * Returns the busy time of the specified type within the specified range.
+     * @param type a free/busy type
+     * @param rangeStart the start of a range within the range of this index
+     * @param rangeEnd the end of a range within the range of this index
+     * @return a normalised list of busy periods in UTC
+     */
+    public final PeriodList getBusyTime(final FbType type, final DateTime rangeStart,
+            final DateTime rangeEnd) {
+        Entries typeEntries = (Entries) entries.get(type);
+        if (typeEntries != null) {
+            return typeEntries.getIntervals(rangeStart.getTime(), rangeEnd.getTime())
+                    .toPeriodList();
+        }
+        return new PeriodList();
+    }
+
+    /**
+     * The busy periods of a single type sorted by start time. The latest end
+     * of all periods up to each index is also maintained, such that the first
+     * period that may end within a range is found by a binary search.
+     */
+    private static class Entries implements Serializable {
+
+        private static final long serialVersionUID = 5510712489323480297L;
+
+        private long[] starts;
+
+        private long[] ends;
+
+        private long[] maxEnds;
+
+        /**
+         * @param intervals a list of interval sets
+         */
+        public Entries(final List intervals) {
+            int size = 0;
+            for (Iterator i = intervals.iterator(); i.hasNext();) {
+                size += ((IntervalSet) i.next()).size();
+            }
+            starts = new long[size];
+            ends = new long[size];
+            int index = 0;
+            for (Iterator i = intervals.iterator(); i.hasNext();) {
+                IntervalSet set = (IntervalSet) i.next();
+                for (int j = 0; j < set.size(); j++) {
+                    starts[index] = set.getStart(j);
+                    ends[index] = set.getEnd(j);
+                    index++;
+                }
+            }
+            sort(starts, ends);
+            maxEnds = new long[size];
+            long maxEnd = Long.MIN_VALUE;
+            for (int i = 0; i < size; i++) {
+                maxEnd = Math.max(maxEnd, ends[i]);
+                maxEnds[i] = maxEnd;
+            }
+        }
+
+        /**
+         * Returns the intervals starting before the end of the specified range
+         * and ending no earlier than its start.
+         * @param rangeStart the start of a range
+         * @param rangeEnd the end of a range
+         * @return an interval set
+         */
+        public IntervalSet getIntervals(final long rangeStart, final long rangeEnd) {
+            int first = indexOf(maxEnds, rangeStart);
+            int last = indexOf(starts, rangeEnd);
+            if (first >= last) {
+                return IntervalSet.EMPTY;
+            }
+            long[] resultStarts = new long[last - first];
+            long[] resultEnds = new long[last - first];
+            int size = 0;
+            for (int i = first; i < last; i++) {
+                if (ends[i] >= rangeStart) {
+                    resultStarts[size] = starts[i];
+                    resultEnds[size] = ends[i];
+                    size++;
+                }
+            }
+            return new IntervalSet(resultStarts, resultEnds, size);
+        }
+
+        /**
+         * Sorts intervals by start time, using a merge sort such that the
+         * end times are reordered with the start times.
+         * @param starts start times
+         * @param ends end times
+         */
+        private static void sort(final long[] starts, final long[] ends) {
+            long[] tempStarts = new long[starts.length];
+            long[] tempEnds = new long[ends.length];
+            for (int width = 1; width < starts.length; width *= 2) {
+                for (int low = 0; low < starts.length - width; low += width * 2) {
+                    int mid = low + width;
+                    int high = Math.min(mid + width, starts.length);
+                    int i = low;
+                    int j = mid;
+                    for (int k = low; k < high; k++) {
+                        if (j >= high || (i < mid && starts[i] <= starts[j])) {
+                            tempStarts[k] = starts[i];
+                            tempEnds[k] = ends[i++];
+                        }
+                        else {
+                            tempStarts[k] = starts[j];
+                            tempEnds[k] = ends[j++];
+                        }
+                    }
+                    System.arraycopy(tempStarts, low, starts, low, high - low);
+                    System.arraycopy(tempEnds, low, ends, low, high - low);
+                }
+            }
+        }
+
+        /**
+         * @param values sorted values
+         * @param value a value
+         * @return the index of the first value not less than the specified
+         * value
+         */
+        private static int indexOf(final long[] values, final long value) {
+            int low = 0;
+            int high = values.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] < value) {
+                    low = mid + 1;
+                }
+                else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
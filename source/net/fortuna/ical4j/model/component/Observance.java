@@ -33,12 +33,15 @@
  */
 package net.fortuna.ical4j.model.component;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
-import java.util.Map;
+import java.util.List;
 
 import net.fortuna.ical4j.model.Component;
 import net.fortuna.ical4j.model.Date;
+import net.fortuna.ical4j.model.DateList;
 import net.fortuna.ical4j.model.DateTime;
 import net.fortuna.ical4j.model.Property;
 import net.fortuna.ical4j.model.PropertyList;
@@ -66,8 +69,21 @@ public abstract class Observance extends Component implements Comparable {
 
     public static final String DAYLIGHT = "DAYLIGHT";
     
-    // TODO: clear cache when observance definition changes (??)
-    private Map onsets = new HashMap();
+    /**
+     * The number of years beyond a requested date for which onsets are
+     * calculated, such that the onset table is extended infrequently.
+     * Configurable via the <code>ical4j.timezone.onset.years</code> system
+     * property.
+     */
+    private static final int ONSET_YEARS = Integer.getInteger(
+            "ical4j.timezone.onset.years", 10).intValue();
+
+    // TODO: clear tables when observance definition changes (??)
+    // NOTE: tables are immutable and replaced when extended, such that
+    // timezones may be shared between threads without locking lookups..
+    private transient volatile OnsetTable dateTimeOnsets;
+
+    private transient volatile OnsetTable dateOnsets;
 
     /**
      * Constructs a timezone observance with the specified name
@@ -132,34 +148,184 @@ public abstract class Observance extends Component implements Comparable {
         if (date.before(onset)) {
             return null;
         }
-        if (onsets.get(date) == null) {
-            // check rdates for latest applicable onset..
-            PropertyList rdates = getProperties().getProperties(Property.RDATE);
+        OnsetTable onsets = (date instanceof DateTime) ? dateTimeOnsets : dateOnsets;
+        if (onsets == null || date.getTime() >= onsets.horizon) {
+            onsets = getOnsets(onset, date);
+        }
+        return onsets.getLatestOnset(date.getTime());
+    }
+
+    /**
+     * Returns a table of onsets of this observance that includes the
+     * specified date, extending the existing table if necessary.
+     * @param start the effective date of this observance
+     * @param date a date the onsets must include
+     * @return a table of onsets
+     */
+    private synchronized OnsetTable getOnsets(final Date start, final Date date) {
+        if (date instanceof DateTime) {
+            if (dateTimeOnsets == null || date.getTime() >= dateTimeOnsets.horizon) {
+                dateTimeOnsets = calculateOnsets(start, dateTimeOnsets, date, Value.DATE_TIME);
+            }
+            return dateTimeOnsets;
+        }
+        if (dateOnsets == null || date.getTime() >= dateOnsets.horizon) {
+            dateOnsets = calculateOnsets(start, dateOnsets, date, Value.DATE);
+        }
+        return dateOnsets;
+    }
+
+    /**
+     * Calculates the onsets of this observance up to a number of years
+     * beyond the specified date.
+     * @param start the effective date of this observance
+     * @param onsets previously calculated onsets to extend, or null
+     * @param date a date the onsets must include
+     * @param dateType the type of onsets to calculate
+     * @return a table of onsets
+     */
+    private OnsetTable calculateOnsets(final Date start, final OnsetTable onsets,
+            final Date date, final Value dateType) {
+        java.util.Calendar cal = java.util.Calendar.getInstance();
+        cal.setTime(date);
+        cal.set(cal.get(java.util.Calendar.YEAR) + ONSET_YEARS,
+                java.util.Calendar.JANUARY, 1, 0, 0, 0);
+        cal.set(java.util.Calendar.MILLISECOND, 0);
+        DateTime horizon = new DateTime(cal.getTime());
+
+        List onsetList = new ArrayList();
+        DateTime periodStart;
+        if (onsets == null) {
+            onsetList.add(new Onset(start, true));
+            // rdates are inclusive of the date..
+            List rdates = getProperties().getPropertiesView(Property.RDATE);
             for (Iterator i = rdates.iterator(); i.hasNext();) {
                 RDate rdate = (RDate) i.next();
                 for (Iterator j = rdate.getDates().iterator(); j.hasNext();) {
                     Date rdateOnset = (Date) j.next();
-                    if (!rdateOnset.after(date) && rdateOnset.after(onset)) {
-                        onset = rdateOnset;
+                    if (rdateOnset.after(start)) {
+                        onsetList.add(new Onset(rdateOnset, true));
                     }
                 }
             }
-            // check recurrence rules for latest applicable onset..
-            PropertyList rrules = getProperties().getProperties(Property.RRULE);
-            Value dateType = (date instanceof DateTime) ? Value.DATE_TIME : Value.DATE;
-            for (Iterator i = rrules.iterator(); i.hasNext();) {
-                RRule rrule = (RRule) i.next();
-                for (Iterator j = rrule.getRecur().getDates(onset, date, dateType).iterator(); j.hasNext();) {
-                    Date rruleOnset = (Date) j.next();
-                    if (!rruleOnset.after(date) && rruleOnset.after(onset)) {
-                        onset = rruleOnset;
-                    }
+            periodStart = new DateTime(start.getTime());
+        }
+        else {
+            for (int i = 0; i < onsets.times.length; i++) {
+                onsetList.add(new Onset(onsets.onsets[i], onsets.inclusive[i]));
+            }
+            periodStart = new DateTime(onsets.horizon);
+        }
+        // recurrence dates are exclusive of the date..
+        List rrules = getProperties().getPropertiesView(Property.RRULE);
+        for (Iterator i = rrules.iterator(); i.hasNext();) {
+            RRule rrule = (RRule) i.next();
+            DateList rruleDates = rrule.getRecur().getDates(start, periodStart, horizon,
+                    dateType);
+            for (Iterator j = rruleDates.iterator(); j.hasNext();) {
+                Date rruleOnset = (Date) j.next();
+                if (rruleOnset.after(start)) {
+                    onsetList.add(new Onset(rruleOnset, false));
                 }
             }
-            onsets.put(date, onset);
         }
-        return (Date) onsets.get(date);
-//            return onset;
+        return new OnsetTable(onsetList, horizon.getTime());
+    }
+
+    /**
+     * An onset of this observance.
+     */
+    private static class Onset implements Comparable {
+
+        private final Date date;
+
+        private final boolean inclusive;
+
+        /**
+         * @param date the date of the onset
+         * @param inclusive indicates whether the onset applies at its date
+         */
+        public Onset(final Date date, final boolean inclusive) {
+            this.date = date;
+            this.inclusive = inclusive;
+        }
+
+        /* (non-Javadoc)
+         * @see java.lang.Comparable#compareTo(java.lang.Object)
+         */
+        public int compareTo(final Object arg0) {
+            Onset onset = (Onset) arg0;
+            if (date.getTime() < onset.date.getTime()) {
+                return -1;
+            }
+            else if (date.getTime() > onset.date.getTime()) {
+                return 1;
+            }
+            // prefer inclusive onsets..
+            if (inclusive == onset.inclusive) {
+                return 0;
+            }
+            return inclusive ? -1 : 1;
+        }
+    }
+
+    /**
+     * A sorted table of the onsets of an observance up to a horizon.
+     * Instances are immutable.
+     */
+    private static class OnsetTable {
+
+        private final long[] times;
+
+        private final Date[] onsets;
+
+        private final boolean[] inclusive;
+
+        private final long horizon;
+
+        /**
+         * @param onsetList a list of onsets
+         * @param horizon the time before which all onsets are included
+         */
+        public OnsetTable(final List onsetList, final long horizon) {
+            Collections.sort(onsetList);
+            // remove duplicates, preferring inclusive onsets..
+            List unique = new ArrayList(onsetList.size());
+            for (Iterator i = onsetList.iterator(); i.hasNext();) {
+                Onset onset = (Onset) i.next();
+                if (unique.isEmpty() || ((Onset) unique.get(unique.size() - 1)).date.getTime()
+                        != onset.date.getTime()) {
+                    unique.add(onset);
+                }
+            }
+            times = new long[unique.size()];
+            onsets = new Date[unique.size()];
+            inclusive = new boolean[unique.size()];
+            for (int i = 0; i < times.length; i++) {
+                Onset onset = (Onset) unique.get(i);
+                times[i] = onset.date.getTime();
+                onsets[i] = onset.date;
+                inclusive[i] = onset.inclusive;
+            }
+            this.horizon = horizon;
+        }
+
+        /**
+         * @param time a time before the horizon, and not before the first
+         * onset
+         * @return the latest onset applicable at the specified time
+         */
+        public Date getLatestOnset(final long time) {
+            int index = Arrays.binarySearch(times, time);
+            if (index < 0) {
+                // the onset preceding the insertion point..
+                index = -index - 2;
+            }
+            else if (!inclusive[index]) {
+                index--;
+            }
+            return onsets[index];
+        }
     }
 
     /* (non-Javadoc)
@@ -33,7 +33,10 @@
  */
 package net.fortuna.ical4j.model.component;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.Iterator;
+import java.util.List;
 
 import net.fortuna.ical4j.model.Component;
 import net.fortuna.ical4j.model.ComponentList;
@@ -41,6 +44,7 @@ import net.fortuna.ical4j.model.Date;
 import net.fortuna.ical4j.model.DateList;
 import net.fortuna.ical4j.model.DateTime;
 import net.fortuna.ical4j.model.Dur;
+import net.fortuna.ical4j.model.IntervalSet;
 import net.fortuna.ical4j.model.Parameter;
 import net.fortuna.ical4j.model.Period;
 import net.fortuna.ical4j.model.PeriodList;
@@ -305,36 +309,25 @@ public class VEvent extends Component {
     }
 
     /**
-     * @see java.lang.Object#toString()
+     * @see net.fortuna.ical4j.model.Component#write(java.io.Writer)
      */
-    public final String toString() {
-
-        return BEGIN + ":" + getName() + "\r\n" + getProperties() + getAlarms()
-                + END + ":" + getName() + "\r\n";
+    public final void write(final Writer out) throws IOException {
+        writeBegin(out);
+        getProperties().write(out);
+        getAlarms().write(out);
+        writeEnd(out);
     }
 
     /**
-     * Write the component to a string filtering the properties and
-     * sub-components according to the supplied filter.
-     * 
-     * @param filter
-     *            filter to use.
-     * @return iCalendar data written.
+     * @see net.fortuna.ical4j.model.Component#write(java.io.Writer,
+     *      net.fortuna.ical4j.model.filter.OutputFilter)
      */
-    public String toString(OutputFilter filter) {
-        StringBuffer buffer = new StringBuffer();
-        buffer.append(BEGIN);
-        buffer.append(':');
-        buffer.append(getName());
-        buffer.append("\r\n");
-        buffer.append(getProperties().toString(filter));
-        buffer.append(getAlarms().toString(filter));
-        buffer.append(END);
-        buffer.append(':');
-        buffer.append(getName());
-        buffer.append("\r\n");
-
-        return buffer.toString();
+    public void write(final Writer out, final OutputFilter filter)
+            throws IOException {
+        writeBegin(out);
+        getProperties().write(out, filter);
+        getAlarms().write(out, filter);
+        writeEnd(out);
     }
 
     /**
@@ -477,7 +470,9 @@ public class VEvent extends Component {
      * in the specified range. Note that the returned list may contain a single
      * period for non-recurring components or multiple periods for recurring
      * components. If no time is consumed by this event an empty list is
-     * returned.
+     * returned. Periods are normalised and specified in UTC. The first instance
+     * of the event (as specified by DTSTART) is included if it is in range,
+     * whether or not it is also generated by a recurrence rule.
      * 
      * @param rangeStart
      *            the start of the range to check for consumed time
@@ -487,11 +482,26 @@ public class VEvent extends Component {
      */
     public final PeriodList getConsumedTime(final Date rangeStart,
             final Date rangeEnd) {
-        PeriodList periods = new PeriodList();
+        return getConsumedIntervals(rangeStart, rangeEnd).toPeriodList();
+    }
+
+    /**
+     * Returns the consumed time for this event in the specified range as a
+     * set of intervals. As per {@link #getConsumedTime(Date, Date)}, but
+     * without creating a period for every instance of the event.
+     * 
+     * @param rangeStart
+     *            the start of the range to check for consumed time
+     * @param rangeEnd
+     *            the end of the range to check for consumed time
+     * @return an interval set representing consumed time for this event
+     */
+    public final IntervalSet getConsumedIntervals(final Date rangeStart,
+            final Date rangeEnd) {
         // if component is transparent return empty list..
         if (Transp.TRANSPARENT.equals(getProperties().getProperty(
                 Property.TRANSP))) {
-            return periods;
+            return IntervalSet.EMPTY;
         }
         DtStart start = (DtStart) getProperties().getProperty(Property.DTSTART);
         DtEnd end = (DtEnd) getProperties().getProperty(Property.DTEND);
@@ -499,7 +509,7 @@ public class VEvent extends Component {
                 Property.DURATION);
         // if no start date specified return empty list..
         if (start == null) {
-            return periods;
+            return IntervalSet.EMPTY;
         }
         // if an explicit event duration is not specified, derive a value for
         // recurring
@@ -519,10 +529,25 @@ public class VEvent extends Component {
         // rather than DATE-TIME), return empty list..
         if (Value.DATE.equals(start.getParameters().getParameter(
                 Parameter.VALUE))) {
-            return periods;
+            return IntervalSet.EMPTY;
+        }
+        List exDates = getProperties().getPropertiesView(Property.EXDATE);
+        Instances instances = new Instances(rDuration);
+        // the first instance is always included if in range, regardless of
+        // whether it is also generated by a recurrence rule..
+        long firstEnd;
+        if (end != null) {
+            firstEnd = end.getDate().getTime();
+        }
+        else {
+            firstEnd = duration.getDuration().getTime(start.getDate()).getTime();
+        }
+        if (start.getDate().before(rangeEnd) && firstEnd > rangeStart.getTime()
+                && !isExcluded(start.getDate(), exDates)) {
+            instances.add(start.getDate().getTime(), firstEnd);
         }
         // recurrence dates..
-        PropertyList rDates = getProperties().getProperties(Property.RDATE);
+        List rDates = getProperties().getPropertiesView(Property.RDATE);
         for (Iterator i = rDates.iterator(); i.hasNext();) {
             RDate rdate = (RDate) i.next();
             // only period-based rdates are applicable..
@@ -532,83 +557,136 @@ public class VEvent extends Component {
                 for (Iterator j = rdate.getPeriods().iterator(); j.hasNext();) {
                     Period period = (Period) j.next();
                     if (period.getStart().before(rangeEnd)
-                            && period.getEnd().after(rangeStart)) {
-                        periods.add(period);
+                            && period.getEnd().after(rangeStart)
+                            && !isExcluded(period.getStart(), exDates)) {
+                        instances.add(period.getStart().getTime(),
+                                period.getEnd().getTime());
                     }
                 }
             }
         }
         // recurrence rules..
-        PropertyList rRules = getProperties().getProperties(Property.RRULE);
+        List rRules = getProperties().getPropertiesView(Property.RRULE);
         for (Iterator i = rRules.iterator(); i.hasNext();) {
             RRule rrule = (RRule) i.next();
             DateList startDates = rrule.getRecur().getDates(start.getDate(), adjustedRangeStart, rangeEnd, (Value) start.getParameters().getParameter(Parameter.VALUE));
 //            DateList startDates = rrule.getRecur().getDates(start.getDate(), rangeStart, rangeEnd, (Value) start.getParameters().getParameter(Parameter.VALUE));
             for (int j = 0; j < startDates.size(); j++) {
                 Date startDate = (Date) startDates.get(j);
-                periods.add(new Period(new DateTime(startDate), rDuration));
-            }
-        }
-        // exception dates..
-        PropertyList exDates = getProperties().getProperties(Property.EXDATE);
-        for (Iterator i = exDates.iterator(); i.hasNext();) {
-            ExDate exDate = (ExDate) i.next();
-            for (Iterator j = periods.iterator(); j.hasNext();) {
-                Period period = (Period) j.next();
                 // for DATE-TIME instances check for DATE-based exclusions
                 // also..
-                if (exDate.getDates().contains(period.getStart())
-                        || exDate.getDates().contains(
-                                new Date(period.getStart()))) {
-                    j.remove();
+                if (!isExcluded(startDate, exDates)) {
+                    instances.add(startDate);
                 }
             }
         }
+        IntervalSet intervals = instances.toIntervalSet();
         // exception rules..
         // FIXME: exception rules should be consistent with exception dates
         // (i.e. not use periods?)..
-        PropertyList exRules = getProperties().getProperties(Property.EXRULE);
-        PeriodList exPeriods = new PeriodList();
-        for (Iterator i = exRules.iterator(); i.hasNext();) {
-            ExRule exrule = (ExRule) i.next();
-            // DateList startDates = exrule.getRecur().getDates(start.getDate(),
-            // adjustedRangeStart, rangeEnd, (Value)
-            // start.getParameters().getParameter(Parameter.VALUE));
-            DateList startDates = exrule.getRecur()
-                    .getDates(
-                            start.getDate(),
-                            rangeStart,
-                            rangeEnd,
-                            (Value) start.getParameters().getParameter(
-                                    Parameter.VALUE));
-            for (Iterator j = startDates.iterator(); j.hasNext();) {
-                Date startDate = (Date) j.next();
-                exPeriods.add(new Period(new DateTime(startDate), rDuration));
+        List exRules = getProperties().getPropertiesView(Property.EXRULE);
+        if (!exRules.isEmpty()) {
+            Instances exInstances = new Instances(rDuration);
+            for (Iterator i = exRules.iterator(); i.hasNext();) {
+                ExRule exrule = (ExRule) i.next();
+                // DateList startDates = exrule.getRecur().getDates(start.getDate(),
+                // adjustedRangeStart, rangeEnd, (Value)
+                // start.getParameters().getParameter(Parameter.VALUE));
+                DateList startDates = exrule.getRecur()
+                        .getDates(
+                                start.getDate(),
+                                rangeStart,
+                                rangeEnd,
+                                (Value) start.getParameters().getParameter(
+                                        Parameter.VALUE));
+                for (Iterator j = startDates.iterator(); j.hasNext();) {
+                    exInstances.add((Date) j.next());
+                }
             }
+            // apply exceptions..
+            intervals = intervals.subtract(exInstances.toIntervalSet());
         }
-        // apply exceptions..
-        if (!exPeriods.isEmpty()) {
-            periods = periods.subtract(exPeriods);
+        return intervals;
+    }
+
+    /**
+     * @param instanceStart the start of an instance of this event
+     * @param exDates a list of EXDATE properties
+     * @return true if the instance is excluded by an exception date
+     */
+    private static boolean isExcluded(final Date instanceStart, final List exDates) {
+        for (Iterator i = exDates.iterator(); i.hasNext();) {
+            ExDate exDate = (ExDate) i.next();
+            if (exDate.excludes(instanceStart)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Accumulates the start and end times of instances of an event.
+     */
+    private static class Instances {
+
+        private Dur duration;
+
+        // the duration in milliseconds where independent of the start date..
+        private long fixedDuration = -1;
+
+        private long[] starts = new long[16];
+
+        private long[] ends = new long[16];
+
+        private int size;
+
+        /**
+         * @param duration the duration of instances added by start date
+         */
+        public Instances(final Dur duration) {
+            this.duration = duration;
+            if (!duration.isNegative() && duration.getWeeks() == 0 && duration.getDays() == 0) {
+                fixedDuration = ((duration.getHours() * 60L + duration.getMinutes()) * 60L
+                        + duration.getSeconds()) * 1000L;
+            }
         }
-        // if periods already specified through recurrence, return..
-        // ..also normalise before returning.
-        if (!periods.isEmpty()) {
-            return periods.normalise();
+
+        /**
+         * @param start the start of an instance
+         */
+        public void add(final Date start) {
+            if (fixedDuration >= 0) {
+                add(start.getTime(), start.getTime() + fixedDuration);
+            }
+            else {
+                add(start.getTime(), duration.getTime(start).getTime());
+            }
         }
-        // add first instance if included in range..
-        if (start.getDate().before(rangeEnd)) {
-            if (end != null && end.getDate().after(rangeStart)) {
-                periods.add(new Period(new DateTime(start.getDate()),
-                        new DateTime(end.getDate())));
-            } else if (duration != null) {
-                Period period = new Period(new DateTime(start.getDate()),
-                        duration.getDuration());
-                if (period.getEnd().after(rangeStart)) {
-                    periods.add(period);
-                }
+
+        /**
+         * @param start the start of an instance
+         * @param end the end of an instance
+         */
+        public void add(final long start, final long end) {
+            if (size == starts.length) {
+                long[] newStarts = new long[size * 2];
+                System.arraycopy(starts, 0, newStarts, 0, size);
+                starts = newStarts;
+                long[] newEnds = new long[size * 2];
+                System.arraycopy(ends, 0, newEnds, 0, size);
+                ends = newEnds;
             }
+            starts[size] = start;
+            ends[size] = end;
+            size++;
+        }
+
+        /**
+         * @return an interval set of the instances added
+         */
+        public IntervalSet toIntervalSet() {
+            return new IntervalSet(starts, ends, size);
         }
-        return periods;
     }
 
     /**
@@ -33,15 +33,17 @@
  */
 package net.fortuna.ical4j.model.component;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.Iterator;
 
 import net.fortuna.ical4j.model.Component;
 import net.fortuna.ical4j.model.ComponentList;
 import net.fortuna.ical4j.model.DateTime;
 import net.fortuna.ical4j.model.Dur;
+import net.fortuna.ical4j.model.IntervalSet;
 import net.fortuna.ical4j.model.Parameter;
 import net.fortuna.ical4j.model.Period;
-import net.fortuna.ical4j.model.PeriodList;
 import net.fortuna.ical4j.model.Property;
 import net.fortuna.ical4j.model.PropertyList;
 import net.fortuna.ical4j.model.ValidationException;
@@ -202,6 +204,21 @@ public class VFreeBusy extends Component {
      *            a component list used to initialise busy time
      */
     public VFreeBusy(final VFreeBusy request, final ComponentList components) {
+        this(request, createIndex(request, components));
+    }
+
+    /**
+     * Constructs a new VFreeBusy instance represeting a reply to the specified
+     * VFREEBUSY request according to the specified index of busy time. Where
+     * a number of requests are answered from the same components, an index
+     * avoids expanding the components for every request.
+     * 
+     * @param request
+     *            a VFREEBUSY request
+     * @param index
+     *            an index of busy time spanning the requested period
+     */
+    public VFreeBusy(final VFreeBusy request, final FreeBusyIndex index) {
         this();
         DtStart start = (DtStart) request.getProperties().getProperty(Property.DTSTART);
         DtEnd end = (DtEnd) request.getProperties().getProperty(Property.DTEND);
@@ -217,7 +234,7 @@ public class VFreeBusy extends Component {
             // duration..
             DateTime freeStart = new DateTime(start.getDate());
             DateTime freeEnd = new DateTime(end.getDate());
-            FreeBusy fb = createFreeTime(freeStart, freeEnd, duration.getDuration(), components);
+            FreeBusy fb = createFreeTime(freeStart, freeEnd, duration.getDuration(), index);
             if (fb != null && !fb.getPeriods().isEmpty()) {
                 getProperties().add(fb);
             }
@@ -225,119 +242,82 @@ public class VFreeBusy extends Component {
             // initialise with all busy time for the specified period..
             DateTime busyStart = new DateTime(start.getDate());
             DateTime busyEnd = new DateTime(end.getDate());
-            FreeBusy fb = createBusyTime(busyStart, busyEnd, components);
+            FreeBusy fb = createBusyTime(busyStart, busyEnd, index);
             if (fb != null && !fb.getPeriods().isEmpty()) {
                 getProperties().add(fb);
             }
         }
     }
 
+    /**
+     * Creates an index of the busy time consumed by the specified components
+     * over the period of the specified request.
+     * @param request a VFREEBUSY request
+     * @param components a component list
+     * @return an index of busy time
+     */
+    private static FreeBusyIndex createIndex(final VFreeBusy request,
+            final ComponentList components) {
+        DtStart start = (DtStart) request.getProperties().getProperty(Property.DTSTART);
+        DtEnd end = (DtEnd) request.getProperties().getProperty(Property.DTEND);
+        return new FreeBusyIndex(components, new DateTime(start.getDate()),
+                new DateTime(end.getDate()));
+    }
+
     /**
      * Create a FREEBUSY property representing the busy time for the specified
-     * component list. If the component is not applicable to FREEBUSY time, or if the
-     * component is outside the bounds of the start and end dates, null is
-     * returned. If no valid busy periods are identified in the component an
+     * index of busy time. If no valid busy periods are identified an
      * empty FREEBUSY property is returned (i.e. empty period list).
      * 
-     * @param component
-     *            a component to base the FREEBUSY property on
-     * @return a FreeBusy instance or null if the component is not applicable
+     * @param start the start of the busy time
+     * @param end the end of the busy time
+     * @param index an index of busy time
+     * @return a FreeBusy instance
      */
-    private FreeBusy createBusyTime(final DateTime start, final DateTime end, final ComponentList components) {
-        PeriodList periods = getConsumedTime(components, start, end);
-        for (Iterator i = periods.iterator(); i.hasNext();) {
-            Period period = (Period) i.next();
-            // check if period outside bounds..
-            if (period.getStart().after(end) || period.getEnd().before(start)) {
-                periods.remove(period);
-            }
-        }
-        return new FreeBusy(periods);
+    private FreeBusy createBusyTime(final DateTime start, final DateTime end, final FreeBusyIndex index) {
+        // periods outside bounds are excluded by the index..
+        return new FreeBusy(index.getBusyTime(start, end));
     }
 
     /**
      * Create a FREEBUSY property representing the free time available of the specified
-     * duration for the given list of components.
-     * component. If the component is not applicable to FREEBUSY time, or if the
-     * component is outside the bounds of the start and end dates, null is
-     * returned. If no valid busy periods are identified in the component an
-     * empty FREEBUSY property is returned (i.e. empty period list).
+     * duration for the given index of busy time. If no free periods are
+     * identified an empty FREEBUSY property is returned (i.e. empty period list).
      * @param start
      * @param end
      * @param duration
-     * @param components
+     * @param index
      * @return
      */
-    private FreeBusy createFreeTime(final DateTime start, final DateTime end, final Dur duration, final ComponentList components) {
+    private FreeBusy createFreeTime(final DateTime start, final DateTime end, final Dur duration, final FreeBusyIndex index) {
         FreeBusy fb = new FreeBusy();
         fb.getParameters().add(FbType.FREE);
-        PeriodList periods = getConsumedTime(components, start, end);
+        IntervalSet busy = index.getBusyIntervals(start, end);
         // debugging..
         if (log.isDebugEnabled()) {
-            log.debug("Busy periods: " + periods);
-        }
-        DateTime lastPeriodEnd = null;
-        // where no time is consumed set the last period end as the range start..
-        if (periods.isEmpty()) {
-            lastPeriodEnd = new DateTime(start);
-        }
-        for (Iterator i = periods.iterator(); i.hasNext();) {
-            Period period = (Period) i.next();
-            // check if period outside bounds..
-            if (period.getStart().after(end) || period.getEnd().before(start)) {
-                continue;
-            }
-            // create a dummy last period end if first period starts after the start date
-            // (i.e. there is a free time gap between the start and the first period).
-            if (lastPeriodEnd == null && period.getStart().after(start)) {
-                lastPeriodEnd = new DateTime(start);
-            }
-            // calculate duration between this period start and last period end..
-            if (lastPeriodEnd != null) {
-                Duration freeDuration = new Duration(lastPeriodEnd, period.getStart());
-                if (freeDuration.getDuration().compareTo(duration) >= 0) {
-                    fb.getPeriods().add(new Period(lastPeriodEnd, freeDuration.getDuration()));
-                }
-            }
-            lastPeriodEnd = period.getEnd();
+            log.debug("Busy periods: " + busy);
         }
-        // calculate duration between last period end and end ..
-        if (lastPeriodEnd != null) {
-            Duration freeDuration = new Duration(lastPeriodEnd, end);
-            if (freeDuration.getDuration().compareTo(duration) >= 0) {
-                fb.getPeriods().add(new Period(lastPeriodEnd, freeDuration.getDuration()));
+        IntervalSet free = new IntervalSet(start.getTime(), end.getTime()).subtract(busy);
+        for (int i = 0; i < free.size(); i++) {
+            DateTime freeStart = new DateTime(free.getStart(i));
+            freeStart.setUtc(true);
+            DateTime freeEnd = new DateTime(free.getEnd(i));
+            freeEnd.setUtc(true);
+            // include free time of at least the requested duration..
+            Dur freeDuration = new Dur(freeStart, freeEnd);
+            if (freeDuration.compareTo(duration) >= 0) {
+                fb.getPeriods().add(new Period(freeStart, freeDuration));
             }
         }
         return fb;
     }
 
     /**
-     * Creates a list of periods representing the time consumed by the specified
-     * list of components.
-     * @param components
-     * @return
-     */
-    private PeriodList getConsumedTime(final ComponentList components, final DateTime rangeStart, final DateTime rangeEnd) {
-        PeriodList periods = new PeriodList();
-        for (Iterator i = components.iterator(); i.hasNext();) {
-            Component component = (Component) i.next();
-            // only events consume time..
-            if (component instanceof VEvent) {
-                periods.addAll(((VEvent) component).getConsumedTime(rangeStart, rangeEnd));
-            }
-        }
-        return periods.normalise();
-    }
-
-    /**
-     * Write the component to a string filtering the properties and
-     * sub-components according to the supplied filter.
-     * 
-     * @param filter
-     *            filter to use.
-     * @return iCalendar data written.
+     * @see net.fortuna.ical4j.model.Component#write(java.io.Writer,
+     *      net.fortuna.ical4j.model.filter.OutputFilter)
      */
-    public String toString(OutputFilter filter) {
+    public void write(final Writer out, final OutputFilter filter)
+            throws IOException {
 
         // Check to see whether the range of FREEBUSYs needs to be limited
         if (filter.getLimitfb() != null) {
@@ -366,23 +346,24 @@ public class VFreeBusy extends Component {
                 getProperties().add(truncateFreeBusy(fb, filter.getLimitfb()));
             }
             
-            String result = super.toString(filter);
-            
-            // Remove modified FREEBUSYs
-            for (Iterator iter = getProperties().iterator(); iter.hasNext();) {
-                Property element = (Property) iter.next();
-                FreeBusy fb = (FreeBusy)element;
-                if (fb != null) {
-                    getProperties().remove(fb);
-                }
+            try {
+                super.write(out, filter);
             }
+            finally {
+                // Remove modified FREEBUSYs
+                for (Iterator iter = getProperties().iterator(); iter.hasNext();) {
+                    Property element = (Property) iter.next();
+                    FreeBusy fb = (FreeBusy)element;
+                    if (fb != null) {
+                        getProperties().remove(fb);
+                    }
+                }
 
-            // Add back originals
-            getProperties().addAll(oldItems);
-            
-            return result;
+                // Add back originals
+                getProperties().addAll(oldItems);
+            }
         } else {
-            return super.toString(filter);
+            super.write(out, filter);
         }
     }
 
@@ -478,7 +459,7 @@ public class VFreeBusy extends Component {
             validateProperties();
         }
     }
-    
+
     /**
      * Returns the UID property of this component if available.
      * @return a Uid instance, or null if no UID property exists
@@ -33,6 +33,8 @@
  */
 package net.fortuna.ical4j.model.component;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.Iterator;
 
 import net.fortuna.ical4j.model.Component;
@@ -205,44 +207,25 @@ public class VToDo extends Component {
     }
 
     /**
-     * @see java.lang.Object#toString()
+     * @see net.fortuna.ical4j.model.Component#write(java.io.Writer)
      */
-    public final String toString() {
-        StringBuffer buffer = new StringBuffer();
-        buffer.append(BEGIN);
-        buffer.append(':');
-        buffer.append(getName());
-        buffer.append("\r\n");
-        buffer.append(getProperties());
-        buffer.append(getAlarms());
-        buffer.append(END);
-        buffer.append(':');
-        buffer.append(getName());
-        buffer.append("\r\n");
-        return buffer.toString();
+    public final void write(final Writer out) throws IOException {
+        writeBegin(out);
+        getProperties().write(out);
+        getAlarms().write(out);
+        writeEnd(out);
     }
 
     /**
-     * Write the component to a string filtering the properties and
-     * sub-components according to the supplied filter.
-     * 
-     * @param filter
-     *            filter to use.
-     * @return iCalendar data written.
+     * @see net.fortuna.ical4j.model.Component#write(java.io.Writer,
+     *      net.fortuna.ical4j.model.filter.OutputFilter)
      */
-    public String toString(OutputFilter filter) {
-        StringBuffer buffer = new StringBuffer();
-        buffer.append(BEGIN);
-        buffer.append(':');
-        buffer.append(getName());
-        buffer.append("\r\n");
-        buffer.append(getProperties().toString(filter));
-        buffer.append(getAlarms().toString(filter));
-        buffer.append(END);
-        buffer.append(':');
-        buffer.append(getName());
-        buffer.append("\r\n");
-        return buffer.toString();
+    public void write(final Writer out, final OutputFilter filter)
+            throws IOException {
+        writeBegin(out);
+        getProperties().write(out, filter);
+        getAlarms().write(out, filter);
+        writeEnd(out);
     }
 
     /**
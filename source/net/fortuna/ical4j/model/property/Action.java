@@ -35,6 +35,7 @@
  */
 package net.fortuna.ical4j.model.property;
 
+import net.fortuna.ical4j.model.Immutable;
 import net.fortuna.ical4j.model.ParameterList;
 import net.fortuna.ical4j.model.Property;
 import net.fortuna.ical4j.model.ValidationException;
@@ -60,7 +61,7 @@ public class Action extends Property {
      * @author Ben Fortuna
      * An immutable instance of Action.
      */
-    private static final class ImmutableAction extends Action {
+    private static final class ImmutableAction extends Action implements Immutable {
         
         private static final long serialVersionUID = -2752235951243969905L;
         
@@ -136,6 +136,7 @@ public class Attach extends Property {
      * @see net.fortuna.ical4j.model.Property#setValue(java.lang.String)
      */
     public void setValue(final String aValue) throws IOException, URISyntaxException {
+        deferredValue = null;
         // determine if ATTACH is a URI or an embedded
         // binary..
         if (Encoding.BASE64.equals(getParameters().getParameter(Parameter.ENCODING))
@@ -154,6 +155,13 @@ public class Attach extends Property {
         }
     }
 
+    /* (non-Javadoc)
+     * @see net.fortuna.ical4j.model.Property#deferValue(java.lang.String)
+     */
+    public final void deferValue(final String aValue) {
+        deferredValue = aValue;
+    }
+
     /**
      * @param data
      *            binary data
@@ -221,6 +229,7 @@ public class Attach extends Property {
      * @return Returns the binary.
      */
     public final byte[] getBinary() {
+        parseDeferredValue();
         return binary;
     }
 
@@ -228,6 +237,7 @@ public class Attach extends Property {
      * @return Returns the uri.
      */
     public final URI getUri() {
+        parseDeferredValue();
         return uri;
     }
 
@@ -237,6 +247,9 @@ public class Attach extends Property {
      * @see net.fortuna.ical4j.model.Property#getValue()
      */
     public final String getValue() {
+        if (deferredValue != null) {
+            return deferredValue;
+        }
         if (getUri() != null) {
             return Uris.decode(Strings.valueOf(getUri()));
         }
@@ -250,6 +263,7 @@ public class Attach extends Property {
      * @param binary The binary to set.
      */
     public final void setBinary(final byte[] binary) {
+        deferredValue = null;
         this.binary = binary;
         // unset uri..
         this.uri = null;
@@ -259,6 +273,7 @@ public class Attach extends Property {
      * @param uri The uri to set.
      */
     public final void setUri(final URI uri) {
+        deferredValue = null;
         this.uri = uri;
         // unset binary..
         this.binary = null;
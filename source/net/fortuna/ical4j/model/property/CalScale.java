@@ -35,6 +35,7 @@
  */
 package net.fortuna.ical4j.model.property;
 
+import net.fortuna.ical4j.model.Immutable;
 import net.fortuna.ical4j.model.ParameterList;
 import net.fortuna.ical4j.model.Property;
 import net.fortuna.ical4j.model.ValidationException;
@@ -54,7 +55,7 @@ public class CalScale extends Property {
      * @author Ben Fortuna
      * An immutable instance of CalScale.
      */
-    private static final class ImmutableCalScale extends CalScale {
+    private static final class ImmutableCalScale extends CalScale implements Immutable {
         
         private static final long serialVersionUID = 1750949550694413878L;
         
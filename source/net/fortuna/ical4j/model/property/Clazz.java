@@ -35,6 +35,7 @@
  */
 package net.fortuna.ical4j.model.property;
 
+import net.fortuna.ical4j.model.Immutable;
 import net.fortuna.ical4j.model.ParameterList;
 import net.fortuna.ical4j.model.Property;
 import net.fortuna.ical4j.model.ValidationException;
@@ -58,7 +59,7 @@ public class Clazz extends Property {
      * @author Ben Fortuna
      * An immutable instance of Clazz.
      */
-    private static final class ImmutableClazz extends Clazz {
+    private static final class ImmutableClazz extends Clazz implements Immutable {
         
         private static final long serialVersionUID = 5978394762293365042L;
         
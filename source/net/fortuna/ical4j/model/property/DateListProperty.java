@@ -94,6 +94,7 @@ public abstract class DateListProperty extends Property {
      * @return Returns the dates.
      */
     public final DateList getDates() {
+        parseDeferredValue();
         return dates;
     }
 
@@ -101,16 +102,35 @@ public abstract class DateListProperty extends Property {
      * @see net.fortuna.ical4j.model.Property#setValue(java.lang.String)
      */
     public void setValue(final String aValue) throws ParseException {
+        deferredValue = null;
         dates = new DateList(aValue, (Value) getParameters().getParameter(Parameter.VALUE), timezone);
     }
 
+    /* (non-Javadoc)
+     * @see net.fortuna.ical4j.model.Property#deferValue(java.lang.String)
+     */
+    public void deferValue(final String aValue) {
+        deferredValue = aValue;
+    }
+
     /* (non-Javadoc)
      * @see net.fortuna.ical4j.model.Property#getValue()
      */
     public String getValue() {
+        if (deferredValue != null) {
+            return deferredValue;
+        }
         return Strings.valueOf(dates);
     }
     
+    /**
+     * @return the timezone associated with this property, or null if no
+     * timezone has been set
+     */
+    public final TimeZone getTimeZone() {
+        return timezone;
+    }
+
     /**
      * Sets the timezone associated with this property.
      * @param timezone a timezone to associate with this property
@@ -141,7 +161,7 @@ public abstract class DateListProperty extends Property {
      * @param utc
      */
     public final void setUtc(final boolean utc) {
-        if (!Value.DATE_TIME.equals(dates.getType())) {
+        if (!Value.DATE_TIME.equals(getDates().getType())) {
             throw new UnsupportedOperationException("TimeZone is not applicable to current value");
         }
         dates.setUtc(utc);
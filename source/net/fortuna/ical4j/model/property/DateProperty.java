@@ -100,6 +100,7 @@ public abstract class DateProperty extends Property {
      * @return Returns the date.
      */
     public final Date getDate() {
+        parseDeferredValue();
         return date;
     }
 
@@ -109,6 +110,7 @@ public abstract class DateProperty extends Property {
      * @param date The date to set.
      */
     public final void setDate(final Date date) {
+        deferredValue = null;
         if (date instanceof DateTime) {
             setTimeZone(((DateTime) date).getTimeZone());
         }
@@ -123,6 +125,7 @@ public abstract class DateProperty extends Property {
      * @see net.fortuna.ical4j.model.Property#setValue(java.lang.String)
      */
     public void setValue(final String value) throws ParseException {
+        deferredValue = null;
         // value can be either a date-time or a date..
         if (Value.DATE.equals(getParameters().getParameter(Parameter.VALUE))) {
             this.date = new Date(value);
@@ -131,14 +134,32 @@ public abstract class DateProperty extends Property {
             this.date = new DateTime(value, timezone);
         }
     }
+
+    /* (non-Javadoc)
+     * @see net.fortuna.ical4j.model.Property#deferValue(java.lang.String)
+     */
+    public void deferValue(final String aValue) {
+        deferredValue = aValue;
+    }
     
     /* (non-Javadoc)
      * @see net.fortuna.ical4j.model.Property#getValue()
      */
     public String getValue() {
+        if (deferredValue != null) {
+            return deferredValue;
+        }
         return Strings.valueOf(getDate());
     }
 
+    /**
+     * @return the timezone associated with the property's value, or null if
+     * no timezone has been set
+     */
+    public final TimeZone getTimeZone() {
+        return timezone;
+    }
+
     /**
      * Updates the timezone associated with the property's value. If the specified
      * timezone is equivalent to UTC any existing TZID parameters will be removed.
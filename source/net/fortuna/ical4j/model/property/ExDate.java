@@ -37,6 +37,7 @@ package net.fortuna.ical4j.model.property;
 
 import java.text.ParseException;
 
+import net.fortuna.ical4j.model.Date;
 import net.fortuna.ical4j.model.DateList;
 import net.fortuna.ical4j.model.Parameter;
 import net.fortuna.ical4j.model.ParameterList;
@@ -93,6 +94,18 @@ public class ExDate extends DateListProperty {
         super(EXDATE, aList, dList);
     }
 
+    /**
+     * Indicates whether this property excludes the instance of a recurrence
+     * starting at the specified date. An instance is excluded where this
+     * property specifies a date at the start of the instance, or where the
+     * instance is a DATE-TIME, a DATE on which the instance starts.
+     * @param instanceStart the start of an instance
+     * @return true if the instance is excluded
+     */
+    public final boolean excludes(final Date instanceStart) {
+        return getDates().includesDay(instanceStart);
+    }
+
     /**
      * @see net.fortuna.ical4j.model.Property#validate()
      */
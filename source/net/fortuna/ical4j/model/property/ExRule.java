@@ -101,6 +101,7 @@ public class ExRule extends Property {
      * @return Returns the recur.
      */
     public final Recur getRecur() {
+        parseDeferredValue();
         return recur;
     }
 
@@ -109,8 +110,16 @@ public class ExRule extends Property {
      * @see net.fortuna.ical4j.model.Property#setValue(java.lang.String)
      */
     public final void setValue(final String aValue) throws ParseException {
+        deferredValue = null;
         recur = new Recur(aValue);
     }
+
+    /* (non-Javadoc)
+     * @see net.fortuna.ical4j.model.Property#deferValue(java.lang.String)
+     */
+    public final void deferValue(final String aValue) {
+        deferredValue = aValue;
+    }
     
     /*
      * (non-Javadoc)
@@ -118,6 +127,9 @@ public class ExRule extends Property {
      * @see net.fortuna.ical4j.model.Property#getValue()
      */
     public final String getValue() {
+        if (deferredValue != null) {
+            return deferredValue;
+        }
         return getRecur().toString();
     }
     
@@ -125,6 +137,7 @@ public class ExRule extends Property {
      * @param recur The recur to set.
      */
     public final void setRecur(final Recur recur) {
+        deferredValue = null;
         this.recur = recur;
     }
     
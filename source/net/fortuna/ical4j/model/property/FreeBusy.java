@@ -177,6 +177,7 @@ public class FreeBusy extends Property {
      * @return Returns the periods.
      */
     public final PeriodList getPeriods() {
+        parseDeferredValue();
         return periods;
     }
     
@@ -185,15 +186,26 @@ public class FreeBusy extends Property {
      * @see net.fortuna.ical4j.model.Property#setValue(java.lang.String)
      */
     public final void setValue(final String aValue) throws ParseException {
+        deferredValue = null;
         periods = new PeriodList(aValue);
     }
 
+    /* (non-Javadoc)
+     * @see net.fortuna.ical4j.model.Property#deferValue(java.lang.String)
+     */
+    public final void deferValue(final String aValue) {
+        deferredValue = aValue;
+    }
+
     /*
      * (non-Javadoc)
      *
      * @see net.fortuna.ical4j.model.Property#getValue()
      */
     public final String getValue() {
+        if (deferredValue != null) {
+            return deferredValue;
+        }
         return getPeriods().toString();
     }
 }
@@ -35,6 +35,7 @@
  */
 package net.fortuna.ical4j.model.property;
 
+import net.fortuna.ical4j.model.Immutable;
 import net.fortuna.ical4j.model.ParameterList;
 import net.fortuna.ical4j.model.Property;
 import net.fortuna.ical4j.model.ValidationException;
@@ -114,7 +115,7 @@ public class Method extends Property {
      * @author Ben Fortuna
      * An immutable instance of Method.
      */
-    private static final class ImmutableMethod extends Method {
+    private static final class ImmutableMethod extends Method implements Immutable {
         
         private static final long serialVersionUID = 5332607957381969713L;
         
@@ -35,6 +35,7 @@
  */
 package net.fortuna.ical4j.model.property;
 
+import net.fortuna.ical4j.model.Immutable;
 import net.fortuna.ical4j.model.ParameterList;
 import net.fortuna.ical4j.model.Property;
 import net.fortuna.ical4j.model.ValidationException;
@@ -60,7 +61,7 @@ public class Priority extends Property {
      * @author Ben Fortuna
      * An immutable instance of Priority.
      */
-    private static final class ImmutablePriority extends Priority {
+    private static final class ImmutablePriority extends Priority implements Immutable {
         
         private static final long serialVersionUID = 5884973714694108418L;
         
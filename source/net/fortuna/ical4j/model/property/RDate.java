@@ -237,6 +237,7 @@ public class RDate extends DateListProperty {
      * @return Returns the period list.
      */
     public final PeriodList getPeriods() {
+        parseDeferredValue();
         return periods;
     }
     
@@ -244,6 +245,7 @@ public class RDate extends DateListProperty {
      * @see net.fortuna.ical4j.model.Property#setValue(java.lang.String)
      */
     public final void setValue(final String aValue) throws ParseException {
+        deferredValue = null;
         if (Value.PERIOD.equals(getParameters().getParameter(Parameter.VALUE))) {
             periods = new PeriodList(aValue);
         }
@@ -258,6 +260,9 @@ public class RDate extends DateListProperty {
      * @see net.fortuna.ical4j.model.Property#getValue()
      */
     public final String getValue() {
+        if (deferredValue != null) {
+            return deferredValue;
+        }
         if (getPeriods() != null) {
             return Strings.valueOf(getPeriods());
         }
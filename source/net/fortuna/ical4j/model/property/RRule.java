@@ -101,6 +101,7 @@ public class RRule extends Property {
      * @return Returns the recur.
      */
     public final Recur getRecur() {
+        parseDeferredValue();
         return recur;
     }
     
@@ -108,15 +109,26 @@ public class RRule extends Property {
      * @see net.fortuna.ical4j.model.Property#setValue(java.lang.String)
      */
     public final void setValue(final String aValue) throws ParseException {
+        deferredValue = null;
         recur = new Recur(aValue);
     }
 
+    /* (non-Javadoc)
+     * @see net.fortuna.ical4j.model.Property#deferValue(java.lang.String)
+     */
+    public final void deferValue(final String aValue) {
+        deferredValue = aValue;
+    }
+
     /*
      * (non-Javadoc)
      *
      * @see net.fortuna.ical4j.model.Property#getValue()
      */
     public final String getValue() {
+        if (deferredValue != null) {
+            return deferredValue;
+        }
         return getRecur().toString();
     }
     
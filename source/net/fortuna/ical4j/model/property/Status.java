@@ -35,6 +35,7 @@
  */
 package net.fortuna.ical4j.model.property;
 
+import net.fortuna.ical4j.model.Immutable;
 import net.fortuna.ical4j.model.ParameterList;
 import net.fortuna.ical4j.model.Property;
 import net.fortuna.ical4j.model.ValidationException;
@@ -75,7 +76,7 @@ public class Status extends Property {
      * @author Ben Fortuna
      * An immutable instance of Status.
      */
-    private static final class ImmutableStatus extends Status {
+    private static final class ImmutableStatus extends Status implements Immutable {
         
         private static final long serialVersionUID = 7771868877237685612L;
         
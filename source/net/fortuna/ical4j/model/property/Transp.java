@@ -35,6 +35,7 @@
  */
 package net.fortuna.ical4j.model.property;
 
+import net.fortuna.ical4j.model.Immutable;
 import net.fortuna.ical4j.model.ParameterList;
 import net.fortuna.ical4j.model.Property;
 import net.fortuna.ical4j.model.ValidationException;
@@ -56,7 +57,7 @@ public class Transp extends Property {
      * @author Ben Fortuna
      * An immutable instance of Transp.
      */
-    private static final class ImmutableTransp extends Transp {
+    private static final class ImmutableTransp extends Transp implements Immutable {
         
         private static final long serialVersionUID = -6595830107310111996L;
         
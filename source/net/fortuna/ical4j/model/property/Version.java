@@ -35,6 +35,7 @@
  */
 package net.fortuna.ical4j.model.property;
 
+import net.fortuna.ical4j.model.Immutable;
 import net.fortuna.ical4j.model.ParameterList;
 import net.fortuna.ical4j.model.Property;
 import net.fortuna.ical4j.model.ValidationException;
@@ -60,7 +61,7 @@ public class Version extends Property {
      * @author Ben Fortuna
      * An immutable instance of Version.
      */
-    private static final class ImmutableVersion extends Version {
+    private static final class ImmutableVersion extends Version implements Immutable {
         
         private static final long serialVersionUID = -5040679357859594835L;
         
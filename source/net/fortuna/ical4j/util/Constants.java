@@ -35,6 +35,13 @@
  */
 package net.fortuna.ical4j.util;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.fortuna.ical4j.model.Immutable;
 import net.fortuna.ical4j.model.Property;
 import net.fortuna.ical4j.model.property.Action;
 import net.fortuna.ical4j.model.property.CalScale;
@@ -48,122 +55,150 @@ import net.fortuna.ical4j.model.property.Version;
 /**
  * Provides some convenience methods for working with constant
  * parameters and properties.
+ * <p>
+ * Constant properties are looked up by name and value, such that a
+ * property is only compared with constants of the same name and value.
+ * Further constants, such as common experimental properties, may be
+ * registered via {@link #register(Property)} and removed again via
+ * {@link #unregister(Property)}.
  * @author Ben Fortuna
  */
 public final class Constants {
 
+    // NOTE: maps of constants are immutable and replaced when updated, such
+    // that lookups don't require locking..
+    private static volatile Map properties = Collections.EMPTY_MAP;
+
+    static {
+        register(new Property[] {Action.AUDIO, Action.DISPLAY, Action.EMAIL,
+                Action.PROCEDURE, CalScale.GREGORIAN, Clazz.CONFIDENTIAL,
+                Clazz.PRIVATE, Clazz.PUBLIC, Method.ADD, Method.CANCEL,
+                Method.COUNTER, Method.DECLINE_COUNTER, Method.PUBLISH,
+                Method.REFRESH, Method.REPLY, Method.REQUEST, Priority.HIGH,
+                Priority.LOW, Priority.MEDIUM, Priority.UNDEFINED,
+                Status.VEVENT_CANCELLED, Status.VEVENT_CONFIRMED,
+                Status.VEVENT_TENTATIVE, Status.VJOURNAL_CANCELLED,
+                Status.VJOURNAL_DRAFT, Status.VJOURNAL_FINAL,
+                Status.VTODO_CANCELLED, Status.VTODO_COMPLETED,
+                Status.VTODO_IN_PROCESS, Status.VTODO_NEEDS_ACTION,
+                Transp.OPAQUE, Transp.TRANSPARENT, Version.VERSION_2_0});
+    }
+
     /**
      * Constructor made private to enforce static nature.
      */
     private Constants() {
     }
-    
+
     /**
-     * Returns a constant equivalent to the specified property
-     * if one is applicable. Otherwise will return the specified
-     * property.
-     * @param property
-     * @return a Property instance
+     * Registers a property to be returned by {@link #forProperty(Property)}
+     * in place of equivalent properties. Where constants are equivalent, the
+     * first registered is returned. As constants are shared by all calendars,
+     * the specified property must be immutable, that is, it must implement
+     * {@link Immutable} and its parameter list must be unmodifiable (as for
+     * constants such as {@link Action#AUDIO}).
+     * @param constant an immutable constant property
+     * @throws IllegalArgumentException where the specified property is modifiable
      */
-    public static Property forProperty(final Property property) {
-        if (Action.AUDIO.equals(property)) {
-            return Action.AUDIO;
-        }
-        else if (Action.DISPLAY.equals(property)) {
-            return Action.DISPLAY;
-        }
-        else if (Action.EMAIL.equals(property)) {
-            return Action.EMAIL;
-        }
-        else if (Action.PROCEDURE.equals(property)) {
-            return Action.PROCEDURE;
-        }
-        else if (CalScale.GREGORIAN.equals(property)) {
-            return CalScale.GREGORIAN;
-        }
-        else if (Clazz.CONFIDENTIAL.equals(property)) {
-            return Clazz.CONFIDENTIAL;
-        }
-        else if (Clazz.PRIVATE.equals(property)) {
-            return Clazz.PRIVATE;
-        }
-        else if (Clazz.PUBLIC.equals(property)) {
-            return Clazz.PUBLIC;
-        }
-        else if (Method.ADD.equals(property)) {
-            return Method.ADD;
-        }
-        else if (Method.CANCEL.equals(property)) {
-            return Method.CANCEL;
-        }
-        else if (Method.COUNTER.equals(property)) {
-            return Method.COUNTER;
-        }
-        else if (Method.DECLINE_COUNTER.equals(property)) {
-            return Method.DECLINE_COUNTER;
-        }
-        else if (Method.PUBLISH.equals(property)) {
-            return Method.PUBLISH;
-        }
-        else if (Method.REFRESH.equals(property)) {
-            return Method.REFRESH;
-        }
-        else if (Method.REPLY.equals(property)) {
-            return Method.REPLY;
-        }
-        else if (Method.REQUEST.equals(property)) {
-            return Method.REQUEST;
-        }
-        else if (Priority.HIGH.equals(property)) {
-            return Priority.HIGH;
-        }
-        else if (Priority.LOW.equals(property)) {
-            return Priority.LOW;
-        }
-        else if (Priority.MEDIUM.equals(property)) {
-            return Priority.MEDIUM;
-        }
-        else if (Priority.UNDEFINED.equals(property)) {
-            return Priority.UNDEFINED;
+    public static void register(final Property constant) {
+        if (!isImmutable(constant)) {
+            throw new IllegalArgumentException("Constant property ["
+                    + constant.getName() + "] is modifiable");
         }
-        else if (Status.VEVENT_CANCELLED.equals(property)) {
-            return Status.VEVENT_CANCELLED;
-        }
-        else if (Status.VEVENT_CONFIRMED.equals(property)) {
-            return Status.VEVENT_CONFIRMED;
-        }
-        else if (Status.VEVENT_TENTATIVE.equals(property)) {
-            return Status.VEVENT_TENTATIVE;
-        }
-        else if (Status.VJOURNAL_CANCELLED.equals(property)) {
-            return Status.VJOURNAL_CANCELLED;
-        }
-        else if (Status.VJOURNAL_DRAFT.equals(property)) {
-            return Status.VJOURNAL_DRAFT;
-        }
-        else if (Status.VJOURNAL_FINAL.equals(property)) {
-            return Status.VJOURNAL_FINAL;
-        }
-        else if (Status.VTODO_CANCELLED.equals(property)) {
-            return Status.VTODO_CANCELLED;
+        register(new Property[] {constant});
+    }
+
+    /**
+     * Removes a property previously registered via {@link #register(Property)}.
+     * @param constant a registered constant property
+     * @return true if the specified property was registered
+     */
+    public static synchronized boolean unregister(final Property constant) {
+        Map values = (Map) properties.get(constant.getName());
+        if (values == null) {
+            return false;
+        }
+        List candidates = (List) values.get(constant.getValue());
+        if (candidates == null) {
+            return false;
+        }
+        List remaining = new ArrayList(candidates);
+        // remove the registered instance rather than an equivalent constant..
+        boolean removed = false;
+        for (int i = 0; i < remaining.size() && !removed; i++) {
+            if (remaining.get(i) == constant) {
+                remaining.remove(i);
+                removed = true;
+            }
+        }
+        if (!removed) {
+            return false;
         }
-        else if (Status.VTODO_COMPLETED.equals(property)) {
-            return Status.VTODO_COMPLETED;
+
+        Map registered = new HashMap(properties);
+        values = new HashMap(values);
+        if (remaining.isEmpty()) {
+            values.remove(constant.getValue());
         }
-        else if (Status.VTODO_IN_PROCESS.equals(property)) {
-            return Status.VTODO_IN_PROCESS;
+        else {
+            values.put(constant.getValue(), Collections.unmodifiableList(remaining));
         }
-        else if (Status.VTODO_NEEDS_ACTION.equals(property)) {
-            return Status.VTODO_NEEDS_ACTION;
+        if (values.isEmpty()) {
+            registered.remove(constant.getName());
         }
-        else if (Transp.OPAQUE.equals(property)) {
-            return Transp.OPAQUE;
+        else {
+            registered.put(constant.getName(), values);
         }
-        else if (Transp.TRANSPARENT.equals(property)) {
-            return Transp.TRANSPARENT;
+        properties = registered;
+        return true;
+    }
+
+    /**
+     * @param property a property
+     * @return true if the specified property is declared immutable and its
+     * parameters may not be modified
+     */
+    private static boolean isImmutable(final Property property) {
+        return property instanceof Immutable && property.getParameters().isUnmodifiable();
+    }
+
+    /**
+     * @param constants an array of constant properties
+     */
+    private static synchronized void register(final Property[] constants) {
+        Map registered = new HashMap(properties);
+        for (int i = 0; i < constants.length; i++) {
+            Map values = (Map) registered.get(constants[i].getName());
+            values = (values != null) ? new HashMap(values) : new HashMap();
+            registered.put(constants[i].getName(), values);
+
+            List candidates = (List) values.get(constants[i].getValue());
+            candidates = (candidates != null) ? new ArrayList(candidates) : new ArrayList(1);
+            candidates.add(constants[i]);
+            values.put(constants[i].getValue(), Collections.unmodifiableList(candidates));
         }
-        else if (Version.VERSION_2_0.equals(property)) {
-            return Version.VERSION_2_0;
+        properties = registered;
+    }
+    
+    /**
+     * Returns a constant equivalent to the specified property
+     * if one is applicable. Otherwise will return the specified
+     * property.
+     * @param property
+     * @return a Property instance
+     */
+    public static Property forProperty(final Property property) {
+        Map values = (Map) properties.get(property.getName());
+        if (values != null && property.getValue() != null) {
+            List candidates = (List) values.get(property.getValue());
+            if (candidates != null) {
+                for (int i = 0; i < candidates.size(); i++) {
+                    Property constant = (Property) candidates.get(i);
+                    if (constant.equals(property)) {
+                        return constant;
+                    }
+                }
+            }
         }
         return property;
     }
@@ -216,26 +216,34 @@ public final class Dates {
         return Calendar.getInstance(); //TimeZone.getTimeZone(TimeZones.GMT_ID));
     }
     
+    /**
+     * Returns the time at the start of the specified day of the proleptic
+     * Gregorian calendar, in UTC time.
+     * @param year a year
+     * @param month a month (1 - 12)
+     * @param dayOfMonth a day of the month
+     * @return the number of milliseconds since the epoch
+     */
+    public static long getUtcTime(final int year, final int month, final int dayOfMonth) {
+        return Iso8601Format.getEpochDay(year, month, dayOfMonth) * MILLIS_PER_DAY;
+    }
+
     /**
      * Rounds a time value to remove any precision smaller than specified.
      * @param time the time value to round
      * @return a round time value
      */
     public static final long round(final long time, final int precision) {
-        Calendar cal = Calendar.getInstance();
-        cal.setTimeInMillis(time);
         if (precision == PRECISION_DAY) {
-//            return (long) Math.floor(time / (double) Dates.MILLIS_PER_DAY) * Dates.MILLIS_PER_DAY;
-            cal.set(Calendar.HOUR_OF_DAY, 0);
-            cal.clear(Calendar.MINUTE);
-            cal.clear(Calendar.SECOND);
-            cal.clear(Calendar.MILLISECOND);
+            // midnight in the default timezone..
+            TimeZone timezone = TimeZone.getDefault();
+            long local = time + timezone.getOffset(time);
+            return Iso8601Format.toUtc(local - Iso8601Format.floorMod(local, MILLIS_PER_DAY), timezone);
         }
         else if (precision == PRECISION_SECOND) {
-//            return (long) Math.floor(time / (double) Dates.MILLIS_PER_SECOND) * Dates.MILLIS_PER_SECOND;
-            cal.clear(Calendar.MILLISECOND);
+            return time - Iso8601Format.floorMod(time, MILLIS_PER_SECOND);
         }
         // unrecognised precision..
-        return cal.getTimeInMillis();
+        return time;
     }
 }
@@ -0,0 +1,509 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2007, Ben Fortuna
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  o Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Ben Fortuna nor the names of any other contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.fortuna.ical4j.util;
+
+import java.text.DateFormat;
+import java.text.FieldPosition;
+import java.text.ParseException;
+import java.text.ParsePosition;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+/**
+ * A date format for the fixed-width DATE, DATE-TIME and TIME representations
+ * defined in RFC2445 (i.e. <code>yyyyMMdd['T'HHmmss['Z']]</code>). Values
+ * are parsed and formatted arithmetically, avoiding the overhead of a
+ * <code>SimpleDateFormat</code> and its associated
+ * <code>java.util.Calendar</code>. A calendar is only used for dates prior
+ * to the Gregorian cutover and, with timezones other than those defined by a
+ * VTIMEZONE, for local times within a day of a timezone transition, such that
+ * results are consistent with <code>SimpleDateFormat</code>.
+ * <p>
+ * The static <code>parse</code> and <code>format</code> methods are
+ * thread-safe. As with other date formats, instances are not.
+ */
+public final class Iso8601Format extends DateFormat {
+
+    private static final long serialVersionUID = -1722467420961264478L;
+
+    /**
+     * Pattern: <code>yyyyMMdd</code>.
+     */
+    public static final int DATE = 0;
+
+    /**
+     * Pattern: <code>yyyyMMdd'T'HHmmss</code>.
+     */
+    public static final int DATE_TIME = 1;
+
+    /**
+     * Pattern: <code>yyyyMMdd'T'HHmmss'Z'</code>.
+     */
+    public static final int UTC_DATE_TIME = 2;
+
+    /**
+     * Pattern: <code>HHmmss</code>.
+     */
+    public static final int TIME = 3;
+
+    /**
+     * Pattern: <code>HHmmss'Z'</code>.
+     */
+    public static final int UTC_TIME = 4;
+
+    private static final String[] PATTERNS = new String[] {"yyyyMMdd",
+        "yyyyMMdd'T'HHmmss", "yyyyMMdd'T'HHmmss'Z'", "HHmmss", "HHmmss'Z'"};
+
+    /**
+     * The first instant of the Gregorian calendar (1582-10-15T00:00:00Z).
+     */
+    private static final long GREGORIAN_CUTOVER = -12219292800000L;
+
+    /**
+     * The number of days from 0000-03-01 to 1970-01-01.
+     */
+    private static final long EPOCH_OFFSET_DAYS = 719468;
+
+    private static final int DAYS_PER_ERA = 146097;
+
+    private static final TimeZone UTC_TIMEZONE = TimeZone.getTimeZone(TimeZones.UTC_ID);
+
+    private int form;
+
+    private TimeZone timezone;
+
+    private boolean lenient = true;
+
+    /**
+     * Constructs a new format in the default timezone.
+     * @param form one of DATE, DATE_TIME, UTC_DATE_TIME, TIME or UTC_TIME
+     */
+    public Iso8601Format(final int form) {
+        if (form < DATE || form > UTC_TIME) {
+            throw new IllegalArgumentException("Invalid form [" + form + "]");
+        }
+        this.form = form;
+        this.timezone = TimeZone.getDefault();
+    }
+
+    /**
+     * @param pattern a date format pattern
+     * @return the form corresponding to the specified pattern, or -1 if the
+     * pattern is not supported by this format
+     */
+    public static int getForm(final String pattern) {
+        for (int i = 0; i < PATTERNS.length; i++) {
+            if (PATTERNS[i].equals(pattern)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /* (non-Javadoc)
+     * @see java.text.DateFormat#format(java.util.Date, java.lang.StringBuffer, java.text.FieldPosition)
+     */
+    public StringBuffer format(final Date date, final StringBuffer toAppendTo,
+            final FieldPosition fieldPosition) {
+        format(date.getTime(), form, timezone, toAppendTo);
+        return toAppendTo;
+    }
+
+    /* (non-Javadoc)
+     * @see java.text.DateFormat#parse(java.lang.String, java.text.ParsePosition)
+     */
+    public Date parse(final String source, final ParsePosition pos) {
+        long time = parse(source, pos, form, timezone);
+        if (time == Long.MIN_VALUE) {
+            pos.setErrorIndex(pos.getIndex());
+            return null;
+        }
+        return new Date(time);
+    }
+
+    /* (non-Javadoc)
+     * @see java.text.DateFormat#getTimeZone()
+     */
+    public TimeZone getTimeZone() {
+        return timezone;
+    }
+
+    /* (non-Javadoc)
+     * @see java.text.DateFormat#setTimeZone(java.util.TimeZone)
+     */
+    public void setTimeZone(final TimeZone zone) {
+        this.timezone = zone;
+    }
+
+    /* (non-Javadoc)
+     * @see java.text.DateFormat#isLenient()
+     */
+    public boolean isLenient() {
+        return lenient;
+    }
+
+    /**
+     * Note that field values are always interpreted leniently (e.g. a day of
+     * 32 is interpreted as the first day of the following month).
+     * @see java.text.DateFormat#setLenient(boolean)
+     */
+    public void setLenient(final boolean lenient) {
+        this.lenient = lenient;
+    }
+
+    /* (non-Javadoc)
+     * @see java.text.DateFormat#clone()
+     */
+    public Object clone() {
+        Iso8601Format clone = new Iso8601Format(form);
+        clone.timezone = timezone;
+        clone.lenient = lenient;
+        return clone;
+    }
+
+    /* (non-Javadoc)
+     * @see java.text.DateFormat#equals(java.lang.Object)
+     */
+    public boolean equals(final Object arg0) {
+        if (arg0 instanceof Iso8601Format) {
+            Iso8601Format format = (Iso8601Format) arg0;
+            return form == format.form && timezone.equals(format.timezone);
+        }
+        return false;
+    }
+
+    /* (non-Javadoc)
+     * @see java.text.DateFormat#hashCode()
+     */
+    public int hashCode() {
+        return form + timezone.hashCode();
+    }
+
+    /**
+     * Parses the specified string representation of a date and/or time.
+     * Any characters following the representation are ignored.
+     * @param value a string representation of a date and/or time
+     * @param form the form of the representation
+     * @param timezone the timezone used to interpret local times
+     * @return the number of milliseconds since the epoch
+     * @throws ParseException where the value is not of the specified form
+     */
+    public static long parse(final String value, final int form,
+            final TimeZone timezone) throws ParseException {
+        long time = parse(value, null, form, timezone);
+        if (time == Long.MIN_VALUE) {
+            throw new ParseException("Unparseable date: \"" + value + "\"", 0);
+        }
+        return time;
+    }
+
+    /**
+     * @param value a string representation of a date and/or time
+     * @param form the form of the representation
+     * @return true if the specified value may be parsed as the specified form
+     */
+    public static boolean isValid(final String value, final int form) {
+        return parse(value, null, form, UTC_TIMEZONE) != Long.MIN_VALUE;
+    }
+
+    /**
+     * As with <code>SimpleDateFormat</code> the last of a run of adjacent
+     * numeric fields (i.e. the day and the seconds) may contain any number of
+     * digits, whereas other fields are of a fixed width.
+     * @param value a string representation of a date and/or time
+     * @param pos the position of the first character of the representation,
+     * updated to follow the representation if successfully parsed. If null
+     * the representation is assumed to start at the first character
+     * @param form the form of the representation
+     * @param timezone the timezone used to interpret local times
+     * @return the number of milliseconds since the epoch, or Long.MIN_VALUE if
+     * the value is not of the specified form
+     */
+    private static long parse(final String value, final ParsePosition pos,
+            final int form, final TimeZone timezone) {
+
+        if (value == null) {
+            return Long.MIN_VALUE;
+        }
+        int i = 0;
+        if (pos != null) {
+            i = pos.getIndex();
+        }
+
+        int year = 1970;
+        int month = 1;
+        int day = 1;
+        if (form <= UTC_DATE_TIME) {
+            year = digits(value, i, 4);
+            month = digits(value, i + 4, 2);
+            if (year < 0 || month < 0) {
+                return Long.MIN_VALUE;
+            }
+            i += 6;
+            int end = skipDigits(value, i);
+            day = digits(value, i, end - i);
+            if (day < 0) {
+                return Long.MIN_VALUE;
+            }
+            i = end;
+            if (form != DATE) {
+                if (i >= value.length() || value.charAt(i++) != 'T') {
+                    return Long.MIN_VALUE;
+                }
+            }
+        }
+        int hour = 0;
+        int minute = 0;
+        int second = 0;
+        if (form != DATE) {
+            hour = digits(value, i, 2);
+            minute = digits(value, i + 2, 2);
+            if (hour < 0 || minute < 0) {
+                return Long.MIN_VALUE;
+            }
+            i += 4;
+            int end = skipDigits(value, i);
+            second = digits(value, i, end - i);
+            if (second < 0) {
+                return Long.MIN_VALUE;
+            }
+            i = end;
+            if (form == UTC_DATE_TIME || form == UTC_TIME) {
+                if (i >= value.length() || value.charAt(i++) != 'Z') {
+                    return Long.MIN_VALUE;
+                }
+            }
+        }
+        if (pos != null) {
+            pos.setIndex(i);
+        }
+
+        if (year <= 1582) {
+            // Julian calendar dates..
+            Calendar cal = new GregorianCalendar(timezone);
+            cal.clear();
+            cal.set(year, month - 1, day, hour, minute, second);
+            return cal.getTimeInMillis();
+        }
+        // normalise month such that the remaining fields may be added..
+        long y = year + floorDiv(month - 1, 12);
+        int m = (int) floorMod(month - 1, 12) + 1;
+        long local = (getEpochDay(y, m, 1) + day - 1) * Dates.MILLIS_PER_DAY
+            + hour * Dates.MILLIS_PER_HOUR + minute * Dates.MILLIS_PER_MINUTE
+            + second * Dates.MILLIS_PER_SECOND;
+        return toUtc(local, timezone);
+    }
+
+    /**
+     * Appends the string representation of the specified time.
+     * @param time the number of milliseconds since the epoch
+     * @param form the form of the representation
+     * @param timezone the timezone in which to represent the time
+     * @param b a buffer to append the representation to
+     */
+    public static void format(final long time, final int form,
+            final TimeZone timezone, final StringBuffer b) {
+
+        long local = time;
+        if (!TimeZones.isUtc(timezone)) {
+            local += timezone.getOffset(time);
+        }
+
+        int year;
+        int month;
+        int day;
+        if (local < GREGORIAN_CUTOVER) {
+            // Julian calendar dates..
+            Calendar cal = new GregorianCalendar(timezone);
+            cal.setTimeInMillis(time);
+            year = cal.get(Calendar.YEAR);
+            month = cal.get(Calendar.MONTH) + 1;
+            day = cal.get(Calendar.DAY_OF_MONTH);
+        }
+        else {
+            // see http://howardhinnant.github.io/date_algorithms.html#civil_from_days
+            long z = floorDiv(local, Dates.MILLIS_PER_DAY) + EPOCH_OFFSET_DAYS;
+            long era = floorDiv(z, DAYS_PER_ERA);
+            int doe = (int) (z - era * DAYS_PER_ERA);
+            int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+            int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+            int mp = (5 * doy + 2) / 153;
+            day = doy - (153 * mp + 2) / 5 + 1;
+            month = mp < 10 ? mp + 3 : mp - 9;
+            year = (int) (yoe + era * 400) + (month <= 2 ? 1 : 0);
+        }
+
+        if (form <= UTC_DATE_TIME) {
+            if (year < 1000) {
+                pad(year, 4, b);
+            }
+            else {
+                b.append(year);
+            }
+            pad(month, 2, b);
+            pad(day, 2, b);
+            if (form != DATE) {
+                b.append('T');
+            }
+        }
+        if (form != DATE) {
+            int millis = (int) floorMod(local, Dates.MILLIS_PER_DAY);
+            pad((int) (millis / Dates.MILLIS_PER_HOUR), 2, b);
+            pad((int) (millis % Dates.MILLIS_PER_HOUR / Dates.MILLIS_PER_MINUTE), 2, b);
+            pad((int) (millis % Dates.MILLIS_PER_MINUTE / Dates.MILLIS_PER_SECOND), 2, b);
+            if (form == UTC_DATE_TIME || form == UTC_TIME) {
+                b.append('Z');
+            }
+        }
+    }
+
+    /**
+     * Converts a local time to UTC time. Where the specified timezone is a
+     * Java timezone and a transition occurs within a day of the local time
+     * the conversion is performed by a <code>java.util.Calendar</code>, to
+     * ensure non-existent and ambiguous local times are interpreted
+     * consistently with <code>SimpleDateFormat</code>.
+     * @param local the number of milliseconds since the epoch in local time
+     * @param timezone the timezone of the local time
+     * @return the number of milliseconds since the epoch in UTC time
+     */
+    static long toUtc(final long local, final TimeZone timezone) {
+        if (TimeZones.isUtc(timezone)) {
+            return local;
+        }
+        int rawOffset = timezone.getRawOffset();
+        int offset = timezone.getOffset(local - rawOffset);
+        if (timezone instanceof net.fortuna.ical4j.model.TimeZone
+                || (timezone.getOffset(local - rawOffset - Dates.MILLIS_PER_DAY) == offset
+                        && timezone.getOffset(local - rawOffset + Dates.MILLIS_PER_DAY) == offset)) {
+            return local - offset;
+        }
+        Calendar utc = new GregorianCalendar(UTC_TIMEZONE);
+        utc.setTimeInMillis(local);
+        Calendar cal = new GregorianCalendar(timezone);
+        cal.clear();
+        cal.set(Calendar.ERA, utc.get(Calendar.ERA));
+        cal.set(utc.get(Calendar.YEAR), utc.get(Calendar.MONTH),
+                utc.get(Calendar.DAY_OF_MONTH), utc.get(Calendar.HOUR_OF_DAY),
+                utc.get(Calendar.MINUTE), utc.get(Calendar.SECOND));
+        cal.set(Calendar.MILLISECOND, utc.get(Calendar.MILLISECOND));
+        return cal.getTimeInMillis();
+    }
+
+    /**
+     * @param y a year
+     * @param m a month (1 - 12)
+     * @param d a day of the month
+     * @return the number of days since the epoch
+     */
+    static long getEpochDay(final long y, final int m, final int d) {
+        // see http://howardhinnant.github.io/date_algorithms.html#days_from_civil
+        long year = y - (m <= 2 ? 1 : 0);
+        long era = floorDiv(year, 400);
+        int yoe = (int) (year - era * 400);
+        int doy = (153 * (m + (m > 2 ? -3 : 9)) + 2) / 5 + d - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * DAYS_PER_ERA + doe - EPOCH_OFFSET_DAYS;
+    }
+
+    /**
+     * @param value a string
+     * @param offset the index of the first digit
+     * @param count the number of digits
+     * @return the decimal value of the digits, or -1 if a non-digit is found or
+     * the number of digits is not between 1 and 9
+     */
+    private static int digits(final String value, final int offset, final int count) {
+        if (count < 1 || count > 9 || offset + count > value.length()) {
+            return -1;
+        }
+        int result = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int digit = Character.digit(value.charAt(i), 10);
+            if (digit < 0) {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+
+    /**
+     * @param value a string
+     * @param offset the index of the first character to check
+     * @return the index of the first non-digit character at or after the
+     * specified index
+     */
+    private static int skipDigits(final String value, final int offset) {
+        int i = offset;
+        while (i < value.length() && Character.digit(value.charAt(i), 10) >= 0) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * @param value a non-negative number
+     * @param width the minimum number of digits
+     * @param b a buffer to append the number to
+     */
+    private static void pad(final int value, final int width, final StringBuffer b) {
+        for (int limit = 10, i = 1; i < width; i++, limit *= 10) {
+            if (value < limit) {
+                b.append('0');
+            }
+        }
+        b.append(value);
+    }
+
+    /**
+     * @param a a dividend
+     * @param b a positive divisor
+     * @return the largest value less than or equal to the quotient
+     */
+    static long floorDiv(final long a, final long b) {
+        return a >= 0 ? a / b : ((a + 1) / b) - 1;
+    }
+
+    /**
+     * @param a a dividend
+     * @param b a positive divisor
+     * @return the non-negative remainder
+     */
+    static long floorMod(final long a, final long b) {
+        return a - floorDiv(a, b) * b;
+    }
+}
@@ -0,0 +1,307 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2007, Ben Fortuna
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  o Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Ben Fortuna nor the names of any other contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.fortuna.ical4j.util;
+
+/**
+ * An immutable table of values keyed by iCalendar names (e.g. property or
+ * component names), which are case-insensitive. Names may be looked up
+ * either as strings or as regions of a character array, such that a parser
+ * may resolve a name from its buffer without first creating a string, and
+ * without converting the name to upper case.
+ * <p>
+ * Names are hashed into an open-addressed table, and case is folded for
+ * ASCII letters only, as per the characters permitted in iCalendar names.
+ * As tables are immutable, entries are added and removed by creating a new
+ * table via {@link #put(String, Object)} and {@link #remove(String)}, and
+ * tables may be shared between threads without locking.
+ * 
+ * @author Ben Fortuna
+ */
+public final class NameTable {
+
+    /**
+     * An empty name table.
+     */
+    public static final NameTable EMPTY = new NameTable(new String[1], new Object[1], 0);
+
+    private final String[] names;
+
+    private final Object[] values;
+
+    private final int size;
+
+    /**
+     * @param names names indexed by hash
+     * @param values values corresponding to names
+     * @param size the number of names in the table
+     */
+    private NameTable(final String[] names, final Object[] values, final int size) {
+        this.names = names;
+        this.values = values;
+        this.size = size;
+    }
+
+    /**
+     * Returns a new table containing the entries of this table and the
+     * specified entry. Any existing entry for the name (ignoring case) is
+     * replaced.
+     * @param name a name
+     * @param value the value for the name
+     * @return a name table
+     */
+    public NameTable put(final String name, final Object value) {
+        return copy(name, value);
+    }
+
+    /**
+     * Returns a new table containing the entries of this table except any
+     * entry for the specified name (ignoring case).
+     * @param name a name
+     * @return a name table
+     */
+    public NameTable remove(final String name) {
+        if (indexOf(name) < 0) {
+            return this;
+        }
+        return copy(name, null);
+    }
+
+    /**
+     * @param name a name to exclude from the copy
+     * @param value a value for the name, or null to exclude the name
+     * @return a name table
+     */
+    private NameTable copy(final String name, final Object value) {
+        // keep the table no more than half full..
+        int capacity = 4;
+        while (capacity < (size + 1) * 2) {
+            capacity <<= 1;
+        }
+        String[] newNames = new String[capacity];
+        Object[] newValues = new Object[capacity];
+        int newSize = 0;
+        for (int i = 0; i < names.length; i++) {
+            if (names[i] != null && !equalsIgnoreCase(names[i], name)) {
+                insert(newNames, newValues, names[i], values[i]);
+                newSize++;
+            }
+        }
+        if (value != null) {
+            insert(newNames, newValues, name, value);
+            newSize++;
+        }
+        return new NameTable(newNames, newValues, newSize);
+    }
+
+    /**
+     * @param names names indexed by hash
+     * @param values values corresponding to names
+     * @param name a name not already in the table
+     * @param value the value for the name
+     */
+    private static void insert(final String[] names, final Object[] values,
+            final String name, final Object value) {
+        int mask = names.length - 1;
+        int i = hash(name) & mask;
+        while (names[i] != null) {
+            i = (i + 1) & mask;
+        }
+        names[i] = name;
+        values[i] = value;
+    }
+
+    /**
+     * @return the number of names in the table
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param name a name
+     * @return the value for the specified name (ignoring case), or null if
+     * the name is not in the table
+     */
+    public Object get(final String name) {
+        int i = indexOf(name);
+        if (i >= 0) {
+            return values[i];
+        }
+        return null;
+    }
+
+    /**
+     * @param chars a character array
+     * @param offset the offset of a name in the array
+     * @param length the length of the name
+     * @return the value for the specified name (ignoring case), or null if
+     * the name is not in the table
+     */
+    public Object get(final char[] chars, final int offset, final int length) {
+        int i = indexOf(chars, offset, length);
+        if (i >= 0) {
+            return values[i];
+        }
+        return null;
+    }
+
+    /**
+     * @param name a name
+     * @return the name in the table equal to the specified name (ignoring
+     * case), or null if the name is not in the table
+     */
+    public String getName(final String name) {
+        int i = indexOf(name);
+        if (i >= 0) {
+            return names[i];
+        }
+        return null;
+    }
+
+    /**
+     * @param chars a character array
+     * @param offset the offset of a name in the array
+     * @param length the length of the name
+     * @return the name in the table equal to the specified name (ignoring
+     * case), or null if the name is not in the table
+     */
+    public String getName(final char[] chars, final int offset, final int length) {
+        int i = indexOf(chars, offset, length);
+        if (i >= 0) {
+            return names[i];
+        }
+        return null;
+    }
+
+    /**
+     * @param name a name
+     * @return the index of the name in the table, or -1
+     */
+    private int indexOf(final String name) {
+        if (size == 0) {
+            return -1;
+        }
+        int mask = names.length - 1;
+        for (int i = hash(name) & mask; names[i] != null; i = (i + 1) & mask) {
+            if (equalsIgnoreCase(names[i], name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param chars a character array
+     * @param offset the offset of a name in the array
+     * @param length the length of the name
+     * @return the index of the name in the table, or -1
+     */
+    private int indexOf(final char[] chars, final int offset, final int length) {
+        if (size == 0) {
+            return -1;
+        }
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + fold(chars[i]);
+        }
+        int mask = names.length - 1;
+        for (int i = hash & mask; names[i] != null; i = (i + 1) & mask) {
+            if (regionEqualsIgnoreCase(names[i], chars, offset, length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param name a name
+     * @return a hash of the name that ignores case
+     */
+    private static int hash(final String name) {
+        int hash = 0;
+        for (int i = 0; i < name.length(); i++) {
+            hash = 31 * hash + fold(name.charAt(i));
+        }
+        return hash;
+    }
+
+    /**
+     * @param name1 a name
+     * @param name2 a name
+     * @return true if the names are equal, ignoring case
+     */
+    private static boolean equalsIgnoreCase(final String name1, final String name2) {
+        if (name1.length() != name2.length()) {
+            return false;
+        }
+        for (int i = 0; i < name1.length(); i++) {
+            if (fold(name1.charAt(i)) != fold(name2.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param name a name
+     * @param chars a character array
+     * @param offset the offset of a name in the array
+     * @param length the length of the name
+     * @return true if the names are equal, ignoring case
+     */
+    private static boolean regionEqualsIgnoreCase(final String name,
+            final char[] chars, final int offset, final int length) {
+        if (name.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (fold(name.charAt(i)) != fold(chars[offset + i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param c a character
+     * @return the upper case equivalent of an ASCII lower case letter,
+     * otherwise the specified character
+     */
+    private static char fold(final char c) {
+        if (c >= 'a' && c <= 'z') {
+            return (char) (c - ('a' - 'A'));
+        }
+        return c;
+    }
+}
@@ -64,7 +64,7 @@ public final class PropertyValidator {
     public void assertOneOrLess(final String propertyName,
             final PropertyList properties) throws ValidationException {
 
-        if (properties.getProperties(propertyName).size() > 1) {
+        if (properties.getPropertiesView(propertyName).size() > 1) {
             throw new ValidationException(
                 "Property [" + propertyName + "] must only be specified once");
         }
@@ -83,7 +83,7 @@ public final class PropertyValidator {
     public void assertOneOrMore(final String propertyName,
             final PropertyList properties) throws ValidationException {
 
-        if (properties.getProperties(propertyName).size() < 1) {
+        if (properties.getPropertiesView(propertyName).size() < 1) {
             throw new ValidationException(
                 "Property [" + propertyName
                         + "] must be specified at least once");
@@ -103,7 +103,7 @@ public final class PropertyValidator {
     public void assertOne(final String propertyName,
             final PropertyList properties) throws ValidationException {
 
-        if (properties.getProperties(propertyName).size() != 1) {
+        if (properties.getPropertiesView(propertyName).size() != 1) {
             throw new ValidationException(
                 "Property [" + propertyName + "] must be specified once");
         }
@@ -117,7 +117,7 @@ public final class PropertyValidator {
      * is found in the list of properties
      */
     public void assertNone(final String propertyName, final PropertyList properties) throws ValidationException {
-        if (properties.getProperties(propertyName).size() > 0) {
+        if (properties.getPropertiesView(propertyName).size() > 0) {
             throw new ValidationException(
                 "Property [" + propertyName + "] is not applicable");
         }
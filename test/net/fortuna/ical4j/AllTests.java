@@ -2,18 +2,31 @@ package net.fortuna.ical4j;
 
 import junit.framework.Test;
 import junit.framework.TestSuite;
+import net.fortuna.ical4j.data.ByteBufferCalendarParserTest;
+import net.fortuna.ical4j.data.CalendarBuilderLazyParsingTest;
 import net.fortuna.ical4j.data.CalendarBuilderTest;
+import net.fortuna.ical4j.data.FastCalendarParserTest;
+import net.fortuna.ical4j.data.FoldingWriterTest;
+import net.fortuna.ical4j.data.ParallelCalendarBuilderTest;
+import net.fortuna.ical4j.data.StreamingCalendarBuilderTest;
+import net.fortuna.ical4j.data.UnfoldingReaderTest;
 import net.fortuna.ical4j.model.AddressListTest;
 import net.fortuna.ical4j.model.CalendarTest;
+import net.fortuna.ical4j.model.CompiledTimeZoneRegistryTest;
+import net.fortuna.ical4j.model.ComponentListTest;
 import net.fortuna.ical4j.model.DateTest;
 import net.fortuna.ical4j.model.DateTimeTest;
 import net.fortuna.ical4j.model.DurTest;
+import net.fortuna.ical4j.model.IntervalSetTest;
 import net.fortuna.ical4j.model.NumberListTest;
 import net.fortuna.ical4j.model.ParameterFactoryImplTest;
 import net.fortuna.ical4j.model.PeriodListTest;
 import net.fortuna.ical4j.model.PeriodTest;
+import net.fortuna.ical4j.model.PropertyFactoryImplTest;
+import net.fortuna.ical4j.model.PropertyListTest;
 import net.fortuna.ical4j.model.RecurTest;
 import net.fortuna.ical4j.model.ResourceListTest;
+import net.fortuna.ical4j.model.TimeZoneRegistryImplTest;
 import net.fortuna.ical4j.model.TimeZoneTest;
 import net.fortuna.ical4j.model.WeekDayTest;
 import net.fortuna.ical4j.model.component.VEventTest;
@@ -28,6 +41,9 @@ import net.fortuna.ical4j.model.property.CalScaleTest;
 import net.fortuna.ical4j.model.property.DtEndTest;
 import net.fortuna.ical4j.model.property.TriggerTest;
 import net.fortuna.ical4j.model.property.VersionTest;
+import net.fortuna.ical4j.util.ConstantsTest;
+import net.fortuna.ical4j.util.Iso8601FormatTest;
+import net.fortuna.ical4j.util.NameTableTest;
 import net.fortuna.ical4j.util.StringsTest;
 
 /**
@@ -45,20 +61,33 @@ public class AllTests extends TestSuite{
 
         // data tests
         suite.addTest(CalendarBuilderTest.suite());
+        suite.addTestSuite(CalendarBuilderLazyParsingTest.class);
+        suite.addTestSuite(ByteBufferCalendarParserTest.class);
+        suite.addTestSuite(FastCalendarParserTest.class);
+        suite.addTestSuite(FoldingWriterTest.class);
+        suite.addTestSuite(ParallelCalendarBuilderTest.class);
+        suite.addTestSuite(StreamingCalendarBuilderTest.class);
+        suite.addTestSuite(UnfoldingReaderTest.class);
 //        suite.addTest(CalendarOutputterTest.suite());
 
         // model tests
         suite.addTestSuite(AddressListTest.class);
         suite.addTestSuite(CalendarTest.class);
+        suite.addTestSuite(ComponentListTest.class);
         suite.addTestSuite(DateTest.class);
         suite.addTestSuite(DateTimeTest.class);
         suite.addTestSuite(DurTest.class);
+        suite.addTestSuite(IntervalSetTest.class);
         suite.addTestSuite(NumberListTest.class);
         suite.addTestSuite(ParameterFactoryImplTest.class);
         suite.addTestSuite(PeriodListTest.class);
         suite.addTestSuite(PeriodTest.class);
+        suite.addTestSuite(PropertyFactoryImplTest.class);
+        suite.addTestSuite(PropertyListTest.class);
         suite.addTestSuite(RecurTest.class);
         suite.addTestSuite(ResourceListTest.class);
+        suite.addTestSuite(TimeZoneRegistryImplTest.class);
+        suite.addTestSuite(CompiledTimeZoneRegistryTest.class);
         suite.addTestSuite(TimeZoneTest.class);
         suite.addTestSuite(WeekDayTest.class);
 
@@ -81,6 +110,9 @@ public class AllTests extends TestSuite{
         suite.addTestSuite(VersionTest.class);
 
         // util tests
+        suite.addTestSuite(ConstantsTest.class);
+        suite.addTestSuite(Iso8601FormatTest.class);
+        suite.addTestSuite(NameTableTest.class);
         suite.addTestSuite(StringsTest.class);
 
         return suite;
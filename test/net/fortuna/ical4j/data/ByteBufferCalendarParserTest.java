@@ -0,0 +1,155 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2007, Ben Fortuna
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  o Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Ben Fortuna nor the names of any other contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.fortuna.ical4j.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import junit.framework.TestCase;
+import net.fortuna.ical4j.FileOnlyFilter;
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.Component;
+import net.fortuna.ical4j.model.Parameter;
+import net.fortuna.ical4j.model.Property;
+
+/**
+ * Unit tests for {@link ByteBufferCalendarParser}.
+ */
+public class ByteBufferCalendarParserTest extends TestCase {
+
+    /**
+     * Ensure calendars built from memory-mapped files are equal to those built
+     * using the default parser.
+     */
+    public final void testParseMappedSamples() throws Exception {
+        System.setProperty("ical4j.unfolding.relaxed", "true");
+
+        File[] testFiles = new File("etc/samples/valid").listFiles(new FileOnlyFilter());
+        for (int i = 0; i < testFiles.length; i++) {
+            // the default parser drops the closing quote of quoted strings in
+            // property values..
+            if ("core.ics".equals(testFiles[i].getName())) {
+                continue;
+            }
+
+            Calendar expected = new CalendarBuilder().build(new FileInputStream(testFiles[i]));
+
+            FileChannel channel = new FileInputStream(testFiles[i]).getChannel();
+            try {
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                Calendar calendar = new CalendarBuilder(new ByteBufferCalendarParser()).build(buffer);
+                assertEquals("File [" + testFiles[i] + "]", expected, calendar);
+            }
+            finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Ensure folded content lines and multi-byte characters are handled.
+     */
+    public final void testParseFoldedUtf8() throws Exception {
+        String data = "\uFEFFBEGIN:VCALENDAR\r\n"
+            + "BEGIN:VEVENT\r\n"
+            + "ATTENDEE;CN=J\u00F6rg M\u00FC\r\n ller:mailto:jorg@example.com\r\n"
+            + "SUMMARY:Caf\u00E9 \u20AC5 \uD834\uDD1E \u00E9\u00E9\u00E9\u00E9\u00E9\u00E9\u00E9\u00E9\u00E9\u00E9\r\n"
+            + " \u00E9\u00E9 end\r\n"
+            + "END:VEVENT\r\n"
+            + "END:VCALENDAR\r\n";
+
+        Calendar calendar = new CalendarBuilder(new ByteBufferCalendarParser()).build(
+                ByteBuffer.wrap(data.getBytes("UTF-8")));
+
+        Component event = calendar.getComponents().getComponent(Component.VEVENT);
+        Property attendee = event.getProperties().getProperty(Property.ATTENDEE);
+        assertEquals("J\u00F6rg M\u00FCller", attendee.getParameters().getParameter(Parameter.CN).getValue());
+        assertEquals("mailto:jorg@example.com", attendee.getValue());
+        assertEquals("Caf\u00E9 \u20AC5 \uD834\uDD1E \u00E9\u00E9\u00E9\u00E9\u00E9\u00E9\u00E9\u00E9\u00E9\u00E9\u00E9\u00E9 end",
+                event.getProperties().getProperty(Property.SUMMARY).getValue());
+    }
+
+    /**
+     * Ensure content lines spanning mapped windows and stream buffers are
+     * parsed the same as those read from a single buffer.
+     */
+    public final void testParseWindowBoundaries() throws Exception {
+        System.setProperty("ical4j.unfolding.relaxed", "true");
+
+        File[] testFiles = new File("etc/samples/valid").listFiles(new FileOnlyFilter());
+        for (int i = 0; i < testFiles.length; i++) {
+            FileChannel channel = new FileInputStream(testFiles[i]).getChannel();
+            Calendar expected = null;
+            try {
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                expected = new CalendarBuilder(new ByteBufferCalendarParser()).build(buffer);
+            }
+            finally {
+                channel.close();
+            }
+
+            FileInputStream fin = new FileInputStream(testFiles[i]);
+            try {
+                Calendar calendar = new CalendarBuilder(new ByteBufferCalendarParser(13)).build(fin);
+                assertEquals("File [" + testFiles[i] + "]", expected, calendar);
+            }
+            finally {
+                fin.close();
+            }
+        }
+    }
+
+    /**
+     * Ensure folded content lines and multi-byte characters split across stream
+     * buffers are handled.
+     */
+    public final void testParseStreamFoldedUtf8() throws Exception {
+        String data = "BEGIN:VCALENDAR\r\n"
+            + "BEGIN:VEVENT\r\n"
+            + "SUMMARY:Caf\u00E9 \u20AC5 \uD834\uDD1E\r\n"
+            + " \u00E9 end\r\n"
+            + "END:VEVENT\r\n"
+            + "END:VCALENDAR\r\n";
+
+        Calendar calendar = new CalendarBuilder(new ByteBufferCalendarParser(1)).build(
+                new ByteArrayInputStream(data.getBytes("UTF-8")));
+
+        Component event = calendar.getComponents().getComponent(Component.VEVENT);
+        assertEquals("Caf\u00E9 \u20AC5 \uD834\uDD1E\u00E9 end",
+                event.getProperties().getProperty(Property.SUMMARY).getValue());
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2007, Ben Fortuna
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  o Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Ben Fortuna nor the names of any other contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.fortuna.ical4j.data;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.StringReader;
+import java.util.Iterator;
+
+import junit.framework.TestCase;
+import net.fortuna.ical4j.FileOnlyFilter;
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.Component;
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.ParameterList;
+import net.fortuna.ical4j.model.Property;
+import net.fortuna.ical4j.model.PropertyList;
+import net.fortuna.ical4j.model.component.VEvent;
+import net.fortuna.ical4j.model.component.VToDo;
+import net.fortuna.ical4j.model.property.Attach;
+import net.fortuna.ical4j.model.property.DateListProperty;
+import net.fortuna.ical4j.model.property.DateProperty;
+import net.fortuna.ical4j.model.property.DtStart;
+import net.fortuna.ical4j.model.property.ExRule;
+import net.fortuna.ical4j.model.property.FreeBusy;
+import net.fortuna.ical4j.model.property.RDate;
+import net.fortuna.ical4j.model.property.RRule;
+
+/**
+ * Unit tests for {@link CalendarBuilder} with lazy parsing of property values
+ * enabled.
+ */
+public class CalendarBuilderLazyParsingTest extends TestCase {
+
+    private static final String CALENDAR = "BEGIN:VCALENDAR\r\n"
+        + "VERSION:2.0\r\n"
+        + "PRODID:-//Example//Test//EN\r\n"
+        + "BEGIN:VEVENT\r\n"
+        + "UID:1\r\n"
+        + "SUMMARY:Meeting\r\n"
+        + "DTSTART:20070101T090000Z\r\n"
+        + "RRULE:BYDAY=MO,WE;FREQ=WEEKLY\r\n"
+        + "ATTACH;ENCODING=BASE64;VALUE=BINARY:SGVsbG8=\r\n"
+        + "END:VEVENT\r\n"
+        + "END:VCALENDAR\r\n";
+
+    /* (non-Javadoc)
+     * @see junit.framework.TestCase#setUp()
+     */
+    protected final void setUp() throws Exception {
+        System.setProperty("ical4j.parsing.lazy", "true");
+    }
+
+    /* (non-Javadoc)
+     * @see junit.framework.TestCase#tearDown()
+     */
+    protected final void tearDown() throws Exception {
+        System.getProperties().remove("ical4j.parsing.lazy");
+    }
+
+    /**
+     * Ensure deferred values are returned unchanged until parsed.
+     */
+    public final void testDeferredValue() throws Exception {
+        Calendar calendar = new CalendarBuilder().build(new StringReader(CALENDAR));
+        Component event = calendar.getComponents().getComponent(Component.VEVENT);
+
+        RRule rrule = (RRule) event.getProperties().getProperty(Property.RRULE);
+        assertEquals("BYDAY=MO,WE;FREQ=WEEKLY", rrule.getValue());
+        assertTrue(calendar.toString().indexOf("RRULE:BYDAY=MO,WE;FREQ=WEEKLY\r\n") >= 0);
+
+        // accessing the recurrence rule parses the value..
+        assertEquals(2, rrule.getRecur().getDayList().size());
+        assertEquals(new RRule(new ParameterList(), "BYDAY=MO,WE;FREQ=WEEKLY").getValue(),
+                rrule.getValue());
+
+        Attach attach = (Attach) event.getProperties().getProperty(Property.ATTACH);
+        assertEquals("Hello", new String(attach.getBinary()));
+
+        DtStart start = (DtStart) event.getProperties().getProperty(Property.DTSTART);
+        assertEquals(new DateTime("20070101T090000Z"), start.getDate());
+        assertTrue(start.isUtc());
+    }
+
+    /**
+     * Ensure setting a value replaces a deferred value.
+     */
+    public final void testSetValue() throws Exception {
+        Calendar calendar = new CalendarBuilder().build(new StringReader(CALENDAR));
+        Component event = calendar.getComponents().getComponent(Component.VEVENT);
+
+        DtStart start = (DtStart) event.getProperties().getProperty(Property.DTSTART);
+        start.setValue("20080101T090000Z");
+        assertEquals("20080101T090000Z", start.getValue());
+        assertEquals(new DateTime("20080101T090000Z"), start.getDate());
+    }
+
+    /**
+     * Ensure invalid values are reported on access.
+     */
+    public final void testInvalidValue() throws Exception {
+        String data = "BEGIN:VCALENDAR\r\n"
+            + "BEGIN:VEVENT\r\n"
+            + "DTSTART:2007-01-01\r\n"
+            + "END:VEVENT\r\n"
+            + "END:VCALENDAR\r\n";
+
+        Calendar calendar = new CalendarBuilder().build(new StringReader(data));
+        Component event = calendar.getComponents().getComponent(Component.VEVENT);
+
+        DtStart start = (DtStart) event.getProperties().getProperty(Property.DTSTART);
+        assertEquals("2007-01-01", start.getValue());
+        try {
+            start.getDate();
+            fail("Should throw IllegalArgumentException");
+        }
+        catch (IllegalArgumentException iae) {
+            assertTrue(iae.getMessage().indexOf("2007-01-01") >= 0);
+        }
+    }
+
+    /**
+     * Ensure invalid values remain readable and are output unchanged after
+     * a failed access.
+     */
+    public final void testInvalidValueRetained() throws Exception {
+        String data = "BEGIN:VCALENDAR\r\n"
+            + "BEGIN:VEVENT\r\n"
+            + "DTSTART:2005013XT000000\r\n"
+            + "END:VEVENT\r\n"
+            + "END:VCALENDAR\r\n";
+
+        Calendar calendar = new CalendarBuilder().build(new StringReader(data));
+        Component event = calendar.getComponents().getComponent(Component.VEVENT);
+
+        DtStart start = (DtStart) event.getProperties().getProperty(Property.DTSTART);
+        for (int i = 0; i < 2; i++) {
+            try {
+                start.getDate();
+                fail("Should throw IllegalArgumentException");
+            }
+            catch (IllegalArgumentException iae) {
+                assertTrue(iae.getMessage().indexOf("2005013XT000000") >= 0);
+            }
+            assertEquals("2005013XT000000", start.getValue());
+        }
+        assertTrue(calendar.toString().indexOf("DTSTART:2005013XT000000\r\n") >= 0);
+    }
+
+    /**
+     * Ensure deferred values accessed concurrently by multiple threads are
+     * parsed consistently.
+     */
+    public final void testConcurrentAccess() throws Exception {
+        StringBuffer data = new StringBuffer("BEGIN:VCALENDAR\r\n");
+        for (int i = 0; i < 200; i++) {
+            data.append("BEGIN:VEVENT\r\n");
+            data.append("UID:" + i + "\r\n");
+            data.append("DTSTART:20070101T090000Z\r\n");
+            data.append("RRULE:FREQ=WEEKLY;COUNT=" + (i + 1) + "\r\n");
+            data.append("END:VEVENT\r\n");
+        }
+        data.append("END:VCALENDAR\r\n");
+        final Calendar calendar = new CalendarBuilder().build(new StringReader(data.toString()));
+
+        final Throwable[] errors = new Throwable[1];
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                public void run() {
+                    try {
+                        int count = 1;
+                        for (Iterator j = calendar.getComponents().iterator(); j.hasNext();) {
+                            Component event = (Component) j.next();
+                            RRule rrule = (RRule) event.getProperties().getProperty(Property.RRULE);
+                            assertEquals(count++, rrule.getRecur().getCount());
+                            DtStart start = (DtStart) event.getProperties().getProperty(Property.DTSTART);
+                            assertNotNull(start.getDate());
+                        }
+                    }
+                    catch (Throwable t) {
+                        synchronized (errors) {
+                            errors[0] = t;
+                        }
+                    }
+                }
+            };
+        }
+        for (int i = 0; i < threads.length; i++) {
+            threads[i].start();
+        }
+        for (int i = 0; i < threads.length; i++) {
+            threads[i].join();
+        }
+        synchronized (errors) {
+            if (errors[0] != null) {
+                fail("Concurrent access failed: " + errors[0]);
+            }
+        }
+    }
+
+    /**
+     * Ensure calendars built lazily are equal to those built eagerly once
+     * all deferred values are parsed.
+     */
+    public final void testBuildSamples() throws Exception {
+        System.setProperty("ical4j.unfolding.relaxed", "true");
+
+        File[] testFiles = new File("etc/samples/valid").listFiles(new FileOnlyFilter());
+        for (int i = 0; i < testFiles.length; i++) {
+            Calendar expected = null;
+            try {
+                System.getProperties().remove("ical4j.parsing.lazy");
+                expected = new CalendarBuilder().build(new FileInputStream(testFiles[i]));
+            }
+            catch (ParserException pe) {
+                continue;
+            }
+            finally {
+                System.setProperty("ical4j.parsing.lazy", "true");
+            }
+
+            Calendar calendar = new CalendarBuilder().build(new FileInputStream(testFiles[i]));
+            for (Iterator j = calendar.getComponents().iterator(); j.hasNext();) {
+                Component component = (Component) j.next();
+                parseValues(component.getProperties());
+                if (component instanceof VEvent) {
+                    for (Iterator k = ((VEvent) component).getAlarms().iterator(); k.hasNext();) {
+                        parseValues(((Component) k.next()).getProperties());
+                    }
+                }
+                else if (component instanceof VToDo) {
+                    for (Iterator k = ((VToDo) component).getAlarms().iterator(); k.hasNext();) {
+                        parseValues(((Component) k.next()).getProperties());
+                    }
+                }
+            }
+            assertEquals("File [" + testFiles[i] + "]", expected, calendar);
+        }
+    }
+
+    /**
+     * Parses deferred values by accessing the typed value of each property.
+     * @param properties a list of properties
+     */
+    private void parseValues(final PropertyList properties) {
+        for (Iterator i = properties.iterator(); i.hasNext();) {
+            Property property = (Property) i.next();
+            if (property instanceof DateProperty) {
+                ((DateProperty) property).getDate();
+            }
+            else if (property instanceof RDate) {
+                ((RDate) property).getPeriods();
+            }
+            else if (property instanceof DateListProperty) {
+                ((DateListProperty) property).getDates();
+            }
+            else if (property instanceof RRule) {
+                ((RRule) property).getRecur();
+            }
+            else if (property instanceof ExRule) {
+                ((ExRule) property).getRecur();
+            }
+            else if (property instanceof FreeBusy) {
+                ((FreeBusy) property).getPeriods();
+            }
+            else if (property instanceof Attach) {
+                ((Attach) property).getBinary();
+            }
+        }
+    }
+}
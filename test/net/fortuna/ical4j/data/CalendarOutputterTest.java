@@ -14,6 +14,7 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.StringWriter;
+import java.io.Writer;
 
 import junit.framework.Test;
 import junit.framework.TestCase;
@@ -102,6 +103,43 @@ public class CalendarOutputterTest extends TestCase {
         }
     }
     
+    /**
+     * Ensure the calendar is written to the underlying writer as it goes rather
+     * than as a single string.
+     * @throws Exception
+     */
+    public void testOutputStreaming() throws Exception {
+        System.setProperty("ical4j.unfolding.relaxed", "true");
+
+        Calendar calendar = new CalendarBuilder().build(new FileInputStream(filename));
+        String expected = calendar.toString();
+
+        final StringWriter sout = new StringWriter();
+        final int[] maxWrite = new int[1];
+        Writer out = new Writer() {
+            public void write(char[] cbuf, int off, int len) {
+                maxWrite[0] = Math.max(maxWrite[0], len);
+                sout.write(cbuf, off, len);
+            }
+            public void flush() {
+            }
+            public void close() {
+            }
+        };
+        calendar.write(out);
+        assertEquals(expected, sout.toString());
+
+        // no single write should exceed the longest content line..
+        int maxLine = 0;
+        for (int start = 0; start < expected.length();) {
+            int end = expected.indexOf("\r\n", start) + 2;
+            maxLine = Math.max(maxLine, end - start);
+            start = end;
+        }
+        assertTrue("Write of " + maxWrite[0] + " chars exceeds longest line ["
+                + maxLine + "]: " + filename, maxWrite[0] <= maxLine);
+    }
+
     /* (non-Javadoc)
      * @see junit.framework.TestCase#getName()
      */
@@ -124,6 +162,7 @@ public class CalendarOutputterTest extends TestCase {
         for (int i = 0; i < testFiles.length; i++) {
             log.info("Sample [" + testFiles[i] + "]");
             suite.addTest(new CalendarOutputterTest("testOutput", testFiles[i].getPath()));
+            suite.addTest(new CalendarOutputterTest("testOutputStreaming", testFiles[i].getPath()));
         }
         
         // invalid tests..
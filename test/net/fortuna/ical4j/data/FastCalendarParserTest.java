@@ -0,0 +1,161 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2007, Ben Fortuna
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  o Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Ben Fortuna nor the names of any other contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.fortuna.ical4j.data;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.StringReader;
+
+import junit.framework.TestCase;
+import net.fortuna.ical4j.FileOnlyFilter;
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.Component;
+import net.fortuna.ical4j.model.Parameter;
+import net.fortuna.ical4j.model.Property;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Unit tests for {@link FastCalendarParser}.
+ */
+public class FastCalendarParserTest extends TestCase {
+
+    private static Log log = LogFactory.getLog(FastCalendarParserTest.class);
+
+    /**
+     * Ensure calendars built using the fast parser are equal to those built
+     * using the default parser.
+     */
+    public final void testParseSamples() throws Exception {
+        System.setProperty("ical4j.unfolding.relaxed", "true");
+
+        File[] testFiles = new File("etc/samples/valid").listFiles(new FileOnlyFilter());
+        for (int i = 0; i < testFiles.length; i++) {
+            // the default parser drops the closing quote of quoted strings in
+            // property values (see testParseQuotedValue)..
+            if (!"core.ics".equals(testFiles[i].getName())) {
+                assertParsedEquals(testFiles[i]);
+            }
+        }
+
+        testFiles = new File("etc/samples/invalid").listFiles(new FileOnlyFilter());
+        for (int i = 0; i < testFiles.length; i++) {
+            assertParsedEquals(testFiles[i]);
+        }
+    }
+
+    /**
+     * Ensure content lines are split correctly.
+     */
+    public final void testParseContentLine() throws Exception {
+        String data = "BEGIN:VCALENDAR\r\n"
+            + "VERSION:2.0\r\n"
+            + "\r\n"
+            + "BEGIN:VEVENT\r\n"
+            + "ATTENDEE;CN=\"Doe, John\";PARTSTAT=ACCEPTED:mailto:john@example.com\r\n"
+            + "SUMMARY:Lunch\\, then drinks\r\n"
+            + "END:VEVENT\r\n"
+            + "END:VCALENDAR";
+
+        CalendarBuilder builder = new CalendarBuilder(new FastCalendarParser());
+        Calendar calendar = builder.build(new StringReader(data));
+
+        Component event = calendar.getComponents().getComponent(Component.VEVENT);
+        assertNotNull(event);
+
+        Property attendee = event.getProperties().getProperty(Property.ATTENDEE);
+        assertEquals("mailto:john@example.com", attendee.getValue());
+        assertEquals("\"Doe, John\"", attendee.getParameters().getParameter(Parameter.CN).getValue());
+        assertEquals("ACCEPTED", attendee.getParameters().getParameter(Parameter.PARTSTAT).getValue());
+
+        assertEquals("Lunch, then drinks", event.getProperties().getProperty(Property.SUMMARY).getValue());
+    }
+
+    /**
+     * Ensure quoted strings in property values are preserved.
+     */
+    public final void testParseQuotedValue() throws Exception {
+        String data = "BEGIN:VCALENDAR\r\n"
+            + "BEGIN:VEVENT\r\n"
+            + "SUMMARY:\"Tiger's Children\"\r\n"
+            + "END:VEVENT\r\n"
+            + "END:VCALENDAR\r\n";
+
+        CalendarBuilder builder = new CalendarBuilder(new FastCalendarParser());
+        Calendar calendar = builder.build(new StringReader(data));
+
+        Component event = calendar.getComponents().getComponent(Component.VEVENT);
+        assertEquals("\"Tiger's Children\"", event.getProperties().getProperty(Property.SUMMARY).getValue());
+    }
+
+    /**
+     * Ensure errors are reported against the correct line.
+     */
+    public final void testParseInvalid() throws Exception {
+        String data = "BEGIN:VCALENDAR\r\n"
+            + "VERSION:2.0\r\n"
+            + "BEGIN:VEVENT\r\n"
+            + "SUMMARY;CN\r\n"
+            + "END:VEVENT\r\n"
+            + "END:VCALENDAR\r\n";
+
+        try {
+            new CalendarBuilder(new FastCalendarParser()).build(new StringReader(data));
+            fail("Should throw ParserException");
+        }
+        catch (ParserException pe) {
+            assertTrue(pe.getMessage().endsWith("line 4"));
+        }
+    }
+
+    /**
+     * @param file an iCalendar file
+     * @throws Exception
+     */
+    private void assertParsedEquals(final File file) throws Exception {
+        Calendar expected = null;
+        try {
+            expected = new CalendarBuilder().build(new FileInputStream(file));
+        }
+        catch (ParserException pe) {
+            log.info("Unable to parse [" + file + "]", pe);
+            return;
+        }
+
+        Calendar calendar = new CalendarBuilder(new FastCalendarParser()).build(
+                new FileInputStream(file));
+        assertEquals("File [" + file + "]", expected, calendar);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2007, Ben Fortuna
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  o Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Ben Fortuna nor the names of any other contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.fortuna.ical4j.data;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for {@link FoldingWriter}.
+ */
+public class FoldingWriterTest extends TestCase {
+
+    /**
+     * @param s a string
+     * @param foldLength a fold length
+     * @return the string written through a folding writer
+     */
+    private String fold(final String s, final int foldLength) throws IOException {
+        StringWriter out = new StringWriter();
+        FoldingWriter writer = new FoldingWriter(out, foldLength);
+        writer.write(s);
+        writer.close();
+        return out.toString();
+    }
+
+    /**
+     * @param s a string
+     * @param count number of times to repeat
+     * @return the string repeated
+     */
+    private String repeat(final String s, final int count) {
+        StringBuffer b = new StringBuffer();
+        for (int i = 0; i < count; i++) {
+            b.append(s);
+        }
+        return b.toString();
+    }
+
+    /**
+     * Asserts each line in the folded output is no longer than the fold length
+     * in UTF-8 octets, and that the output unfolds to the original string.
+     */
+    private void assertFolded(final String s, final int foldLength) throws IOException {
+        String folded = fold(s, foldLength);
+        String[] lines = folded.split("\r\n");
+        for (int i = 0; i < lines.length; i++) {
+            assertTrue("Line too long: " + lines[i],
+                    lines[i].getBytes("UTF-8").length <= foldLength);
+        }
+        assertEquals(s, folded.replaceAll("\r\n ", ""));
+    }
+
+    /**
+     * Test folding of ASCII content.
+     */
+    public void testFoldAscii() throws IOException {
+        String line = "DESCRIPTION:" + repeat("x", 88) + "\r\n";
+        assertEquals("DESCRIPTION:" + repeat("x", 61) + "\r\n " + repeat("x", 27)
+                + "\r\n", fold(line, FoldingWriter.REDUCED_FOLD_LENGTH));
+        assertFolded(line + line + "SUMMARY:Short\r\n", FoldingWriter.REDUCED_FOLD_LENGTH);
+    }
+
+    /**
+     * A line of exactly the fold length should not be folded.
+     */
+    public void testFoldExactLength() throws IOException {
+        String line = repeat("x", FoldingWriter.MAX_FOLD_LENGTH) + "\r\n";
+        assertEquals(line, fold(line, FoldingWriter.MAX_FOLD_LENGTH));
+    }
+
+    /**
+     * Test multi-byte characters are counted as octets and not split.
+     */
+    public void testFoldMultiByte() throws IOException {
+        // two, three and four (surrogate pair) octet characters..
+        assertFolded("SUMMARY:" + repeat("\u00e9", 80) + "\r\n", FoldingWriter.MAX_FOLD_LENGTH);
+        assertFolded("SUMMARY:" + repeat("\u65e5\u672c", 40) + "\r\n", FoldingWriter.MAX_FOLD_LENGTH);
+        assertFolded("SUMMARY:" + repeat("\ud834\udd1e", 40) + "\r\n", FoldingWriter.MAX_FOLD_LENGTH);
+        assertFolded("SUMMARY:" + repeat("a\u00e9\u65e5\ud834\udd1e", 30) + "\r\n",
+                FoldingWriter.REDUCED_FOLD_LENGTH);
+
+        String folded = fold(repeat("\ud834\udd1e", 40), FoldingWriter.MAX_FOLD_LENGTH);
+        assertTrue(folded.indexOf("\ud834\r\n") < 0);
+    }
+
+    /**
+     * Writing a character at a time should produce the same output as a
+     * single bulk write.
+     */
+    public void testWriteSingleChars() throws IOException {
+        String s = "SUMMARY:" + repeat("a\u00e9\u65e5\ud834\udd1e", 30) + "\r\n"
+            + "DESCRIPTION:" + repeat("x", 200) + "\r\n";
+        StringWriter out = new StringWriter();
+        FoldingWriter writer = new FoldingWriter(out);
+        for (int i = 0; i < s.length(); i++) {
+            writer.write(s.charAt(i));
+        }
+        writer.close();
+        assertEquals(fold(s, FoldingWriter.REDUCED_FOLD_LENGTH), out.toString());
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2007, Ben Fortuna
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  o Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Ben Fortuna nor the names of any other contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.fortuna.ical4j.data;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.fortuna.ical4j.FileOnlyFilter;
+import net.fortuna.ical4j.model.Calendar;
+
+/**
+ * Reports the time taken to build the calendars in etc/samples/valid, along
+ * with a large generated calendar, sequentially and with an increasing number
+ * of threads. As timings are reported rather than asserted this is not
+ * included in the unit tests, and is run from the project directory as:
+ *
+ * <pre>java net.fortuna.ical4j.data.ParallelCalendarBuilderBenchmark [iterations]</pre>
+ *
+ * @author Ben Fortuna
+ */
+public final class ParallelCalendarBuilderBenchmark {
+
+    private static final String VTIMEZONE = "BEGIN:VTIMEZONE\r\n"
+        + "TZID:Example/Zone\r\n"
+        + "BEGIN:STANDARD\r\n"
+        + "DTSTART:19700101T000000\r\n"
+        + "TZOFFSETFROM:+0930\r\n"
+        + "TZOFFSETTO:+0930\r\n"
+        + "TZNAME:EXST\r\n"
+        + "END:STANDARD\r\n"
+        + "END:VTIMEZONE\r\n";
+
+    /**
+     * Constructor made private to prevent instantiation.
+     */
+    private ParallelCalendarBuilderBenchmark() {
+    }
+
+    /**
+     * @param args optionally, the number of times each calendar is built
+     * @throws Exception where a calendar cannot be built
+     */
+    public static void main(final String[] args) throws Exception {
+        System.setProperty("ical4j.unfolding.relaxed", "true");
+        int iterations = (args.length > 0) ? Integer.parseInt(args[0]) : 20;
+
+        // read samples into memory such that only building is timed..
+        List samples = new ArrayList();
+        File[] testFiles = new File("etc/samples/valid").listFiles(new FileOnlyFilter());
+        for (int i = 0; i < testFiles.length; i++) {
+            String data = read(testFiles[i]);
+            try {
+                new CalendarBuilder().build(new StringReader(data));
+                samples.add(data);
+            }
+            catch (ParserException pe) {
+                System.out.println("Skipped [" + testFiles[i] + "]: " + pe.getMessage());
+            }
+        }
+        samples.add(createCalendar(5000));
+
+        long start = System.currentTimeMillis();
+        List expected = new ArrayList();
+        for (int n = 0; n < iterations; n++) {
+            for (int i = 0; i < samples.size(); i++) {
+                Calendar calendar = new CalendarBuilder().build(
+                        new StringReader((String) samples.get(i)));
+                if (n == 0) {
+                    expected.add(calendar);
+                }
+            }
+        }
+        System.out.println("Sequential: " + (System.currentTimeMillis() - start) + "ms");
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= processors * 2; threads *= 2) {
+            ParallelCalendarBuilder builder = new ParallelCalendarBuilder(threads);
+            start = System.currentTimeMillis();
+            for (int n = 0; n < iterations; n++) {
+                for (int i = 0; i < samples.size(); i++) {
+                    Calendar calendar = builder.build(new StringReader((String) samples.get(i)));
+                    if (n == 0 && !expected.get(i).equals(calendar)) {
+                        throw new IllegalStateException("Calendar [" + i
+                                + "] differs from that built sequentially");
+                    }
+                }
+            }
+            System.out.println(threads + " thread(s): " + (System.currentTimeMillis() - start) + "ms");
+        }
+    }
+
+    /**
+     * @param file a UTF-8 encoded file
+     * @return the contents of the file
+     * @throws IOException where the file cannot be read
+     */
+    private static String read(final File file) throws IOException {
+        StringBuffer b = new StringBuffer();
+        Reader in = new InputStreamReader(new FileInputStream(file), "UTF-8");
+        try {
+            char[] buffer = new char[8192];
+            int length;
+            while ((length = in.read(buffer)) >= 0) {
+                b.append(buffer, 0, length);
+            }
+        }
+        finally {
+            in.close();
+        }
+        return b.toString();
+    }
+
+    /**
+     * @param events the number of events in the calendar
+     * @return a calendar in iCalendar format
+     */
+    private static String createCalendar(final int events) {
+        StringBuffer b = new StringBuffer("BEGIN:VCALENDAR\r\n");
+        b.append(VTIMEZONE);
+        for (int i = 0; i < events; i++) {
+            b.append("BEGIN:VEVENT\r\n");
+            b.append("UID:" + i + "\r\n");
+            b.append("DTSTAMP:20070101T000000Z\r\n");
+            b.append("DTSTART;TZID=Example/Zone:20070101T090000\r\n");
+            b.append("DTEND;TZID=Example/Zone:20070101T100000\r\n");
+            b.append("SUMMARY:Event " + i + "\r\n");
+            b.append("DESCRIPTION:A long description of the event that is folded onto\r\n");
+            b.append("  the following line\r\n");
+            b.append("BEGIN:VALARM\r\n");
+            b.append("ACTION:DISPLAY\r\n");
+            b.append("TRIGGER:-PT15M\r\n");
+            b.append("END:VALARM\r\n");
+            b.append("END:VEVENT\r\n");
+        }
+        b.append("END:VCALENDAR\r\n");
+        return b.toString();
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2007, Ben Fortuna
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  o Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Ben Fortuna nor the names of any other contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.fortuna.ical4j.data;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.StringReader;
+
+import junit.framework.TestCase;
+import net.fortuna.ical4j.FileOnlyFilter;
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.Component;
+import net.fortuna.ical4j.model.Property;
+import net.fortuna.ical4j.model.property.DtStart;
+
+/**
+ * Unit tests for {@link ParallelCalendarBuilder}.
+ */
+public class ParallelCalendarBuilderTest extends TestCase {
+
+    private static final String VTIMEZONE = "BEGIN:VTIMEZONE\r\n"
+        + "TZID:Example/Zone\r\n"
+        + "BEGIN:STANDARD\r\n"
+        + "DTSTART:19700101T000000\r\n"
+        + "TZOFFSETFROM:+0930\r\n"
+        + "TZOFFSETTO:+0930\r\n"
+        + "TZNAME:EXST\r\n"
+        + "END:STANDARD\r\n"
+        + "END:VTIMEZONE\r\n";
+
+    /**
+     * Ensure calendars built in parallel are equal to those built
+     * sequentially.
+     */
+    public final void testBuildSamples() throws Exception {
+        System.setProperty("ical4j.unfolding.relaxed", "true");
+
+        File[] testFiles = new File("etc/samples/valid").listFiles(new FileOnlyFilter());
+        for (int i = 0; i < testFiles.length; i++) {
+            assertBuiltEquals(testFiles[i], 3);
+        }
+
+        testFiles = new File("etc/samples/invalid").listFiles(new FileOnlyFilter());
+        for (int i = 0; i < testFiles.length; i++) {
+            assertBuiltEquals(testFiles[i], 3);
+        }
+    }
+
+    /**
+     * Ensure components are added in their original order, and that
+     * timezones are applied regardless of where they are defined.
+     */
+    public final void testBuildOrder() throws Exception {
+        StringBuffer b = new StringBuffer("BEGIN:VCALENDAR\r\n");
+        b.append("PRODID:-//Example//Test//EN\r\n");
+        for (int i = 0; i < 50; i++) {
+            b.append(createEvent(i));
+            if (i == 25) {
+                b.append(VTIMEZONE);
+            }
+        }
+        b.append("VERSION:2.0\r\n");
+        b.append("END:VCALENDAR\r\n");
+
+        Calendar calendar = new ParallelCalendarBuilder(4).build(
+                new StringReader(b.toString()));
+
+        assertEquals(2, calendar.getProperties().size());
+        assertEquals(51, calendar.getComponents().size());
+        assertEquals(Component.VTIMEZONE, ((Component) calendar.getComponents().get(26)).getName());
+        for (int i = 0; i < 50; i++) {
+            Component component = (Component) calendar.getComponents().get(i <= 25 ? i : i + 1);
+            assertEquals(String.valueOf(i), component.getProperties().getProperty(Property.UID).getValue());
+
+            DtStart start = (DtStart) component.getProperties().getProperty(Property.DTSTART);
+            assertNotNull(start.getTimeZone());
+            assertEquals("Example/Zone", start.getTimeZone().getID());
+        }
+    }
+
+    /**
+     * Ensure errors are reported against the same line as when building
+     * sequentially.
+     */
+    public final void testBuildInvalid() throws Exception {
+        StringBuffer b = new StringBuffer("BEGIN:VCALENDAR\r\n");
+        for (int i = 0; i < 10; i++) {
+            b.append(createEvent(i));
+        }
+        b.append("BEGIN:VEVENT\r\n");
+        b.append("SUMMARY;CN\r\n");
+        b.append("END:VEVENT\r\n");
+        b.append("END:VCALENDAR\r\n");
+
+        String expected = null;
+        try {
+            new CalendarBuilder().build(new StringReader(b.toString()));
+            fail("Should throw ParserException");
+        }
+        catch (ParserException pe) {
+            expected = pe.getMessage();
+        }
+
+        try {
+            new ParallelCalendarBuilder(2).build(new StringReader(b.toString()));
+            fail("Should throw ParserException");
+        }
+        catch (ParserException pe) {
+            assertEquals(expected, pe.getMessage());
+        }
+    }
+
+    /**
+     * @param uid a unique identifier for the event
+     * @return an event in iCalendar format
+     */
+    private String createEvent(final int uid) {
+        return "BEGIN:VEVENT\r\n"
+            + "UID:" + uid + "\r\n"
+            + "DTSTAMP:20070101T000000Z\r\n"
+            + "DTSTART;TZID=Example/Zone:20070101T090000\r\n"
+            + "DTEND;TZID=Example/Zone:20070101T100000\r\n"
+            + "SUMMARY:Event " + uid + "\r\n"
+            + "DESCRIPTION:A long description of the event that is folded onto\r\n"
+            + "  the following line\r\n"
+            + "BEGIN:VALARM\r\n"
+            + "ACTION:DISPLAY\r\n"
+            + "TRIGGER:-PT15M\r\n"
+            + "END:VALARM\r\n"
+            + "END:VEVENT\r\n";
+    }
+
+    /**
+     * @param file an iCalendar file
+     * @param threads the number of threads used to build the calendar
+     * @throws Exception
+     */
+    private void assertBuiltEquals(final File file, final int threads) throws Exception {
+        Calendar expected = null;
+        try {
+            expected = new CalendarBuilder().build(new FileInputStream(file));
+        }
+        catch (ParserException pe) {
+            try {
+                new ParallelCalendarBuilder(threads).build(new FileInputStream(file));
+                fail("File [" + file + "] should throw ParserException");
+            }
+            catch (ParserException pe2) {
+                assertEquals(pe.getMessage(), pe2.getMessage());
+            }
+            return;
+        }
+
+        Calendar calendar = new ParallelCalendarBuilder(threads).build(
+                new FileInputStream(file));
+        assertEquals("File [" + file + "]", expected, calendar);
+    }
+}
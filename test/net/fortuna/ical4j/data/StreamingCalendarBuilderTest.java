@@ -0,0 +1,162 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2007, Ben Fortuna
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  o Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Ben Fortuna nor the names of any other contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.fortuna.ical4j.data;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.StringReader;
+
+import junit.framework.TestCase;
+import net.fortuna.ical4j.FileOnlyFilter;
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.Component;
+import net.fortuna.ical4j.model.ComponentList;
+import net.fortuna.ical4j.model.Property;
+import net.fortuna.ical4j.model.component.VEvent;
+import net.fortuna.ical4j.model.property.DtStart;
+
+/**
+ * Unit tests for {@link StreamingCalendarBuilder}.
+ */
+public class StreamingCalendarBuilderTest extends TestCase {
+
+    private static final String VTIMEZONE = "BEGIN:VTIMEZONE\r\n"
+        + "TZID:Example/Zone\r\n"
+        + "BEGIN:STANDARD\r\n"
+        + "DTSTART:19700101T000000\r\n"
+        + "TZOFFSETFROM:+0930\r\n"
+        + "TZOFFSETTO:+0930\r\n"
+        + "TZNAME:EXST\r\n"
+        + "END:STANDARD\r\n"
+        + "END:VTIMEZONE\r\n";
+
+    private static final String VEVENT = "BEGIN:VEVENT\r\n"
+        + "UID:1\r\n"
+        + "DTSTAMP:20070101T000000Z\r\n"
+        + "DTSTART;TZID=Example/Zone:20070101T090000\r\n"
+        + "SUMMARY:Breakfast\r\n"
+        + "END:VEVENT\r\n";
+
+    private ComponentList components;
+
+    private ComponentHandler handler;
+
+    /* (non-Javadoc)
+     * @see junit.framework.TestCase#setUp()
+     */
+    protected final void setUp() throws Exception {
+        components = new ComponentList();
+        handler = new ComponentHandler() {
+            public void handleComponent(final Component component) {
+                components.add(component);
+            }
+        };
+    }
+
+    /**
+     * Ensure components are handled in the same order as they are built.
+     */
+    public final void testBuildSamples() throws Exception {
+        System.setProperty("ical4j.unfolding.relaxed", "true");
+
+        File[] testFiles = new File("etc/samples/valid").listFiles(new FileOnlyFilter());
+        for (int i = 0; i < testFiles.length; i++) {
+            Calendar expected = new CalendarBuilder().build(new FileInputStream(testFiles[i]));
+
+            components.clear();
+            Calendar calendar = new StreamingCalendarBuilder(handler).build(
+                    new FileInputStream(testFiles[i]));
+
+            assertEquals(expected.getProperties(), calendar.getProperties());
+            assertTrue(calendar.getComponents().isEmpty());
+            assertEquals("File [" + testFiles[i] + "]", expected.getComponents(), components);
+        }
+    }
+
+    /**
+     * Ensure components referring to a timezone defined later in the calendar
+     * are held back until the timezone is registered.
+     */
+    public final void testForwardTimeZoneReference() throws Exception {
+        Calendar expected = new CalendarBuilder().build(new StringReader(
+                "BEGIN:VCALENDAR\r\n" + VTIMEZONE + VEVENT + "END:VCALENDAR\r\n"));
+
+        new StreamingCalendarBuilder(handler).build(new StringReader(
+                "BEGIN:VCALENDAR\r\n" + VEVENT + VTIMEZONE + "END:VCALENDAR\r\n"));
+
+        assertEquals(2, components.size());
+        assertEquals(Component.VTIMEZONE, ((Component) components.get(0)).getName());
+
+        VEvent event = (VEvent) components.get(1);
+        DtStart expectedStart = (DtStart) ((Component) expected.getComponents().getComponent(
+                Component.VEVENT)).getProperties().getProperty(Property.DTSTART);
+        assertEquals("Example/Zone", event.getStartDate().getTimeZone().getID());
+        assertEquals(expectedStart.getDate(), event.getStartDate().getDate());
+    }
+
+    /**
+     * Ensure no more than the maximum number of components are held back.
+     */
+    public final void testMaxPending() throws Exception {
+        StringBuffer b = new StringBuffer("BEGIN:VCALENDAR\r\n");
+        for (int i = 0; i < 3; i++) {
+            b.append(VEVENT);
+        }
+        b.append(VTIMEZONE);
+        b.append("END:VCALENDAR\r\n");
+
+        StreamingCalendarBuilder builder = new StreamingCalendarBuilder(handler);
+        builder.setMaxPending(2);
+        builder.build(new StringReader(b.toString()));
+
+        // the earliest event is handled without the timezone..
+        assertEquals(4, components.size());
+        assertNull(((VEvent) components.get(0)).getStartDate().getTimeZone());
+        assertEquals(Component.VTIMEZONE, ((Component) components.get(1)).getName());
+        assertEquals("Example/Zone", ((VEvent) components.get(2)).getStartDate().getTimeZone().getID());
+        assertEquals("Example/Zone", ((VEvent) components.get(3)).getStartDate().getTimeZone().getID());
+
+        // timezones are assumed to precede references to them..
+        components.clear();
+        builder = new StreamingCalendarBuilder(handler);
+        builder.setMaxPending(0);
+        builder.build(new StringReader(b.toString()));
+        assertEquals(4, components.size());
+        assertEquals(Component.VTIMEZONE, ((Component) components.get(3)).getName());
+
+        builder.build(new StringReader("BEGIN:VCALENDAR\r\n" + VTIMEZONE + VEVENT
+                + "END:VCALENDAR\r\n"));
+        assertEquals("Example/Zone", ((VEvent) components.get(5)).getStartDate().getTimeZone().getID());
+    }
+}
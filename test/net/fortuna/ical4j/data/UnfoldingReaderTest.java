@@ -0,0 +1,94 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2007, Ben Fortuna
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  o Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Ben Fortuna nor the names of any other contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.fortuna.ical4j.data;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for {@link UnfoldingReader}.
+ */
+public class UnfoldingReaderTest extends TestCase {
+
+    private static final String FOLDED = "DESCRIPTION:This is a lo\r\n"
+        + " ng description\r\n"
+        + "\tthat exists on a long line.\r\n"
+        + "SUMMARY:Short\r\n";
+
+    private static final String UNFOLDED = "DESCRIPTION:This is a long description"
+        + "that exists on a long line.\r\n"
+        + "SUMMARY:Short\r\n";
+
+    /**
+     * Test unfolding a character at a time.
+     */
+    public final void testRead() throws IOException {
+        UnfoldingReader reader = new UnfoldingReader(new StringReader(FOLDED));
+        StringBuffer b = new StringBuffer();
+        int c = 0;
+        while ((c = reader.read()) >= 0) {
+            b.append((char) c);
+        }
+        assertEquals(UNFOLDED, b.toString());
+        assertEquals(2, reader.getLinesUnfolded());
+    }
+
+    /**
+     * Test unfolding into an array, using a buffer smaller than the fold
+     * pattern spacing to exercise refills.
+     */
+    public final void testReadArray() throws IOException {
+        UnfoldingReader reader = new UnfoldingReader(new StringReader(FOLDED), 4);
+        StringBuffer b = new StringBuffer();
+        char[] buffer = new char[16];
+        int read = 0;
+        while ((read = reader.read(buffer, 0, buffer.length)) >= 0) {
+            b.append(buffer, 0, read);
+        }
+        assertEquals(UNFOLDED, b.toString());
+        assertEquals(2, reader.getLinesUnfolded());
+    }
+
+    /**
+     * Test unreading characters.
+     */
+    public final void testUnread() throws IOException {
+        UnfoldingReader reader = new UnfoldingReader(new StringReader(FOLDED));
+        reader.unread('X');
+        assertEquals('X', reader.read());
+        assertEquals('D', reader.read());
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2007, Ben Fortuna
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  o Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Ben Fortuna nor the names of any other contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.fortuna.ical4j.model;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+import net.fortuna.ical4j.data.ParserException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Unit tests for {@link CompiledTimeZoneRegistry} and indexed lookups of a
+ * {@link TimeZoneDatabase}.
+ */
+public class CompiledTimeZoneRegistryTest extends TestCase {
+
+    private static Log log = LogFactory.getLog(CompiledTimeZoneRegistryTest.class);
+
+    // 2040-01-01T00:00:00Z..
+    private static final long HORIZON = 2208988800000l;
+
+    private List ids;
+
+    private File file;
+
+    /* (non-Javadoc)
+     * @see junit.framework.TestCase#setUp()
+     */
+    protected void setUp() throws Exception {
+        super.setUp();
+        ids = new ArrayList();
+        BufferedReader reader = new BufferedReader(new FileReader("etc/zoneinfo/zones.tab"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                ids.add(line.substring(line.lastIndexOf(' ') + 1));
+            }
+        }
+        finally {
+            reader.close();
+        }
+        file = File.createTempFile("zones", ".dat");
+        OutputStream out = new FileOutputStream(file);
+        try {
+            TimeZoneDatabase.write(new File("etc/zoneinfo"), HORIZON, out);
+        }
+        finally {
+            out.close();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see junit.framework.TestCase#tearDown()
+     */
+    protected void tearDown() throws Exception {
+        file.delete();
+        super.tearDown();
+    }
+
+    /**
+     * Assert timezones are read from a memory-mapped database on first use,
+     * and are equivalent to those loaded from their definitions.
+     * @throws IOException
+     */
+    public void testOpen() throws IOException {
+        long start = System.currentTimeMillis();
+        TimeZoneDatabase database = TimeZoneDatabase.open(file.toURL());
+        List timezones = new ArrayList();
+        for (int i = 0; i < ids.size(); i++) {
+            timezones.add(database.getTimeZone((String) ids.get(i)));
+        }
+        log.info("Resolved " + ids.size() + " timezones: "
+                + (System.currentTimeMillis() - start) + "ms");
+        assertEquals(ids.size(), database.getIds().size());
+
+        TimeZoneRegistry registry = new TimeZoneRegistryImpl();
+        for (int i = 0; i < ids.size(); i++) {
+            String id = (String) ids.get(i);
+            TimeZone timezone = (TimeZone) timezones.get(i);
+            assertNotNull(id, timezone);
+            assertSame(timezone, database.getTimeZone(id));
+            TimeZone expected = registry.getTimeZone(id);
+            for (long time = 0; time < HORIZON; time += 30 * 86400000l) {
+                assertEquals(id, expected.getOffset(time), timezone.getOffset(time));
+            }
+        }
+        assertNull(database.getTimeZone("Nowhere/Special"));
+    }
+
+    /**
+     * Assert timezones are identified by the TZID of their definitions
+     * rather than the path used to look them up.
+     * @throws Exception
+     */
+    public void testTimeZoneIds() throws Exception {
+        File global = File.createTempFile("zones-global", ".dat");
+        try {
+            OutputStream out = new FileOutputStream(global);
+            try {
+                TimeZoneDatabase.write(new File("etc/zoneinfo-global"), HORIZON, out);
+            }
+            finally {
+                out.close();
+            }
+            TimeZoneDatabase database = TimeZoneDatabase.open(global.toURL());
+            assertTrue(database.getIds().contains("Pacific/Wallis"));
+            TimeZone wallis = database.getTimeZone("Pacific/Wallis");
+            assertEquals("/ical4j_0_9_17/Pacific/Wallis", wallis.getID());
+            assertEquals(new TimeZoneRegistryImpl("/zoneinfo-global/").getTimeZone(
+                    "Pacific/Wallis").getID(), wallis.getID());
+            assertEquals(wallis.getID(), new CompiledTimeZoneRegistry("/zoneinfo-global/")
+                    .getTimeZone("Pacific/Wallis").getID());
+        }
+        finally {
+            global.delete();
+        }
+    }
+
+    /**
+     * Assert an invalid database is rejected.
+     */
+    public void testOpenInvalid() {
+        try {
+            new TimeZoneDatabase(ByteBuffer.wrap(new byte[16]));
+            fail("IOException expected");
+        }
+        catch (IOException ioe) {
+            log.info("Caught exception: " + ioe.getMessage());
+        }
+    }
+
+    /**
+     * Assert timezones not found in a database are loaded from their
+     * definitions, and registered timezones take precedence.
+     */
+    public void testGetTimeZone() {
+        TimeZoneRegistry registry = new CompiledTimeZoneRegistry();
+        TimeZone melbourne = registry.getTimeZone("Australia/Melbourne");
+        assertNotNull(melbourne);
+        assertEquals("Australia/Melbourne", melbourne.getID());
+
+        TimeZone registered = new TimeZone(melbourne.getVTimeZone());
+        registry.register(registered);
+        assertSame(registered, registry.getTimeZone("Australia/Melbourne"));
+        registry.clear();
+        assertNotSame(registered, registry.getTimeZone("Australia/Melbourne"));
+        assertNull(registry.getTimeZone("Nowhere/Special"));
+    }
+
+    /**
+     * Assert a database compiled under different default timezones is the
+     * same, as floating onsets are local times regardless of the default.
+     * @throws Exception
+     */
+    public void testWriteDefaultTimeZone() throws Exception {
+        java.util.TimeZone defaultTimeZone = java.util.TimeZone.getDefault();
+        try {
+            java.util.TimeZone.setDefault(java.util.TimeZone.getTimeZone("America/New_York"));
+            ByteArrayOutputStream newYork = new ByteArrayOutputStream();
+            TimeZoneDatabase.write(new File("etc/zoneinfo"), HORIZON, newYork);
+
+            java.util.TimeZone.setDefault(java.util.TimeZone.getTimeZone("Australia/Melbourne"));
+            ByteArrayOutputStream melbourne = new ByteArrayOutputStream();
+            TimeZoneDatabase.write(new File("etc/zoneinfo"), HORIZON, melbourne);
+
+            assertTrue(Arrays.equals(newYork.toByteArray(), melbourne.toByteArray()));
+        }
+        finally {
+            java.util.TimeZone.setDefault(defaultTimeZone);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2007, Ben Fortuna
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  o Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Ben Fortuna nor the names of any other contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.fortuna.ical4j.model;
+
+import java.text.ParseException;
+
+import junit.framework.TestCase;
+import net.fortuna.ical4j.model.component.VEvent;
+import net.fortuna.ical4j.model.property.RecurrenceId;
+import net.fortuna.ical4j.model.property.Uid;
+
+/**
+ * Unit tests for {@link ComponentList}.
+ */
+public class ComponentListTest extends TestCase {
+
+    /**
+     * Assert that lookups by UID remain consistent with the list as it is
+     * modified.
+     */
+    public void testGetComponentsByUid() throws ParseException {
+        DateTime start = new DateTime("20070101T090000Z");
+        DateTime rid = new DateTime("20070108T090000Z");
+
+        VEvent master = new VEvent(start, "Meeting");
+        master.getProperties().add(new Uid("meeting"));
+        VEvent override = new VEvent(new DateTime("20070108T100000Z"), "Meeting");
+        override.getProperties().add(new Uid("meeting"));
+        override.getProperties().add(new RecurrenceId(rid));
+        VEvent other = new VEvent(start, "Other");
+        other.getProperties().add(new Uid("other"));
+
+        ComponentList components = new ComponentList();
+        assertNull(components.getMaster("meeting"));
+        assertTrue(components.getComponentsByUid("meeting").isEmpty());
+
+        components.add(override);
+        components.add(other);
+        assertNull(components.getMaster("meeting"));
+        assertSame(override, components.getOverride("meeting", rid));
+
+        components.add(master);
+        assertSame(master, components.getMaster("meeting"));
+        assertSame(other, components.getMaster("other"));
+        assertEquals(2, components.getComponentsByUid("meeting").size());
+        assertSame(override, components.getOverride("meeting",
+                new DateTime("20070108T090000Z")));
+        assertNull(components.getOverride("meeting", start));
+        assertNull(components.getOverride("other", rid));
+
+        components.remove(override);
+        assertNull(components.getOverride("meeting", rid));
+        assertEquals(1, components.getComponentsByUid("meeting").size());
+
+        components.set(0, override);
+        assertNull(components.getMaster("other"));
+        assertSame(override, components.getOverride("meeting", rid));
+
+        ComponentList copy = (ComponentList) components.clone();
+        copy.add(other);
+        assertNull(components.getMaster("other"));
+        assertSame(other, copy.getMaster("other"));
+
+        components.clear();
+        assertNull(components.getMaster("meeting"));
+    }
+}
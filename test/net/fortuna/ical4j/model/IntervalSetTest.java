@@ -0,0 +1,155 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2007, Ben Fortuna
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  o Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Ben Fortuna nor the names of any other contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.fortuna.ical4j.model;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for {@link IntervalSet}.
+ */
+public class IntervalSetTest extends TestCase {
+
+    /**
+     * Assert that intervals are normalised as per {@link PeriodList#normalise()}.
+     */
+    public void testNormalise() {
+        IntervalSet set = new IntervalSet(new long[] {50, 10, 30, 20, 70, 90},
+                new long[] {60, 15, 40, 30, 70, 80}, 6);
+        // the interval ending before it starts is empty..
+        assertEquals(new IntervalSet(new long[] {10, 20, 50, 70, 90},
+                new long[] {15, 40, 60, 70, 90}, 5), set);
+        assertEquals(5, set.size());
+        assertEquals(20, set.getStart(1));
+        assertEquals(40, set.getEnd(1));
+
+        Random random = new Random(1);
+        for (int n = 0; n < 100; n++) {
+            PeriodList periods = new PeriodList();
+            for (int i = 0; i < 20; i++) {
+                long start = random.nextInt(1000) * 60000L;
+                periods.add(new Period(new DateTime(start),
+                        new DateTime(start + random.nextInt(60) * 60000L)));
+            }
+            assertEquals(periods.normalise(), new IntervalSet(periods).toPeriodList());
+        }
+    }
+
+    /**
+     * Test union of interval sets.
+     */
+    public void testUnion() {
+        IntervalSet set1 = new IntervalSet(new long[] {0, 20, 40}, new long[] {10, 30, 50}, 3);
+        IntervalSet set2 = new IntervalSet(new long[] {10, 35, 60}, new long[] {15, 38, 70}, 3);
+        assertEquals(new IntervalSet(new long[] {0, 20, 35, 40, 60},
+                new long[] {15, 30, 38, 50, 70}, 5), set1.union(set2));
+        assertEquals(set1.union(set2), set2.union(set1));
+        assertSame(set1, set1.union(IntervalSet.EMPTY));
+    }
+
+    /**
+     * Test intersection of interval sets.
+     */
+    public void testIntersection() {
+        IntervalSet set1 = new IntervalSet(new long[] {0, 20, 40}, new long[] {10, 30, 50}, 3);
+        IntervalSet set2 = new IntervalSet(new long[] {5, 30, 45}, new long[] {25, 40, 100}, 3);
+        assertEquals(new IntervalSet(new long[] {5, 20, 45}, new long[] {10, 25, 50}, 3),
+                set1.intersection(set2));
+        assertEquals(set1.intersection(set2), set2.intersection(set1));
+        assertTrue(set1.intersection(IntervalSet.EMPTY).isEmpty());
+
+        // intervals overlapping more than one in the other set..
+        IntervalSet set3 = new IntervalSet(new long[] {0, 20}, new long[] {10, 30}, 2);
+        IntervalSet set4 = new IntervalSet(new long[] {5, 28}, new long[] {25, 35}, 2);
+        assertEquals(new IntervalSet(new long[] {5, 20, 28}, new long[] {10, 25, 30}, 3),
+                set3.intersection(set4));
+        assertEquals(set3.intersection(set4), set4.intersection(set3));
+    }
+
+    /**
+     * Test subtraction of interval sets.
+     */
+    public void testSubtract() {
+        IntervalSet set = new IntervalSet(new long[] {0, 20, 40}, new long[] {10, 30, 50}, 3);
+        // consumed, split, trimmed at both ends and untouched..
+        IntervalSet subtractions = new IntervalSet(new long[] {-5, 22, 26, 38, 48},
+                new long[] {10, 24, 28, 42, 60}, 5);
+        assertEquals(new IntervalSet(new long[] {20, 24, 28, 42}, new long[] {22, 26, 30, 48}, 4),
+                set.subtract(subtractions));
+        // intervals sharing an end point are unchanged..
+        assertEquals(set, set.subtract(new IntervalSet(10, 20)));
+        assertTrue(set.subtract(new IntervalSet(-100, 100)).isEmpty());
+        assertSame(set, set.subtract(IntervalSet.EMPTY));
+
+        // subtraction then union restores the original set..
+        Random random = new Random(1);
+        for (int n = 0; n < 100; n++) {
+            long[] starts = new long[20];
+            long[] ends = new long[20];
+            for (int i = 0; i < starts.length; i++) {
+                starts[i] = random.nextInt(1000);
+                ends[i] = starts[i] + random.nextInt(60) + 1;
+            }
+            IntervalSet set1 = new IntervalSet(starts, ends, 10);
+            IntervalSet set2 = new IntervalSet(subarray(starts, 10), subarray(ends, 10), 10);
+            IntervalSet difference = set1.subtract(set2);
+            assertTrue(difference.intersection(set2).isEmpty());
+            assertEquals(set1.union(set2), difference.union(set2));
+        }
+    }
+
+    /**
+     * Test conversion to a period list.
+     */
+    public void testToPeriodList() {
+        IntervalSet set = new IntervalSet(new long[] {0, 3600000}, new long[] {1800000, 7200000}, 2);
+        PeriodList periods = set.toPeriodList();
+        assertEquals(2, periods.size());
+        assertEquals("19700101T000000Z/19700101T003000Z,19700101T010000Z/19700101T020000Z",
+                periods.toString());
+        assertEquals(set, new IntervalSet(periods));
+    }
+
+    /**
+     * @param values an array
+     * @param offset an offset into the array
+     * @return the values from the specified offset
+     */
+    private static long[] subarray(final long[] values, final int offset) {
+        long[] result = new long[values.length - offset];
+        System.arraycopy(values, offset, result, 0, result.length);
+        return result;
+    }
+}
@@ -10,6 +10,10 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import junit.framework.TestCase;
+import net.fortuna.ical4j.model.parameter.Cn;
+import net.fortuna.ical4j.model.parameter.PartStat;
+import net.fortuna.ical4j.model.parameter.TzId;
+import net.fortuna.ical4j.model.parameter.Value;
 
 /**
  * @author Ben_Fortuna
@@ -48,4 +52,31 @@ public class ParameterFactoryImplTest extends TestCase {
             log.info("Invalid parameter", iae);
         }
     }
+
+    /**
+     * Assert that parameter constants are returned in place of new instances.
+     * @throws Exception
+     */
+    public void testCreateConstantParameter() throws Exception {
+        ParameterFactoryImpl factory = ParameterFactoryImpl.getInstance();
+        assertSame(Value.DATE, factory.createParameter(Parameter.VALUE, "DATE"));
+        assertSame(PartStat.ACCEPTED, factory.createParameter(Parameter.PARTSTAT, "ACCEPTED"));
+        Parameter p = factory.createParameter(Parameter.PARTSTAT, "X-UNDECIDED");
+        assertEquals(new PartStat("X-UNDECIDED"), p);
+        assertNotSame(p, factory.createParameter(Parameter.PARTSTAT, "X-UNDECIDED"));
+    }
+
+    /**
+     * Assert that parameters with repetitive values are shared.
+     * @throws Exception
+     */
+    public void testCreateCachedParameter() throws Exception {
+        ParameterFactoryImpl factory = ParameterFactoryImpl.getInstance();
+        Parameter p = factory.createParameter(Parameter.TZID, "Australia/Melbourne");
+        assertEquals(new TzId("Australia/Melbourne"), p);
+        assertSame(p, factory.createParameter(Parameter.TZID, "Australia/Melbourne"));
+        assertNotSame(factory.createParameter(Parameter.CN, "Ben Fortuna"),
+                factory.createParameter(Parameter.CN, "Ben Fortuna"));
+        assertEquals(new Cn("Ben Fortuna"), factory.createParameter(Parameter.CN, "Ben Fortuna"));
+    }
 }
@@ -0,0 +1,138 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2007, Ben Fortuna
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  o Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Ben Fortuna nor the names of any other contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.fortuna.ical4j.model;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URISyntaxException;
+import java.text.ParseException;
+
+import junit.framework.TestCase;
+import net.fortuna.ical4j.data.CalendarBuilder;
+import net.fortuna.ical4j.data.FastCalendarParser;
+import net.fortuna.ical4j.data.ParserException;
+import net.fortuna.ical4j.model.property.DtStart;
+import net.fortuna.ical4j.model.property.XProperty;
+
+/**
+ * Unit tests for {@link PropertyFactoryImpl}.
+ */
+public class PropertyFactoryImplTest extends TestCase {
+
+    /**
+     * Assert that properties are created ignoring the case of names.
+     */
+    public void testCreateProperty() {
+        PropertyFactoryImpl factory = PropertyFactoryImpl.getInstance();
+        assertTrue(factory.createProperty("dtstart") instanceof DtStart);
+        assertTrue(factory.createProperty("X-Custom") instanceof XProperty);
+        assertTrue(factory.createProperty("x-custom") instanceof XProperty);
+        try {
+            factory.createProperty("custom");
+            fail("Should throw an IllegalArgumentException");
+        }
+        catch (IllegalArgumentException iae) {
+            assertEquals("Invalid property name: custom", iae.getMessage());
+        }
+
+        char[] chars = "BEGIN:VEVENT".toCharArray();
+        assertNull(factory.getName(chars, 0, 5));
+        assertSame(Property.DTSTART, factory.getName("dtStart".toCharArray(), 0, 7));
+        assertSame(Property.DTSTART, factory.getName("dtStart"));
+        assertNull(factory.getName("X-Custom"));
+    }
+
+    /**
+     * Assert that registered factories are used to create experimental
+     * properties.
+     */
+    public void testRegister() throws IOException, ParserException {
+        PropertyFactoryImpl.getInstance().register("X-TEST-COLOUR", new PropertyFactory() {
+            public Property createProperty(final String name) {
+                return new Colour();
+            }
+            public Property createProperty(final String name, final ParameterList parameters,
+                    final String value) throws IOException, URISyntaxException, ParseException {
+                Colour colour = new Colour();
+                colour.setValue(value);
+                return colour;
+            }
+        });
+        String data = "BEGIN:VCALENDAR\r\nx-test-colour:red\r\nEND:VCALENDAR\r\n";
+        Calendar calendar = new CalendarBuilder(new FastCalendarParser()).build(
+                new StringReader(data));
+        Property colour = calendar.getProperties().getProperty("X-TEST-COLOUR");
+        assertTrue(colour instanceof Colour);
+        assertEquals("red", colour.getValue());
+
+        PropertyFactoryImpl.getInstance().unregister("x-test-colour");
+        calendar = new CalendarBuilder(new FastCalendarParser()).build(new StringReader(data));
+        assertFalse(calendar.getProperties().get(0) instanceof Colour);
+    }
+
+    /**
+     * Assert that property names are resolved ignoring case when building
+     * calendars with the default parser.
+     */
+    public void testBuildNames() throws IOException, ParserException {
+        String data = "BEGIN:VCALENDAR\r\ndtStart:20070101T090000Z\r\nx-wr-calname:Test\r\nEND:VCALENDAR\r\n";
+        Calendar calendar = new CalendarBuilder().build(new StringReader(data));
+        assertSame(Property.DTSTART, ((Property) calendar.getProperties().get(0)).getName());
+        Property name = (Property) calendar.getProperties().get(1);
+        assertTrue(name instanceof XProperty);
+        assertEquals("Test", name.getValue());
+        // unknown names are normalised to upper case..
+        assertSame(name, calendar.getProperties().getProperty("X-WR-CALNAME"));
+        assertTrue(calendar.toString().indexOf("X-WR-CALNAME:Test\r\n") >= 0);
+    }
+
+    /* (non-Javadoc)
+     * @see junit.framework.TestCase#tearDown()
+     */
+    protected final void tearDown() throws Exception {
+        PropertyFactoryImpl.getInstance().unregister("X-TEST-COLOUR");
+    }
+
+    /**
+     * A custom experimental property.
+     */
+    private static class Colour extends XProperty {
+
+        private static final long serialVersionUID = 5197440432418932893L;
+
+        public Colour() {
+            super("X-TEST-COLOUR");
+        }
+    }
+}
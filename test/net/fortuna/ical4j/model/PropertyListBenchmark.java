@@ -0,0 +1,99 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2007, Ben Fortuna
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  o Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Ben Fortuna nor the names of any other contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.fortuna.ical4j.model;
+
+import java.net.URISyntaxException;
+import java.text.ParseException;
+
+import net.fortuna.ical4j.model.component.VEvent;
+import net.fortuna.ical4j.model.parameter.Value;
+import net.fortuna.ical4j.model.property.Attendee;
+import net.fortuna.ical4j.model.property.ExDate;
+import net.fortuna.ical4j.model.property.RRule;
+import net.fortuna.ical4j.model.property.Uid;
+
+/**
+ * Measures validation and consumed time calculation of an event, which look
+ * up properties by name. As timings are reported rather than asserted this is
+ * not included in the unit tests, and is run as:
+ *
+ * <pre>java net.fortuna.ical4j.model.PropertyListBenchmark</pre>
+ *
+ * @author Ben Fortuna
+ */
+public final class PropertyListBenchmark {
+
+    /**
+     * Constructor made private to prevent instantiation.
+     */
+    private PropertyListBenchmark() {
+    }
+
+    /**
+     * @param args not used
+     * @throws ParseException where the event dates are invalid
+     * @throws URISyntaxException where an attendee is invalid
+     * @throws ValidationException where the event is invalid
+     */
+    public static void main(final String[] args) throws ParseException,
+            URISyntaxException, ValidationException {
+
+        DateTime start = new DateTime("20070101T090000Z");
+        VEvent event = new VEvent(start, new DateTime("20070101T100000Z"), "Meeting");
+        event.getProperties().add(new Uid("20070101T090000-meeting"));
+        event.getProperties().add(new RRule(new Recur("FREQ=WEEKLY;COUNT=52")));
+        DateList exDates = new DateList(Value.DATE_TIME);
+        exDates.setUtc(true);
+        exDates.add(new DateTime("20070108T090000Z"));
+        event.getProperties().add(new ExDate(exDates));
+        for (int i = 0; i < 20; i++) {
+            event.getProperties().add(new Attendee("mailto:attendee" + i + "@example.com"));
+        }
+        DateTime end = new DateTime("20080101T090000Z");
+
+        long time = System.currentTimeMillis();
+        for (int i = 0; i < 10000; i++) {
+            event.validate();
+        }
+        System.out.println("Validation: " + (System.currentTimeMillis() - time) + "ms");
+
+        time = System.currentTimeMillis();
+        int periods = 0;
+        for (int i = 0; i < 1000; i++) {
+            periods = event.getConsumedTime(start, end).size();
+        }
+        System.out.println("Consumed time: " + (System.currentTimeMillis() - time)
+                + "ms (" + periods + " periods)");
+    }
+}
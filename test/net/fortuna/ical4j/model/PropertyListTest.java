@@ -0,0 +1,126 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2007, Ben Fortuna
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  o Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Ben Fortuna nor the names of any other contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.fortuna.ical4j.model;
+
+import java.util.Iterator;
+import java.util.List;
+
+import junit.framework.TestCase;
+import net.fortuna.ical4j.model.property.Comment;
+import net.fortuna.ical4j.model.property.Summary;
+import net.fortuna.ical4j.model.property.Uid;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Unit tests for {@link PropertyList}.
+ */
+public class PropertyListTest extends TestCase {
+
+    private static Log log = LogFactory.getLog(PropertyListTest.class);
+
+    /**
+     * Assert that lookups by name remain consistent with the list as it is
+     * modified.
+     */
+    public void testGetProperties() {
+        PropertyList properties = new PropertyList();
+        assertNull(properties.getProperty(Property.COMMENT));
+        assertTrue(properties.getProperties(Property.COMMENT).isEmpty());
+
+        Comment comment1 = new Comment("one");
+        Comment comment2 = new Comment("two");
+        Summary summary = new Summary("summary");
+        properties.add(comment1);
+        properties.add(summary);
+        properties.add(comment2);
+        assertSame(comment1, properties.getProperty(Property.COMMENT));
+        assertSame(summary, properties.getProperty(Property.SUMMARY));
+        assertEquals(2, properties.getProperties(Property.COMMENT).size());
+        assertSame(comment2, properties.getProperties(Property.COMMENT).get(1));
+
+        properties.remove(comment1);
+        assertSame(comment2, properties.getProperty(Property.COMMENT));
+        assertEquals(1, properties.getProperties(Property.COMMENT).size());
+
+        properties.set(1, new Uid("uid"));
+        assertNull(properties.getProperty(Property.COMMENT));
+        assertNotNull(properties.getProperty(Property.UID));
+
+        properties.add(0, comment1);
+        assertSame(comment1, properties.getProperty(Property.COMMENT));
+
+        for (Iterator i = properties.iterator(); i.hasNext();) {
+            if (i.next() instanceof Comment) {
+                i.remove();
+            }
+        }
+        assertNull(properties.getProperty(Property.COMMENT));
+
+        PropertyList copy = (PropertyList) properties.clone();
+        copy.add(comment1);
+        assertNull(properties.getProperty(Property.COMMENT));
+        assertSame(comment1, copy.getProperty(Property.COMMENT));
+
+        properties.clear();
+        assertNull(properties.getProperty(Property.SUMMARY));
+        assertNull(properties.getProperty(Property.UID));
+    }
+
+    /**
+     * Assert that views of properties are read-only, and aren't created
+     * on each access.
+     */
+    public void testGetPropertiesView() {
+        PropertyList properties = new PropertyList();
+        assertTrue(properties.getPropertiesView(Property.COMMENT).isEmpty());
+
+        properties.add(new Comment("one"));
+        List view = properties.getPropertiesView(Property.COMMENT);
+        assertEquals(1, view.size());
+        assertSame(view, properties.getPropertiesView(Property.COMMENT));
+        try {
+            view.add(new Comment("two"));
+            fail("Should throw UnsupportedOperationException");
+        }
+        catch (UnsupportedOperationException uoe) {
+            log.info("Caught exception: " + uoe.getMessage());
+        }
+        properties.add(new Comment("two"));
+        assertEquals(2, properties.getPropertiesView(Property.COMMENT).size());
+        // existing views aren't modified..
+        assertEquals(1, view.size());
+    }
+}
@@ -0,0 +1,396 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2007, Ben Fortuna
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  o Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Ben Fortuna nor the names of any other contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.fortuna.ical4j.model;
+
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import net.fortuna.ical4j.model.parameter.Value;
+import net.fortuna.ical4j.util.Dates;
+
+/**
+ * A reference implementation of the expansion of the BY* rules of a
+ * recurrence, which generates candidate dates one rule at a time using a
+ * calendar per date. The expansion used by {@link Recur} (see
+ * {@link RecurExpansion}) is tested against this implementation.
+ *
+ * @author Ben Fortuna
+ */
+public class RecurReference {
+
+    private final Recur recur;
+
+    /**
+     * @param recur the recurrence to expand
+     */
+    public RecurReference(final Recur recur) {
+        this.recur = recur;
+    }
+
+    /**
+     * Returns a list of possible dates generated from the applicable
+     * BY* rules, using the specified date as a seed.
+     * @param date the seed date
+     * @param value the type of date list to return
+     * @return a DateList
+     */
+    public DateList getCandidates(final Date date, final Value value) {
+        DateList dates = new DateList(value);
+        dates.add(date);
+        dates = getMonthVariants(dates);
+        dates = getWeekNoVariants(dates);
+        dates = getYearDayVariants(dates);
+        dates = getMonthDayVariants(dates);
+        dates = getDayVariants(dates);
+        dates = getHourVariants(dates);
+        dates = getMinuteVariants(dates);
+        dates = getSecondVariants(dates);
+        dates = applySetPosRules(dates);
+        return dates;
+    }
+
+    /**
+     * Applies BYSETPOS rules to <code>dates</code>. Valid positions are from
+     * 1 to the size of the date list. Invalid positions are ignored.
+     * 
+     * @param dates
+     */
+    private DateList applySetPosRules(final DateList dates) {
+        // return if no SETPOS rules specified..
+        if (recur.getSetPosList().isEmpty()) {
+            return dates;
+        }
+        // sort the list before processing..
+        Collections.sort(dates);
+        DateList setPosDates = new DateList(dates.getType());
+        int size = dates.size();
+        for (Iterator i = recur.getSetPosList().iterator(); i.hasNext();) {
+            Integer setPos = (Integer) i.next();
+            int pos = setPos.intValue();
+            if (pos > 0 && pos <= size) {
+                setPosDates.add(dates.get(pos - 1));
+            }
+            else if (pos < 0 && pos >= -size) {
+                setPosDates.add(dates.get(size + pos));
+            }
+        }
+        return setPosDates;
+    }
+    
+    /**
+     * Applies BYMONTH rules specified in the recurrence to the
+     * specified date list. If no BYMONTH rules are specified the
+     * date list is returned unmodified.
+     * @param dates
+     * @return
+     */
+    private DateList getMonthVariants(final DateList dates) {
+        if (recur.getMonthList().isEmpty()) {
+            return dates;
+        }
+        DateList monthlyDates = new DateList(dates.getType());
+        for (Iterator i = dates.iterator(); i.hasNext();) {
+            Date date = (Date) i.next();
+            Calendar cal = Dates.getCalendarInstance(date);
+            cal.setTime(date);
+            for (Iterator j = recur.getMonthList().iterator(); j.hasNext();) {
+                Integer month = (Integer) j.next();
+                // Java months are zero-based..
+                cal.set(Calendar.MONTH, month.intValue() - 1);
+                monthlyDates.add(Dates.getInstance(cal.getTime(), monthlyDates.getType()));
+            }
+        }
+        return monthlyDates;
+    }
+
+    /**
+     * Applies BYWEEKNO rules specified in the recurrence to the
+     * specified date list. If no BYWEEKNO rules are specified the
+     * date list is returned unmodified.
+     * @param dates
+     * @return
+     */
+    private DateList getWeekNoVariants(final DateList dates) {
+        if (recur.getWeekNoList().isEmpty()) {
+            return dates;
+        }
+        DateList weekNoDates = new DateList(dates.getType());
+        for (Iterator i = dates.iterator(); i.hasNext();) {
+            Date date = (Date) i.next();
+            Calendar cal = Dates.getCalendarInstance(date);
+            cal.setTime(date);
+            for (Iterator j = recur.getWeekNoList().iterator(); j.hasNext();) {
+                Integer weekNo = (Integer) j.next();
+                cal.set(Calendar.WEEK_OF_YEAR, Dates.getAbsWeekNo(cal.getTime(), weekNo.intValue()));
+                weekNoDates.add(Dates.getInstance(cal.getTime(), weekNoDates.getType()));
+            }
+        }
+        return weekNoDates;
+    }
+
+    /**
+     * Applies BYYEARDAY rules specified in the recurrence to the
+     * specified date list. If no BYYEARDAY rules are specified the
+     * date list is returned unmodified.
+     * @param dates
+     * @return
+     */
+    private DateList getYearDayVariants(final DateList dates) {
+        if (recur.getYearDayList().isEmpty()) {
+            return dates;
+        }
+        DateList yearDayDates = new DateList(dates.getType());
+        for (Iterator i = dates.iterator(); i.hasNext();) {
+            Date date = (Date) i.next();
+            Calendar cal = Dates.getCalendarInstance(date);
+            cal.setTime(date);
+            for (Iterator j = recur.getYearDayList().iterator(); j.hasNext();) {
+                Integer yearDay = (Integer) j.next();
+                cal.set(Calendar.DAY_OF_YEAR, Dates.getAbsYearDay(cal.getTime(), yearDay.intValue()));
+                yearDayDates.add(Dates.getInstance(cal.getTime(), yearDayDates.getType()));
+            }
+        }
+        return yearDayDates;
+    }
+
+    /**
+     * Applies BYMONTHDAY rules specified in the recurrence to the
+     * specified date list. If no BYMONTHDAY rules are specified the
+     * date list is returned unmodified.
+     * @param dates
+     * @return
+     */
+    private DateList getMonthDayVariants(final DateList dates) {
+        if (recur.getMonthDayList().isEmpty()) {
+            return dates;
+        }
+        DateList monthDayDates = new DateList(dates.getType());
+        for (Iterator i = dates.iterator(); i.hasNext();) {
+            Date date = (Date) i.next();
+            Calendar cal = Dates.getCalendarInstance(date);
+            cal.setTime(date);
+            for (Iterator j = recur.getMonthDayList().iterator(); j.hasNext();) {
+                Integer monthDay = (Integer) j.next();
+                cal.set(Calendar.DAY_OF_MONTH, Dates.getAbsMonthDay(cal.getTime(), monthDay.intValue()));
+                monthDayDates.add(Dates.getInstance(cal.getTime(), monthDayDates.getType()));
+            }
+        }
+        return monthDayDates;
+    }
+
+    /**
+     * Applies BYDAY rules specified in the recurrence to the
+     * specified date list. If no BYDAY rules are specified the
+     * date list is returned unmodified.
+     * @param dates
+     * @return
+     */
+    private DateList getDayVariants(final DateList dates) {
+        if (recur.getDayList().isEmpty()) {
+            return dates;
+        }
+        DateList weekDayDates = new DateList(dates.getType());
+        for (Iterator i = dates.iterator(); i.hasNext();) {
+            Date date = (Date) i.next();
+            for (Iterator j = recur.getDayList().iterator(); j.hasNext();) {
+                WeekDay weekDay = (WeekDay) j.next();
+                weekDayDates.addAll(getAbsWeekDays(date, dates.getType(), weekDay));
+            }
+        }
+        return weekDayDates;
+    }
+
+    /**
+     * Returns a list of applicable dates corresponding to the specified
+     * week day in accordance with the frequency specified by the recurrence
+     * rule.
+     * @param date
+     * @param weekDay
+     * @return
+     */
+    private List getAbsWeekDays(final Date date, final Value type, final WeekDay weekDay) {
+        Calendar cal = Dates.getCalendarInstance(date);
+        cal.setTime(date);
+        DateList days = new DateList(type);
+        int calDay = WeekDay.getCalendarDay(weekDay);
+        if (calDay == -1) {
+            // a matching weekday cannot be identified..
+            return days;
+        }
+        if (Recur.DAILY.equals(recur.getFrequency())) {
+            if (cal.get(Calendar.DAY_OF_WEEK) == calDay) {
+                days.add(Dates.getInstance(cal.getTime(), type));
+            }
+        }
+        else if (Recur.WEEKLY.equals(recur.getFrequency())  || !recur.getWeekNoList().isEmpty()) {
+            //int weekNo = cal.get(Calendar.WEEK_OF_YEAR);
+            // construct a list of possible week days..
+//            cal.set(Calendar.DAY_OF_WEEK_IN_MONTH, 1);
+            while (cal.get(Calendar.DAY_OF_WEEK) != calDay) {
+                cal.add(Calendar.DAY_OF_WEEK, 1);
+            }
+            int weekNo = cal.get(Calendar.WEEK_OF_YEAR);
+            while (cal.get(Calendar.WEEK_OF_YEAR) == weekNo) {
+                days.add(Dates.getInstance(cal.getTime(), type));
+                cal.add(Calendar.DAY_OF_WEEK, Dates.DAYS_PER_WEEK);
+            }
+        }
+        else if (Recur.MONTHLY.equals(recur.getFrequency())  || !recur.getMonthList().isEmpty()) {
+            int month = cal.get(Calendar.MONTH);
+            // construct a list of possible month days..
+            cal.set(Calendar.DAY_OF_MONTH, 1);
+            while (cal.get(Calendar.DAY_OF_WEEK) != calDay) {
+                cal.add(Calendar.DAY_OF_MONTH, 1);
+            }
+            while (cal.get(Calendar.MONTH) == month) {
+                days.add(Dates.getInstance(cal.getTime(), type));
+                cal.add(Calendar.DAY_OF_MONTH, Dates.DAYS_PER_WEEK);
+            }
+        }
+        else if (Recur.YEARLY.equals(recur.getFrequency())) {
+            int year = cal.get(Calendar.YEAR);
+            // construct a list of possible year days..
+            cal.set(Calendar.DAY_OF_YEAR, 1);
+            while (cal.get(Calendar.DAY_OF_WEEK) != calDay) {
+                cal.add(Calendar.DAY_OF_YEAR, 1);
+            }
+            while (cal.get(Calendar.YEAR) == year) {
+                days.add(Dates.getInstance(cal.getTime(), type));
+                cal.add(Calendar.DAY_OF_YEAR, Dates.DAYS_PER_WEEK);
+            }
+        }
+        DateList weekDays = new DateList(days.getType());
+        sublist(days, weekDay.getOffset(), weekDays);
+        return weekDays;
+    }
+
+    /**
+     * Returns a single-element sublist containing the element of
+     * <code>list</code> at <code>offset</code>. Valid offsets are from 1
+     * to the size of the list. If an invalid offset is supplied, all elements
+     * from <code>list</code> are added to <code>sublist</code>.
+     * 
+     * @param list
+     * @param offset
+     * @param sublist
+     */
+    private void sublist(final List list, final int offset, final List sublist) {
+        int size = list.size();
+        if (offset < 0 && offset >= -size) {
+            sublist.add(list.get(size + offset));
+        } else if (offset > 0 && offset <= size) {
+            sublist.add(list.get(offset - 1));
+        } else {
+            sublist.addAll(list);
+        }
+    }
+    
+    /**
+     * Applies BYHOUR rules specified in the recurrence to the specified
+     * date list. If no BYHOUR rules are specified the date list is returned
+     * unmodified.
+     * 
+     * @param dates
+     * @return
+     */
+    private DateList getHourVariants(final DateList dates) {
+        if (recur.getHourList().isEmpty()) {
+            return dates;
+        }
+        DateList hourlyDates = new DateList(dates.getType());
+        for (Iterator i = dates.iterator(); i.hasNext();) {
+            Date date = (Date) i.next();
+            Calendar cal = Dates.getCalendarInstance(date);
+            cal.setTime(date);
+            for (Iterator j = recur.getHourList().iterator(); j.hasNext();) {
+                Integer hour = (Integer) j.next();
+                cal.set(Calendar.HOUR_OF_DAY, hour.intValue());
+                hourlyDates.add(Dates.getInstance(cal.getTime(), hourlyDates.getType()));
+            }
+        }
+        return hourlyDates;
+    }
+    
+    /**
+     * Applies BYMINUTE rules specified in the recurrence to the
+     * specified date list. If no BYMINUTE rules are specified the
+     * date list is returned unmodified.
+     * @param dates
+     * @return
+     */
+    private DateList getMinuteVariants(final DateList dates) {
+        if (recur.getMinuteList().isEmpty()) {
+            return dates;
+        }
+        DateList minutelyDates = new DateList(dates.getType());
+        for (Iterator i = dates.iterator(); i.hasNext();) {
+            Date date = (Date) i.next();
+            Calendar cal = Dates.getCalendarInstance(date);
+            cal.setTime(date);
+            for (Iterator j = recur.getMinuteList().iterator(); j.hasNext();) {
+                Integer minute = (Integer) j.next();
+                cal.set(Calendar.MINUTE, minute.intValue());
+                minutelyDates.add(Dates.getInstance(cal.getTime(), minutelyDates.getType()));
+            }
+        }
+        return minutelyDates;
+    }
+    
+    /**
+     * Applies BYSECOND rules specified in the recurrence to the
+     * specified date list. If no BYSECOND rules are specified the
+     * date list is returned unmodified.
+     * @param dates
+     * @return
+     */
+    private DateList getSecondVariants(final DateList dates) {
+        if (recur.getSecondList().isEmpty()) {
+            return dates;
+        }
+        DateList secondlyDates = new DateList(dates.getType());
+        for (Iterator i = dates.iterator(); i.hasNext();) {
+            Date date = (Date) i.next();
+            Calendar cal = Dates.getCalendarInstance(date);
+            cal.setTime(date);
+            for (Iterator j = recur.getSecondList().iterator(); j.hasNext();) {
+                Integer second = (Integer) j.next();
+                cal.set(Calendar.SECOND, second.intValue());
+                secondlyDates.add(Dates.getInstance(cal.getTime(), secondlyDates.getType()));
+            }
+        }
+        return secondlyDates;
+    }
+}
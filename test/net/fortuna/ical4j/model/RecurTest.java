@@ -39,9 +39,13 @@ import java.text.ParseException;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
 
 import junit.framework.TestCase;
 import net.fortuna.ical4j.model.parameter.Value;
+import net.fortuna.ical4j.util.Dates;
 import net.fortuna.ical4j.util.TimeZones;
 
 import org.apache.commons.logging.Log;
@@ -376,4 +380,250 @@ public class RecurTest extends TestCase {
         
         log.info(dateList);
     }
+
+    /**
+     * Ensure the iterator returns the same dates as getDates().
+     * @throws ParseException
+     */
+    public void testIterator() throws ParseException {
+        String[] rules = new String[] {
+                "FREQ=DAILY;COUNT=10",
+                "FREQ=WEEKLY;UNTIL=20051231T000000Z;BYDAY=MO,WE,FR",
+                "FREQ=WEEKLY;INTERVAL=2;BYDAY=WE,MO;COUNT=15",
+                "FREQ=MONTHLY;BYDAY=-1FR;COUNT=12",
+                "FREQ=MONTHLY;BYDAY=MO,TU,WE,TH,FR;BYSETPOS=-1",
+                "FREQ=MONTHLY;BYMONTHDAY=31",
+                "FREQ=YEARLY;BYMONTH=2;BYMONTHDAY=29",
+                "FREQ=HOURLY;INTERVAL=5"};
+        DateTime seed = new DateTime("20050103T090000Z");
+        DateTime end = new DateTime("20250101T000000Z");
+        for (int i = 0; i < rules.length; i++) {
+            Recur recur = new Recur(rules[i]);
+            DateList expected = recur.getDates(seed, seed, end, Value.DATE_TIME);
+            Iterator iter = recur.iterator(seed, Value.DATE_TIME);
+            for (int j = 0; j < expected.size() && j < 500; j++) {
+                assertTrue(rules[i], iter.hasNext());
+                assertEquals(rules[i], expected.get(j), iter.next());
+            }
+            if (expected.size() < 500 && (recur.getCount() >= 1
+                    || recur.getUntil() != null)) {
+                assertFalse(rules[i], iter.hasNext());
+            }
+        }
+    }
+
+    /**
+     * Ensure an infinite recurrence may be iterated without a period end.
+     * @throws ParseException
+     */
+    public void testIteratorInfinite() throws ParseException {
+        Recur recur = new Recur("FREQ=WEEKLY;BYDAY=TU");
+        Iterator iter = recur.iterator(new Date("20050101"), Value.DATE);
+        assertEquals(new Date("20050104"), iter.next());
+        assertEquals(new Date("20050111"), iter.next());
+        for (int i = 0; i < 10000; i++) {
+            assertNotNull(iter.next());
+        }
+        assertTrue(iter.hasNext());
+
+        // a recurrence that will never produce a date..
+        recur = new Recur("FREQ=WEEKLY;BYSETPOS=2");
+        iter = recur.iterator(new Date("20050101"), Value.DATE);
+        assertFalse(iter.hasNext());
+    }
+
+    /**
+     * Ensure the dates in a period long after the seed are the same as those
+     * generated by expanding the recurrence from the seed.
+     * @throws ParseException
+     */
+    public void testGetDatesLongAfterSeed() throws ParseException {
+        String[] rules = new String[] {
+                "FREQ=HOURLY;INTERVAL=7",
+                "FREQ=DAILY;INTERVAL=3",
+                "FREQ=DAILY;BYSECOND=0,30",
+                "FREQ=WEEKLY;BYDAY=MO,WE,FR",
+                "FREQ=MONTHLY;BYMONTHDAY=1,-1",
+                "FREQ=MONTHLY;INTERVAL=5",
+                "FREQ=YEARLY;BYMONTH=3;BYDAY=-1SU",
+                "FREQ=YEARLY;BYWEEKNO=1;BYDAY=MO",
+                "FREQ=DAILY;COUNT=3000",
+                "FREQ=WEEKLY;BYDAY=TU,TH;COUNT=500"};
+        DateTime seed = new DateTime("20050103T090000Z");
+        DateTime[] starts = new DateTime[] {new DateTime("20090101T000000Z"),
+                new DateTime("20091228T000000Z"), new DateTime("20121231T000000Z")};
+        for (int i = 0; i < rules.length; i++) {
+            Recur recur = new Recur(rules[i]);
+            // repeated calls (which may resume from an earlier call)..
+            for (int j = 0; j < starts.length; j++) {
+                DateTime end = new DateTime(starts[j].getTime() + 14 * 24 * 60 * 60 * 1000L);
+                DateList expected = new DateList(Value.DATE_TIME);
+                expected.setUtc(true);
+                for (Iterator iter = recur.iterator(seed, Value.DATE_TIME); iter.hasNext();) {
+                    Date date = (Date) iter.next();
+                    if (!date.before(end)) {
+                        break;
+                    }
+                    else if (!date.before(starts[j])) {
+                        expected.add(date);
+                    }
+                }
+                assertEquals(rules[i] + " " + starts[j], expected,
+                        recur.getDates(seed, starts[j], end, Value.DATE_TIME));
+            }
+        }
+    }
+
+    /**
+     * Ensure that monthly periods are calculated from the seed, and so a date
+     * at the end of a shorter month doesn't fix later dates to that day.
+     * @throws ParseException
+     */
+    public void testGetDatesMonthEnd() throws ParseException {
+        Recur recur = new Recur("FREQ=MONTHLY;COUNT=4");
+        DateList dates = recur.getDates(new Date("20050131"), new Date("20050101"),
+                new Date("20060101"), Value.DATE);
+        assertEquals(4, dates.size());
+        assertEquals(new Date("20050131"), dates.get(0));
+        assertEquals(new Date("20050228"), dates.get(1));
+        assertEquals(new Date("20050331"), dates.get(2));
+        assertEquals(new Date("20050430"), dates.get(3));
+
+        Iterator i = recur.iterator(new Date("20050131"), Value.DATE);
+        for (int j = 0; j < dates.size(); j++) {
+            assertEquals(dates.get(j), i.next());
+        }
+        assertFalse(i.hasNext());
+
+        // the last day of the month is still produced by BYMONTHDAY..
+        recur = new Recur("FREQ=MONTHLY;COUNT=3;BYMONTHDAY=-1");
+        dates = recur.getDates(new Date("20050131"), new Date("20050101"),
+                new Date("20060101"), Value.DATE);
+        assertEquals(new Date("20050131"), dates.get(0));
+        assertEquals(new Date("20050228"), dates.get(1));
+        assertEquals(new Date("20050331"), dates.get(2));
+
+        // yearly recurrences seeded on a leap day fall on the 28th otherwise..
+        recur = new Recur("FREQ=YEARLY;COUNT=5");
+        dates = recur.getDates(new Date("20040229"), new Date("20040101"),
+                new Date("20100101"), Value.DATE);
+        assertEquals(new Date("20040229"), dates.get(0));
+        assertEquals(new Date("20050228"), dates.get(1));
+        assertEquals(new Date("20080229"), dates.get(4));
+    }
+
+    /**
+     * Compare the candidates generated by the primitive expansion of
+     * randomly generated rules with those of the reference implementation
+     * (see {@link RecurReference}).
+     */
+    public void testExpansionMatchesReference() {
+        String[] frequencies = new String[] {Recur.YEARLY, Recur.MONTHLY,
+                Recur.WEEKLY, Recur.DAILY, Recur.HOURLY};
+        String[] days = new String[] {"SU", "MO", "TU", "WE", "TH", "FR", "SA"};
+        Random random = new Random(20050101);
+        Calendar cal = Calendar.getInstance();
+        Calendar scratch = Calendar.getInstance();
+        for (int i = 0; i < 2000; i++) {
+            Recur recur = new Recur(frequencies[random.nextInt(frequencies.length)], 10);
+            addRandom(random, recur.getMonthList(), 1, 12, false);
+            addRandom(random, recur.getWeekNoList(), 1, 52, true);
+            addRandom(random, recur.getYearDayList(), 1, 365, true);
+            addRandom(random, recur.getMonthDayList(), 1, 28, true);
+            addRandom(random, recur.getHourList(), 0, 23, false);
+            addRandom(random, recur.getMinuteList(), 0, 59, false);
+            addRandom(random, recur.getSecondList(), 0, 59, false);
+            addRandom(random, recur.getSetPosList(), 1, 10, true);
+            if (random.nextInt(3) == 0) {
+                for (int j = random.nextInt(3); j >= 0; j--) {
+                    int offset = random.nextInt(2) == 0 ? 0 : random.nextInt(11) - 5;
+                    recur.getDayList().add(new WeekDay(days[random.nextInt(days.length)],
+                            offset));
+                }
+            }
+            Value value = random.nextInt(2) == 0 ? Value.DATE : Value.DATE_TIME;
+            // a seed between 1990 and 2030..
+            Date seed = Dates.getInstance(new java.util.Date(631152000000l
+                    + (long) (random.nextDouble() * 1262304000000l)), value);
+
+            DateList expected;
+            try {
+                expected = new RecurReference(recur).getCandidates(seed, value);
+            }
+            catch (RuntimeException re) {
+                // invalid relative values must fail in the same way..
+                try {
+                    new RecurExpansion(recur, recur.toString()).getCandidates(seed.getTime(),
+                            RecurExpansion.getPrecision(value), cal, scratch);
+                    fail(recur + " from " + seed + " should throw " + re);
+                }
+                catch (RuntimeException re2) {
+                    assertEquals(re.getClass(), re2.getClass());
+                }
+                continue;
+            }
+            long[] candidates = new RecurExpansion(recur, recur.toString()).getCandidates(seed.getTime(),
+                    RecurExpansion.getPrecision(value), cal, scratch);
+            assertEquals(recur + " from " + seed, expected.size(), candidates.length);
+            for (int j = 0; j < candidates.length; j++) {
+                assertEquals(recur + " from " + seed,
+                        ((Date) expected.get(j)).getTime(), candidates[j]);
+            }
+        }
+    }
+
+    /**
+     * Adds up to three random values to a list of rule values with a one in
+     * three probability.
+     * @param random a random number generator
+     * @param list a list of rule values
+     * @param min the minimum absolute value
+     * @param max the maximum absolute value
+     * @param relative indicates whether negative values are permitted
+     */
+    private void addRandom(final Random random, final List list, final int min,
+            final int max, final boolean relative) {
+        if (random.nextInt(3) == 0) {
+            for (int i = random.nextInt(3); i >= 0; i--) {
+                int value = min + random.nextInt(max - min + 1);
+                if (relative && random.nextInt(2) == 0) {
+                    value = -value;
+                }
+                list.add(new Integer(value));
+            }
+        }
+    }
+
+    /**
+     * Ensure recurrences with the same rule share an expansion, and that
+     * modifying a recurrence is reflected in the dates generated.
+     * @throws ParseException
+     */
+    public void testExpansionCache() throws ParseException {
+        Recur recur = new Recur("FREQ=WEEKLY;BYDAY=MO,WE,FR");
+        Recur recur2 = new Recur("FREQ=WEEKLY;BYDAY=MO,WE,FR");
+        assertSame(RecurExpansion.getInstance(recur, recur.toString()),
+                RecurExpansion.getInstance(recur2, recur2.toString()));
+
+        Date seed = new Date("20050103");
+        Date end = new Date("20050110");
+        assertEquals(3, recur.getDates(seed, end, Value.DATE).size());
+        recur.getDayList().add(WeekDay.TU);
+        assertEquals(4, recur.getDates(seed, end, Value.DATE).size());
+        assertEquals(3, recur2.getDates(seed, end, Value.DATE).size());
+
+        // replacing a rule value..
+        recur.getDayList().set(3, WeekDay.SA);
+        DateList dates = recur.getDates(seed, end, Value.DATE);
+        assertEquals(4, dates.size());
+        assertEquals(new Date("20050108"), dates.get(3));
+
+        // setters..
+        recur.setInterval(2);
+        assertEquals(4, recur.getDates(seed, new Date("20050117"), Value.DATE).size());
+        recur.setCount(2);
+        assertEquals(2, recur.getDates(seed, end, Value.DATE).size());
+        recur.setCount(3);
+        assertEquals(3, recur.getDates(seed, end, Value.DATE).size());
+    }
 }
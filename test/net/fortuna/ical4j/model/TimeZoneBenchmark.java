@@ -0,0 +1,128 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2007, Ben Fortuna
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  o Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Ben Fortuna nor the names of any other contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.fortuna.ical4j.model;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import net.fortuna.ical4j.model.component.Observance;
+import net.fortuna.ical4j.model.property.TzOffsetTo;
+import net.fortuna.ical4j.util.Dates;
+
+/**
+ * Compares the time taken to find offsets in each of the zones in
+ * etc/zoneinfo via the transition table and via the applicable observance.
+ * As timings are reported rather than asserted this is not included in the
+ * unit tests, and is run from the project directory as:
+ *
+ * <pre>java net.fortuna.ical4j.model.TimeZoneBenchmark</pre>
+ *
+ * @author Ben Fortuna
+ */
+public final class TimeZoneBenchmark {
+
+    // 2000-01-01T00:00:00Z..
+    private static final long START_TIME = 946684800000l;
+
+    // 2010-01-01T00:00:00Z..
+    private static final long END_TIME = 1262304000000l;
+
+    /**
+     * Constructor made private to prevent instantiation.
+     */
+    private TimeZoneBenchmark() {
+    }
+
+    /**
+     * @param args not used
+     * @throws IOException where the zones cannot be read
+     */
+    public static void main(final String[] args) throws IOException {
+        TimeZoneRegistry registry = TimeZoneRegistryFactory.getInstance().createRegistry();
+        List timezones = new ArrayList();
+        BufferedReader reader = new BufferedReader(new FileReader("etc/zoneinfo/zones.tab"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String id = line.substring(line.lastIndexOf(' ') + 1);
+                TimeZone timezone = registry.getTimeZone(id);
+                if (timezone == null) {
+                    throw new IOException("Timezone not found [" + id + "]");
+                }
+                timezones.add(timezone);
+            }
+        }
+        finally {
+            reader.close();
+        }
+
+        // compile transitions and calculate onsets prior to timing..
+        long start = System.currentTimeMillis();
+        for (Iterator i = timezones.iterator(); i.hasNext();) {
+            TimeZone timezone = (TimeZone) i.next();
+            timezone.getOffset(START_TIME);
+            timezone.getVTimeZone().getApplicableObservance(new DateTime(END_TIME));
+        }
+        System.out.println("Compilation: " + (System.currentTimeMillis() - start) + "ms");
+
+        start = System.currentTimeMillis();
+        long checksum = 0;
+        for (Iterator i = timezones.iterator(); i.hasNext();) {
+            TimeZone timezone = (TimeZone) i.next();
+            for (long time = START_TIME; time < END_TIME; time += Dates.MILLIS_PER_DAY) {
+                checksum += timezone.getOffset(time);
+            }
+        }
+        System.out.println("Transition table: " + (System.currentTimeMillis() - start)
+                + "ms (" + checksum + ")");
+
+        start = System.currentTimeMillis();
+        checksum = 0;
+        for (Iterator i = timezones.iterator(); i.hasNext();) {
+            TimeZone timezone = (TimeZone) i.next();
+            for (long time = START_TIME; time < END_TIME; time += Dates.MILLIS_PER_DAY) {
+                Observance observance = timezone.getVTimeZone().getApplicableObservance(
+                        new DateTime(time));
+                checksum += ((TzOffsetTo) observance.getProperties().getProperty(
+                        Property.TZOFFSETTO)).getOffset().getOffset();
+            }
+        }
+        System.out.println("Applicable observance: " + (System.currentTimeMillis() - start)
+                + "ms (" + checksum + ")");
+    }
+}
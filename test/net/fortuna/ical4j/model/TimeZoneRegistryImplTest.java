@@ -0,0 +1,165 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2007, Ben Fortuna
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  o Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Ben Fortuna nor the names of any other contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.fortuna.ical4j.model;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+import net.fortuna.ical4j.data.ParserException;
+import net.fortuna.ical4j.util.Dates;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Unit tests for {@link TimeZoneRegistryImpl} and {@link TimeZoneDatabase}.
+ */
+public class TimeZoneRegistryImplTest extends TestCase {
+
+    private static Log log = LogFactory.getLog(TimeZoneRegistryImplTest.class);
+
+    // 2040-01-01T00:00:00Z..
+    private static final long HORIZON = 2208988800000l;
+
+    private List ids;
+
+    /* (non-Javadoc)
+     * @see junit.framework.TestCase#setUp()
+     */
+    protected void setUp() throws Exception {
+        super.setUp();
+        ids = new ArrayList();
+        BufferedReader reader = new BufferedReader(new FileReader("etc/zoneinfo/zones.tab"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                ids.add(line.substring(line.lastIndexOf(' ') + 1));
+            }
+        }
+        finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Assert that concurrent lookups of the default timezones return the
+     * same instances.
+     * @throws InterruptedException
+     */
+    public void testGetTimeZoneConcurrently() throws InterruptedException {
+        final TimeZone[][] results = new TimeZone[4][];
+        Thread[] threads = new Thread[results.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread() {
+                public void run() {
+                    TimeZoneRegistry registry = new TimeZoneRegistryImpl();
+                    results[index] = new TimeZone[ids.size()];
+                    for (int j = 0; j < ids.size(); j++) {
+                        // each thread starts from a different timezone..
+                        int k = (j + index * ids.size() / results.length) % ids.size();
+                        results[index][k] = registry.getTimeZone((String) ids.get(k));
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (int i = 0; i < threads.length; i++) {
+            threads[i].join();
+        }
+        for (int j = 0; j < ids.size(); j++) {
+            assertNotNull((String) ids.get(j), results[0][j]);
+            for (int i = 1; i < results.length; i++) {
+                assertSame(results[0][j], results[i][j]);
+            }
+        }
+    }
+
+    /**
+     * Assert that a registered timezone takes precedence over the default
+     * timezone with the same identifier, until cleared.
+     */
+    public void testRegister() {
+        TimeZoneRegistry registry = new TimeZoneRegistryImpl();
+        TimeZone melbourne = registry.getTimeZone("Australia/Melbourne");
+        TimeZone registered = new TimeZone(melbourne.getVTimeZone());
+        registry.register(registered);
+        assertSame(registered, registry.getTimeZone("Australia/Melbourne"));
+        registry.clear();
+        assertSame(melbourne, registry.getTimeZone("Australia/Melbourne"));
+    }
+
+    /**
+     * Assert the timezones read from a compiled database are equivalent to
+     * those loaded from their definitions.
+     * @throws IOException
+     * @throws ParserException
+     */
+    public void testTimeZoneDatabase() throws IOException, ParserException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TimeZoneDatabase.write(new File("etc/zoneinfo"), HORIZON, out);
+        byte[] database = out.toByteArray();
+        log.info("Database size: " + database.length + " bytes");
+
+        long start = System.currentTimeMillis();
+        Map timezones = TimeZoneDatabase.read(new ByteArrayInputStream(database));
+        log.info("Database read: " + (System.currentTimeMillis() - start) + "ms");
+        assertEquals(ids.size(), timezones.size());
+
+        TimeZoneRegistry registry = new TimeZoneRegistryImpl();
+        for (Iterator i = timezones.keySet().iterator(); i.hasNext();) {
+            String id = (String) i.next();
+            TimeZone timezone = (TimeZone) timezones.get(id);
+            TimeZone expected = registry.getTimeZone(id);
+            assertNotNull(id, expected);
+            assertEquals(expected.getID(), timezone.getID());
+            // weekly from 1900 to beyond the horizon..
+            for (long time = -2208988800000l; time < HORIZON + 10 * 365 * Dates.MILLIS_PER_DAY;
+                    time += Dates.MILLIS_PER_WEEK) {
+                assertEquals(timezone.getID(), expected.getOffset(time),
+                        timezone.getOffset(time));
+            }
+            assertEquals(expected.getVTimeZone(), timezone.getVTimeZone());
+        }
+    }
+}
@@ -39,6 +39,7 @@ import java.util.Calendar;
 import java.util.GregorianCalendar;
 
 import net.fortuna.ical4j.model.property.DtStart;
+import net.fortuna.ical4j.util.Dates;
 
 import junit.framework.TestCase;
 
@@ -151,4 +152,25 @@ public class TimeZoneTest extends TestCase {
         DtStart pDtStart = new DtStart(dtStart); 
         pDtStart.setTimeZone(registry.getTimeZone("America/Indiana/Indianapolis"));
     }
+
+    /**
+     * Assert offsets are the same as the Java timezone equivalent for a
+     * zone whose rules are unchanged since its definition was generated.
+     */
+    public void testGetOffsetAtTime() {
+        java.util.TimeZone newYorkTz = java.util.TimeZone.getTimeZone("America/New_York");
+        TimeZone newYorkTimezone = registry.getTimeZone("America/New_York");
+        // midday UTC of each day from 1970 to 2030, beyond the horizon of
+        // the initial transitions..
+        for (long time = Dates.MILLIS_PER_DAY / 2; time < 1893456000000l;
+                time += Dates.MILLIS_PER_DAY) {
+            assertEquals(new java.util.Date(time).toString(), newYorkTz.getOffset(time),
+                    newYorkTimezone.getOffset(time));
+            assertEquals(newYorkTz.inDaylightTime(new java.util.Date(time)),
+                    newYorkTimezone.inDaylightTime(new java.util.Date(time)));
+        }
+        // either side of a transition (2007-03-11T07:00:00Z)..
+        assertEquals(-5 * Dates.MILLIS_PER_HOUR, newYorkTimezone.getOffset(1173596399999l));
+        assertEquals(-4 * Dates.MILLIS_PER_HOUR, newYorkTimezone.getOffset(1173596400000l));
+    }
 }
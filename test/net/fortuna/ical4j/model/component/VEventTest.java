@@ -16,6 +16,7 @@ import net.fortuna.ical4j.data.ParserException;
 import net.fortuna.ical4j.model.Component;
 import net.fortuna.ical4j.model.ComponentTest;
 import net.fortuna.ical4j.model.Date;
+import net.fortuna.ical4j.model.DateList;
 import net.fortuna.ical4j.model.DateTime;
 import net.fortuna.ical4j.model.Dur;
 import net.fortuna.ical4j.model.ParameterList;
@@ -520,6 +521,31 @@ public class VEventTest extends ComponentTest {
         assertTrue(list.isEmpty());
     }
 
+    /**
+     * Ensure the first instance of an event is included in consumed time when
+     * it is not generated by the recurrence rule.
+     * @throws ParseException
+     */
+    public void testGetConsumedTimeFirstInstance() throws ParseException {
+        // a Monday start for an event recurring on Tuesdays..
+        VEvent event = new VEvent(new DateTime("20050103T090000Z"),
+                new Dur(0, 1, 0, 0), "Event");
+        event.getProperties().add(new RRule(new Recur("FREQ=WEEKLY;BYDAY=TU")));
+
+        PeriodList consumed = event.getConsumedTime(new DateTime("20050101T000000Z"),
+                new DateTime("20050111T000000Z"));
+        assertEquals(2, consumed.size());
+        assertTrue(consumed.contains(new Period(new DateTime("20050103T090000Z"),
+                new DateTime("20050103T100000Z"))));
+
+        // ..unless excluded by an exception date..
+        event.getProperties().add(new ExDate(new DateList("20050103T090000Z",
+                Value.DATE_TIME)));
+        consumed = event.getConsumedTime(new DateTime("20050101T000000Z"),
+                new DateTime("20050111T000000Z"));
+        assertEquals(1, consumed.size());
+    }
+
     /* (non-Javadoc)
      * @see net.fortuna.ical4j.model.ComponentTest#testIsCalendarComponent()
      */
@@ -38,6 +38,7 @@ import net.fortuna.ical4j.model.Calendar;
 import net.fortuna.ical4j.model.ComponentList;
 import net.fortuna.ical4j.model.ComponentTest;
 import net.fortuna.ical4j.model.Date;
+import net.fortuna.ical4j.model.DateList;
 import net.fortuna.ical4j.model.DateTime;
 import net.fortuna.ical4j.model.Dur;
 import net.fortuna.ical4j.model.Parameter;
@@ -49,11 +50,14 @@ import net.fortuna.ical4j.model.TimeZoneRegistry;
 import net.fortuna.ical4j.model.TimeZoneRegistryFactory;
 import net.fortuna.ical4j.model.parameter.FbType;
 import net.fortuna.ical4j.model.parameter.TzId;
+import net.fortuna.ical4j.model.parameter.Value;
 import net.fortuna.ical4j.model.property.DtEnd;
 import net.fortuna.ical4j.model.property.DtStart;
 import net.fortuna.ical4j.model.property.Duration;
+import net.fortuna.ical4j.model.property.ExDate;
 import net.fortuna.ical4j.model.property.FreeBusy;
 import net.fortuna.ical4j.model.property.RRule;
+import net.fortuna.ical4j.model.property.Status;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -323,6 +327,75 @@ public class VFreeBusyTest extends ComponentTest {
         assertEquals("PT5H", busy1.getDuration().toString());
     }
 
+    /**
+     * Assert that requests answered from an index of busy time are the same
+     * as those answered from the indexed components.
+     * @throws ParseException
+     */
+    public void testFreeBusyIndex() throws ParseException {
+        ComponentList components = new ComponentList();
+        VEvent standup = new VEvent(new DateTime("20050103T090000Z"), new Dur(0, 0, 15, 0),
+                "Standup");
+        standup.getProperties().add(new RRule(new Recur("FREQ=DAILY;BYDAY=MO,TU,WE,TH,FR")));
+        standup.getProperties().add(new ExDate(new DateList("20050105T090000Z",
+                Value.DATE_TIME)));
+        components.add(standup);
+        VEvent meeting = new VEvent(new DateTime("20050104T140000Z"), new Dur(0, 2, 0, 0),
+                "Progress Meeting");
+        meeting.getProperties().add(new RRule(new Recur("FREQ=WEEKLY;BYDAY=TU")));
+        components.add(meeting);
+        VEvent tentative = new VEvent(new DateTime("20050112T130000Z"),
+                new DateTime("20050112T170000Z"), "Tentative");
+        tentative.getProperties().add(Status.VEVENT_TENTATIVE);
+        components.add(tentative);
+        VEvent lunch = new VEvent(new DateTime("20050118T120000Z"),
+                new DateTime("20050118T150000Z"), "Lunch");
+        components.add(lunch);
+
+        FreeBusyIndex index = new FreeBusyIndex(components, new DateTime("20050101T000000Z"),
+                new DateTime("20050201T000000Z"));
+
+        java.util.Calendar cal = java.util.Calendar.getInstance(
+                java.util.TimeZone.getTimeZone("UTC"));
+        cal.setTime(index.getStart());
+        cal.add(java.util.Calendar.DATE, 2);
+        while (!cal.getTime().after(index.getEnd())) {
+            DateTime end = new DateTime(cal.getTime());
+            end.setUtc(true);
+            DateTime start = new DateTime(end.getTime() - 2 * 24 * 60 * 60 * 1000);
+            start.setUtc(true);
+
+            VFreeBusy busyRequest = new VFreeBusy(start, end);
+            assertEquals(new VFreeBusy(busyRequest, components).getProperties().getProperties(
+                    Property.FREEBUSY), new VFreeBusy(busyRequest, index).getProperties()
+                    .getProperties(Property.FREEBUSY));
+
+            VFreeBusy freeRequest = new VFreeBusy(start, end, new Dur(0, 1, 0, 0));
+            assertEquals(new VFreeBusy(freeRequest, components).getProperties().getProperties(
+                    Property.FREEBUSY), new VFreeBusy(freeRequest, index).getProperties()
+                    .getProperties(Property.FREEBUSY));
+
+            cal.add(java.util.Calendar.HOUR_OF_DAY, 7);
+        }
+
+        // the first instance of each recurring event is included..
+        PeriodList busyTime = index.getBusyTime(FbType.BUSY, index.getStart(), index.getEnd());
+        assertTrue(busyTime.contains(new Period(new DateTime("20050103T090000Z"),
+                new DateTime("20050103T091500Z"))));
+        assertTrue(busyTime.contains(new Period(new DateTime("20050104T140000Z"),
+                new DateTime("20050104T160000Z"))));
+
+        PeriodList tentativeTime = index.getBusyTime(FbType.BUSY_TENTATIVE,
+                index.getStart(), index.getEnd());
+        assertEquals(1, tentativeTime.size());
+        assertEquals(tentative.getConsumedTime(index.getStart(), index.getEnd()),
+                tentativeTime);
+        assertFalse(index.getBusyTime(FbType.BUSY, index.getStart(), index.getEnd())
+                .containsAll(tentativeTime));
+        assertTrue(index.getBusyTime(FbType.BUSY_UNAVAILABLE, index.getStart(),
+                index.getEnd()).isEmpty());
+    }
+
     /* (non-Javadoc)
      * @see net.fortuna.ical4j.model.ComponentTest#testIsCalendarComponent()
      */
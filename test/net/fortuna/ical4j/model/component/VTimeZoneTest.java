@@ -5,10 +5,23 @@
  */
 package net.fortuna.ical4j.model.component;
 
+import java.text.ParseException;
+import java.util.Iterator;
+import java.util.Random;
+
 import net.fortuna.ical4j.model.Calendar;
 import net.fortuna.ical4j.model.ComponentTest;
+import net.fortuna.ical4j.model.Date;
+import net.fortuna.ical4j.model.DateList;
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.Property;
+import net.fortuna.ical4j.model.PropertyList;
 import net.fortuna.ical4j.model.TimeZoneRegistry;
 import net.fortuna.ical4j.model.TimeZoneRegistryFactory;
+import net.fortuna.ical4j.model.parameter.Value;
+import net.fortuna.ical4j.model.property.DtStart;
+import net.fortuna.ical4j.model.property.RDate;
+import net.fortuna.ical4j.model.property.RRule;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -48,4 +61,78 @@ public class VTimeZoneTest extends ComponentTest {
     public void testIsCalendarComponent() {
         assertIsCalendarComponent(new VTimeZone());
     }
+
+    /**
+     * Compare the latest onsets of each observance with those calculated
+     * directly from the observance properties, for dates both within and
+     * beyond the range initially calculated.
+     * @throws ParseException
+     */
+    public void testGetLatestOnset() throws ParseException {
+        String[] ids = new String[] {"Australia/Melbourne", "America/New_York"};
+        for (int z = 0; z < ids.length; z++) {
+            assertLatestOnsets(registry.getTimeZone(ids[z]).getVTimeZone());
+        }
+    }
+
+    /**
+     * @param tz a timezone definition
+     * @throws ParseException
+     */
+    private void assertLatestOnsets(final VTimeZone tz) throws ParseException {
+        Random random = new Random(20050101);
+        for (int n = 0; n < 500; n++) {
+            // a date between 1890 and 2150..
+            DateTime date = new DateTime(-2524521600000l
+                    + (long) (random.nextDouble() * 8204860800000l));
+            if (n % 50 == 0) {
+                // the instant of an onset..
+                date = new DateTime("20081005T020000");
+            }
+            for (Iterator i = tz.getObservances().iterator(); i.hasNext();) {
+                Observance observance = (Observance) i.next();
+                assertEquals(observance.getName() + " " + date, getLatestOnset(observance, date),
+                        observance.getLatestOnset(date));
+            }
+        }
+    }
+
+    /**
+     * @param observance an observance
+     * @param date a date
+     * @return the latest onset of the observance calculated by expanding all
+     * dates from the observance start to beyond the specified date
+     */
+    private Date getLatestOnset(final Observance observance, final Date date) {
+        Date start = ((DtStart) observance.getProperties().getProperty(Property.DTSTART)).getDate();
+        if (date.before(start)) {
+            return null;
+        }
+        Date onset = start;
+        PropertyList rdates = observance.getProperties().getProperties(Property.RDATE);
+        for (Iterator i = rdates.iterator(); i.hasNext();) {
+            RDate rdate = (RDate) i.next();
+            for (Iterator j = rdate.getDates().iterator(); j.hasNext();) {
+                Date rdateOnset = (Date) j.next();
+                if (!rdateOnset.after(date) && rdateOnset.after(onset)) {
+                    onset = rdateOnset;
+                }
+            }
+        }
+        PropertyList rrules = observance.getProperties().getProperties(Property.RRULE);
+        for (Iterator i = rrules.iterator(); i.hasNext();) {
+            RRule rrule = (RRule) i.next();
+            // expand beyond the date, as the period containing the date may
+            // begin after it..
+            DateList dates = rrule.getRecur().getDates(start,
+                    new DateTime(date.getTime() + 400l * 24 * 60 * 60 * 1000), Value.DATE_TIME);
+            for (Iterator j = dates.iterator(); j.hasNext();) {
+                Date rruleOnset = (Date) j.next();
+                if (rruleOnset.before(date) && rruleOnset.after(onset)) {
+                    onset = rruleOnset;
+                }
+            }
+        }
+        return onset;
+    }
 }
@@ -42,8 +42,12 @@ import junit.framework.TestCase;
 import net.fortuna.ical4j.data.CalendarBuilder;
 import net.fortuna.ical4j.model.Calendar;
 import net.fortuna.ical4j.model.Component;
+import net.fortuna.ical4j.model.Date;
+import net.fortuna.ical4j.model.DateList;
+import net.fortuna.ical4j.model.DateTime;
 import net.fortuna.ical4j.model.Property;
 import net.fortuna.ical4j.model.PropertyList;
+import net.fortuna.ical4j.model.parameter.Value;
 
 /**
  * Unit tests for the ExDate property.
@@ -66,4 +70,33 @@ public class ExDateTest extends TestCase {
             assertNotNull("This EXDATE should have a timezone", exdate.getDates().getTimeZone());
         }
     }
+
+    /**
+     * Assert instances are excluded by both DATE-TIME and DATE values, and
+     * that the index of excluded times follows changes to the list.
+     * @throws Exception
+     */
+    public void testExcludes() throws Exception {
+        ExDate exdate = new ExDate(new DateList("20050105T090000Z,20050112T090000Z",
+                Value.DATE_TIME));
+        assertTrue(exdate.excludes(new DateTime("20050105T090000Z")));
+        assertFalse(exdate.excludes(new DateTime("20050105T100000Z")));
+        assertFalse(exdate.excludes(new DateTime("20050119T090000Z")));
+
+        exdate.getDates().add(new DateTime("20050119T090000Z"));
+        assertTrue(exdate.excludes(new DateTime("20050119T090000Z")));
+        exdate.getDates().remove(0);
+        assertFalse(exdate.excludes(new DateTime("20050105T090000Z")));
+        exdate.getDates().set(0, new DateTime("20050126T090000Z"));
+        assertFalse(exdate.excludes(new DateTime("20050112T090000Z")));
+        assertTrue(exdate.excludes(new DateTime("20050126T090000Z")));
+
+        // a DATE excludes all instances on the day..
+        Date day = new Date("20050105");
+        ExDate dateExdate = new ExDate(new DateList("20050105", Value.DATE));
+        assertTrue(dateExdate.excludes(day));
+        assertTrue(dateExdate.excludes(new DateTime(day.getTime())));
+        assertTrue(dateExdate.excludes(new DateTime(day.getTime() + 9 * 60 * 60 * 1000)));
+        assertFalse(dateExdate.excludes(new DateTime(day.getTime() + 24 * 60 * 60 * 1000)));
+    }
 }
@@ -0,0 +1,167 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2007, Ben Fortuna
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  o Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Ben Fortuna nor the names of any other contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.fortuna.ical4j.util;
+
+import junit.framework.TestCase;
+import net.fortuna.ical4j.model.Immutable;
+import net.fortuna.ical4j.model.ParameterList;
+import net.fortuna.ical4j.model.Property;
+import net.fortuna.ical4j.model.ValidationException;
+import net.fortuna.ical4j.model.parameter.Language;
+import net.fortuna.ical4j.model.property.Action;
+import net.fortuna.ical4j.model.property.Priority;
+import net.fortuna.ical4j.model.property.Status;
+import net.fortuna.ical4j.model.property.Summary;
+import net.fortuna.ical4j.model.property.XProperty;
+
+/**
+ * Unit tests for {@link Constants}.
+ */
+public class ConstantsTest extends TestCase {
+
+    private static final Property BUSY = new ImmutableXProperty(
+            "X-MICROSOFT-CDO-BUSYSTATUS", "BUSY");
+
+    /**
+     * Assert that constants are returned in place of equivalent properties.
+     */
+    public void testForProperty() {
+        assertSame(Action.AUDIO, Constants.forProperty(new Action("AUDIO")));
+        assertSame(Priority.HIGH, Constants.forProperty(new Priority(1)));
+        // the first of equivalent constants is returned..
+        assertSame(Status.VEVENT_CANCELLED, Constants.forProperty(new Status("CANCELLED")));
+
+        Action action = new Action("X-VIBRATE");
+        assertSame(action, Constants.forProperty(action));
+
+        // parameters must also match..
+        ParameterList parameters = new ParameterList();
+        parameters.add(new Language("en"));
+        action = new Action(parameters, "AUDIO");
+        assertSame(action, Constants.forProperty(action));
+
+        Summary summary = new Summary("AUDIO");
+        assertSame(summary, Constants.forProperty(summary));
+    }
+
+    /**
+     * Assert that registered constants are returned in place of equivalent
+     * properties.
+     */
+    public void testRegister() {
+        XProperty property = new XProperty("X-MICROSOFT-CDO-BUSYSTATUS", "BUSY");
+        assertSame(property, Constants.forProperty(property));
+
+        Constants.register(BUSY);
+        assertSame(BUSY, Constants.forProperty(property));
+        assertSame(BUSY, Constants.forProperty(BUSY));
+        // existing constants are unaffected..
+        assertSame(Action.AUDIO, Constants.forProperty(new Action("AUDIO")));
+
+        assertTrue(Constants.unregister(BUSY));
+        assertSame(property, Constants.forProperty(property));
+        assertFalse(Constants.unregister(BUSY));
+    }
+
+    /**
+     * Assert that modifiable properties can't be registered as constants.
+     */
+    public void testRegisterModifiable() {
+        XProperty property = new XProperty("X-MICROSOFT-CDO-BUSYSTATUS", "BUSY");
+        try {
+            Constants.register(property);
+            fail("Should throw IllegalArgumentException");
+        }
+        catch (IllegalArgumentException iae) {
+            XProperty equivalent = new XProperty("X-MICROSOFT-CDO-BUSYSTATUS", "BUSY");
+            assertSame(equivalent, Constants.forProperty(equivalent));
+        }
+        assertEquals("BUSY", property.getValue());
+
+        property = new XProperty("X-MICROSOFT-CDO-BUSYSTATUS", new ParameterList(true), "BUSY");
+        try {
+            Constants.register(property);
+            fail("Should throw IllegalArgumentException");
+        }
+        catch (IllegalArgumentException iae) {
+            assertFalse(Constants.unregister(property));
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see junit.framework.TestCase#tearDown()
+     */
+    protected final void tearDown() throws Exception {
+        Constants.unregister(BUSY);
+    }
+
+    /**
+     * An immutable experimental property.
+     */
+    private static final class ImmutableXProperty extends Property implements Immutable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String value;
+
+        /**
+         * @param name the property name
+         * @param value the property value
+         */
+        private ImmutableXProperty(final String name, final String value) {
+            super(name, new ParameterList(true));
+            this.value = value;
+        }
+
+        /* (non-Javadoc)
+         * @see net.fortuna.ical4j.model.Property#getValue()
+         */
+        public String getValue() {
+            return value;
+        }
+
+        /* (non-Javadoc)
+         * @see net.fortuna.ical4j.model.Property#setValue(java.lang.String)
+         */
+        public void setValue(final String aValue) {
+            throw new UnsupportedOperationException("Cannot modify constant instances");
+        }
+
+        /* (non-Javadoc)
+         * @see net.fortuna.ical4j.model.Property#validate()
+         */
+        public void validate() throws ValidationException {
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2007, Ben Fortuna
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  o Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Ben Fortuna nor the names of any other contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.fortuna.ical4j.util;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for {@link Iso8601Format}.
+ */
+public class Iso8601FormatTest extends TestCase {
+
+    private static final String[] PATTERNS = new String[] {"yyyyMMdd",
+        "yyyyMMdd'T'HHmmss", "yyyyMMdd'T'HHmmss'Z'", "HHmmss", "HHmmss'Z'"};
+
+    private static final String[] TIMEZONES = new String[] {TimeZones.UTC_ID,
+        "Australia/Melbourne", "America/New_York", "Europe/London",
+        "America/St_Johns", "Australia/Lord_Howe"};
+
+    /**
+     * Ensure dates are formatted and parsed consistently with
+     * <code>SimpleDateFormat</code>, including times around timezone
+     * transitions.
+     */
+    public final void testConsistentWithSimpleDateFormat() throws Exception {
+        for (int i = 0; i < TIMEZONES.length; i++) {
+            TimeZone timezone = TimeZone.getTimeZone(TIMEZONES[i]);
+            for (int j = 0; j < PATTERNS.length; j++) {
+                DateFormat expected = new SimpleDateFormat(PATTERNS[j]);
+                expected.setTimeZone(timezone);
+                // half-hourly for a year, and every few days over five centuries..
+                for (long time = 1167609600000L; time < 1199145600000L; time += 1800000) {
+                    assertConsistent(expected, j, timezone, time);
+                }
+                for (long time = -14000000000000L; time < 2000000000000L; time += 259198000L) {
+                    assertConsistent(expected, j, timezone, time);
+                }
+            }
+        }
+    }
+
+    /**
+     * Ensure field values are interpreted leniently.
+     */
+    public final void testParseLenient() throws ParseException {
+        TimeZone utc = TimeZone.getTimeZone(TimeZones.UTC_ID);
+        assertEquals(Iso8601Format.parse("20070302", Iso8601Format.DATE, utc),
+                Iso8601Format.parse("20070230", Iso8601Format.DATE, utc));
+        assertEquals(Iso8601Format.parse("20080101T000000", Iso8601Format.DATE_TIME, utc),
+                Iso8601Format.parse("20071231T240000", Iso8601Format.DATE_TIME, utc));
+        // trailing characters are ignored..
+        assertEquals(Iso8601Format.parse("20070101", Iso8601Format.DATE, utc),
+                Iso8601Format.parse("20070101T090000Z", Iso8601Format.DATE, utc));
+    }
+
+    /**
+     * Ensure invalid values are not parsed.
+     */
+    public final void testParseInvalid() {
+        TimeZone utc = TimeZone.getTimeZone(TimeZones.UTC_ID);
+        assertFalse(Iso8601Format.isValid("20070101T090000", Iso8601Format.UTC_DATE_TIME));
+        assertFalse(Iso8601Format.isValid("2007-01-01", Iso8601Format.DATE));
+        assertFalse(Iso8601Format.isValid("20070101 090000", Iso8601Format.DATE_TIME));
+        assertFalse(Iso8601Format.isValid("200701", Iso8601Format.DATE));
+        try {
+            Iso8601Format.parse("20070101T0900", Iso8601Format.DATE_TIME, utc);
+            fail("Should throw ParseException");
+        }
+        catch (ParseException pe) {
+            assertEquals("Unparseable date: \"20070101T0900\"", pe.getMessage());
+        }
+    }
+
+    /**
+     * @param expected a format providing expected results
+     * @param form the form under test
+     * @param timezone the timezone under test
+     * @param time a time to format and parse
+     */
+    private void assertConsistent(final DateFormat expected, final int form,
+            final TimeZone timezone, final long time) throws ParseException {
+
+        String value = expected.format(new Date(time));
+        StringBuffer b = new StringBuffer();
+        Iso8601Format.format(time, form, timezone, b);
+        assertEquals(value, b.toString());
+        assertEquals(value, expected.parse(value).getTime(),
+                Iso8601Format.parse(value, form, timezone));
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2007, Ben Fortuna
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  o Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ *  o Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ *  o Neither the name of Ben Fortuna nor the names of any other contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.fortuna.ical4j.util;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for {@link NameTable}.
+ */
+public class NameTableTest extends TestCase {
+
+    /**
+     * Assert that names are looked up ignoring case.
+     */
+    public void testGet() {
+        NameTable table = NameTable.EMPTY.put("DTSTART", "dtstart").put("X-WR-CALNAME", "calname");
+        assertEquals(2, table.size());
+        assertEquals("dtstart", table.get("DTSTART"));
+        assertEquals("dtstart", table.get("DtStart"));
+        assertEquals("calname", table.get("x-wr-calname"));
+        assertNull(table.get("DTEND"));
+        assertNull(table.get("DTSTAR"));
+        assertNull(NameTable.EMPTY.get("DTSTART"));
+
+        char[] chars = "DTEND;dtstart:".toCharArray();
+        assertNull(table.get(chars, 0, 5));
+        assertEquals("dtstart", table.get(chars, 6, 7));
+        assertEquals("DTSTART", table.getName(chars, 6, 7));
+        assertNull(table.getName(chars, 6, 6));
+        assertEquals("DTSTART", table.getName("dtStart"));
+        assertNull(table.getName("DTEND"));
+    }
+
+    /**
+     * Assert that tables are unmodified by adding names.
+     */
+    public void testPut() {
+        NameTable table = NameTable.EMPTY;
+        for (int i = 0; i < 100; i++) {
+            NameTable next = table.put("X-NAME-" + i, new Integer(i));
+            assertNull(table.get("X-NAME-" + i));
+            table = next;
+        }
+        assertEquals(100, table.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(new Integer(i), table.get("x-name-" + i));
+        }
+        // existing names are replaced..
+        table = table.put("x-name-0", "replaced");
+        assertEquals(100, table.size());
+        assertEquals("replaced", table.get("X-NAME-0"));
+        assertEquals(0, NameTable.EMPTY.size());
+    }
+
+    /**
+     * Assert that tables are unmodified by removing names.
+     */
+    public void testRemove() {
+        NameTable table = NameTable.EMPTY.put("DTSTART", "dtstart").put("DTEND", "dtend");
+        NameTable removed = table.remove("dtStart");
+        assertEquals(1, removed.size());
+        assertNull(removed.get("DTSTART"));
+        assertEquals("dtend", removed.get("DTEND"));
+        assertEquals("dtstart", table.get("DTSTART"));
+        assertSame(removed, removed.remove("DTSTART"));
+        assertEquals(0, removed.remove("DTEND").size());
+    }
+}